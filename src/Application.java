@@ -6,6 +6,7 @@
 import legv8.instructions.*;
 import legv8.simulator.SimulatorEngine;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 import legv8.gui.*;
 import legv8.core.*;
 
@@ -62,19 +63,9 @@ public class Application extends JFrame implements ActionListener {
         setLocationRelativeTo(null);    // Center the window
         setLayout(new BorderLayout(10, 10));
 
-        // Set custom fonts for title and buttons
-        try {
-            titleFont = Font.createFont(Font.TRUETYPE_FONT, new File("./resources/fonts/roboto-bold.ttf")).deriveFont(Font.BOLD, 20);
-        } catch (Exception e) {
-            System.err.println(ColoredLog.WARNING + "Could not load custom font. Using default.");
-            titleFont = new Font("Monospaced", Font.BOLD, 25);
-        }
-        try {
-            buttonFont = Font.createFont(Font.TRUETYPE_FONT, new File("./resources/fonts/roboto-regular.ttf")).deriveFont(Font.PLAIN, 16);
-        } catch (Exception e) {
-            System.err.println(ColoredLog.WARNING + "Could not load custom font. Using default.");
-            buttonFont = new Font("Monospaced", Font.PLAIN, 16);
-        }
+        // Set custom fonts for title and buttons (shared with the simulation views)
+        titleFont = AssetRegistry.getFont(AssetRegistry.FONT_BOLD, Font.BOLD, 20, new Font("Monospaced", Font.BOLD, 25));
+        buttonFont = AssetRegistry.getFont(AssetRegistry.FONT_REGULAR, Font.PLAIN, 16, new Font("Monospaced", Font.PLAIN, 16));
     
         // Initialize core logic objects
         configLoader = new InstructionConfigLoader();
@@ -311,9 +302,14 @@ public class Application extends JFrame implements ActionListener {
     /**
      * Main entry point for the LEGv8 Simulator application.
      * Sets the system look and feel and launches the Application window on the EDT.
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments ("-debug" enables the full colored per-instruction console trace).
      */
     public static void main(String[] args) {
+        if (List.of(args).contains("-debug")) Log.setDebugMode(true);
+
+        // Load the fonts and datapath images in the background while the main window opens
+        DatapathCanvas.preloadAssets();
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
@@ -99,7 +99,7 @@
 //         ControlUnit controlUnit = new ControlUnit(configLoader);
 //         for (Instruction instruction : imem.getInstructions()) {
             
-//             controlUnit.decode(instruction.getBytecode());
+//             controlUnit.decode(instruction.getMachineCode());
 //         }
 
         
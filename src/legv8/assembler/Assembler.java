@@ -15,20 +15,32 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
 
 /**
  * A two-pass assembler for a subset of LEGv8 assembly language.
  * Pass 1 builds a symbol table mapping labels to memory addresses.
  * Pass 2 uses the symbol table and an InstructionFactory to generate
  * the corresponding Instruction objects.
+ * An Assembler built with its own {@link InstructionFactory} depends on no shared state, so separate
+ * Assembler instances can run on different threads at once; one built without a factory uses
+ * {@link InstructionFactory#getDefault()}.
  */
 public class Assembler {
+    /** Programs with at least this many instructions are encoded in parallel in Pass 2. */
+    public static final int PARALLEL_THRESHOLD = 4096;
+
     // --- State ---
     private final Map<String, Long> symbolTable; 
     private final List<String> processedLines; 
     private final List<Integer> processedLineNumbers;
+    // Index of each processed line's first character in its raw line (to report raw-line columns)
+    private final List<Integer> processedLineOffsets;
     private final List<String> errors;
     private final long baseAddress;
+    // The factory used in Pass 2 (null: the default factory)
+    private final InstructionFactory factory;
 
     
     // --- Constructors ---
@@ -46,10 +58,29 @@ public class Assembler {
      * @param baseAddress The starting memory address for the first instruction.
      */
     public Assembler(long baseAddress) {
+        this(baseAddress, null);
+    }
+
+    /**
+     * Constructs an Assembler that assembles with the given factory, starting at the default base address.
+     * @param factory The factory to assemble with. Must not be null.
+     */
+    public Assembler(InstructionFactory factory) {
+        this(ProgramCounter.BASE_ADDRESS, Objects.requireNonNull(factory, "InstructionFactory cannot be null."));
+    }
+
+    /**
+     * Constructs an Assembler that assembles with the given factory, starting at the given address.
+     * @param baseAddress The starting memory address for the first instruction.
+     * @param factory The factory to assemble with, or null to use the default factory.
+     */
+    public Assembler(long baseAddress, InstructionFactory factory) {
         this.baseAddress = baseAddress;
+        this.factory = factory;
         this.symbolTable = new HashMap<>();
         this.processedLines = new ArrayList<>();
         this.processedLineNumbers = new ArrayList<>();
+        this.processedLineOffsets = new ArrayList<>();
         this.errors = new ArrayList<>();
 
         System.out.println(ColoredLog.INFO + "Assembler initialized with base address: 0x" + Long.toHexString(baseAddress));
@@ -66,6 +97,7 @@ public class Assembler {
         symbolTable.clear();
         processedLines.clear();
         processedLineNumbers.clear();
+        processedLineOffsets.clear();
         errors.clear();
     }
 
@@ -110,6 +142,31 @@ public class Assembler {
         return assembledInstructions;
     }
 
+    /**
+     * Returns the symbol table built by the last assembly.
+     * @return An unmodifiable copy of the label-to-address map.
+     */
+    public Map<String, Long> getSymbolTable() {
+        return Map.copyOf(symbolTable);
+    }
+
+    /**
+     * Returns the source line of every instruction produced by the last assembly.
+     * @return The 1-based source line numbers, indexed like the assembled instruction list.
+     */
+    public int[] getLineNumbers() {
+        int[] lineNumbers = new int[processedLineNumbers.size()];
+        for (int i = 0; i < lineNumbers.length; i++) lineNumbers[i] = processedLineNumbers.get(i);
+        return lineNumbers;
+    }
+
+    /**
+     * @return The address of the first instruction.
+     */
+    public long getBaseAddress() {
+        return baseAddress;
+    }
+
     /**
      * Retrieves a list of error messages encountered during the assembly process.
      * @return A List of strings, each representing an error message.
@@ -137,6 +194,7 @@ public class Assembler {
             String processed = preprocessLine(line);
             
             if (processed.isEmpty()) continue;
+            int offset = leadingSpaces(line, 0);
 
             int colonIndex = processed.indexOf(':');
             if (colonIndex >= 0) {
@@ -148,6 +206,7 @@ public class Assembler {
 
                 symbolTable.put(label, currentAddress);
 
+                offset = leadingSpaces(line, offset + colonIndex + 1);
                 processed = processed.substring(colonIndex + 1).trim();
                 if (processed.indexOf(':') >= 0) {
                     throw new AssemblyException(formatError(lineNumber, "Unexpected ':' after label '" + label + "'", line));
@@ -157,6 +216,7 @@ public class Assembler {
             if (!processed.isEmpty()) {
                 processedLines.add(processed);
                 processedLineNumbers.add(lineNumber);
+                processedLineOffsets.add(offset);
                 currentAddress += 4;
             }
         }
@@ -169,32 +229,58 @@ public class Assembler {
      * Performs the second pass of assembly. Iterates through the preprocessed lines
      * (stored during Pass 1), uses the InstructionFactory and the symbol table
      * to generate the bytecode (Instruction object) for each line.
-     * Records errors encountered during instruction creation.
+     * Each line only depends on the frozen symbol table and its own address, so programs of at least
+     * {@link #PARALLEL_THRESHOLD} lines are encoded in parallel. Results are collected by index,
+     * so the instructions and the recorded errors are always in source order.
      * @return A list of generated Instruction objects.
      */
     private List<Instruction> generateInstructions() {
-        List<Instruction> instructions = new ArrayList<>();
-        long currentAddress = this.baseAddress;
-        int processedLineIndex = 0;
+        int lineCount = processedLines.size();
+        InstructionFactory lineFactory;
+        try {
+            lineFactory = (factory != null) ? factory : InstructionFactory.getDefault();
+        } catch (IllegalStateException e) {
+            for (int i = 0; i < lineCount; i++) addError(processedLineNumbers.get(i), AssemblyException.UNKNOWN_COLUMN, e.getMessage(), processedLines.get(i));
+            return new ArrayList<>();
+        }
 
-        for (String line : processedLines) {
-            int sourceLineNumber = processedLineNumbers.get(processedLineIndex++);
-            
-            try {    
-                Instruction instruction = InstructionFactory.createFromAssembly(line, symbolTable, currentAddress);
+        // Each slot holds the line's Instruction, or the exception it failed with
+        Object[] results = new Object[lineCount];
+        IntStream indexes = IntStream.range(0, lineCount);
+        if (lineCount >= PARALLEL_THRESHOLD) indexes = indexes.parallel();
+        indexes.forEach(i -> results[i] = encodeLine(lineFactory, processedLines.get(i), baseAddress + 4L * i));
+
+        List<Instruction> instructions = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            if (results[i] instanceof Instruction instruction) {
                 instructions.add(instruction);
-            } catch (AssemblyException | IllegalArgumentException | IllegalStateException e) {    
-                addError(sourceLineNumber, e.getMessage(), line);
-            } catch (Exception e) {
-                addError(sourceLineNumber, "Unexpected error: " + e.getMessage(), line);
-                e.printStackTrace(); 
-            } finally {
-                currentAddress += 4; 
+            } else {
+                RuntimeException e = (RuntimeException) results[i];
+                int column = (e instanceof AssemblyException ae && ae.getColumn() > 0)
+                    ? processedLineOffsets.get(i) + ae.getColumn() : AssemblyException.UNKNOWN_COLUMN;
+                String message = (e instanceof AssemblyException || e instanceof IllegalArgumentException || e instanceof IllegalStateException)
+                    ? e.getMessage() : "Unexpected error: " + e.getMessage();
+                addError(processedLineNumbers.get(i), column, message, processedLines.get(i));
             }
         }
         return instructions;
     }
 
+    /**
+     * Encodes one processed line.
+     * @return The Instruction, or the exception if the line does not assemble.
+     */
+    private Object encodeLine(InstructionFactory lineFactory, String line, long address) {
+        try {
+            return lineFactory.assemble(line, symbolTable, address);
+        } catch (AssemblyException | IllegalArgumentException | IllegalStateException e) {
+            return e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return e;
+        }
+    }
+
 
     // --- Helper Methods ---
 
@@ -203,19 +289,30 @@ public class Assembler {
      * @param line The raw line of assembly code.
      * @return The preprocessed line with comments removed and leading/trailing whitespace trimmed.
      */
-    private String preprocessLine(String line) {
+    static String preprocessLine(String line) {
         int commentIndex = line.indexOf("//");
         if (commentIndex != -1) line = line.substring(0, commentIndex);
         return line.trim();
     }
 
+    /**
+     * Skips whitespace (the characters removed by String.trim()) in a raw line.
+     * @param line The raw line.
+     * @param from The index to start at.
+     * @return The index of the first non-whitespace character at or after from.
+     */
+    static int leadingSpaces(String line, int from) {
+        while (from < line.length() && line.charAt(from) <= ' ') from++;
+        return from;
+    }
+
     /**
      * Checks if a given string is a valid label name according to simple rules
      * (starts with letter or underscore, contains letters, digits, or underscores).
      * @param label The potential label name to validate.
      * @return true if the label is valid, false otherwise.
      */
-    private boolean isValidLabel(String label) {
+    static boolean isValidLabel(String label) {
         if (label == null || label.isEmpty()) return false;
         
         if (!Character.isLetter(label.charAt(0)) && label.charAt(0) != '_') return false;
@@ -236,7 +333,20 @@ public class Assembler {
      * @return A formatted error string.
      */
     private String formatError(int lineNumber, String message, String lineContent) {
-        return String.format("AsmError (Line ~%d): %s [Code: '%s']", lineNumber, message, lineContent);
+        return formatError(lineNumber, AssemblyException.UNKNOWN_COLUMN, message, lineContent);
+    }
+
+    /**
+     * Formats an error message including the approximate line number, the column (if known) and the code content.
+     * @param lineNumber The approximate line number where the error occurred.
+     * @param column The 1-based column in the raw line, or {@link AssemblyException#UNKNOWN_COLUMN}.
+     * @param message The specific error description.
+     * @param lineContent The content of the line causing the error.
+     * @return A formatted error string.
+     */
+    private String formatError(int lineNumber, int column, String message, String lineContent) {
+        if (column <= 0) return String.format("AsmError (Line ~%d): %s [Code: '%s']", lineNumber, message, lineContent);
+        return String.format("AsmError (Line ~%d, Col %d): %s [Code: '%s']", lineNumber, column, message, lineContent);
     }
 
     /**
@@ -246,7 +356,18 @@ public class Assembler {
      * @param lineContent The relevant line content.
      */
     private void addError(int lineNumber, String message, String lineContent) {
-        String formattedError = formatError(lineNumber, message, lineContent);
+        addError(lineNumber, AssemblyException.UNKNOWN_COLUMN, message, lineContent);
+    }
+
+    /**
+     * Adds a formatted error message with a column to the internal error list and prints it to System.err.
+     * @param lineNumber The approximate line number.
+     * @param column The 1-based column in the raw line, or {@link AssemblyException#UNKNOWN_COLUMN}.
+     * @param message The error message.
+     * @param lineContent The relevant line content.
+     */
+    private void addError(int lineNumber, int column, String message, String lineContent) {
+        String formattedError = formatError(lineNumber, column, message, lineContent);
         errors.add(formattedError);
 
         System.err.println(ColoredLog.ERROR + formattedError); 
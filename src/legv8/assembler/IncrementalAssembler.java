@@ -0,0 +1,374 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.assembler;
+
+import legv8.core.ProgramCounter;
+import legv8.exceptions.AssemblyException;
+import legv8.instructions.Instruction;
+import legv8.instructions.InstructionFactory;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An assembler that keeps the encoding of every source line between edits, for editors that re-assemble
+ * as the user types.
+ * Each {@link #update} diffs the new source against the previous one and re-encodes only the lines that
+ * changed, plus the branches whose label offset changed (found through a label dependency index built from
+ * the labels each line actually looked up). Everything else reuses its previous encoding.
+ * The result is the same as {@link Assembler#assemble} on the same source, but errors are collected as
+ * per-line {@link Diagnostic}s instead of being thrown.
+ * An IncrementalAssembler is not thread-safe; it is meant to be confined to one worker thread.
+ */
+public class IncrementalAssembler {
+
+    /**
+     * An assembly error attached to a source line.
+     * @param lineNumber The 1-based source line number.
+     * @param column The 1-based column in the source line, or {@link AssemblyException#UNKNOWN_COLUMN}.
+     * @param message The error message.
+     */
+    public record Diagnostic(int lineNumber, int column, String message) {
+        @Override
+        public String toString() {
+            if (column <= 0) return String.format("AsmError (Line ~%d): %s", lineNumber, message);
+            return String.format("AsmError (Line ~%d, Col %d): %s", lineNumber, column, message);
+        }
+    }
+
+    /** The state of one source line. */
+    private static final class Line {
+        final String raw;
+        // Label defined on this line, or null
+        String label;
+        // Instruction text (comment and label removed), or null if the line has none
+        String code;
+        // Index of the instruction text in the raw line
+        int codeOffset;
+        // Pass-1 error (invalid or malformed label), or null
+        String labelError;
+        // true if the label is already defined on an earlier line
+        boolean duplicateLabel;
+        // Address of the instruction (meaningful when code != null)
+        long address = -1;
+
+        // --- Encoding ---
+        boolean encoded;
+        Instruction instruction;
+        RuntimeException error;
+        // Label looked up while encoding, or null
+        String labelRef;
+        // Address the label had when encoded (null: undefined)
+        Long encodedTarget;
+        long encodedAddress;
+
+        Line(String raw) {
+            this.raw = raw;
+        }
+    }
+
+    // --- State ---
+    private final long baseAddress;
+    private final List<Line> lines = new ArrayList<>();
+    private Map<String, Long> symbolTable = new HashMap<>();
+    // Label dependency index: label -> lines whose encoding looked it up
+    private final Map<String, Set<Line>> labelReferences = new HashMap<>();
+    // The factory the current encodings were made with
+    private InstructionFactory factory;
+
+    private List<Diagnostic> diagnostics = List.of();
+    private int lastEncodedCount;
+
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an IncrementalAssembler using the default base address defined in ProgramCounter.
+     */
+    public IncrementalAssembler() {
+        this(ProgramCounter.BASE_ADDRESS);
+    }
+
+    /**
+     * Constructs an IncrementalAssembler whose first instruction is at the given address.
+     * @param baseAddress The starting memory address for the first instruction.
+     */
+    public IncrementalAssembler(long baseAddress) {
+        this.baseAddress = baseAddress;
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * Brings the encodings up to date with a new version of the source.
+     * A different factory than the previous update's (e.g. after a configuration reload) re-encodes every line.
+     * @param sourceLines The complete source, one string per line.
+     * @param factory The factory to assemble with. Must not be null.
+     * @return The diagnostics of the new source (empty if it assembles).
+     */
+    public List<Diagnostic> update(List<String> sourceLines, InstructionFactory factory) {
+        Objects.requireNonNull(sourceLines, "Source lines cannot be null.");
+        Objects.requireNonNull(factory, "InstructionFactory cannot be null.");
+
+        boolean full = (factory != this.factory);
+        this.factory = factory;
+        lastEncodedCount = 0;
+
+        List<Line> dirty = replaceChangedLines(sourceLines);
+        List<Line> movedReferrers = new ArrayList<>();
+        Set<String> movedLabels = rebuildSymbolTable(movedReferrers);
+
+        for (Line line : full ? lines : dirty) encode(line);
+        for (String label : movedLabels) {
+            Set<Line> referrers = labelReferences.get(label);
+            if (referrers == null) continue;
+            for (Line line : new ArrayList<>(referrers)) {
+                if (targetMoved(line)) encode(line);
+            }
+        }
+        for (Line line : movedReferrers) {
+            if (targetMoved(line)) encode(line);
+        }
+
+        diagnostics = collectDiagnostics();
+        return diagnostics;
+    }
+
+    /**
+     * @return The diagnostics of the last update (unmodifiable).
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return true if the last update found no errors.
+     */
+    public boolean isValid() {
+        return diagnostics.isEmpty();
+    }
+
+    /**
+     * Returns the program of the last update, as {@link Assembler#assemble} would produce it.
+     * @return The instructions in program order, or an empty list if the source has errors.
+     */
+    public List<Instruction> getInstructions() {
+        if (!diagnostics.isEmpty()) return List.of();
+        List<Instruction> instructions = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.code != null) instructions.add(line.instruction);
+        }
+        return instructions;
+    }
+
+    /**
+     * @return The number of lines encoded by the last update.
+     */
+    public int getLastEncodedCount() {
+        return lastEncodedCount;
+    }
+
+
+    // --- Update Steps ---
+
+    /**
+     * Replaces the lines between the unchanged prefix and suffix of the source with new, unencoded lines.
+     * @return The new lines.
+     */
+    private List<Line> replaceChangedLines(List<String> sourceLines) {
+        int oldSize = lines.size();
+        int newSize = sourceLines.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && lines.get(prefix).raw.equals(sourceLines.get(prefix))) prefix++;
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && lines.get(oldSize - 1 - suffix).raw.equals(sourceLines.get(newSize - 1 - suffix))) suffix++;
+
+        List<Line> removed = lines.subList(prefix, oldSize - suffix);
+        for (Line line : removed) unindex(line);
+        removed.clear();
+
+        List<Line> added = new ArrayList<>(newSize - prefix - suffix);
+        for (int i = prefix; i < newSize - suffix; i++) added.add(parse(sourceLines.get(i)));
+        lines.addAll(prefix, added);
+        return added;
+    }
+
+    /**
+     * Splits a raw line into its label and instruction text (the first pass of {@link Assembler}).
+     */
+    private static Line parse(String raw) {
+        Line line = new Line(raw);
+        String processed = Assembler.preprocessLine(raw);
+        if (processed.isEmpty()) return line;
+        int offset = Assembler.leadingSpaces(raw, 0);
+
+        int colonIndex = processed.indexOf(':');
+        if (colonIndex >= 0) {
+            String label = processed.substring(0, colonIndex).trim();
+            if (!Assembler.isValidLabel(label)) {
+                line.labelError = "Invalid label name: '" + label + "'";
+                return line;
+            }
+            line.label = label;
+
+            offset = Assembler.leadingSpaces(raw, offset + colonIndex + 1);
+            processed = processed.substring(colonIndex + 1).trim();
+            if (processed.indexOf(':') >= 0) {
+                line.labelError = "Unexpected ':' after label '" + label + "'";
+                return line;
+            }
+        }
+
+        if (!processed.isEmpty()) {
+            line.code = processed;
+            line.codeOffset = offset;
+        }
+        return line;
+    }
+
+    /**
+     * Recomputes every address and the symbol table (the first definition of a label wins, as in {@link Assembler}).
+     * @param movedReferrers Receives the label-referencing lines whose own address changed.
+     * @return The labels that were added, removed or moved.
+     */
+    private Set<String> rebuildSymbolTable(List<Line> movedReferrers) {
+        Map<String, Long> symbols = new HashMap<>();
+        long address = baseAddress;
+        for (Line line : lines) {
+            if (line.label != null) {
+                line.duplicateLabel = symbols.containsKey(line.label);
+                if (!line.duplicateLabel) symbols.put(line.label, address);
+            }
+            if (line.code != null) {
+                if (line.address != address && line.labelRef != null) movedReferrers.add(line);
+                line.address = address;
+                address += 4;
+            }
+        }
+
+        Set<String> moved = new HashSet<>();
+        for (Map.Entry<String, Long> entry : symbols.entrySet()) {
+            if (!entry.getValue().equals(symbolTable.get(entry.getKey()))) moved.add(entry.getKey());
+        }
+        for (String label : symbolTable.keySet()) {
+            if (!symbols.containsKey(label)) moved.add(label);
+        }
+        symbolTable = symbols;
+        return moved;
+    }
+
+    /**
+     * @return true if the branch offset of a label-referencing line differs from its encoding.
+     */
+    private boolean targetMoved(Line line) {
+        if (!line.encoded || line.labelRef == null) return false;
+        Long target = symbolTable.get(line.labelRef);
+        if (target == null || line.encodedTarget == null) return !Objects.equals(target, line.encodedTarget);
+        return (target - line.address) != (line.encodedTarget - line.encodedAddress);
+    }
+
+    /**
+     * Encodes one line, recording which label it looked up in the dependency index.
+     */
+    private void encode(Line line) {
+        unindex(line);
+        line.encoded = true;
+        line.instruction = null;
+        line.error = null;
+        line.labelRef = null;
+        line.encodedTarget = null;
+        line.encodedAddress = line.address;
+        if (line.code == null) return;
+
+        lastEncodedCount++;
+        RecordingSymbols symbols = new RecordingSymbols(symbolTable);
+        try {
+            line.instruction = factory.assemble(line.code, symbols, line.address);
+        } catch (AssemblyException | IllegalArgumentException | IllegalStateException e) {
+            line.error = e;
+        }
+
+        if (symbols.lookedUp != null) {
+            line.labelRef = symbols.lookedUp;
+            line.encodedTarget = symbolTable.get(symbols.lookedUp);
+            labelReferences.computeIfAbsent(symbols.lookedUp, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(line);
+        }
+    }
+
+    /**
+     * Removes a line from the label dependency index.
+     */
+    private void unindex(Line line) {
+        if (line.labelRef == null) return;
+        Set<Line> referrers = labelReferences.get(line.labelRef);
+        if (referrers != null) {
+            referrers.remove(line);
+            if (referrers.isEmpty()) labelReferences.remove(line.labelRef);
+        }
+    }
+
+    /**
+     * @return The diagnostics of all lines, in source order.
+     */
+    private List<Diagnostic> collectDiagnostics() {
+        List<Diagnostic> found = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            if (line.labelError != null) {
+                found.add(new Diagnostic(i + 1, AssemblyException.UNKNOWN_COLUMN, line.labelError));
+            } else if (line.duplicateLabel) {
+                found.add(new Diagnostic(i + 1, AssemblyException.UNKNOWN_COLUMN, "Duplicate label definition: '" + line.label + "'"));
+            } else if (line.error != null) {
+                int column = (line.error instanceof AssemblyException ae && ae.getColumn() > 0)
+                    ? line.codeOffset + ae.getColumn() : AssemblyException.UNKNOWN_COLUMN;
+                found.add(new Diagnostic(i + 1, column, line.error.getMessage()));
+            }
+        }
+        return List.copyOf(found);
+    }
+
+
+    // --- Helper Classes ---
+
+    /**
+     * A read-only view of the symbol table that remembers the label looked up through it.
+     */
+    private static final class RecordingSymbols extends AbstractMap<String, Long> {
+        private final Map<String, Long> symbols;
+        private String lookedUp;
+
+        RecordingSymbols(Map<String, Long> symbols) {
+            this.symbols = symbols;
+        }
+
+        @Override
+        public Long get(Object key) {
+            if (key instanceof String label) lookedUp = label;
+            return symbols.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (key instanceof String label) lookedUp = label;
+            return symbols.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Long>> entrySet() {
+            return Collections.unmodifiableMap(symbols).entrySet();
+        }
+    }
+}
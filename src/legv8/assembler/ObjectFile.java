@@ -0,0 +1,299 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.assembler;
+
+import legv8.core.ProgramCounter;
+import legv8.exceptions.InvalidInstructionException;
+import legv8.exceptions.ObjectFileException;
+import legv8.instructions.Instruction;
+import legv8.instructions.InstructionFactory;
+import legv8.instructions.InstructionSet;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An assembled LEGv8 program in binary form: the raw 32-bit machine words, the symbol table, and the source
+ * line of every word, stamped with the hash of the instruction configuration it was assembled with.
+ * Object files are read with {@link FileChannel#map}, so loading costs a header check, not a decode; the words
+ * stay in the mapping and are decoded lazily by {@link legv8.core.InstructionMemory#loadMachineWords}.
+ * Plain raw binaries (a sequence of little-endian words, as produced by other LEGv8 toolchains) can be
+ * imported the same way, and any object file can be disassembled in bulk.
+ *
+ * <pre>
+ * Layout (little-endian):
+ *   0  int    magic "LGV8"
+ *   4  short  version
+ *   6  short  flags (0)
+ *   8  byte[32] SHA-256 of the instruction configuration (all zero: none)
+ *  40  long   base address
+ *  48  int    word count (n)
+ *  52  int    symbol count
+ *  56  int[n] machine words
+ *      int[n] source line numbers (0: unknown)
+ *      symbols: short name length, UTF-8 name, long address
+ * </pre>
+ */
+public final class ObjectFile {
+    /** "LGV8" in ASCII. */
+    public static final int MAGIC = 0x3856474C;
+    /** The current format version. */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 56;
+    private static final int HASH_BYTES = 32;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // --- Fields ---
+    private final long baseAddress;
+    // The machine words (a view of the mapped file when read from disk)
+    private final IntBuffer words;
+    // The source line of each word, or null if unknown (raw binaries)
+    private final IntBuffer lineNumbers;
+    private final Map<String, Long> symbols;
+    private final String configHash;
+
+
+    // --- Constructor ---
+    private ObjectFile(long baseAddress, IntBuffer words, IntBuffer lineNumbers, Map<String, Long> symbols, String configHash) {
+        this.baseAddress = baseAddress;
+        this.words = words;
+        this.lineNumbers = lineNumbers;
+        this.symbols = symbols;
+        this.configHash = configHash;
+    }
+
+
+    // --- Creation ---
+
+    /**
+     * Assembles a source program into an object file.
+     * @param sourceLines The LEGv8 assembly source.
+     * @param factory The factory to assemble with; its configuration hash is recorded in the object file.
+     * @return The object file.
+     * @throws legv8.exceptions.AssemblyException if the source does not assemble.
+     */
+    public static ObjectFile assemble(List<String> sourceLines, InstructionFactory factory) {
+        Assembler assembler = new Assembler(ProgramCounter.BASE_ADDRESS, Objects.requireNonNull(factory, "InstructionFactory cannot be null."));
+        List<Instruction> instructions = assembler.assemble(sourceLines);
+
+        int[] machineWords = new int[instructions.size()];
+        for (int i = 0; i < machineWords.length; i++) machineWords[i] = instructions.get(i).getMachineCode();
+
+        return new ObjectFile(assembler.getBaseAddress(), IntBuffer.wrap(machineWords), IntBuffer.wrap(assembler.getLineNumbers()),
+                              new LinkedHashMap<>(assembler.getSymbolTable()), factory.getInstructionSet().getConfigHash());
+    }
+
+    /**
+     * Maps an object file written by {@link #write}.
+     * @param path The object file.
+     * @param expectedConfigHash The configuration hash the program must have been assembled with
+     *                           (see {@link InstructionSet#getConfigHash()}), or null to accept any.
+     * @return The object file, backed by the mapping.
+     * @throws IOException if the file cannot be read.
+     * @throws ObjectFileException if the file is not a valid object file or was built with another configuration.
+     */
+    public static ObjectFile read(Path path, String expectedConfigHash) throws IOException {
+        ByteBuffer buffer = map(path);
+        try {
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new ObjectFileException("Not a LEGv8 object file: " + path);
+            }
+            int version = Short.toUnsignedInt(buffer.getShort());
+            if (version != VERSION) {
+                throw new ObjectFileException("Unsupported object file version " + version + " in " + path + " (expected " + VERSION + ")");
+            }
+            buffer.getShort(); // Flags (none defined)
+
+            byte[] hash = new byte[HASH_BYTES];
+            buffer.get(hash);
+            String configHash = isZero(hash) ? InstructionSet.NO_CONFIG_HASH : HexFormat.of().formatHex(hash);
+            if (expectedConfigHash != null && !expectedConfigHash.equals(configHash)) {
+                throw new ObjectFileException("Object file " + path + " was assembled with a different instruction configuration.");
+            }
+
+            long baseAddress = buffer.getLong();
+            int wordCount = buffer.getInt();
+            int symbolCount = buffer.getInt();
+            if (wordCount < 0 || symbolCount < 0 || (long) wordCount * 8 > buffer.remaining()) {
+                throw new ObjectFileException("Corrupt object file header in " + path);
+            }
+
+            IntBuffer words = slice(buffer, HEADER_BYTES, wordCount);
+            IntBuffer lines = slice(buffer, HEADER_BYTES + wordCount * 4, wordCount);
+
+            buffer.position(HEADER_BYTES + wordCount * 8);
+            Map<String, Long> symbols = new LinkedHashMap<>();
+            for (int i = 0; i < symbolCount; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                symbols.put(new String(name, StandardCharsets.UTF_8), buffer.getLong());
+            }
+            return new ObjectFile(baseAddress, words, lines, symbols, configHash);
+        } catch (BufferUnderflowException e) {
+            throw new ObjectFileException("Truncated object file: " + path, e);
+        }
+    }
+
+    /**
+     * Maps a raw binary: a sequence of little-endian 32-bit machine words with no header.
+     * @param path The binary file.
+     * @param baseAddress The address of the first word.
+     * @return An object file with no symbols, line numbers or configuration hash.
+     * @throws IOException if the file cannot be read.
+     * @throws ObjectFileException if the file length is not a multiple of 4.
+     */
+    public static ObjectFile importRaw(Path path, long baseAddress) throws IOException {
+        ByteBuffer buffer = map(path);
+        if (buffer.remaining() % 4 != 0) {
+            throw new ObjectFileException("Raw binary " + path + " is not a whole number of 32-bit words (" + buffer.remaining() + " bytes)");
+        }
+        return new ObjectFile(baseAddress, slice(buffer, 0, buffer.remaining() / 4), null, Map.of(), InstructionSet.NO_CONFIG_HASH);
+    }
+
+    /**
+     * Writes this object file.
+     * @param path The destination (created or truncated).
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        int wordCount = words.limit();
+        List<byte[]> names = new ArrayList<>(symbols.size());
+        int symbolBytes = 0;
+        for (String name : symbols.keySet()) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            names.add(encoded);
+            symbolBytes += 2 + encoded.length + 8;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + wordCount * 8 + symbolBytes).order(BYTE_ORDER);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) 0);
+        buffer.put(configHash.isEmpty() ? new byte[HASH_BYTES] : HexFormat.of().parseHex(configHash));
+        buffer.putLong(baseAddress);
+        buffer.putInt(wordCount);
+        buffer.putInt(symbols.size());
+        for (int i = 0; i < wordCount; i++) buffer.putInt(words.get(i));
+        for (int i = 0; i < wordCount; i++) buffer.putInt(getLineNumber(i));
+        int index = 0;
+        for (Long address : symbols.values()) {
+            byte[] name = names.get(index++);
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            buffer.putLong(address);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * Decodes every word into an Instruction.
+     * @param factory The factory to decode with.
+     * @return The instructions in program order.
+     * @throws InvalidInstructionException if a word does not decode (the message gives its address).
+     */
+    public List<Instruction> disassemble(InstructionFactory factory) {
+        int wordCount = words.limit();
+        List<Instruction> instructions = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            try {
+                instructions.add(factory.decode(words.get(i)));
+            } catch (InvalidInstructionException e) {
+                throw new InvalidInstructionException("Cannot disassemble word " + i + " at 0x" + Long.toHexString(baseAddress + 4L * i) + ": " + e.getMessage(), e);
+            }
+        }
+        return instructions;
+    }
+
+    /**
+     * @return The machine words (read-only; index i is at {@code getBaseAddress() + 4 * i}).
+     */
+    public IntBuffer getWords() {
+        return words.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return The number of machine words.
+     */
+    public int getWordCount() {
+        return words.limit();
+    }
+
+    /**
+     * @param index The word index.
+     * @return The 1-based source line of the word, or 0 if unknown.
+     */
+    public int getLineNumber(int index) {
+        return (lineNumbers != null) ? lineNumbers.get(index) : 0;
+    }
+
+    /**
+     * @return The symbol table (unmodifiable).
+     */
+    public Map<String, Long> getSymbols() {
+        return Map.copyOf(symbols);
+    }
+
+    /**
+     * @return The address of the first word.
+     */
+    public long getBaseAddress() {
+        return baseAddress;
+    }
+
+    /**
+     * @return The configuration hash the program was assembled with, or {@link InstructionSet#NO_CONFIG_HASH}.
+     */
+    public String getConfigHash() {
+        return configHash;
+    }
+
+
+    // --- Helper Methods ---
+
+    /**
+     * Maps a whole file read-only. The mapping stays valid after the channel is closed.
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return mapped.order(BYTE_ORDER);
+        }
+    }
+
+    /**
+     * @return An int view of count words starting at the given byte offset.
+     */
+    private static IntBuffer slice(ByteBuffer buffer, int offset, int count) {
+        return buffer.duplicate().position(offset).limit(offset + count * 4).slice().order(BYTE_ORDER).asIntBuffer();
+    }
+
+    private static boolean isZero(byte[] bytes) {
+        for (byte b : bytes) if (b != 0) return false;
+        return true;
+    }
+}
@@ -5,14 +5,14 @@
 
 package legv8.core;
 
-import legv8.util.ALUResult;
-
 /**
  * Simulates the Arithmetic Logic Unit (ALU) of the LEGv8 CPU.
  * Performs various 64-bit arithmetic (ADD, SUB, MUL, DIV) and logical
  * (AND, ORR, EOR) operations, as well as shift operations (LSL, LSR, ASR).
  * It takes two 64-bit inputs (A and B) and an operation code, and produces
- * a 64-bit result along with the status flags (N, Z, C, V).
+ * a 64-bit result along with the status flags (N, Z, C, V) packed into a 4-bit int.
+ * The ALU is stateless: results are returned as primitives, so executing an
+ * instruction allocates nothing.
  */
 public class ArithmeticLogicUnit {
 
@@ -39,96 +39,73 @@ public class ArithmeticLogicUnit {
     public static final int IDLE   = 404;  
 
 
+    // --- Packed NZCV Flags ---
+    // Bit positions match the NZCV order: N is bit 3, V is bit 0.
+    public static final int FLAG_N = 0b1000;
+    public static final int FLAG_Z = 0b0100;
+    public static final int FLAG_C = 0b0010;
+    public static final int FLAG_V = 0b0001;
+
+
     // --- Constructor ---
 
     /**
-     * Constructs a new ArithmeticLogicUnit instance.
-     * (No internal state needs initialization).
+     * Private constructor: the ALU is stateless and only has static methods.
      */
-    public ArithmeticLogicUnit() {
-        // Optional log: System.out.println(ColoredLog.SUCCESS + "Arithmetic Logic Unit initialized.");
-    }
+    private ArithmeticLogicUnit() {}
 
     
-    // --- Public Execution Method ---
+    // --- Public Execution Methods ---
 
     /**
      * Executes the specified ALU operation on the given 64-bit inputs.
-     * Calculates the 64-bit result and the state of the N, Z, C, and V flags.
      * For shift operations, the lower 6 bits of {@code inputB} are used as the shift amount.
      *
      * @param inputA The first 64-bit operand (e.g., from Register File Read Data 1).
      * @param inputB The second 64-bit operand (e.g., from Register File Read Data 2 or sign-extended immediate).
      * @param operation The integer code specifying the ALU operation to perform (e.g., {@code ALU.ADD}).
-     * @return An {@link ALUResult} object containing the 64-bit result and the boolean values of the N, Z, C, V flags.
+     * @return The 64-bit result (0 for IDLE or an unknown operation).
      */
-    public ALUResult execute(long inputA, long inputB, int operation) {
-        long result = 0L;
-        boolean nFlag = false, zFlag = false, cFlag = false, vFlag = false;
-
+    public static long execute(long inputA, long inputB, int operation) {
         switch (operation) {
-            case AND:
-                result = inputA & inputB;
-                break;
-
-            case OR:
-                result = inputA | inputB;
-                break;
-
-            case ADD:
-                result = inputA + inputB;
-                cFlag = Long.compareUnsigned(result, inputA) < 0; 
-                vFlag = ((inputA ^ ~inputB) & (inputA ^ result)) < 0;
-                break;
-
-            case XOR:
-                result = inputA ^ inputB;
-                break;
-
-            case SUB:
-                result = inputA - inputB;
-                cFlag = Long.compareUnsigned(inputA, inputB) >= 0; 
-                vFlag = ((inputA ^ inputB) & (inputA ^ result)) < 0;
-                break;
-
-            case PASS_B:
-                result = inputB;
-                break;
-
-            case LSL:
-                result = inputA << inputB;
-                break;
-
-            case LSR:
-                result = inputA >>> inputB;
-                break;
-
-            case MOVZ:
-                // result = inputA << ((int) inputB * 16);
-                result = inputB;
-                break;
-
-            case MOVK: 
-                // int shift = (int) inputB * 16;
-                // long mask = ~(0xFFFFL << shift);
-                // result = (inputA & 0xFFFFL) << shift | (inputB & mask);
-                result = inputB;
-                break;
-            
+            case AND:    return inputA & inputB;
+            case OR:     return inputA | inputB;
+            case ADD:    return inputA + inputB;
+            case XOR:    return inputA ^ inputB;
+            case SUB:    return inputA - inputB;
+            case PASS_B: return inputB;
+            case LSL:    return inputA << inputB;
+            case LSR:    return inputA >>> inputB;
+            case MOVZ:   return inputB;
+            case MOVK:   return inputB;
             case IDLE:
             default:
-                result = 0L; // Default case, no operation performed.
-                break;
+                return 0L; // Default case, no operation performed.
         }
+    }
 
-        nFlag = result < 0; 
-        zFlag = result == 0;
-        
-        if (!(operation == ADD || operation == SUB)) {
-            cFlag = false;
-            vFlag = false;
+    /**
+     * Computes the N, Z, C and V flags of an ALU operation, packed into the low 4 bits (see FLAG_*).
+     * N and Z follow the result; C and V are only set by ADD and SUB.
+     *
+     * @param inputA The first operand passed to {@link #execute}.
+     * @param inputB The second operand passed to {@link #execute}.
+     * @param result The result returned by {@link #execute}.
+     * @param operation The operation code passed to {@link #execute}.
+     * @return The packed NZCV flags.
+     */
+    public static int flags(long inputA, long inputB, long result, int operation) {
+        int nzcv = 0;
+        if (result < 0) nzcv |= FLAG_N;
+        if (result == 0) nzcv |= FLAG_Z;
+
+        if (operation == ADD) {
+            if (Long.compareUnsigned(result, inputA) < 0) nzcv |= FLAG_C;
+            if (((inputA ^ ~inputB) & (inputA ^ result)) < 0) nzcv |= FLAG_V;
+        } else if (operation == SUB) {
+            if (Long.compareUnsigned(inputA, inputB) >= 0) nzcv |= FLAG_C;
+            if (((inputA ^ inputB) & (inputA ^ result)) < 0) nzcv |= FLAG_V;
         }
-
-        return new ALUResult(result, nFlag, zFlag, cFlag, vFlag);
+        return nzcv;
     }
 }
\ No newline at end of file
@@ -6,12 +6,14 @@
 package legv8.core;
 
 import legv8.exceptions.InvalidInstructionException;
+import legv8.instructions.DecodeTable;
+import legv8.instructions.Instruction;
 import legv8.instructions.InstructionConfigLoader;
 import legv8.instructions.InstructionDefinition;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 import legv8.util.ControlSignals;
 
-import java.util.BitSet;
 import java.util.Objects;
 
 /**
@@ -22,8 +24,9 @@ import java.util.Objects;
  * to map opcodes/formats to their corresponding definitions and control signal settings.
  */
 public class ControlUnit {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("ControlUnit", Log.Level.WARNING);
 
-    private static final int BCOND_OPCODE_VALUE = 0b01010100;
 
     // Loader providing the mapping from opcodes/mnemonics to InstructionDefinitions and ControlSignals. 
     private final InstructionConfigLoader configLoader;
@@ -71,114 +74,26 @@ public class ControlUnit {
 
     /**
      * Decodes the given instruction bytecode to determine the appropriate control signals
-     * and the instruction's definition. It attempts to match the bytecode's opcode fields
-     * against known instruction formats (R, I, D, B, CB, IM) using the definitions loaded
-     * by the {@code configLoader}. Special handling is included for B.cond instructions.
+     * and the instruction's definition. The opcode fields are matched with a single lookup in the
+     * {@link DecodeTable} compiled by the {@code configLoader}, which covers every format
+     * (R, I, D, B, CB, IM) and resolves B.cond instructions by their condition code.
      *
-     * @param instructionBytecode The 32-bit bytecode of the instruction to decode. Must not be null.
+     * @param machineCode The 32-bit machine word of the instruction to decode.
      * @return A {@link DecodeResult} record containing the generated {@link ControlSignals}
      *         and the identified {@link InstructionDefinition}.
      * @throws InvalidInstructionException if the bytecode does not match any known instruction
      *                                     definition in the loaded configuration.
-     * @throws NullPointerException if instructionBytecode is null.
      */
-    public DecodeResult decode(BitSet instructionBytecode) {
-        Objects.requireNonNull(instructionBytecode, ColoredLog.WARNING + "Instruction bytecode cannot be null for decoding.");
-
-        InstructionDefinition definition = null;
-        int opcodeId;
-
-        opcodeId = extractBits(instructionBytecode, 24, 31);
-        if (opcodeId == BCOND_OPCODE_VALUE) {
-            int conditionCode = extractBits(instructionBytecode, 0, 3);
-            String conditionMnemonic = getConditionMnemonic(conditionCode);
-            if (conditionMnemonic != null) {
-                definition = configLoader.getDefinitionByMnemonic("B." + conditionMnemonic);
-            }
-        } else {
-            definition = configLoader.getDefinition(opcodeId, 'C');
-        }
+    public DecodeResult decode(int machineCode) {
+        InstructionDefinition definition = configLoader.getDecodeTable().lookup(machineCode);
 
         if (definition == null) {
-            opcodeId = extractBits(instructionBytecode, 23, 31);
-            definition = configLoader.getDefinition(opcodeId, 'M');
-        }
-
-        
-        if (definition == null) {
-            opcodeId = extractBits(instructionBytecode, 22, 31);
-            definition = configLoader.getDefinition(opcodeId, 'I');
-        }
-
-        
-        if (definition == null) {
-            opcodeId = extractBits(instructionBytecode, 21, 31);
-            definition = configLoader.getDefinition(opcodeId, 'D');
-        }
-
-        
-        if (definition == null) {
-            opcodeId = extractBits(instructionBytecode, 21, 31);
-            definition = configLoader.getDefinition(opcodeId, 'R');
-        }
-
-        
-        if (definition == null) {
-            opcodeId = extractBits(instructionBytecode, 26, 31);
-            definition = configLoader.getDefinition(opcodeId, 'B');
-        }
-
-        
-        if (definition == null) {
-            throw new InvalidInstructionException("Control Unit could not find definition for bytecode: " + formatBitSet(instructionBytecode));
+            throw new InvalidInstructionException("Control Unit could not find definition for bytecode: " + Instruction.formatMachineCode(machineCode));
         }
 
         ControlSignals signals = definition.getControlSignals();
-        System.out.printf("%sCU Decoded: %s -> Signals=%s\n", ColoredLog.INFO, definition.getMnemonic(), signals);
+        LOG.info("CU Decoded: %s -> Signals=%s\n", definition.getMnemonic(), signals);
 
         return new DecodeResult(signals, definition);
     }
-
-
-    // --- Helper Methods ---
-
-    /**
-     * Extracts a range of bits from a BitSet.
-     * @param bits The BitSet to extract bits from.
-     * @param startBit The starting bit index (inclusive).
-     * @param endBit The ending bit index (inclusive).
-     * @return The extracted bits as an integer.
-     */
-    private int extractBits(BitSet bits, int startBit, int endBit) {
-        return legv8.instructions.Instruction.extractBits(bits, startBit, endBit);
-    }
-
-    /**
-     * Formats a BitSet into a string representation.
-     * @param bits The BitSet to format.
-     * @return A string representation of the BitSet.
-     */
-    private String formatBitSet(BitSet bits) {
-        return legv8.instructions.Instruction.formatBitSet(bits);
-    }
-
-    private String getConditionMnemonic(int conditionCode) {
-        return switch (conditionCode & 0xF) {
-            case 0x0 -> "EQ";
-            case 0x1 -> "NE";
-            case 0x2 -> "HS";
-            case 0x3 -> "LO";
-            case 0x4 -> "MI";
-            case 0x5 -> "PL";
-            case 0x6 -> "VS";
-            case 0x7 -> "VC";
-            case 0x8 -> "HI";
-            case 0x9 -> "LS";
-            case 0xA -> "GE";
-            case 0xB -> "LT";
-            case 0xC -> "GT";
-            case 0xD -> "LE";
-            default -> null;
-        };
-    }
 }
@@ -8,6 +8,7 @@ package legv8.core;
 import legv8.exceptions.MemoryAccessException;
 import legv8.storage.MemoryStorage;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 
 import java.util.Objects;
 
@@ -18,6 +19,9 @@ import java.util.Objects;
  * based on control signals (MemRead, MemWrite) and handles address validation and alignment checks.
  */
 public class DataMemoryController {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("DataMemoryController", Log.Level.WARNING);
+
 
     /** The underlying storage mechanism for data memory. */
     private final MemoryStorage storage;
@@ -61,7 +65,7 @@ public class DataMemoryController {
         byte readValue = 0;
         byte byteWriteData = (byte) (writeData & 0xFF); 
         if (memWrite) {
-            System.out.printf("%s(DataMemoryControl) Write: [0x%X] <= 0x%X\n", ColoredLog.INFO, address, writeData);
+            LOG.info("(DataMemoryControl) Write: [0x%X] <= 0x%X\n", address, writeData);
             try {
                 storage.writeByte(address, byteWriteData);
             } catch (Exception e) {
@@ -70,12 +74,12 @@ public class DataMemoryController {
         } else if (memRead) {
             try {
                 readValue = storage.readByte(address);
-                System.out.printf("%s(DataMemoryControl) Read: [0x%X] => 0x%X\n", ColoredLog.INFO, address, readValue);
+                LOG.info("(DataMemoryControl) Read: [0x%X] => 0x%X\n", address, readValue & 0xFFL);
             } catch (Exception e) {
                 throw new MemoryAccessException("Error during memory read at 0x", e, address);
             }
         } else {
-            System.out.printf("%s(DataMemoryControl) Inactive: Addr=0x%X\n",ColoredLog.INFO, address);
+            LOG.info("(DataMemoryControl) Inactive: Addr=0x%X\n", address);
         }
         return readValue;
     }
@@ -107,7 +111,7 @@ public class DataMemoryController {
         short readValue = 0;
         short halfwordWriteData = (short) (writeData & 0xFFFF); 
         if (memWrite) {
-            System.out.printf("%s(DataMemoryControl) Write: [0x%X] <= 0x%X\n", ColoredLog.INFO, address, writeData);
+            LOG.info("(DataMemoryControl) Write: [0x%X] <= 0x%X\n", address, writeData);
             try {
                 storage.writeHalfWord(address, halfwordWriteData);
             } catch (Exception e) {
@@ -116,12 +120,12 @@ public class DataMemoryController {
         } else if (memRead) {
             try {
                 readValue = storage.readHalfWord(address);
-                System.out.printf("%s(DataMemoryControl) Read: [0x%X] => 0x%X\n", ColoredLog.INFO, address, readValue);
+                LOG.info("(DataMemoryControl) Read: [0x%X] => 0x%X\n", address, readValue & 0xFFFFL);
             } catch (Exception e) {
                 throw new MemoryAccessException("Error during memory read at 0x", e, address);
             }
         } else {
-            System.out.printf("%s(DataMemoryControl) Inactive: Addr=0x%X\n",ColoredLog.INFO, address);
+            LOG.info("(DataMemoryControl) Inactive: Addr=0x%X\n", address);
         }
         return readValue;
     }
@@ -153,7 +157,7 @@ public class DataMemoryController {
         int readValue = 0;
         int wordWriteData = (int) (writeData & 0xFFFFFFFF); 
         if (memWrite) {
-            System.out.printf("%s(DataMemoryControl) Write: [0x%X] <= 0x%X\n", ColoredLog.INFO, address, writeData);
+            LOG.info("(DataMemoryControl) Write: [0x%X] <= 0x%X\n", address, writeData);
             try {
                 storage.writeWord(address, wordWriteData);
             } catch (Exception e) {
@@ -162,12 +166,12 @@ public class DataMemoryController {
         } else if (memRead) {
             try {
                 readValue = storage.readWord(address);
-                System.out.printf("%s(DataMemoryControl) Read: [0x%X] => 0x%X\n", ColoredLog.INFO, address, readValue);
+                LOG.info("(DataMemoryControl) Read: [0x%X] => 0x%X\n", address, readValue & 0xFFFFFFFFL);
             } catch (Exception e) {
                 throw new MemoryAccessException("Error during memory read at 0x", e, address);
             }
         } else {
-            System.out.printf("%s(DataMemoryControl) Inactive: Addr=0x%X\n",ColoredLog.INFO, address);
+            LOG.info("(DataMemoryControl) Inactive: Addr=0x%X\n", address);
         }
         return readValue;
     }
@@ -198,7 +202,7 @@ public class DataMemoryController {
         
         long readValue = 0;
         if (memWrite) {
-            System.out.printf("%s(DataMemoryControl) Write: [0x%X] <= 0x%X\n", ColoredLog.INFO, address, writeData);
+            LOG.info("(DataMemoryControl) Write: [0x%X] <= 0x%X\n", address, writeData);
             try {
                 storage.writeDoubleWord(address, writeData);
             } catch (Exception e) {
@@ -207,22 +211,56 @@ public class DataMemoryController {
         } else if (memRead) {
             try {
                 readValue = storage.readDoubleWord(address);
-                System.out.printf("%s(DataMemoryControl) Read: [0x%X] => 0x%X\n", ColoredLog.INFO, address, readValue);
+                LOG.info("(DataMemoryControl) Read: [0x%X] => 0x%X\n", address, readValue);
             } catch (Exception e) {
                 throw new MemoryAccessException("Error during memory read at 0x", e, address);
             }
         } else {
-            System.out.printf("%s(DataMemoryControl) Inactive: Addr=0x%X\n",ColoredLog.INFO, address);
+            LOG.info("(DataMemoryControl) Inactive: Addr=0x%X\n", address);
         }
         return readValue;
     }
 
     /**
-     * Retrieves the underlying MemoryStorage instance.
-     * @return A new MemoryStorage instance representing the current state of the storage.
+     * Performs a memory access of the given width in bytes (8, 4, 2 or 1; anything else is a no-op).
+     * Halfword and byte reads are zero-extended; word reads are sign-extended (LDURSW).
+     * @param address The 64-bit byte address for the memory access.
+     * @param writeData The data to write if MemWrite is asserted.
+     * @param memWrite Control signal: If true, performs a memory write.
+     * @param memRead Control signal: If true, performs a memory read.
+     * @param width The access width in bytes.
+     * @return The value read from memory, or 0 for writes.
+     * @throws MemoryAccessException if the access is invalid (see the width-specific methods).
+     */
+    public long accessMemory(long address, long writeData, boolean memWrite, boolean memRead, int width) {
+        switch (width) {
+            case 8: return accessMemory_doubleWord(address, writeData, memWrite, memRead);
+            case 4: return accessMemory_word(address, writeData, memWrite, memRead);
+            case 2: return accessMemory_halfword(address, writeData, memWrite, memRead) & 0xFFFFL; // Ensure 16-bit halfword access
+            case 1: return accessMemory_byte(address, writeData, memWrite, memRead) & 0xFFL; // Ensure 8-bit byte access
+            default: return 0;
+        }
+    }
+
+    /**
+     * Reads raw bytes from the storage without logging or control-signal checks.
+     * Used to capture the previous contents of a range before it is overwritten.
+     * @param address The first byte address.
+     * @param numBytes The number of bytes to read.
+     * @return The bytes currently stored in the range.
+     * @throws MemoryAccessException if the range is below the minimum allowed address.
+     */
+    public byte[] peekBytes(long address, int numBytes) {
+        return storage.readBytes(address, numBytes);
+    }
+
+    /**
+     * Retrieves a snapshot of the underlying MemoryStorage instance.
+     * The snapshot is a read-only, copy-on-write view that shares unchanged pages with the live storage.
+     * @return A MemoryStorage instance representing the current state of the storage.
      */
     public MemoryStorage getStorage() {
-        return new MemoryStorage(this.storage);
+        return this.storage.snapshot();
     }
 
     /**
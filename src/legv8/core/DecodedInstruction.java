@@ -0,0 +1,127 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful! 
+ */
+
+package legv8.core;
+
+import legv8.instructions.Instruction;
+import legv8.instructions.InstructionDefinition;
+import legv8.instructions.OperationKind;
+import legv8.util.ControlSignals;
+import legv8.util.Extractor;
+
+/**
+ * DecodedInstruction is a class (record) holding an instruction in a compact, execution-ready form.
+ * Every field the datapath needs is extracted once (at load time) so that executing the
+ * instruction needs no bit extraction, no mnemonic string comparison and no map lookup.
+ * Control signals that are asserted ('1') are packed into {@link #signals()}; don't-care ('x')
+ * signals are treated as deasserted.
+ */
+public record DecodedInstruction(
+    // --- Fields ---
+    // The original instruction (for display, disassembly and the micro-step path)
+    Instruction instruction,
+    // Destination register (Rd/Rt, bits 0-4)
+    int rd,
+    // First read register (Rn, bits 5-9)
+    int rn,
+    // Second read register selected by Reg2Loc (Rt or Rm), or -1 if not read
+    int readRegister2,
+    // Sign-/zero-extended immediate as produced by the extractor
+    long immediate,
+    // ALU operation code, or ArithmeticLogicUnit.IDLE if the ALU is unused
+    int aluOperation,
+    // Packed control signals (SIG_* bits)
+    int signals,
+    // How the instruction affects the PC
+    BranchKind branchKind,
+    // Condition code for B.cond (0 otherwise)
+    int condition,
+    // Data memory access width in bytes (0 if no memory access)
+    int memoryWidth,
+    // MOVK lane shift (0, 16, 32, 48), or -1 if not MOVK
+    int movkShift
+) {
+    /** How an instruction selects the next PC. */
+    public enum BranchKind {
+        /** PC + 4. */
+        NONE,
+        /** B: always taken, PC-relative. */
+        UNCONDITIONAL,
+        /** BL: always taken, PC-relative, writes PC + 4 to LR. */
+        LINK,
+        /** BR: always taken, target from Rn. */
+        REGISTER,
+        /** CBZ: taken if the ALU result is zero. */
+        ZERO,
+        /** CBNZ: taken if the ALU result is non-zero. */
+        NOT_ZERO,
+        /** B.cond: taken if the flags satisfy the condition. */
+        CONDITIONAL
+    }
+
+    // --- Packed Control Signals ---
+    public static final int SIG_REG_WRITE  = 1;
+    public static final int SIG_MEM_READ   = 1 << 1;
+    public static final int SIG_MEM_WRITE  = 1 << 2;
+    public static final int SIG_MEM_TO_REG = 1 << 3;
+    public static final int SIG_ALU_SRC    = 1 << 4;
+    public static final int SIG_FLAG_WRITE = 1 << 5;
+
+
+    // --- Decoding ---
+
+    /**
+     * Decodes an instruction into its execution-ready form.
+     * @param instruction The instruction to decode (must carry its definition).
+     * @return The decoded instruction.
+     */
+    public static DecodedInstruction decode(Instruction instruction) {
+        InstructionDefinition definition = instruction.getDefinition();
+        ControlSignals controlSignals = definition.getControlSignals();
+        OperationKind kind = definition.getKind();
+
+        int rd = instruction.getRd_R();
+        int rn = instruction.getRn_R();
+        int readRegister2 = (controlSignals.reg2Loc() == 'x') ? -1
+                          : (controlSignals.reg2Loc() == '1') ? rd : instruction.getRm_R();
+
+        long immediate = Extractor.extractAndExtend(instruction.getMachineCode(), definition.getFormat(), kind);
+        int aluOperation = (controlSignals.aluOp() == 404) ? ArithmeticLogicUnit.IDLE : controlSignals.operation();
+
+        int signals = 0;
+        if (controlSignals.regWrite() == '1') signals |= SIG_REG_WRITE;
+        if (controlSignals.memRead() == '1') signals |= SIG_MEM_READ;
+        if (controlSignals.memWrite() == '1') signals |= SIG_MEM_WRITE;
+        if (controlSignals.memToReg() == '1') signals |= SIG_MEM_TO_REG;
+        if (controlSignals.aluSrc() == '1') signals |= SIG_ALU_SRC;
+        if (controlSignals.flagWrite() == '1') signals |= SIG_FLAG_WRITE;
+
+        BranchKind branchKind = BranchKind.NONE;
+        int condition = 0;
+        if (controlSignals.uncondBranch() == '1') {
+            branchKind = (kind == OperationKind.BRANCH_REGISTER) ? BranchKind.REGISTER
+                       : (kind == OperationKind.BRANCH_LINK) ? BranchKind.LINK : BranchKind.UNCONDITIONAL;
+        } else if (controlSignals.flagBranch() == '1') {
+            branchKind = BranchKind.CONDITIONAL;
+            condition = instruction.getCond_CB();
+        } else if (controlSignals.zeroBranch() == '1') {
+            if (kind == OperationKind.BRANCH_ZERO) branchKind = BranchKind.ZERO;
+            else if (kind == OperationKind.BRANCH_NOT_ZERO) branchKind = BranchKind.NOT_ZERO;
+        }
+
+        int movkShift = (kind == OperationKind.MOVE_KEEP) ? instruction.getShift_IM() * 16 : -1;
+
+        return new DecodedInstruction(instruction, rd, rn, readRegister2, immediate, aluOperation, signals,
+                                      branchKind, condition, kind.memoryWidth(), movkShift);
+    }
+
+    /**
+     * @param signal One of the SIG_* constants.
+     * @return true if the control signal is asserted.
+     */
+    public boolean has(int signal) {
+        return (signals & signal) != 0;
+    }
+}
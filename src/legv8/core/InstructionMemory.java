@@ -7,10 +7,12 @@ package legv8.core;
 
 import legv8.exceptions.InvalidPCException;
 import legv8.instructions.Instruction;
+import legv8.instructions.InstructionFactory;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Objects;
 
@@ -20,13 +22,37 @@ import java.util.Objects;
  * fetch, and display them. The instructions are stored in a list and can be
  * accessed using their byte address, which is validated for alignment and
  * bounds.
+ * Memory can also be loaded with raw machine words (e.g. a memory-mapped object file); each word is
+ * then decoded the first time it is fetched, so loading does not depend on the program size.
  */
 public class InstructionMemory {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("InstructionMemory", Log.Level.WARNING);
+
     /** The base address for instruction memory. */
     private static final int INSTRUCTION_BYTES = 4;
 
-    /** The list of instructions stored in memory. */
-    private List<Instruction> instructions;
+    /** The instructions stored in memory (entries are filled on first fetch when loaded from machine words). */
+    private Instruction[] instructions = new Instruction[0];
+
+    /** The loaded instructions decoded for execution, indexed by (address - BASE_ADDRESS) >> 2. */
+    private DecodedInstruction[] decoded = new DecodedInstruction[0];
+
+    /** The machine words to decode lazily, or null if the instructions were loaded already decoded. */
+    private IntBuffer words;
+    private InstructionFactory wordFactory;
+
+    /** A live, read-only view of the instructions (see {@link #getInstructions()}). */
+    private final List<Instruction> instructionView = new AbstractList<>() {
+        @Override public Instruction get(int index) {
+            if (index < 0 || index >= instructions.length) throw new IndexOutOfBoundsException(index);
+            return instructionAt(index);
+        }
+        @Override public int size() { return instructions.length; }
+    };
+
+    /** Incremented whenever the contents change, so caches built from them can detect staleness. */
+    private int generation = 0;
 
 
     // --- Constructor ---
@@ -36,7 +62,6 @@ public class InstructionMemory {
      * Initializes an empty list of instructions.
      */
     public InstructionMemory() {
-        this.instructions = new ArrayList<>();
         System.out.println(ColoredLog.SUCCESS + "Instruction Memory initialized.");
     }
 
@@ -52,12 +77,45 @@ public class InstructionMemory {
      */
     public void loadInstructions(List<Instruction> assembledInstructions) {
         Objects.requireNonNull(assembledInstructions, ColoredLog.WARNING + "Assembled instruction list cannot be null.");
-        this.instructions.clear();
-        this.instructions.addAll(assembledInstructions);
-        System.out.printf("%sInstruction Memory loaded with %d instructions.\n", ColoredLog.SUCCESS, this.instructions.size());
+        Instruction[] loaded = assembledInstructions.toArray(new Instruction[0]);
+
+        DecodedInstruction[] table = new DecodedInstruction[loaded.length];
+        for (int i = 0; i < table.length; i++) {
+            Instruction instruction = loaded[i];
+            table[i] = (instruction != null) ? DecodedInstruction.decode(instruction) : null;
+        }
+        this.instructions = loaded;
+        this.decoded = table;
+        this.words = null;
+        this.wordFactory = null;
+        this.generation++;
+        System.out.printf("%sInstruction Memory loaded with %d instructions.\n", ColoredLog.SUCCESS, loaded.length);
         
     }
 
+    /**
+     * Loads raw machine words into the instruction memory, replacing its contents.
+     * Nothing is decoded here: each word is decoded with the given factory the first time it is fetched
+     * (a word that does not decode raises {@link legv8.exceptions.InvalidInstructionException} then).
+     *
+     * @param machineWords The words, in program order from BASE_ADDRESS (e.g. {@code ObjectFile.getWords()});
+     *                     the buffer must not change while it is loaded.
+     * @param factory The factory to decode the words with.
+     * @throws NullPointerException if either argument is null.
+     */
+    public void loadMachineWords(IntBuffer machineWords, InstructionFactory factory) {
+        Objects.requireNonNull(machineWords, ColoredLog.WARNING + "Machine words cannot be null.");
+        Objects.requireNonNull(factory, ColoredLog.WARNING + "InstructionFactory cannot be null.");
+        int count = machineWords.remaining();
+
+        this.words = machineWords.slice();
+        this.wordFactory = factory;
+        this.instructions = new Instruction[count];
+        this.decoded = new DecodedInstruction[count];
+        this.generation++;
+        System.out.printf("%sInstruction Memory mapped with %d machine words.\n", ColoredLog.SUCCESS, count);
+    }
+
     /**
      * Fetches an instruction from memory at the specified byte address.
      * Validates the address for alignment and bounds before fetching.
@@ -78,27 +136,61 @@ public class InstructionMemory {
 
         long index = (byteAddress - ProgramCounter.BASE_ADDRESS) / INSTRUCTION_BYTES;
 
-        if (index < 0 || index >= instructions.size()) {
+        if (index < 0 || index >= instructions.length) {
             throw new InvalidPCException(String.format("Instruction fetch address 0x%X (index %d) is out of bounds [0..%d]",
-                                                        byteAddress, index, instructions.isEmpty() ? -1 : instructions.size() - 1), byteAddress);
+                                                        byteAddress, index, instructions.length - 1), byteAddress);
         }
 
-        Instruction instruction = instructions.get((int)index);
+        Instruction instruction = instructionAt((int) index);
         if (instruction == null) {
             throw new InvalidPCException("Fetched null instruction at address 0x" + Long.toHexString(byteAddress), byteAddress);
         }
 
         
-        System.out.printf("%s(InstructionMemory): Fetch @ 0x%X -> %s\n", ColoredLog.INFO, byteAddress, instruction.disassemble());
+        if (LOG.isInfoEnabled()) LOG.info("(InstructionMemory): Fetch @ 0x%X -> %s\n", byteAddress, instruction.disassemble());
         return instruction;
     }
 
+    /**
+     * Fetches the pre-decoded form of the instruction at the specified byte address.
+     * This is a single array load; the instruction was decoded when it was loaded.
+     *
+     * @param byteAddress The byte address of the instruction to fetch.
+     * @return The decoded instruction.
+     * @throws InvalidPCException if the address is invalid (out of bounds or misaligned).
+     */
+    public DecodedInstruction fetchDecoded(long byteAddress) {
+        long offset = byteAddress - ProgramCounter.BASE_ADDRESS;
+        if (offset >= 0 && (offset & (INSTRUCTION_BYTES - 1)) == 0 && (offset >> 2) < decoded.length) {
+            int index = (int) (offset >> 2);
+            DecodedInstruction instruction = decoded[index];
+            if (instruction != null) return instruction;
+            if (words != null) {
+                instruction = DecodedInstruction.decode(instructionAt(index));
+                decoded[index] = instruction;
+                return instruction;
+            }
+        }
+
+        fetch(byteAddress); // Invalid address: let fetch() raise the detailed exception
+        throw new InvalidPCException("Fetched null instruction at address 0x" + Long.toHexString(byteAddress), byteAddress);
+    }
+
+    /**
+     * Returns the load generation of the memory.
+     * It changes every time instructions are loaded or cleared.
+     * @return The current generation.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     /**
      * Returns the number of instructions currently loaded in memory.
      * @return The count of instructions in memory.
      */
     public int getInstructionCount() {
-        return instructions.size();
+        return instructions.length;
     }
 
     /**
@@ -109,7 +201,7 @@ public class InstructionMemory {
         long offset = byteAddress - ProgramCounter.BASE_ADDRESS;
         if (offset % INSTRUCTION_BYTES != 0) return false;
         long index = offset / INSTRUCTION_BYTES;
-        return index >= 0 && index < instructions.size();
+        return index >= 0 && index < instructions.length;
     }
 
     /**
@@ -119,7 +211,7 @@ public class InstructionMemory {
     // Note: This method returns an unmodifiable list to prevent external modification.    
     //       If you need to modify the list, use the loadInstructions method instead.
     public List<Instruction> getInstructions() {
-        return Collections.unmodifiableList(instructions);
+        return instructionView;
     }
 
     /**
@@ -127,7 +219,25 @@ public class InstructionMemory {
      * This method is typically used for resetting or reloading the memory.
      */
     public void clear() {
-        instructions.clear();
+        instructions = new Instruction[0];
+        decoded = new DecodedInstruction[0];
+        words = null;
+        wordFactory = null;
+        generation++;
+    }
+
+    /**
+     * Returns the instruction at an index, decoding its machine word on first use.
+     * @param index The instruction index (in bounds).
+     * @return The instruction, or null if none was loaded there.
+     */
+    private Instruction instructionAt(int index) {
+        Instruction instruction = instructions[index];
+        if (instruction == null && words != null) {
+            instruction = wordFactory.decode(words.get(index));
+            instructions[index] = instruction;
+        }
+        return instruction;
     }
 
     /**
@@ -138,13 +248,13 @@ public class InstructionMemory {
     public void displayMemorySummary() {
         System.out.println(ColoredLog.INFO + "Instruction Memory Summary:");
         System.out.println("--- Instruction Memory Contents ---");
-        if (instructions.isEmpty()) {
+        if (instructions.length == 0) {
             System.out.println("  (Empty)");
             return;
         }
-        for (int i = 0; i < instructions.size(); i++) {
+        for (int i = 0; i < instructions.length; i++) {
             long addr = ProgramCounter.BASE_ADDRESS + (long)i * INSTRUCTION_BYTES;
-            System.out.printf("  0x%08X : %s\n", addr, instructions.get(i)); 
+            System.out.printf("  0x%08X : %s\n", addr, instructionAt(i)); 
         }
         System.out.println("---------------------------------");
     }
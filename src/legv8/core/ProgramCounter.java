@@ -7,6 +7,7 @@ package legv8.core;
 
 import legv8.exceptions.InvalidPCException;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 
 /**
  * Simulates the Program Counter (PC) of the LEGv8 CPU.
@@ -17,6 +18,9 @@ import legv8.util.ColoredLog;
  * The PC is initialized to a base address of 0x400000.
  */
 public class ProgramCounter {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("ProgramCounter", Log.Level.WARNING);
+
    
     /** The base address for the program counter. */
     public static final long BASE_ADDRESS = 0x400000;
@@ -60,14 +64,12 @@ public class ProgramCounter {
 
         
         if (newAddress % 4 != 0) {
-            System.err.printf(ColoredLog.WARNING + "Warning: Setting PC to non-word-aligned address 0x%X. Behavior might be undefined during fetch.\n", newAddress);
+            LOG.warning("Warning: Setting PC to non-word-aligned address 0x%X. Behavior might be undefined during fetch.\n", newAddress);
             throw new InvalidPCException("Attempt to set PC to non-word-aligned address: " + newAddress, newAddress);
         }
 
+        LOG.info("(ProgramCounter) Set: 0x%X -> 0x%X\n", this.currentAddress, newAddress);
         this.currentAddress = newAddress;
-        
-        
-        System.out.printf("%s(ProgramCounter) Set: 0x%X -> 0x%X\n", ColoredLog.INFO, this.currentAddress, newAddress);
     }
     
     /*
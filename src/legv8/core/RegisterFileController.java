@@ -2,6 +2,7 @@ package legv8.core;
 
 import legv8.storage.RegisterStorage;
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 
 import java.util.Objects;
 
@@ -12,6 +13,9 @@ import java.util.Objects;
  * based on control signals (RegWrite) and handles register validation.
  */
 public class RegisterFileController {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("RegisterFileController", Log.Level.WARNING);
+
 
     /** The underlying storage mechanism for register file. */
     private final RegisterStorage storage;
@@ -53,15 +57,15 @@ public class RegisterFileController {
         if (regWrite) {
             if (writeReg == RegisterStorage.ZERO_REGISTER_INDEX) {
                 
-                System.out.println(ColoredLog.INFO + "(RegisterFileController) Info: Ignored write to XZR.");
+                LOG.info("(RegisterFileController) Info: Ignored write to XZR.");
             } else {
                 try {
                     storage.setValue(writeReg, writeData); 
                     
-                    System.out.printf("%s(RegisterFileController) Write: X%d <= 0x%016X\n", ColoredLog.INFO, writeReg, writeData);
+                    LOG.info("(RegisterFileController) Write: X%d <= 0x%016X\n", writeReg, writeData);
                 } catch (IllegalArgumentException e) {
                     
-                    System.err.println(ColoredLog.ERROR + "(RegisterFileController) Error writing: " + e.getMessage());
+                    LOG.error("(RegisterFileController) Error writing: " + e.getMessage());
                     
                     throw e;
                 }
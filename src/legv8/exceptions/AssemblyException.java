@@ -9,18 +9,41 @@ package legv8.exceptions;
  * Custom exception class for handling assembly-related errors in the LEGv8 CPU simulator.
  * This exception is thrown when there are issues during the assembly process,
  * such as invalid instructions or assembly failures.
+ * Errors found while parsing a line carry the 1-based column of the offending token.
  */
 public class AssemblyException extends RuntimeException {
+    /** Column value when the position of the error is not known. */
+    public static final int UNKNOWN_COLUMN = -1;
+
+    private final int column;
 
     public AssemblyException(String message) {
+        this(message, UNKNOWN_COLUMN);
+    }
+
+    public AssemblyException(String message, int column) {
         super(message);
+        this.column = column;
     }
 
     public AssemblyException(String message, Throwable cause) {
+        this(message, UNKNOWN_COLUMN, cause);
+    }
+
+    public AssemblyException(String message, int column, Throwable cause) {
         super(message, cause);
+        this.column = column;
     }
 
     public AssemblyException(Throwable cause) {
         super(cause);
+        this.column = UNKNOWN_COLUMN;
+    }
+
+    /**
+     * @return The 1-based column of the error within the assembled line, or {@link #UNKNOWN_COLUMN}.
+     */
+    public int getColumn() {
+        return column;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful! 
+ */
+
+package legv8.exceptions;
+
+/**
+ * Custom exception class for handling object file errors in the LEGv8 CPU simulator.
+ * This exception is thrown when an object file is malformed, has an unsupported version,
+ * or was built with a different instruction configuration.
+ */
+public class ObjectFileException extends RuntimeException {
+
+    public ObjectFileException(String message) {
+        super(message);
+    }
+
+    public ObjectFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ObjectFileException(Throwable cause) {
+        super(cause);
+    }
+}
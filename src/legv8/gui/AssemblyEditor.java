@@ -5,9 +5,12 @@
 
 package legv8.gui;
 
-import legv8.assembler.Assembler; 
+import legv8.assembler.IncrementalAssembler;
+import legv8.assembler.IncrementalAssembler.Diagnostic;
+import legv8.exceptions.AssemblyException;
 import legv8.util.ColoredLog;
 import legv8.instructions.Instruction; 
+import legv8.instructions.InstructionFactory;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -16,10 +19,16 @@ import java.awt.event.*;
 import java.io.*;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * AssemblyEditor is a GUI component for editing LEGv8 assembly code.
  * It provides features to create, open, save, and assemble assembly files.
+ * The source is re-assembled incrementally on a background worker shortly after the user stops typing,
+ * and the resulting diagnostics are shown in the line gutter; the Assemble button reuses the same
+ * per-line encodings, so only lines changed since the last background pass are encoded again.
  */
 public class AssemblyEditor extends JFrame implements ActionListener {
 
@@ -36,7 +45,16 @@ public class AssemblyEditor extends JFrame implements ActionListener {
     private boolean hasUnsavedChanges = false;
     
     private List<Instruction> instructions = List.of();
-    private Assembler assembler = new Assembler(); 
+
+    // Background assembly: the incremental assembler is only used by the worker thread, under its own lock.
+    // The worker is shut down when the editor is closed and started again on the next assembly.
+    private static final int DIAGNOSTICS_DELAY_MS = 300;
+    private final IncrementalAssembler incrementalAssembler = new IncrementalAssembler();
+    private ExecutorService assemblyWorker;
+    private javax.swing.Timer diagnosticsTimer;
+    private LineGutter lineGutter;
+    // Incremented on every edit (EDT only); results for older versions are dropped
+    private int sourceVersion = 0;
 
     private Font textFont = new Font("Monospaced", Font.PLAIN, 14); // Font for the text area
 
@@ -81,6 +99,11 @@ public class AssemblyEditor extends JFrame implements ActionListener {
         textArea.setMargin(new Insets(5, 5, 5, 5));
         scrollPane = new JScrollPane(textArea);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+        lineGutter = new LineGutter(textArea);
+        scrollPane.setRowHeaderView(lineGutter);
+
+        diagnosticsTimer = new javax.swing.Timer(DIAGNOSTICS_DELAY_MS, e -> assembleInBackground(result -> { }));
+        diagnosticsTimer.setRepeats(false);
 
         btnAssemble = new JButton("Assemble"); 
         btnClose = new JButton("Close");
@@ -203,17 +226,73 @@ public class AssemblyEditor extends JFrame implements ActionListener {
 
         if (proceed) {
             invalidateAssembly();
-            try {
-                instructions = assembler.assemble(codeLines);
-                if (instructions != null) {         
-                    JOptionPane.showMessageDialog(this, "Assembly successful! " + instructions.size() + " instructions generated.", "Assembly Success", JOptionPane.INFORMATION_MESSAGE);
-                    for (Instruction instruction : instructions) System.out.println(instruction);
+            diagnosticsTimer.stop();
+            btnAssemble.setEnabled(false);
+            assembleInBackground(result -> {
+                btnAssemble.setEnabled(true);
+                if (!result.diagnostics().isEmpty()) {
+                    StringBuilder message = new StringBuilder("Assembly failed with ")
+                        .append(result.diagnostics().size()).append(" error(s):\n");
+                    for (Diagnostic diagnostic : result.diagnostics()) message.append("  - ").append(diagnostic).append('\n');
+                    JOptionPane.showMessageDialog(this, message.toString(), "Assembly Error", JOptionPane.ERROR_MESSAGE);
+                    System.err.println(ColoredLog.ERROR + message);
+                    return;
                 }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Assembly failed: " + ex.getMessage(), "Assembly Error", JOptionPane.ERROR_MESSAGE);
-                System.err.println(ColoredLog.ERROR + "Assembly failed: " + ex.getMessage());
-            }
+                instructions = result.instructions();
+                JOptionPane.showMessageDialog(this, "Assembly successful! " + instructions.size() + " instructions generated.", "Assembly Success", JOptionPane.INFORMATION_MESSAGE);
+                for (Instruction instruction : instructions) System.out.println(instruction);
+            });
+        }
+    }
+
+    /**
+     * The outcome of one background assembly.
+     * @param instructions The program (empty if it has errors or is empty).
+     * @param diagnostics The errors, in source order.
+     */
+    private record AssemblyResult(List<Instruction> instructions, List<Diagnostic> diagnostics) {}
+
+    /**
+     * Snapshots the source on the EDT and brings the incremental assembler up to date on the worker thread.
+     * The diagnostics are then shown in the gutter and the callback is run on the EDT, unless the source
+     * was edited in the meantime (a newer pass is then already scheduled) or the editor was closed.
+     * @param onResult Called on the EDT with the result.
+     */
+    private void assembleInBackground(Consumer<AssemblyResult> onResult) {
+        int version = sourceVersion;
+        List<String> codeLines = Arrays.asList(textArea.getText().split("\\r?\\n"));
+
+        if (assemblyWorker == null) {
+            assemblyWorker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "assembly-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        ExecutorService worker = assemblyWorker;
+        worker.execute(() -> {
+            AssemblyResult result;
+            synchronized (incrementalAssembler) {
+                try {
+                    InstructionFactory factory = InstructionFactory.getDefault();
+                    List<Diagnostic> diagnostics = incrementalAssembler.update(codeLines, factory);
+                    result = new AssemblyResult(incrementalAssembler.getInstructions(), diagnostics);
+                } catch (IllegalStateException ex) {
+                    result = new AssemblyResult(List.of(), List.of(new Diagnostic(1, AssemblyException.UNKNOWN_COLUMN, ex.getMessage())));
+                }
+            }
+
+            AssemblyResult published = result;
+            SwingUtilities.invokeLater(() -> {
+                if (worker.isShutdown()) return;
+                if (version != sourceVersion) {
+                    btnAssemble.setEnabled(true);
+                    return;
+                }
+                lineGutter.setDiagnostics(published.diagnostics());
+                onResult.accept(published);
+            });
+        });
     }
 
     /**
@@ -223,6 +302,28 @@ public class AssemblyEditor extends JFrame implements ActionListener {
     private void handleClose() {
         if (promptToSave()) {
             setVisible(false); 
+            stopAssemblyWorker();
+            btnAssemble.setEnabled(true);
+        }
+    }
+
+    /**
+     * Stops the background assembly thread along with the editor window.
+     */
+    @Override
+    public void dispose() {
+        stopAssemblyWorker();
+        super.dispose();
+    }
+
+    /**
+     * Stops pending diagnostics and shuts the assembly worker down; results it still delivers are dropped.
+     */
+    private void stopAssemblyWorker() {
+        if (diagnosticsTimer != null) diagnosticsTimer.stop();
+        if (assemblyWorker != null) {
+            assemblyWorker.shutdown();
+            assemblyWorker = null;
         }
     }
    
@@ -421,8 +522,21 @@ public class AssemblyEditor extends JFrame implements ActionListener {
 
     /**
      * Invalidates generated instructions after source or configuration changes.
+     * Diagnostics are refreshed only while the editor is showing; a closed editor refreshes them when shown again.
      */
     public void invalidateAssembly() {
         instructions = List.of();
+        sourceVersion++;
+        if (isShowing()) diagnosticsTimer.restart();
+    }
+
+    /**
+     * Shows or hides the editor; showing it refreshes the diagnostics, which are not kept up to date while it is closed.
+     * @param visible true to show the editor.
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (visible && diagnosticsTimer != null) diagnosticsTimer.restart();
     }
 }
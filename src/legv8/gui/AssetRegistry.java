@@ -0,0 +1,161 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.gui;
+
+import legv8.util.ColoredLog;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AssetRegistry loads the images and fonts of the GUI once per process and shares them between every canvas
+ * and window. Loads run in parallel on a small pool of daemon threads: {@link #preloadImages} and
+ * {@link #preloadFonts} start them early (e.g. at startup), and the getters wait only for what is still loading.
+ * Images are converted once to the screen's compatible format so that drawing them needs no conversion.
+ * Shared images must not be modified.
+ */
+public final class AssetRegistry {
+    /** Font files (relative to the working directory, like the rest of ./resources). */
+    public static final String FONT_REGULAR = "./resources/fonts/roboto-regular.ttf";
+    public static final String FONT_BOLD = "./resources/fonts/roboto-bold.ttf";
+    public static final String FONT_ITALIC = "./resources/fonts/roboto-italic.ttf";
+
+    private static final AtomicInteger loaderThreads = new AtomicInteger();
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+            Thread thread = new Thread(runnable, "asset-loader-" + loaderThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // Keyed by resource path / font file; a future completes with null if the asset cannot be loaded
+    private static final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Font>> fonts = new ConcurrentHashMap<>();
+
+    private AssetRegistry() {}
+
+
+    // --- Public API ---
+
+    /**
+     * Starts loading images in the background (already loaded or loading ones are skipped).
+     * @param resourcePaths Classpath resource paths, e.g. "/resources/images/alu_active.png".
+     */
+    public static void preloadImages(Collection<String> resourcePaths) {
+        for (String path : resourcePaths) requestImage(path);
+    }
+
+    /**
+     * Starts loading the GUI fonts in the background.
+     */
+    public static void preloadFonts() {
+        requestFont(FONT_REGULAR);
+        requestFont(FONT_BOLD);
+        requestFont(FONT_ITALIC);
+    }
+
+    /**
+     * Gets a shared image, waiting for it if it is still loading.
+     * @param resourcePath The classpath resource path.
+     * @return The image in a screen-compatible format, or null if it does not exist or cannot be read.
+     */
+    public static BufferedImage getImage(String resourcePath) {
+        return requestImage(resourcePath).join();
+    }
+
+    /**
+     * Gets several shared images, loading the missing ones in parallel.
+     * @param resourcePaths The classpath resource paths.
+     * @return The images by path, in request order (null values for missing images).
+     */
+    public static Map<String, BufferedImage> getImages(Collection<String> resourcePaths) {
+        preloadImages(resourcePaths);
+        Map<String, BufferedImage> result = new LinkedHashMap<>();
+        for (String path : resourcePaths) result.put(path, getImage(path));
+        return result;
+    }
+
+    /**
+     * Gets a font derived from a shared font file.
+     * @param fontFile The TrueType font file.
+     * @param style The style (Font.PLAIN, Font.BOLD, ...).
+     * @param size The point size.
+     * @param fallback The font to use if the file cannot be loaded.
+     * @return The derived font, or the fallback.
+     */
+    public static Font getFont(String fontFile, int style, float size, Font fallback) {
+        Font base = requestFont(fontFile).join();
+        return (base != null) ? base.deriveFont(style, size) : fallback;
+    }
+
+
+    // --- Helper Methods ---
+
+    private static CompletableFuture<BufferedImage> requestImage(String resourcePath) {
+        return images.computeIfAbsent(resourcePath, path -> CompletableFuture.supplyAsync(() -> loadImage(path), LOADER));
+    }
+
+    private static CompletableFuture<Font> requestFont(String fontFile) {
+        return fonts.computeIfAbsent(fontFile, file -> CompletableFuture.supplyAsync(() -> loadFont(file), LOADER));
+    }
+
+    private static BufferedImage loadImage(String resourcePath) {
+        try (InputStream is = AssetRegistry.class.getResourceAsStream(resourcePath)) {
+            if (is == null) return null;
+            BufferedImage image = ImageIO.read(is);
+            return (image != null) ? toCompatibleImage(image) : null;
+        } catch (IOException e) {
+            System.err.println(ColoredLog.WARNING + "Error loading image " + resourcePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Font loadFont(String fontFile) {
+        try {
+            return Font.createFont(Font.TRUETYPE_FONT, new File(fontFile));
+        } catch (FontFormatException | IOException e) {
+            System.err.println(ColoredLog.WARNING + "Error loading font " + fontFile + ": " + e.getMessage() + " - Using default font.");
+            return null;
+        }
+    }
+
+    /**
+     * Copies an image into the format of the default screen (ARGB when headless), unless it already has it.
+     * PNGs usually decode to byte-interleaved layouts that would otherwise be converted on every draw.
+     */
+    private static BufferedImage toCompatibleImage(BufferedImage image) {
+        BufferedImage compatible;
+        if (GraphicsEnvironment.isHeadless()) {
+            if (image.getType() == BufferedImage.TYPE_INT_ARGB) return image;
+            compatible = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            if (image.getColorModel().equals(gc.getColorModel(Transparency.TRANSLUCENT))) return image;
+            compatible = gc.createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        }
+
+        Graphics2D g2d = compatible.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.drawImage(image, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return compatible;
+    }
+}
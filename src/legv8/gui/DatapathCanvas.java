@@ -15,14 +15,14 @@ import legv8.util.ColoredLog;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.ActionListener; 
 
-import javax.imageio.ImageIO;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -38,6 +38,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * DatapathCanvas is a JPanel that displays the datapath layout and handles
  * the rendering of components, buses, and animated values. It also supports
  * draggable labels for connection points on components.
+ * The inactive datapath (every bus, component and label) is rendered once into a cached background layer,
+ * re-rendered only when the canvas size or scale changes or a label is dragged. Each frame copies that layer
+ * and draws only the active buses and components (and whatever they overlap) and the moving values on top.
  */
 public class DatapathCanvas extends JPanel {
 
@@ -53,6 +56,27 @@ public class DatapathCanvas extends JPanel {
     // Maps to store active buses and their corresponding animations
     private Set<BusID> activeBuses;
 
+    // Layout file and component image folder (classpath resources)
+    private static final String LAYOUT_PATH = "/resources/layout/datapath_layout.json";
+    private static final String IMAGE_PATH = "/resources/images/";
+
+    // --- Cached Rendering ---
+    // The inactive datapath, in device pixels (a VolatileImage when the canvas is displayable)
+    private Image backgroundLayer;
+    private boolean backgroundValid = false;
+    private int backgroundWidth, backgroundHeight;
+    private double backgroundScaleX, backgroundScaleY;
+    // Redrawn over the background every frame: the areas of the active buses and components
+    private List<OverlayPatch> overlayPatches = new ArrayList<>();
+    // Geometry of each bus path (layout only, so computed once when the layout is loaded)
+    private final Map<BusInfo, BusPath> busPaths = new HashMap<>();
+    // Extra pixels around dirty shapes for antialiasing
+    private static final int DIRTY_MARGIN = 2;
+    // Padding inside the animated value boxes, and the margin repainted around them
+    private static final int VALUE_PADDING_X = 5;
+    private static final int VALUE_PADDING_Y = 2;
+    private static final int VALUE_REPAINT_MARGIN = 2;
+
     // Default colors and strokes for buses
     private final Color defaultBusColor = Color.BLACK;
     private final Color highlightBusColor = Color.RED; 
@@ -91,26 +115,10 @@ public class DatapathCanvas extends JPanel {
         this.activeComponents = new HashSet<>();
         this.activeBuses = new HashSet<>();
         
-        try {
-            this.labelBusFont = Font.createFont(Font.TRUETYPE_FONT, new File("./resources/fonts/roboto-italic.ttf")).deriveFont(12f);
-        } catch (FontFormatException | IOException e) {
-            System.err.println(ColoredLog.WARNING + "Error loading font: " + e.getMessage() + " - Using default font.");
-            this.labelBusFont = new Font("Arial", Font.ITALIC, 12);
-        }
-
-        try {
-            this.labelComponentFont = Font.createFont(Font.TRUETYPE_FONT, new File("./resources/fonts/roboto-bold.ttf")).deriveFont(16f);
-        } catch (FontFormatException | IOException e) {
-            System.err.println(ColoredLog.WARNING + "Error loading font: " + e.getMessage() + " - Using default font.");
-            this.labelComponentFont = new Font("Arial", Font.BOLD, 16);
-        }
-
-        try {
-            this.valueFont = Font.createFont(Font.TRUETYPE_FONT, new File("./resources/fonts/roboto-regular.ttf")).deriveFont(12f);
-        } catch (FontFormatException | IOException e) {
-            System.err.println(ColoredLog.WARNING + "Error loading font: " + e.getMessage() + " - Using default font.");
-            this.valueFont = new Font("Arial", Font.PLAIN, 12);
-        }
+        AssetRegistry.preloadFonts();
+        this.labelBusFont = AssetRegistry.getFont(AssetRegistry.FONT_ITALIC, Font.PLAIN, 12f, new Font("Arial", Font.ITALIC, 12));
+        this.labelComponentFont = AssetRegistry.getFont(AssetRegistry.FONT_BOLD, Font.PLAIN, 16f, new Font("Arial", Font.BOLD, 16));
+        this.valueFont = AssetRegistry.getFont(AssetRegistry.FONT_REGULAR, Font.PLAIN, 12f, new Font("Arial", Font.PLAIN, 12));
 
         setPreferredSize(new Dimension(1600, 900)); 
         setBackground(Color.LIGHT_GRAY); 
@@ -118,14 +126,23 @@ public class DatapathCanvas extends JPanel {
         ActionListener animationUpdater = e -> {
             boolean stillAnimating = false;
             long currentTime = System.currentTimeMillis();
+            FontMetrics fm = getFontMetrics(valueFont);
+            Rectangle dirty = null;
        
+            // Only the values move: repaint where each one was and where it is now
             for (AnimationState state : activeAnimations.values()) {
+                if (state.isFinished()) continue;
+                dirty = union(dirty, getValueBounds(state, fm));
                 state.updateProgress(currentTime);
+                dirty = union(dirty, getValueBounds(state, fm));
                 if (!state.isFinished()) { 
                     stillAnimating = true; 
                 }
             }
-            repaint(); 
+            if (dirty != null) {
+                dirty.grow(VALUE_REPAINT_MARGIN, VALUE_REPAINT_MARGIN);
+                repaint(dirty);
+            }
        
             if (!stillAnimating && animationTimer.isRunning()) { 
                 animationTimer.stop();
@@ -191,38 +208,110 @@ public class DatapathCanvas extends JPanel {
         System.out.println(ColoredLog.SUCCESS + "Initialized " + draggableLabels.size() + " draggable labels.");
     }
 
+    /**
+     * Resolves the path of every bus once: its points, their cumulative arc lengths (used to place the
+     * animated values) and the bounds of its segments (used for the dirty areas of the overlay).
+     */
+    private void initializeBusPaths() {
+        busPaths.clear();
+        if (layoutData == null || layoutData.buses == null) return;
+
+        int highlightWidth = (int) Math.ceil(((BasicStroke) highlightBusStroke).getLineWidth());
+        for (BusInfo busInfo : layoutData.buses) {
+            if (busInfo.path == null || busInfo.path.size() < 2) continue;
+
+            List<Point> points = new ArrayList<>(busInfo.path.size());
+            for (PathPoint pathPoint : busInfo.path) points.add(getAbsolutePoint(pathPoint));
+
+            // Arc lengths: distances[i] is the length of the path up to point i (null if a point is unresolved)
+            double[] distances = new double[points.size()];
+            for (int i = 1; i < points.size() && distances != null; i++) {
+                if (points.get(i - 1) == null || points.get(i) == null) distances = null;
+                else distances[i] = distances[i - 1] + points.get(i - 1).distance(points.get(i));
+            }
+            if (points.get(0) == null) distances = null;
+
+            int margin = (Math.max(highlightWidth, busInfo.thickness) + 1) / 2 + DIRTY_MARGIN;
+            List<Rectangle> segments = new ArrayList<>();
+            Point prevPoint = null;
+            for (Point point : points) {
+                if (point != null && prevPoint != null) {
+                    Rectangle segment = new Rectangle(prevPoint);
+                    segment.add(point);
+                    segment.grow(margin, margin);
+                    segments.add(segment);
+                }
+                prevPoint = point;
+            }
+            if (prevPoint != null) {
+                Rectangle arrowHead = new Rectangle(prevPoint);
+                arrowHead.grow(ARR_SIZE + margin, ARR_SIZE + margin);
+                segments.add(arrowHead);
+            }
+
+            busPaths.put(busInfo, new BusPath(points, distances, segments));
+        }
+    }
+
     /**
      * Loads the layout data and images from the JSON file.
      * It sets the preferred size of the canvas based on the loaded layout data.
      */
     private void loadLayoutAndImages() {
+        layoutData = readLayout();
+        if (layoutData == null) return;
+        System.out.println(ColoredLog.SUCCESS + "Successfully loaded layout data.");          
+            
+        if (layoutData.canvasSize != null) {
+            setPreferredSize(new Dimension(layoutData.canvasSize.width, layoutData.canvasSize.height));
+        }
+
+        loadComponentImages();
+        initializeDraggableLabels();          
+        initializeBusPaths();
+    }
+
+    /**
+     * Starts loading the fonts and component images of the canvas in the background (see AssetRegistry),
+     * so that the first canvas opens without waiting for them.
+     */
+    public static void preloadAssets() {
+        AssetRegistry.preloadFonts();
+        DatapathLayout layout = readLayout();
+        if (layout == null || layout.components == null) return;
+
+        List<String> paths = new ArrayList<>();
+        for (ComponentInfo compInfo : layout.components) {
+            paths.add(IMAGE_PATH + compInfo.asset + "_inactive.png");
+            paths.add(IMAGE_PATH + compInfo.asset + "_active.png");
+        }
+        AssetRegistry.preloadImages(paths);
+    }
+
+    /**
+     * Reads the layout JSON file.
+     * @return The layout, or null if it cannot be read.
+     */
+    private static DatapathLayout readLayout() {
         ObjectMapper mapper = new ObjectMapper(); 
-        String jsonFilePath = "/resources/layout/datapath_layout.json"; 
 
-        try (InputStream is = DatapathCanvas.class.getResourceAsStream(jsonFilePath)) {
+        try (InputStream is = DatapathCanvas.class.getResourceAsStream(LAYOUT_PATH)) {
             if (is == null) {
-                System.err.println(ColoredLog.ERROR + "FATAL ERROR: Cannot find JSON file: " + jsonFilePath);
-                return;
-            }
-            
-            layoutData = mapper.readValue(is, DatapathLayout.class);
-            System.out.println(ColoredLog.SUCCESS + "Successfully loaded layout data.");          
-            
-            if (layoutData.canvasSize != null) {
-                setPreferredSize(new Dimension(layoutData.canvasSize.width, layoutData.canvasSize.height));
+                System.err.println(ColoredLog.ERROR + "FATAL ERROR: Cannot find JSON file: " + LAYOUT_PATH);
+                return null;
             }
-
-            loadComponentImages();
-            initializeDraggableLabels();          
+            return mapper.readValue(is, DatapathLayout.class);
         } catch (IOException e) {
-            System.err.println(ColoredLog.ERROR + "FATAL ERROR: Failed to read or parse JSON file: " + jsonFilePath);
+            System.err.println(ColoredLog.ERROR + "FATAL ERROR: Failed to read or parse JSON file: " + LAYOUT_PATH);
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
      * Loads component images from the resources folder based on the layout data.
-     * It populates the inactiveImages and activeImages maps with the loaded images.
+     * It populates the inactiveImages and activeImages maps with the loaded images,
+     * which are shared with every other canvas (see AssetRegistry) and loaded in parallel.
      */
     private void loadComponentImages() {
         if (layoutData == null || layoutData.components == null) {
@@ -230,26 +319,29 @@ public class DatapathCanvas extends JPanel {
             return;
         }
 
-        String basePath = "/resources/images/"; 
+        List<String> paths = new ArrayList<>();
+        for (ComponentInfo compInfo : layoutData.components) {
+            paths.add(IMAGE_PATH + compInfo.asset + "_inactive.png");
+            paths.add(IMAGE_PATH + compInfo.asset + "_active.png");
+        }
+        Map<String, BufferedImage> images = AssetRegistry.getImages(paths);
 
         for (ComponentInfo compInfo : layoutData.components) {
             try {
                 ComponentID id = ComponentID.valueOf(compInfo.id); 
-                String inactiveFileName = basePath + compInfo.asset + "_inactive.png";
-                String activeFileName = basePath + compInfo.asset + "_active.png";
-                InputStream isInactive = DatapathCanvas.class.getResourceAsStream(inactiveFileName);
+                String inactiveFileName = IMAGE_PATH + compInfo.asset + "_inactive.png";
+                String activeFileName = IMAGE_PATH + compInfo.asset + "_active.png";
+                BufferedImage inactiveImage = images.get(inactiveFileName);
 
-                if (isInactive != null) {
-                    inactiveImages.put(id, ImageIO.read(isInactive));
-                    isInactive.close(); 
+                if (inactiveImage != null) {
+                    inactiveImages.put(id, inactiveImage);
                 } else {
                     System.err.println(ColoredLog.WARNING + "Warning: Cannot find inactive image: " + inactiveFileName);
                 }
                 
-                InputStream isActive = DatapathCanvas.class.getResourceAsStream(activeFileName);
-                if (isActive != null) {
-                    activeImages.put(id, ImageIO.read(isActive));
-                    isActive.close(); 
+                BufferedImage activeImage = images.get(activeFileName);
+                if (activeImage != null) {
+                    activeImages.put(id, activeImage);
                 } else {
                     System.err.println(ColoredLog.WARNING + "Warning: Cannot find active image: " + activeFileName);   
                     if (inactiveImages.containsKey(id)) {
@@ -258,9 +350,6 @@ public class DatapathCanvas extends JPanel {
                 }
             } catch (IllegalArgumentException e) {
                 System.err.println(ColoredLog.WARNING + "Error: Component ID mismatch between JSON ('" + compInfo.id + "') and Enum ComponentID.");
-            } catch (IOException e) {
-                System.err.println(ColoredLog.WARNING + "Error loading image for component: " + compInfo.id);
-                e.printStackTrace();
             }
         }
         System.out.println(ColoredLog.SUCCESS + "Finished loading component images.");
@@ -287,98 +376,293 @@ public class DatapathCanvas extends JPanel {
         Graphics2D g2d = (Graphics2D) g.create(); 
         try {     
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                                  
-            if (layoutData.buses != null) {
-                for (BusInfo busInfo : layoutData.buses) {
-                    drawBus(g2d, busInfo); 
+
+            paintBackgroundLayer(g2d);
+            paintActiveOverlay(g2d);
+
+            if (!activeAnimations.isEmpty()) {
+                List<AnimationState> animationsToDraw = new ArrayList<>(activeAnimations.values());
+                for (AnimationState state : animationsToDraw) {
+                    drawAnimatedValue(g2d, state);
                 }
             }
-                        
-            g2d.setFont(labelComponentFont);            
-            g2d.setColor(Color.BLACK);
-            if (layoutData.components != null) {
-                for (ComponentInfo compInfo : layoutData.components) {
-                    drawComponent(g2d, compInfo); 
+        } finally {
+            g2d.dispose(); 
+        }
+    }
+
+    /**
+     * Copies the cached background layer onto the canvas, re-rendering it first if it is missing,
+     * invalidated, lost (VolatileImage contents can be dropped by the system) or of the wrong size or scale.
+     * The layer is kept in device pixels, so it stays sharp on scaled (HiDPI) displays.
+     * @param g2d The Graphics2D object of the canvas.
+     */
+    private void paintBackgroundLayer(Graphics2D g2d) {
+        AffineTransform transform = g2d.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        int width = getWidth();
+        int height = getHeight();
+        int deviceWidth = Math.max(1, (int) Math.ceil(width * scaleX));
+        int deviceHeight = Math.max(1, (int) Math.ceil(height * scaleY));
+        if (width != backgroundWidth || height != backgroundHeight || scaleX != backgroundScaleX || scaleY != backgroundScaleY) {
+            backgroundLayer = null;
+            backgroundWidth = width;
+            backgroundHeight = height;
+            backgroundScaleX = scaleX;
+            backgroundScaleY = scaleY;
+        }
+
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        do {
+            if (backgroundLayer == null) {
+                backgroundLayer = (gc != null) ? gc.createCompatibleVolatileImage(deviceWidth, deviceHeight)
+                                               : new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_RGB);
+                backgroundValid = false;
+            }
+            if (backgroundLayer instanceof VolatileImage volatileLayer && gc != null) {
+                int status = volatileLayer.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    backgroundLayer = null;
+                    continue;
                 }
+                if (status == VolatileImage.IMAGE_RESTORED) backgroundValid = false;
+            }
+
+            if (!backgroundValid) {
+                Graphics2D layer = (Graphics2D) backgroundLayer.getGraphics();
+                try {
+                    layer.scale(scaleX, scaleY);
+                    layer.setColor(getBackground());
+                    layer.fillRect(0, 0, width, height);
+                    layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    renderBackground(layer);
+                } finally {
+                    layer.dispose();
+                }
+                backgroundValid = true;
+            }
+            g2d.drawImage(backgroundLayer, 0, 0, width, height, null);
+        } while (backgroundLayer == null || (backgroundLayer instanceof VolatileImage volatileLayer && volatileLayer.contentsLost()));
+    }
+
+    /**
+     * Renders the inactive datapath: every bus, every component and every label except the one being dragged.
+     * @param g2d The Graphics2D object of the background layer.
+     */
+    private void renderBackground(Graphics2D g2d) {
+        if (layoutData.buses != null) {
+            for (BusInfo busInfo : layoutData.buses) {
+                drawBus(g2d, busInfo, false); 
+            }
+        }
+
+        g2d.setFont(labelComponentFont);            
+        g2d.setColor(Color.BLACK);
+        if (layoutData.components != null) {
+            for (ComponentInfo compInfo : layoutData.components) {
+                drawComponent(g2d, compInfo, false); 
+            }
+        }
+
+        g2d.setFont(labelBusFont);
+        g2d.setColor(Color.DARK_GRAY);
+        for (DraggableLabel label : draggableLabels) {
+            if (label != currentlyDraggedLabel) drawLabel(g2d, label);
+        }
+    }
+
+    /**
+     * Draws what differs from the background layer. Each dirty area (a segment of an active bus or an active
+     * component) is cleared and every bus, component and label crossing it is drawn again, clipped and in the
+     * usual order, so the result is the same as redrawing the whole datapath. The dragged label is drawn last.
+     * @param g2d The Graphics2D object of the canvas.
+     */
+    private void paintActiveOverlay(Graphics2D g2d) {
+        Shape clip = g2d.getClip();
+        Rectangle clipBounds = g2d.getClipBounds();
+        for (OverlayPatch patch : overlayPatches) {
+            if (clipBounds != null && !clipBounds.intersects(patch.area())) continue;
+            g2d.setClip(clip);
+            g2d.clip(patch.area());
+            g2d.setColor(getBackground());
+            g2d.fill(patch.area());
+
+            for (BusInfo busInfo : patch.buses()) {
+                drawBus(g2d, busInfo, isActiveBus(busInfo));
+            }
+
+            g2d.setFont(labelComponentFont);
+            g2d.setColor(Color.BLACK);
+            for (ComponentInfo compInfo : patch.components()) {
+                drawComponent(g2d, compInfo, isActiveComponent(compInfo));
             }
 
             g2d.setFont(labelBusFont);
             g2d.setColor(Color.DARK_GRAY);
-            FontMetrics fm = g2d.getFontMetrics();
-            int textHeight = fm.getHeight();
-            int ascent = fm.getAscent();
-
             for (DraggableLabel label : draggableLabels) {
-                ComponentInfo ownerComp = getComponentInfo(label.ownerComponentId);
-                if (ownerComp == null) continue; 
-
-                ConnectionPoint cp = ownerComp.connectionPoints.get(label.connectionPointName);
-                if (cp == null) continue; 
-
-                int defaultX, defaultY;
-                String[] lines = label.originalMultiLineText.split("\n"); 
-                int textWidth = 0;
-                for (String line : lines) { textWidth = Math.max(textWidth, fm.stringWidth(line)); }
-
-                if (cp.labelXOffset != null && cp.labelYOffset != null) { 
-                    defaultX = label.anchorX + cp.labelXOffset;
-                    defaultY = label.anchorY + cp.labelYOffset + ascent; 
-                } else { 
-                    int centerX = ownerComp.x + ownerComp.width / 2;
-                    int centerY = ownerComp.y + ownerComp.height / 2;
-                    boolean preferHorizontal = Math.abs(label.anchorX - centerX) * ownerComp.height > Math.abs(label.anchorY - centerY) * ownerComp.width;
-
-                    if (preferHorizontal) {
-                        defaultY = label.anchorY - (lines.length * textHeight / 2) + ascent;
-                        if (label.anchorX < centerX) defaultX = label.anchorX - textWidth;
-                        else defaultX = label.anchorX;
-                    } else {
-                        defaultX = label.anchorX - textWidth / 2;
-                        if (label.anchorY < centerY) defaultY = label.anchorY - (lines.length * textHeight) + ascent;
-                        else defaultY = label.anchorY + ascent;
+                if (label != currentlyDraggedLabel && patch.area().intersects(label.bounds)) drawLabel(g2d, label);
+            }
+        }
+        g2d.setClip(clip);
+
+        if (currentlyDraggedLabel != null) {
+            g2d.setFont(labelBusFont);
+            g2d.setColor(Color.DARK_GRAY);
+            drawLabel(g2d, currentlyDraggedLabel);
+        }
+    }
+
+    /**
+     * Recomputes the dirty areas, and the buses and components crossing each of them, after the active state changed.
+     */
+    private void rebuildOverlay() {
+        List<Rectangle> areas = new ArrayList<>();
+        if (layoutData != null && layoutData.buses != null) {
+            for (BusInfo busInfo : layoutData.buses) {
+                if (isActiveBus(busInfo)) areas.addAll(getBusSegmentBounds(busInfo));
+            }
+        }
+        if (layoutData != null && layoutData.components != null) {
+            for (ComponentInfo compInfo : layoutData.components) {
+                if (isActiveComponent(compInfo)) areas.add(getComponentBounds(compInfo));
+            }
+        }
+
+        List<OverlayPatch> patches = new ArrayList<>(areas.size());
+        for (Rectangle area : areas) {
+            List<BusInfo> buses = new ArrayList<>();
+            for (BusInfo busInfo : layoutData.buses) {
+                for (Rectangle segment : getBusSegmentBounds(busInfo)) {
+                    if (area.intersects(segment)) {
+                        buses.add(busInfo);
+                        break;
                     }
-                    
-                    if (defaultX < 2) defaultX = 2;
-                    if (defaultY < textHeight) defaultY = textHeight;
                 }
-                
-                int currentX = defaultX + label.offsetX;
-                int currentY = defaultY + label.offsetY;
-                int drawY = currentY;
-                int totalTextHeight = lines.length * textHeight;
-                int actualWidth = textWidth; 
+            }
+            List<ComponentInfo> components = new ArrayList<>();
+            if (layoutData.components != null) {
+                for (ComponentInfo compInfo : layoutData.components) {
+                    if (area.intersects(getComponentBounds(compInfo))) components.add(compInfo);
+                }
+            }
+            patches.add(new OverlayPatch(area, buses, components));
+        }
+        this.overlayPatches = patches;
+    }
 
-                for (String line : lines) {
-                    int drawX = currentX;
-                    
-                    if (cp.labelXOffset == null && cp.labelYOffset == null) {
-                        int centerX = ownerComp.x + ownerComp.width / 2;
-                        int centerY = ownerComp.y + ownerComp.height / 2;
-                        boolean preferHorizontal = Math.abs(label.anchorX - centerX) * ownerComp.height > Math.abs(label.anchorY - centerY) * ownerComp.width;
-                        if(!preferHorizontal){
-                            int currentLineWidth = fm.stringWidth(line);
-                            drawX = label.anchorX - currentLineWidth / 2 + label.offsetX; 
-                            if (drawX < 2) drawX = 2;
-                            actualWidth = Math.max(actualWidth, currentLineWidth); 
-                        }
-                    }
+    /**
+     * Marks the background layer for re-rendering at the next paint.
+     */
+    private void invalidateBackground() {
+        backgroundValid = false;
+        repaint();
+    }
 
-                    g2d.drawString(line, drawX, drawY);
-                    drawY += textHeight;
-                }
+    private boolean isActiveBus(BusInfo busInfo) {
+        try {
+            return activeBuses.contains(BusID.valueOf(busInfo.id));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-                label.updateBounds(currentX, currentY - ascent, actualWidth, totalTextHeight);
-            } 
+    private boolean isActiveComponent(ComponentInfo compInfo) {
+        try {
+            return activeComponents.contains(ComponentID.valueOf(compInfo.id));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-            if (!activeAnimations.isEmpty()) {
-                List<AnimationState> animationsToDraw = new ArrayList<>(activeAnimations.values());
-                for (AnimationState state : animationsToDraw) {
-                    drawAnimatedValue(g2d, state);
+    /**
+     * @return The area a component may paint (image, border and label), with a margin for antialiasing.
+     */
+    private static Rectangle getComponentBounds(ComponentInfo compInfo) {
+        Rectangle bounds = new Rectangle(compInfo.x, compInfo.y, compInfo.width, compInfo.height);
+        bounds.grow(DIRTY_MARGIN, DIRTY_MARGIN);
+        return bounds;
+    }
+
+    /**
+     * @return The areas covered by each segment of a bus (at its widest stroke), the last one including the
+     *         arrowhead, or an empty list if the bus has no drawable path.
+     */
+    private List<Rectangle> getBusSegmentBounds(BusInfo busInfo) {
+        BusPath busPath = busPaths.get(busInfo);
+        return (busPath != null) ? busPath.segmentBounds() : List.of();
+    }
+
+    /**
+     * Draws a draggable connection point label and records its bounds (used for hit testing).
+     * The font must already be set to the bus label font.
+     * @param g2d The Graphics2D object used for drawing.
+     * @param label The label to draw.
+     */
+    private void drawLabel(Graphics2D g2d, DraggableLabel label) {
+        FontMetrics fm = g2d.getFontMetrics();
+        int textHeight = fm.getHeight();
+        int ascent = fm.getAscent();
+
+        ComponentInfo ownerComp = getComponentInfo(label.ownerComponentId);
+        if (ownerComp == null) return; 
+
+        ConnectionPoint cp = ownerComp.connectionPoints.get(label.connectionPointName);
+        if (cp == null) return; 
+
+        int defaultX, defaultY;
+        String[] lines = label.originalMultiLineText.split("\n"); 
+        int textWidth = 0;
+        for (String line : lines) { textWidth = Math.max(textWidth, fm.stringWidth(line)); }
+
+        if (cp.labelXOffset != null && cp.labelYOffset != null) { 
+            defaultX = label.anchorX + cp.labelXOffset;
+            defaultY = label.anchorY + cp.labelYOffset + ascent; 
+        } else { 
+            int centerX = ownerComp.x + ownerComp.width / 2;
+            int centerY = ownerComp.y + ownerComp.height / 2;
+            boolean preferHorizontal = Math.abs(label.anchorX - centerX) * ownerComp.height > Math.abs(label.anchorY - centerY) * ownerComp.width;
+
+            if (preferHorizontal) {
+                defaultY = label.anchorY - (lines.length * textHeight / 2) + ascent;
+                if (label.anchorX < centerX) defaultX = label.anchorX - textWidth;
+                else defaultX = label.anchorX;
+            } else {
+                defaultX = label.anchorX - textWidth / 2;
+                if (label.anchorY < centerY) defaultY = label.anchorY - (lines.length * textHeight) + ascent;
+                else defaultY = label.anchorY + ascent;
+            }
+            
+            if (defaultX < 2) defaultX = 2;
+            if (defaultY < textHeight) defaultY = textHeight;
+        }
+        
+        int currentX = defaultX + label.offsetX;
+        int currentY = defaultY + label.offsetY;
+        int drawY = currentY;
+        int totalTextHeight = lines.length * textHeight;
+        int actualWidth = textWidth; 
+
+        for (String line : lines) {
+            int drawX = currentX;
+            
+            if (cp.labelXOffset == null && cp.labelYOffset == null) {
+                int centerX = ownerComp.x + ownerComp.width / 2;
+                int centerY = ownerComp.y + ownerComp.height / 2;
+                boolean preferHorizontal = Math.abs(label.anchorX - centerX) * ownerComp.height > Math.abs(label.anchorY - centerY) * ownerComp.width;
+                if(!preferHorizontal){
+                    int currentLineWidth = fm.stringWidth(line);
+                    drawX = label.anchorX - currentLineWidth / 2 + label.offsetX; 
+                    if (drawX < 2) drawX = 2;
+                    actualWidth = Math.max(actualWidth, currentLineWidth); 
                 }
             }
-        } finally {
-            g2d.dispose(); 
+
+            g2d.drawString(line, drawX, drawY);
+            drawY += textHeight;
         }
+
+        label.updateBounds(currentX, currentY - ascent, actualWidth, totalTextHeight);
     }
 
     /**
@@ -387,12 +671,12 @@ public class DatapathCanvas extends JPanel {
      * It also handles the drawing of labels for the component.
      * @param g2d The Graphics2D object used for drawing.
      * @param compInfo The ComponentInfo object containing information about the component.
+     * @param isActive true to draw the component's active image.
      */
-    private void drawComponent(Graphics2D g2d, ComponentInfo compInfo) {
+    private void drawComponent(Graphics2D g2d, ComponentInfo compInfo, boolean isActive) {
         try {
             ComponentID id = ComponentID.valueOf(compInfo.id);
      
-            boolean isActive = activeComponents.contains(id); 
             BufferedImage img = isActive ? activeImages.get(id) : inactiveImages.get(id); 
             
             if (isActive && img == null) img = inactiveImages.get(id);           
@@ -459,17 +743,15 @@ public class DatapathCanvas extends JPanel {
      * color and thickness of the bus line, and draws the path of the bus.
      * @param g2d The Graphics2D object used for drawing.
      * @param busInfo The BusInfo object containing information about the bus.
+     * @param isBusHighlighted true to draw the bus as active.
      */
-    private void drawBus(Graphics2D g2d, BusInfo busInfo) {
+    private void drawBus(Graphics2D g2d, BusInfo busInfo, boolean isBusHighlighted) {
         if (busInfo.path == null || busInfo.path.size() < 2) return;
 
-        BusID id = null;
-        boolean isBusHighlighted = false; 
         Color defaultColorFromJSON = defaultBusColor; 
 
         try {
-            id = BusID.valueOf(busInfo.id);    
-            isBusHighlighted = activeBuses.contains(id);
+            BusID.valueOf(busInfo.id); // Only checks the ID; the active state is decided by the caller
             
             if (busInfo.color != null && !busInfo.color.isEmpty()) {
                 try {
@@ -521,31 +803,20 @@ public class DatapathCanvas extends JPanel {
             return; 
         }
 
-        BusInfo busInfo = getBusInfo(animationState.busId); 
-        if (busInfo == null) return; 
-
-        Point valuePoint = getPointOnPath(busInfo, animationState.progress);
-        if (valuePoint == null) return; 
-
         g2d.setFont(valueFont);
         FontMetrics fm = g2d.getFontMetrics();
+        Rectangle valueBounds = getValueBounds(animationState, fm);
+        if (valueBounds == null) return; 
+
         String[] lines = animationState.value.split("\n"); 
         int textHeight = fm.getHeight();
         int ascent = fm.getAscent();
-        int totalTextHeight = lines.length * textHeight;
-        int maxWidth = 0;
-        for (String line : lines) {
-            maxWidth = Math.max(maxWidth, fm.stringWidth(line));
-        }
-
-        final int VALUE_PADDING_X = 5;
-        final int VALUE_PADDING_Y = 2;
         final int ARC_SIZE = 10;
 
-        int rectW = maxWidth + 2 * VALUE_PADDING_X; 
-        int rectH = totalTextHeight + 2 * VALUE_PADDING_Y; 
-        int rectX = valuePoint.x - rectW / 2;         
-        int rectY = valuePoint.y - rectH / 2 - 3; 
+        int rectW = valueBounds.width; 
+        int rectH = valueBounds.height; 
+        int rectX = valueBounds.x;         
+        int rectY = valueBounds.y; 
         
         Color originalColor = g2d.getColor();
         Stroke originalStroke = g2d.getStroke();
@@ -604,7 +875,7 @@ public class DatapathCanvas extends JPanel {
     public void updateState(MicroStep step) {        
         Set<ComponentID> currentActiveComponents = new HashSet<>();
         Set<BusID> currentActiveBuses = new HashSet<>();
-        Map<BusID, StepInfo> busInfoForNewAnimations = new HashMap<>(); 
+        Map<BusID, String> busValuesForNewAnimations = new HashMap<>(); 
     
         if (step != null && step.stepInfo() != null) {
              for (StepInfo info : step.stepInfo()) {
@@ -612,22 +883,23 @@ public class DatapathCanvas extends JPanel {
                 if (info.endComponent() != null) currentActiveComponents.add(info.endComponent());
                 if (info.bus() != null) {
                     currentActiveBuses.add(info.bus());
-                    if (info.value() != null && !info.value().trim().isEmpty()) {
-                        busInfoForNewAnimations.put(info.bus(), info);
+                    String value = info.value(); // Rendered here, once per displayed bus
+                    if (value != null && !value.trim().isEmpty()) {
+                        busValuesForNewAnimations.put(info.bus(), value);
                     }
                 }
             }
         }
         this.activeComponents = currentActiveComponents;
         this.activeBuses = currentActiveBuses;
+        rebuildOverlay();
         
         Map<BusID, AnimationState> nextAnimationStates = new ConcurrentHashMap<>();
         long startTime = System.currentTimeMillis();
     
-        for (Map.Entry<BusID, StepInfo> entry : busInfoForNewAnimations.entrySet()) {
+        for (Map.Entry<BusID, String> entry : busValuesForNewAnimations.entrySet()) {
             BusID busId = entry.getKey();
-            StepInfo info = entry.getValue();
-            AnimationState newState = new AnimationState(busId, info.value(), startTime, this.simulationDelayMs);
+            AnimationState newState = new AnimationState(busId, entry.getValue(), startTime, this.simulationDelayMs);
             nextAnimationStates.put(busId, newState);        
         }
     
@@ -661,6 +933,7 @@ public class DatapathCanvas extends JPanel {
         this.activeComponents.clear();
         this.activeBuses.clear();
         this.activeAnimations.clear(); 
+        rebuildOverlay();
         if (animationTimer.isRunning()) {
             animationTimer.stop(); 
         }
@@ -682,6 +955,35 @@ public class DatapathCanvas extends JPanel {
         return null; 
     }
 
+    /**
+     * Computes the box of an animated value at its current progress, as drawn by drawAnimatedValue
+     * (the outline adds one pixel on the right and bottom).
+     * @param animationState The animation.
+     * @param fm The metrics of the value font.
+     * @return The box, or null if the value is not drawn (empty value or unknown bus).
+     */
+    private Rectangle getValueBounds(AnimationState animationState, FontMetrics fm) {
+        if (animationState.value == null || animationState.value.trim().isEmpty()) return null;
+
+        Point valuePoint = getPointOnPath(getBusInfo(animationState.busId), animationState.progress);
+        if (valuePoint == null) return null;
+
+        String[] lines = animationState.value.split("\n");
+        int maxWidth = 0;
+        for (String line : lines) {
+            maxWidth = Math.max(maxWidth, fm.stringWidth(line));
+        }
+
+        int rectW = maxWidth + 2 * VALUE_PADDING_X;
+        int rectH = lines.length * fm.getHeight() + 2 * VALUE_PADDING_Y;
+        return new Rectangle(valuePoint.x - rectW / 2, valuePoint.y - rectH / 2 - 3, rectW, rectH);
+    }
+
+    private static Rectangle union(Rectangle area, Rectangle rect) {
+        if (rect == null) return area;
+        return (area == null) ? new Rectangle(rect) : area.union(rect);
+    }
+
     /**
      * Gets the BusInfo object for a given BusID.
      * @param busId The BusID to search for.
@@ -706,47 +1008,36 @@ public class DatapathCanvas extends JPanel {
      * @return The Point on the path corresponding to the progress, or null if not found.
      */
     private Point getPointOnPath(BusInfo busInfo, double progress) {
-        if (busInfo == null || busInfo.path == null || busInfo.path.size() < 2) {
+        BusPath busPath = (busInfo != null) ? busPaths.get(busInfo) : null;
+        if (busPath == null) {
             return null;
         }
-        if (progress <= 0.0) return getAbsolutePoint(busInfo.path.get(0));
-        if (progress >= 1.0) return getAbsolutePoint(busInfo.path.get(busInfo.path.size() - 1));
- 
-        double totalLength = 0;
-        List<Point> points = new ArrayList<>();
-        Point lastP = null;
-        for (PathPoint pp : busInfo.path) {
-            Point p = getAbsolutePoint(pp);
-            if (p == null) return null; 
-            if (lastP != null) totalLength += lastP.distance(p);
-
-            points.add(p);
-            lastP = p;
-        }
+        List<Point> points = busPath.points();
+        if (progress <= 0.0) return points.get(0);
+        if (progress >= 1.0) return points.get(points.size() - 1);
 
+        double[] distances = busPath.distances();
+        if (distances == null) return null; 
+
+        double totalLength = distances[distances.length - 1];
         if (totalLength <= 0) return points.get(0); 
         
+        // First segment ending at or after the target distance (never a zero-length one)
         double targetDistance = totalLength * progress;
-        double cumulativeDistance = 0;
-        for (int i = 0; i < points.size() - 1; i++) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i + 1);
-            double segmentLength = p1.distance(p2);
-
-            if (segmentLength > 0) { 
-                if (targetDistance <= cumulativeDistance + segmentLength) {            
-                    double distanceIntoSegment = targetDistance - cumulativeDistance;
-                    double ratio = distanceIntoSegment / segmentLength;
-                    
-                    int x = p1.x + (int) (ratio * (p2.x - p1.x));
-                    int y = p1.y + (int) (ratio * (p2.y - p1.y));
-                    return new Point(x, y);
-                }
-            }
-            cumulativeDistance += segmentLength;
+        int low = 1;
+        int high = distances.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (distances[mid] >= targetDistance) high = mid;
+            else low = mid + 1;
         }
-        
-        return points.get(points.size() - 1);
+
+        Point p1 = points.get(low - 1);
+        Point p2 = points.get(low);
+        double ratio = (targetDistance - distances[low - 1]) / (distances[low] - distances[low - 1]);
+        int x = p1.x + (int) (ratio * (p2.x - p1.x));
+        int y = p1.y + (int) (ratio * (p2.y - p1.y));
+        return new Point(x, y);
     }
 
     /**
@@ -822,6 +1113,22 @@ public class DatapathCanvas extends JPanel {
         }
     }
 
+    /**
+     * A part of the canvas redrawn over the background layer every frame.
+     * @param area The area (a segment of an active bus or an active component).
+     * @param buses The buses crossing it, in drawing order.
+     * @param components The components crossing it, in drawing order.
+     */
+    private record OverlayPatch(Rectangle area, List<BusInfo> buses, List<ComponentInfo> components) {}
+
+    /**
+     * The resolved geometry of a bus path.
+     * @param points The absolute points (null where a path point could not be resolved).
+     * @param distances The arc length up to each point, or null if a point is unresolved.
+     * @param segmentBounds The areas covered by each segment and the arrowhead.
+     */
+    private record BusPath(List<Point> points, double[] distances, List<Rectangle> segmentBounds) {}
+
     /**
      * Handles mouse events for dragging labels on the canvas.
      * It updates the position of the label based on mouse movements.
@@ -835,7 +1142,7 @@ public class DatapathCanvas extends JPanel {
                 dragStartYOffset = point.y - label.bounds.y;
                 
                 setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR)); 
-                repaint(); 
+                invalidateBackground(); // The dragged label moves to the overlay
                 break; 
             }
         }
@@ -909,7 +1216,7 @@ public class DatapathCanvas extends JPanel {
         if (currentlyDraggedLabel != null) {
             currentlyDraggedLabel = null;
             setCursor(Cursor.getDefaultCursor()); 
-            repaint(); 
+            invalidateBackground(); // The label goes back into the background at its new place
         }
     }
 
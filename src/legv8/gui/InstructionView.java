@@ -5,7 +5,6 @@
 
 package legv8.gui;
 
-import legv8.core.InstructionMemory; 
 import legv8.core.ProgramCounter;
 import legv8.instructions.Instruction;
 import legv8.util.ColoredLog;
@@ -14,7 +13,6 @@ import javax.swing.*;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 
-import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -28,7 +26,7 @@ public class InstructionView extends StateDisplayFrame {
     private JCheckBox chkShowBinaryCode; 
     
     // Data references
-    private InstructionMemory instructionMemoryRef;
+    private List<Instruction> instructionsRef;
     private int pcHighlightRow = -1; 
 
 
@@ -37,11 +35,11 @@ public class InstructionView extends StateDisplayFrame {
     /**
      * Constructor for InstructionView.
      * @param parent The parent SimulationView.
-     * @param iMem The InstructionMemory to display.
+     * @param instructions The loaded instructions to display (e.g. from a simulation snapshot).
      */
-    public InstructionView(SimulationView parent, InstructionMemory iMem) {
+    public InstructionView(SimulationView parent, List<Instruction> instructions) {
         super("Instruction Memory (LEGv8)", parent);
-        this.instructionMemoryRef = iMem;
+        this.instructionsRef = instructions;
 
         setColumnNames(new String[]{"Byte Addr", "Disassembly", "Bytecode (Hex)", "Bytecode (Bin)"});
         setColumnWidths(new int[]{100, 250, 150, 280}); 
@@ -126,7 +124,7 @@ public class InstructionView extends StateDisplayFrame {
      * @param pcAddress The current program counter address.
      */
     public void highlightPCRow(long pcAddress) {
-        if (instructionMemoryRef == null) return;
+        if (instructionsRef == null) return;
         long base = ProgramCounter.BASE_ADDRESS;
         int targetRow = -1;
         
@@ -149,19 +147,26 @@ public class InstructionView extends StateDisplayFrame {
         }
     }
 
+    /**
+     * @return The byte address of the selected row (e.g. a "run to cursor" target), or -1 if no row is selected.
+     */
+    public long getSelectedAddress() {
+        int row = table.getSelectedRow();
+        return (row < 0) ? -1L : ProgramCounter.BASE_ADDRESS + (long) row * 4;
+    }
+
     // --- Data Processing Methods ---
 
     /**
      * Update the data displayed in the instruction memory table.
-     * This method retrieves the instructions from the InstructionMemory and populates the table.
+     * This method populates the table from the loaded instructions (null entries are shown as load errors).
      * It also highlights the row corresponding to the current program counter (PC) address.
-     * @param iMem
-     * @param pcAddress
+     * @param instructions The loaded instructions, e.g. from a simulation snapshot.
+     * @param pcAddress The current program counter address.
      */
-    public void updateData(InstructionMemory iMem, long pcAddress) {
-        if (iMem == null) return;
-        this.instructionMemoryRef = iMem;
-        List<Instruction> instructions = instructionMemoryRef.getInstructions();
+    public void updateData(List<Instruction> instructions, long pcAddress) {
+        if (instructions == null) return;
+        this.instructionsRef = instructions;
 
         int count = instructions.size();
         Object[][] tableData = new Object[count][4]; 
@@ -175,11 +180,10 @@ public class InstructionView extends StateDisplayFrame {
             tableData[i][1] = (instr != null) ? instr.disassemble() : "<Load Error>"; 
             
             if (instr != null) {
-                BitSet bc = instr.getBytecode();
+                int machineCode = instr.getMachineCode();
                 
-                int intRepresentation = bitSetToInt(bc); 
-                tableData[i][2] = String.format("0x%08X", intRepresentation);    
-                tableData[i][3] = formatBinaryString(bc); 
+                tableData[i][2] = String.format("0x%08X", machineCode);    
+                tableData[i][3] = Instruction.formatMachineCode(machineCode); 
             } else {
                 tableData[i][2] = "N/A";
                 tableData[i][3] = "N/A";
@@ -196,36 +200,4 @@ public class InstructionView extends StateDisplayFrame {
             scrollToRow(pcHighlightRow); 
         }
     }
-
-    /**
-     * Convert a BitSet to an integer
-     * @param bitSet
-     * @return Value of the BitSet as an integer
-     */    
-    private int bitSetToInt(BitSet bitSet) {
-        int intValue = 0;
-        for (int i = 0; (i < 32) && (i < bitSet.length()); i++) {
-            if (bitSet.get(i)) {
-                intValue |= (1 << i);
-            }
-        }
-        return intValue;
-    }
-    
-    /**
-     * Format a BitSet as a binary string
-     * This method is used to display the bytecode in binary format, separated by spaces every 8 bits for readability.
-     * @param bits
-     * @return Formatted binary string
-     */
-    private String formatBinaryString(BitSet bits) {
-        StringBuilder sb = new StringBuilder(35); 
-        for (int i = 31; i >= 0; i--) {
-            sb.append(bits.get(i) ? '1' : '0');
-            if (i > 0 && i % 8 == 0) {
-                sb.append(' '); 
-            }
-        }
-        return sb.toString();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.gui;
+
+import legv8.assembler.IncrementalAssembler.Diagnostic;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LineGutter is the row header of the assembly editor: it paints line numbers and marks
+ * the lines that have assembly diagnostics (the message is shown as a tooltip).
+ * Only the rows inside the clip are painted, so the cost does not grow with the file length.
+ */
+class LineGutter extends JComponent {
+    private static final Color BACKGROUND_COLOR = new Color(240, 240, 240);
+    private static final Color NUMBER_COLOR = Color.GRAY;
+    private static final Color ERROR_COLOR = new Color(220, 50, 50);
+    private static final Color ERROR_BACKGROUND_COLOR = new Color(255, 215, 215);
+    private static final int PADDING = 6;
+
+    private final JTextArea textArea;
+    // Messages by 1-based line number
+    private Map<Integer, String> messages = Map.of();
+
+    /**
+     * Constructs a gutter for the given text area.
+     * @param textArea The text area whose lines are numbered.
+     */
+    LineGutter(JTextArea textArea) {
+        this.textArea = textArea;
+        setFont(textArea.getFont());
+        setOpaque(true);
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        textArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { lineCountChanged(); }
+            @Override public void removeUpdate(DocumentEvent e) { lineCountChanged(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
+    }
+
+    /**
+     * Replaces the diagnostics shown in the gutter.
+     * Must be called on the Event Dispatch Thread.
+     * @param diagnostics The diagnostics of the current source.
+     */
+    void setDiagnostics(List<Diagnostic> diagnostics) {
+        Map<Integer, String> byLine = new HashMap<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            byLine.merge(diagnostic.lineNumber(), diagnostic.toString(), (a, b) -> a + "\n" + b);
+        }
+        messages = byLine;
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        FontMetrics fm = getFontMetrics(getFont());
+        int digits = Math.max(3, String.valueOf(textArea.getLineCount()).length());
+        return new Dimension(2 * PADDING + fm.charWidth('0') * digits + PADDING, textArea.getPreferredSize().height);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return messages.get(lineAt(event.getY()) + 1);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        FontMetrics fm = g.getFontMetrics(getFont());
+        int rowHeight = fm.getHeight();
+        int top = textArea.getInsets().top;
+        int first = lineAt(clip.y);
+        int last = Math.min(textArea.getLineCount() - 1, lineAt(clip.y + clip.height));
+        int width = getWidth();
+
+        for (int line = first; line <= last; line++) {
+            int y = top + line * rowHeight;
+            String number = String.valueOf(line + 1);
+            if (messages.containsKey(line + 1)) {
+                g.setColor(ERROR_BACKGROUND_COLOR);
+                g.fillRect(0, y, width, rowHeight);
+                g.setColor(ERROR_COLOR);
+                g.fillOval(2, y + (rowHeight - 6) / 2, 6, 6);
+            } else {
+                g.setColor(NUMBER_COLOR);
+            }
+            g.drawString(number, width - PADDING - fm.stringWidth(number), y + fm.getAscent());
+        }
+    }
+
+    /**
+     * @return The 0-based line at the given y coordinate.
+     */
+    private int lineAt(int y) {
+        int rowHeight = getFontMetrics(getFont()).getHeight();
+        return Math.max(0, (y - textArea.getInsets().top) / rowHeight);
+    }
+
+    private void lineCountChanged() {
+        revalidate();
+        repaint();
+    }
+}
@@ -6,37 +6,40 @@
 package legv8.gui;
 
 import legv8.storage.MemoryStorage;
-import legv8.util.ColoredLog;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * MemoryView is a GUI component that displays the data memory of a LEGv8 processor.
- * It allows users to view and update the memory contents within a specified address range.
- * The view can highlight the last changed address in the memory.
+ * The table is a window of WINDOW_ROWS double words over the whole data segment (from MemoryStorage.MIN_ADDRESS
+ * upward); rows are read and formatted on demand, a page at a time, only when the table paints them.
+ * Jumping to an address outside the window moves the window there. The view can highlight the last changed
+ * address in the memory and jump to the next non-zero double word.
  */
 public class MemoryView extends StateDisplayFrame {
     // Data references
     private MemoryStorage memoryStorageRef;
+    private MemoryTableModel memoryModel;
 
     // GUI components
     private JPanel inputPanel;
-    private JLabel lblStartAddress;
-    private JTextField txtStartAddress;
-    private JLabel lblEndAddress;
-    private JTextField txtEndAddress;
-    private JButton btnUpdateView;
-
-    // Default address range
-    private static final String DEFAULT_START_ADDR_STR = "0x500000"; 
-    private static final String DEFAULT_END_ADDR_STR = "0x501000";   
-    
-    
+    private JLabel lblAddress;
+    private JTextField txtAddress;
+    private JButton btnGoTo;
+    private JButton btnNextNonZero;
+
+    // Default address shown when the view opens
+    private static final String DEFAULT_ADDR_STR = "0x500000";
+    // Rows in the table (2^24 double words = 128 MiB of memory)
+    private static final int WINDOW_ROWS = 1 << 24;
+    // Rows read and formatted together, and the number of such pages kept
+    private static final int PAGE_ROWS = 64;
+    private static final int CACHED_PAGES = 16;
+
+
     // --- Constructor ---
 
     /**
@@ -47,14 +50,13 @@ public class MemoryView extends StateDisplayFrame {
     public MemoryView(SimulationView parent, MemoryStorage storage) {
         super("Data Memory (64-bit Words)", parent);
         this.memoryStorageRef = storage;
+        memoryModel.setMemory(storage);
 
         setColumnNames(new String[]{"Byte Addr (Hex)", "Word Addr (Dec)", "Hex Value (64-bit)", "Decimal Value"});
-        setColumnWidths(new int[]{130, 100, 180, 180}); 
-
-        updateViewWithCurrentRange();
+        setColumnWidths(new int[]{130, 100, 180, 180});
     }
 
-    
+
     // --- GUI Methods ---
 
     /**
@@ -62,74 +64,86 @@ public class MemoryView extends StateDisplayFrame {
      */
     @Override
     protected void initComponents() {
-        super.initComponents(); 
-        
-        inputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT)); 
-
-        lblStartAddress = new JLabel("Start Addr:");
-        txtStartAddress = new JTextField(DEFAULT_START_ADDR_STR, 12); 
-        txtStartAddress.setToolTipText("Enter start address (e.g., 0x500000 or 5242880)");
-
-        lblEndAddress = new JLabel("End Addr:");
-        txtEndAddress = new JTextField(DEFAULT_END_ADDR_STR, 12);   
-        txtEndAddress.setToolTipText("Enter end address (exclusive, e.g., 0x501000 or 5246976)");
-
-        btnUpdateView = new JButton("Update View");
-        btnUpdateView.addActionListener(e -> updateViewWithCurrentRange()); 
-        
-        inputPanel.add(lblStartAddress);
-        inputPanel.add(txtStartAddress);
-        inputPanel.add(Box.createHorizontalStrut(10)); 
-        inputPanel.add(lblEndAddress);
-        inputPanel.add(txtEndAddress);
-        inputPanel.add(Box.createHorizontalStrut(10)); 
-        inputPanel.add(btnUpdateView);
+        super.initComponents();
+
+        memoryModel = new MemoryTableModel();
+        tableModel = memoryModel;
+        table.setModel(memoryModel);
+
+        inputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        lblAddress = new JLabel("Address:");
+        txtAddress = new JTextField(DEFAULT_ADDR_STR, 14);
+        txtAddress.setToolTipText("Enter an address (e.g., 0x500000 or 5242880)");
+        txtAddress.addActionListener(e -> goToEnteredAddress());
+
+        btnGoTo = new JButton("Go To");
+        btnGoTo.addActionListener(e -> goToEnteredAddress());
+
+        btnNextNonZero = new JButton("Next Non-Zero");
+        btnNextNonZero.setToolTipText("Jump to the next double word that is not zero");
+        btnNextNonZero.addActionListener(e -> goToNextNonZero());
+
+        inputPanel.add(lblAddress);
+        inputPanel.add(txtAddress);
+        inputPanel.add(btnGoTo);
+        inputPanel.add(Box.createHorizontalStrut(10));
+        inputPanel.add(btnNextNonZero);
     }
 
-    /** 
+    /**
      * Sets the layout for the components in the MemoryView.
      * The layout consists of a scroll pane for the table and a panel for the input fields and buttons.
-     */    
+     */
     @Override
     protected void layoutComponents() {
         setLayout(new BorderLayout(5, 5));
 
         JPanel southPanel = new JPanel(new BorderLayout());
-        southPanel.add(inputPanel, BorderLayout.NORTH);    
-        southPanel.add(buttonPanel, BorderLayout.SOUTH); 
+        southPanel.add(inputPanel, BorderLayout.NORTH);
+        southPanel.add(buttonPanel, BorderLayout.SOUTH);
 
-        add(scrollPane, BorderLayout.CENTER); 
-        add(southPanel, BorderLayout.SOUTH);  
+        add(scrollPane, BorderLayout.CENTER);
+        add(southPanel, BorderLayout.SOUTH);
     }
 
 
     // --- Event Handlers ---
-    
+
     /**
-     * Updates the memory view with the current address range specified in the text fields.
-     * It retrieves the start and end addresses, validates them, and updates the displayed data.
+     * Scrolls to the address typed in the address field.
      */
-    private void updateViewWithCurrentRange() {
-        String startAddrStr = txtStartAddress.getText();
-        String endAddrStr = txtEndAddress.getText();
-
+    private void goToEnteredAddress() {
         try {
-            long startAddr = parseAddress(startAddrStr);
-            long endAddr = parseAddress(endAddrStr);
-            
-            updateData(memoryStorageRef, startAddr, endAddr, -1L);
+            long address = parseAddress(txtAddress.getText());
+            if (address < MemoryStorage.MIN_ADDRESS) {
+                throw new NumberFormatException("Address is below the data segment (0x" + Long.toHexString(MemoryStorage.MIN_ADDRESS) + ")");
+            }
+            showAddress(address);
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
                     "Invalid address format.\nPlease use decimal (e.g., 1024) or hex (e.g., 0x400).\nError: " + ex.getMessage(),
                     "Address Input Error", JOptionPane.ERROR_MESSAGE);
-        } catch (Exception ex) { 
-            JOptionPane.showMessageDialog(this,
-                    "An error occurred while updating memory view: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace(); 
         }
     }
 
+    /**
+     * Scrolls to the first non-zero double word after the selected row (or after the first visible row).
+     */
+    private void goToNextNonZero() {
+        int row = table.getSelectedRow();
+        if (row < 0) row = Math.max(0, table.rowAtPoint(scrollPane.getViewport().getViewPosition()));
+
+        long from = memoryModel.getAddress(row) + 8;
+        long address = (memoryStorageRef != null) ? memoryStorageRef.findNextNonZeroDoubleWord(from) : -1L;
+        if (address < 0) {
+            JOptionPane.showMessageDialog(this, "No non-zero data after 0x" + Long.toHexString(from - 8).toUpperCase() + ".",
+                                          "Next Non-Zero", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        showAddress(address);
+    }
+
     /**
      * Parses a string representation of an address into a long value.
      * The string can be in decimal or hexadecimal format (with "0x" prefix).
@@ -141,7 +155,7 @@ public class MemoryView extends StateDisplayFrame {
         if (addrStr == null) {
             throw new NumberFormatException("Address string is null");
         }
-       
+
         addrStr = addrStr.trim();
         if (addrStr.isEmpty()) {
             throw new NumberFormatException("Address string is empty");
@@ -150,7 +164,7 @@ public class MemoryView extends StateDisplayFrame {
         if (addrStr.startsWith("0x") || addrStr.startsWith("0X")) {
             if (addrStr.length() == 2) {
                 throw new NumberFormatException("Hex prefix '0x' requires digits following it.");
-            }            
+            }
             return Long.parseLong(addrStr.substring(2), 16);
         } else {
             return Long.parseLong(addrStr, 10);
@@ -158,79 +172,114 @@ public class MemoryView extends StateDisplayFrame {
     }
 
     /**
-     * Updates the memory view with the specified address range and highlights the last changed address.
-     * @param storage The MemoryStorage to display.
-     * @param startAddressByte The starting address in bytes.
-     * @param endAddressByte The ending address in bytes (exclusive).
-     * @param lastChangedAddrByte The last changed address in bytes to highlight.
+     * Selects and scrolls to the row holding an address, moving the window if the address is outside it.
+     * @param address The byte address.
      */
-    public void updateData(MemoryStorage storage, long startAddressByte, long endAddressByte, long lastChangedAddrByte) {
-        if (storage == null) return;
-        this.memoryStorageRef = storage; 
- 
-        Map<Long, Long> memoryContents = storage.getMemory_doubleWord(startAddressByte, endAddressByte);
-        Map<Long, Long> sortedMemory = new TreeMap<>(memoryContents);
-
-        List<Object[]> displayData = new ArrayList<>();
-        int highlightRow = -1; 
-        int displayIndex = 0;
-
-        for (Map.Entry<Long, Long> entry : sortedMemory.entrySet()) {
-            long address = entry.getKey();
-            long value = entry.getValue();
-
-            if (address >= startAddressByte && address < endAddressByte) {
-                Object[] row = new Object[4];
-                row[0] = String.format("0x%08X", address); 
-                row[1] = address / 8; 
-                row[2] = String.format("0x%016X", value);
-                row[3] = Long.toString(value);
-                displayData.add(row);
-
-                if (lastChangedAddrByte >= address && lastChangedAddrByte < (address + 8)) {
-                    highlightRow = displayIndex;
-                }
-                displayIndex++;
-            }
-        }
-
-        tableModel.setData(displayData.toArray(new Object[0][])); 
-        cellRenderer.setHighlightRow(highlightRow);               
-        
-        if (highlightRow != -1) {
-            scrollToRow(highlightRow); 
+    private void showAddress(long address) {
+        if (!memoryModel.containsAddress(address)) {
+            memoryModel.setWindowFor(address);
+            cellRenderer.setHighlightRow(-1);
         }
+        scrollToRow(memoryModel.getRow(address));
     }
 
     /**
-     * Updates the memory view with the current address range specified in the text fields.
-     * It retrieves the start and end addresses, validates them, and updates the displayed data.
+     * Updates the memory view with new memory contents and highlights the last changed address.
+     * Only the rows on screen are read again.
      * @param storage The MemoryStorage to display.
-     * @param lastChangedAddrByte The last changed address in bytes to highlight.
+     * @param lastChangedAddrByte The last changed address in bytes to highlight, or -1 for none.
      */
     public void updateData(MemoryStorage storage, long lastChangedAddrByte) {
         if (storage == null) return;
-        long currentStart = parseAddressSilent(txtStartAddress.getText(), -1L); 
-        long currentEnd = parseAddressSilent(txtEndAddress.getText(), -1L);
-        
-        if (currentStart != -1L && currentEnd != -1L && currentEnd > currentStart) {
-            updateData(storage, currentStart, currentEnd, lastChangedAddrByte);
+        this.memoryStorageRef = storage;
+        memoryModel.setMemory(storage);
+
+        if (lastChangedAddrByte >= MemoryStorage.MIN_ADDRESS) {
+            if (!memoryModel.containsAddress(lastChangedAddrByte)) memoryModel.setWindowFor(lastChangedAddrByte);
+            int highlightRow = memoryModel.getRow(lastChangedAddrByte);
+            cellRenderer.setHighlightRow(highlightRow);
+            scrollToRow(highlightRow);
         } else {
-            System.err.println(ColoredLog.WARNING + "MemoryView: Cannot update with invalid range in text fields during external call.");
+            cellRenderer.setHighlightRow(-1);
         }
     }
 
+
+    // --- Helper Classes ---
+
     /**
-     * Parses a string representation of an address into a long value, returning a default value if parsing fails.
-     * @param addrStr The address string to parse.
-     * @param defaultValue The default value to return if parsing fails.
-     * @return The parsed address as a long value or the default value if parsing fails.
+     * MemoryTableModel shows WINDOW_ROWS consecutive double words starting at a movable base address.
+     * Rows are read from the memory and formatted a page (PAGE_ROWS rows) at a time when first displayed,
+     * and the most recently used pages are kept until the memory or the window changes.
      */
-    private long parseAddressSilent(String addrStr, long defaultValue) {
-        try {
-            return parseAddress(addrStr);
-        } catch (NumberFormatException e) {
-            return defaultValue;
+    private static class MemoryTableModel extends CustomTableModel {
+        private MemoryStorage memory;
+        private long baseAddress = MemoryStorage.MIN_ADDRESS;
+        private final Map<Long, Object[][]> pageCache = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object[][]> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+
+        void setMemory(MemoryStorage memory) {
+            this.memory = memory;
+            pageCache.clear();
+            fireTableRowsUpdated(0, WINDOW_ROWS - 1);
+        }
+
+        /**
+         * Moves the window so that it starts up to half a window before the address.
+         */
+        void setWindowFor(long address) {
+            long lastBase = (Long.MAX_VALUE - 8L * WINDOW_ROWS + 1) & ~7L;
+            long base = Math.max(MemoryStorage.MIN_ADDRESS, (address & ~7L) - 8L * (WINDOW_ROWS / 2));
+            this.baseAddress = Math.min(base, lastBase);
+            pageCache.clear();
+            fireTableRowsUpdated(0, WINDOW_ROWS - 1);
+        }
+
+        boolean containsAddress(long address) {
+            return address >= baseAddress && (address - baseAddress) / 8 < WINDOW_ROWS;
+        }
+
+        int getRow(long address) {
+            return containsAddress(address) ? (int) ((address - baseAddress) / 8) : -1;
+        }
+
+        long getAddress(int row) {
+            return baseAddress + 8L * row;
+        }
+
+        @Override public int getRowCount() { return WINDOW_ROWS; }
+        @Override public Object getValueAt(int row, int col) {
+            if (row < 0 || row >= WINDOW_ROWS || col < 0 || col >= getColumnCount()) return null;
+            Object[] values = getPage(row / PAGE_ROWS)[row % PAGE_ROWS];
+            return (col < values.length) ? values[col] : null;
+        }
+        @Override public Class<?> getColumnClass(int c) { return (c == 1) ? Long.class : String.class; }
+
+        private Object[][] getPage(long pageIndex) {
+            Object[][] page = pageCache.get(pageIndex);
+            if (page != null) return page;
+
+            page = new Object[PAGE_ROWS][];
+            long pageAddress = getAddress((int) (pageIndex * PAGE_ROWS));
+            for (int i = 0; i < PAGE_ROWS; i++) {
+                long address = pageAddress + 8L * i;
+                long value = (memory != null) ? memory.readDoubleWord(address) : 0L;
+                page[i] = new Object[]{"0x" + toHex(address, 8), address / 8, "0x" + toHex(value, 16), Long.toString(value)};
+            }
+            pageCache.put(pageIndex, page);
+            return page;
+        }
+
+        /**
+         * @return The value in upper-case hex, zero-padded to at least the given number of digits.
+         */
+        private static String toHex(long value, int digits) {
+            String hex = Long.toHexString(value).toUpperCase();
+            return (hex.length() >= digits) ? hex : "0".repeat(digits - hex.length()) + hex;
         }
     }
 }
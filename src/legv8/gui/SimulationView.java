@@ -5,11 +5,11 @@
 
 package legv8.gui;
 
-import legv8.exceptions.*;
 import legv8.simulator.*;
-import legv8.util.*;
+import legv8.simulator.SimulationDriver.Snapshot;
 
 import javax.swing.*;
+import javax.swing.event.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
@@ -19,8 +19,10 @@ import java.util.List;
  * It allows users to control the simulation, view register and memory states, and step through instructions.
  * The view includes buttons for running, pausing, stepping through instructions, and resetting the simulation.
  * It also provides sliders for adjusting simulation speed and buttons for showing/hiding register, memory, and instruction views.
+ * The engine runs on the worker thread of a {@link SimulationDriver}; the view only renders the driver's snapshots,
+ * at most once per frame.
  */
-public class SimulationView extends JFrame implements ActionListener { 
+public class SimulationView extends JFrame implements ActionListener, ChangeListener { 
 
     // --- Engine for simulation ---
     private SimulatorEngine simulatorEngine;
@@ -34,8 +36,10 @@ public class SimulationView extends JFrame implements ActionListener {
     private boolean isStep = false;
 
     private JButton btnNextIns, btnResetProgram;
+    private JButton btnRunToEnd, btnRunToCursor, btnRunCount;
     private JButton btnShowRegisters, btnShowMemory, btnShowInstructions;
     private JButton btnCloseView;
+    private JSlider speedSlider;
     
     private JPanel controlPanel; 
     private JPanel datapathPanel; 
@@ -48,12 +52,16 @@ public class SimulationView extends JFrame implements ActionListener {
 
     // Simulation state variables
     private boolean isPaused = true;
-    private final Timer simulationTimer;
+    private final SimulationDriver simulationDriver;
     private int simulationDelayMs = 500; 
+    private static final int MAX_DELAY_MS = 1000;
 
-    // Microsteps for simulation
-    private List<MicroStep> microSteps; 
-    private int currentMicroStepIndex = -1; 
+    // Renders the latest snapshot of the driver, at most once per frame
+    private static final int FRAME_INTERVAL_MS = 16;
+    private final Timer frameTimer;
+    // The snapshot on screen, and the epoch of the datapath animation
+    private Snapshot displayedSnapshot;
+    private int displayedEpoch;
 
 
     // --- Constructor ---
@@ -72,10 +80,14 @@ public class SimulationView extends JFrame implements ActionListener {
         layoutComponents();
 
         this.simulatorEngine = engine;
+        this.simulatorEngine.setDeltaHistory(true);
 
-        simulationTimer = new Timer(simulationDelayMs, e -> stepExecution());    
-        simulationTimer.setInitialDelay(simulationDelayMs);
-        simulationTimer.setDelay(simulationDelayMs);
+        simulationDriver = new SimulationDriver(engine, simulationDelayMs);
+        displayedSnapshot = simulationDriver.pollSnapshot();
+        displayedEpoch = displayedSnapshot.epoch();
+
+        frameTimer = new Timer(FRAME_INTERVAL_MS, e -> renderLatestSnapshot());
+        frameTimer.setCoalesce(true);
         addWindowListener(new WindowAdapter() {
             @Override public void windowClosing(WindowEvent e) { handleCloseView(); }
         });
@@ -95,12 +107,22 @@ public class SimulationView extends JFrame implements ActionListener {
         btnResetIns = new JButton("Reset Step");
         btnNextIns = new JButton("Next Instruction");
         btnResetProgram = new JButton("Reset Program");
+        btnRunToEnd = new JButton("Run to End");
+        btnRunToCursor = new JButton("Run to Cursor");
+        btnRunCount = new JButton("Run N Instructions");
         
         // Initialize buttons for showing/hiding views
         btnShowRegisters = new JButton("Registers");
         btnShowMemory = new JButton("Data Memory");
         btnShowInstructions = new JButton("Instructions");
         btnCloseView = new JButton("Close Simulation");
+
+        // Initialize speed slider (delay between micro-steps)
+        speedSlider = new JSlider(JSlider.HORIZONTAL, 0, MAX_DELAY_MS, simulationDelayMs);
+        speedSlider.setInverted(true);
+        speedSlider.setMajorTickSpacing(250);
+        speedSlider.setPaintTicks(true);
+        speedSlider.setBorder(BorderFactory.createTitledBorder("Speed (" + simulationDelayMs + " ms/step)"));
         
         // Initialize status label
         lblStatus = new JLabel("Status: Idle", JLabel.LEFT);
@@ -120,7 +142,10 @@ public class SimulationView extends JFrame implements ActionListener {
         btnResetIns.addActionListener(this);
         btnNextIns.addActionListener(this);
         btnResetProgram.addActionListener(this);
-        // speedSlider.addChangeListener(this);
+        btnRunToEnd.addActionListener(this);
+        btnRunToCursor.addActionListener(this);
+        btnRunCount.addActionListener(this);
+        speedSlider.addChangeListener(this);
         btnShowRegisters.addActionListener(this);
         btnShowMemory.addActionListener(this);
         btnShowInstructions.addActionListener(this);
@@ -133,10 +158,14 @@ public class SimulationView extends JFrame implements ActionListener {
         btnResetIns.setToolTipText("Reset the Instruction Step");
         btnNextIns.setToolTipText("Execute the next instruction in the program");
         btnResetProgram.setToolTipText("Reset the program counter to the start");
+        btnRunToEnd.setToolTipText("Run to the end of the program without animation");
+        btnRunToCursor.setToolTipText("Run without animation to the instruction selected in the Instructions view");
+        btnRunCount.setToolTipText("Run a number of instructions without animation");
         btnShowRegisters.setToolTipText("Show/Hide the Register View window");
         btnShowMemory.setToolTipText("Show/Hide the Data Memory View window");
         btnShowInstructions.setToolTipText("Show/Hide the Instruction Memory View window");
         btnCloseView.setToolTipText("Close this simulation window");
+        speedSlider.setToolTipText("Delay between micro-steps while running (right: faster)");
     }
 
     /**
@@ -171,6 +200,12 @@ public class SimulationView extends JFrame implements ActionListener {
         instructionPanel.add(btnNextIns);
         instructionPanel.add(btnResetProgram);
         controlPanel.add(instructionPanel, gbc); 
+
+        JPanel fastRunPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        fastRunPanel.add(btnRunToEnd);
+        fastRunPanel.add(btnRunToCursor);
+        controlPanel.add(fastRunPanel, gbc);
+        controlPanel.add(btnRunCount, gbc);
         
         gbc.insets = new Insets(10, 0, 10, 0); 
         controlPanel.add(new JSeparator(SwingConstants.HORIZONTAL), gbc);
@@ -183,6 +218,8 @@ public class SimulationView extends JFrame implements ActionListener {
         gbc.insets = new Insets(10, 0, 10, 0);
         controlPanel.add(new JSeparator(SwingConstants.HORIZONTAL), gbc);
         gbc.insets = new Insets(2, 5, 2, 5);
+
+        controlPanel.add(speedSlider, gbc);
         
         gbc.insets = new Insets(10, 0, 10, 0);
         controlPanel.add(new JSeparator(SwingConstants.HORIZONTAL), gbc);
@@ -198,35 +235,81 @@ public class SimulationView extends JFrame implements ActionListener {
         add(lblStatus, BorderLayout.SOUTH);     
     }
 
-    private void updateStateViews() {
-        if (microSteps == null) return;
-        int idx = currentMicroStepIndex;
-        if (microSteps.isEmpty() || currentMicroStepIndex >= microSteps.size()) {
-            return;
+    /**
+     * Shows the state of a snapshot that has micro-steps in the register, memory and instruction views.
+     * Only the displayed micro-step is materialized, so skipped snapshots cost nothing here.
+     */
+    private void updateStateViews(Snapshot snapshot) {
+        List<MicroStep> microSteps = snapshot.microSteps();
+        int idx = Math.max(0, snapshot.microStepIndex());
+        MicroStep currentStep = snapshot.currentStep();
+
+        if (registerView != null || memoryView != null) {
+            MicroStep fullStep = MicroStep.materialize(microSteps, idx);
+
+            if (registerView != null) {
+                registerView.updateData(fullStep.registerStorage(), MicroStep.lastChangedRegister(microSteps, idx));
+            }
+
+            if (memoryView != null) {
+                memoryView.updateData(fullStep.memoryStorage(), MicroStep.lastChangedAddress(microSteps, idx));
+            }
         }
 
-        if (idx < 0) {
-            idx = 0;
+        if (instructionView != null) {
+            instructionView.updateData(snapshot.program(), currentStep.programCounter());
         }
+    }
 
-        MicroStep currentStep = microSteps.get(idx);
+    // --- Snapshot Rendering ---
 
-        if (currentMicroStepIndex >= 0 && datapathCanvas != null) {
-            datapathCanvas.updateState(currentStep);
+    /**
+     * Called by the frame timer: renders the latest snapshot of the driver, if there is a new one.
+     * Snapshots published in between are skipped. The timer stops once the driver has nothing left to publish.
+     */
+    private void renderLatestSnapshot() {
+        Snapshot snapshot = simulationDriver.pollSnapshot();
+        if (snapshot == null) {
+            if (!simulationDriver.isBusy()) frameTimer.stop();
+            return;
         }
 
-        if (registerView != null) {
-            registerView.updateData(currentStep.registerStorage(), -1);
+        displayedSnapshot = snapshot;
+        if (snapshot.epoch() != displayedEpoch) {
+            displayedEpoch = snapshot.epoch();
+            if (datapathCanvas != null) datapathCanvas.resetState();
         }
 
-        if (memoryView != null) {
-            memoryView.updateData(currentStep.memoryStorage(), -1L);
+        if (snapshot.microStepIndex() >= 0 && datapathCanvas != null) {
+            datapathCanvas.updateState(snapshot.currentStep());
         }
+        refreshStateViews();
 
-        if (instructionView != null) {
-            instructionView.updateData(simulatorEngine.getInstructionMemory(), currentStep.programCounter());
+        switch (snapshot.status()) {
+            case COMPLETED -> {
+                lblStatus.setText("Status: Completed");
+                updateEndRunningButton();
+            }
+            case STOPPED -> {
+                lblStatus.setText(String.format("Status: Stopped at 0x%X", snapshot.programCounter()));
+                updateEndRunningButton();
+            }
+            case ERROR -> {
+                updateEndRunningButton();
+                showError("Error during simulation: " + snapshot.errorMessage());
+            }
+            default -> { }
         }
     }
+
+    /**
+     * Sends a command to the driver and renders its snapshots as they arrive.
+     */
+    private void submitCommand(Runnable command) {
+        command.run();
+        if (!frameTimer.isRunning()) frameTimer.start();
+    }
+
     // --- ActionListener and ChangeListener methods ---
 
     /**
@@ -249,6 +332,12 @@ public class SimulationView extends JFrame implements ActionListener {
             nextInstructionSimulation();
         } else if (src == btnResetProgram) {
             resetProgramSimulation();
+        } else if (src == btnRunToEnd) {
+            runToEndSimulation();
+        } else if (src == btnRunToCursor) {
+            runToCursorSimulation();
+        } else if (src == btnRunCount) {
+            runInstructionsSimulation();
         } else if (src == btnShowRegisters) {
             toggleRegisterView();
         } else if (src == btnShowMemory) {
@@ -260,6 +349,19 @@ public class SimulationView extends JFrame implements ActionListener {
         }
     }
 
+    /**
+     * Handles changes of the speed slider.
+     * @param e The ChangeEvent triggered by the slider.
+     */
+    @Override
+    public void stateChanged(ChangeEvent e) {
+        if (e.getSource() == speedSlider) {
+            simulationDelayMs = speedSlider.getValue();
+            speedSlider.setBorder(BorderFactory.createTitledBorder("Speed (" + simulationDelayMs + " ms/step)"));
+            simulationDriver.setDelay(simulationDelayMs);
+        }
+    }
+
 
     // --- State Update Methods ---
 
@@ -364,6 +466,9 @@ public class SimulationView extends JFrame implements ActionListener {
         btnResetIns.setEnabled(canResetStep);
         btnNextIns.setEnabled(canNextIns);
         btnResetProgram.setEnabled(canResetProgram);
+        btnRunToEnd.setEnabled(canRun);
+        btnRunToCursor.setEnabled(canRun);
+        btnRunCount.setEnabled(canRun);
 
         if (isPaused) {
             btnPause.setToolTipText(canResume ? "Resume continuous execution" : "Cannot resume (Halted or no engine)");
@@ -377,10 +482,11 @@ public class SimulationView extends JFrame implements ActionListener {
 
     /**
      * Handles the closing of the simulation view.
-     * Stops the simulation timer and disposes of any open views.
+     * Stops the simulation worker and disposes of any open views.
      */
     private void handleCloseView() {
-        simulationTimer.stop(); 
+        frameTimer.stop();
+        simulationDriver.shutdown();
         
         if (registerView != null) registerView.dispose();
         if (memoryView != null) memoryView.dispose();
@@ -389,31 +495,6 @@ public class SimulationView extends JFrame implements ActionListener {
         dispose();
     }
 
-    private void stepExecution() {
-        currentMicroStepIndex++;
-        if (currentMicroStepIndex >= microSteps.size()) {
-            long nextPC = simulatorEngine.getProgramCounter().getCurrentAddress();
-            if (!simulatorEngine.getInstructionMemory().containsAddress(nextPC)) {
-                simulationTimer.stop();
-                lblStatus.setText("Status: Completed");
-                updateEndRunningButton();
-                return;
-            }
-
-            try {
-                microSteps = simulatorEngine.getMicroSteps();
-                currentMicroStepIndex = 0;
-                updateStateViews();
-            } catch (SimulationException e) {
-                simulationTimer.stop();
-                showError("Error during simulation: " + e.getMessage());
-                updateEndRunningButton();
-            }
-        } else {
-            updateStateViews();
-        }
-    }
-
     /**
      * Starts the simulation by executing microsteps.
      * If the simulation is already running or halted, it shows an error message.
@@ -423,7 +504,7 @@ public class SimulationView extends JFrame implements ActionListener {
             JOptionPane.showMessageDialog(this, "No simulator engine available.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        if (simulationTimer.isRunning()) {
+        if (simulationDriver.isRunning()) {
             JOptionPane.showMessageDialog(this, "Simulation is already running.", "Warning", JOptionPane.WARNING_MESSAGE);
             return;
         }
@@ -431,21 +512,7 @@ public class SimulationView extends JFrame implements ActionListener {
         lblStatus.setText("Status: Running");
         updateRunningButton();
 
-        simulationTimer.start();
-        simulationTimer.setInitialDelay(simulationDelayMs);
-        simulationTimer.setDelay(simulationDelayMs);
-        
-        try {
-            if (microSteps == null) {
-                microSteps = simulatorEngine.getMicroSteps();
-            }
-        } catch (SimulationException e) {
-            JOptionPane.showMessageDialog(this, "Error during simulation: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            simulationTimer.stop(); 
-            lblStatus.setText("Status: Paused");
-            updateResetStepButton();
-            return;
-        }
+        submitCommand(simulationDriver::run);
     }
 
     /**
@@ -459,10 +526,8 @@ public class SimulationView extends JFrame implements ActionListener {
         }
         updatePauseButton();
 
-        simulationTimer.stop();
+        simulationDriver.pause();
         lblStatus.setText("Status: Paused");
-
-        // updateStateViews();
     }
 
     /**
@@ -476,9 +541,7 @@ public class SimulationView extends JFrame implements ActionListener {
         }
         updateResumeButton();
 
-        simulationTimer.start(); 
-        simulationTimer.setInitialDelay(simulationDelayMs);
-        simulationTimer.setDelay(simulationDelayMs);
+        submitCommand(simulationDriver::run);
         
         lblStatus.setText("Status: Resuming...");
     }
@@ -492,27 +555,12 @@ public class SimulationView extends JFrame implements ActionListener {
             JOptionPane.showMessageDialog(this, "No simulator engine available.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        try {
-            if (microSteps == null) {
-                microSteps = simulatorEngine.getMicroSteps();
-            }
-        } catch (SimulationException e) {
-            JOptionPane.showMessageDialog(this, "Error during simulation: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        if (simulationTimer.isRunning()) {
-            simulationTimer.stop(); 
-        }
 
         if (!isStep) {
             updateStepByStepButton();
         } 
 
-        currentMicroStepIndex++;
-
-        System.out.println(ColoredLog.START_PROCESS + "Executing microstep: " + (currentMicroStepIndex) + " / " + microSteps.size());
-        updateStateViews();
+        submitCommand(simulationDriver::stepMicroStep);
     }
 
     /**
@@ -525,23 +573,10 @@ public class SimulationView extends JFrame implements ActionListener {
             return;
         }
 
-        
         lblStatus.setText("Status: Instruction Step Reset");
         
-        if (simulationTimer.isRunning()) {
-            simulationTimer.stop(); 
-        }
-
-        if (microSteps != null) microSteps.clear();
-        microSteps = simulatorEngine.getMicroStepsWithoutStep(); 
-        currentMicroStepIndex = -1; 
-        
-        if (datapathCanvas != null) {
-            datapathCanvas.resetState(); 
-        }
-        
+        submitCommand(simulationDriver::resetStep);
         updateResetStepButton();
-        updateStateViews();
     }
 
     /**
@@ -554,25 +589,8 @@ public class SimulationView extends JFrame implements ActionListener {
             return;
         }
 
-        if (simulationTimer.isRunning()) {
-            simulationTimer.stop(); 
-        }
-        
-        try {
-            if (microSteps != null) microSteps.clear();
-            microSteps = simulatorEngine.getMicroSteps();
-        } catch (SimulationException e) {
-            JOptionPane.showMessageDialog(this, "Error during simulation: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-        
-        if (datapathCanvas != null) {
-            datapathCanvas.resetState(); 
-        }
-        
-        currentMicroStepIndex = -1;
+        submitCommand(simulationDriver::nextInstruction);
         updateNextInstructionButton();
-        updateStateViews();
     }
 
     /**
@@ -585,36 +603,104 @@ public class SimulationView extends JFrame implements ActionListener {
             return;
         }
 
-        if (simulationTimer.isRunning()) {
-            simulationTimer.stop(); 
+        submitCommand(simulationDriver::resetProgram);
+        
+        updateResetProgramButton();
+        lblStatus.setText("Status: Program Counter Reset");
+    }
+
+    /**
+     * Runs to the end of the program without animation; the views are refreshed periodically.
+     */
+    private void runToEndSimulation() {
+        if (!canStartFastRun()) return;
+
+        lblStatus.setText("Status: Running to end...");
+        updateRunningButton();
+        submitCommand(simulationDriver::runToEnd);
+    }
+
+    /**
+     * Runs without animation to the instruction selected in the Instructions view
+     * (or to an address typed by the user if none is selected). Stepping afterwards animates that instruction.
+     */
+    private void runToCursorSimulation() {
+        if (!canStartFastRun()) return;
+
+        long target = (instructionView != null && instructionView.isVisible()) ? instructionView.getSelectedAddress() : -1L;
+        if (target < 0) {
+            String input = JOptionPane.showInputDialog(this, "Run to instruction address:", String.format("0x%X", displayedSnapshot.programCounter()));
+            if (input == null) return;
+            try {
+                target = Long.decode(input.trim());
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, "Invalid address: " + input, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        if (!displayedSnapshot.containsInstruction(target)) {
+            JOptionPane.showMessageDialog(this, String.format("No instruction at address 0x%X.", target), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        long address = target;
+        lblStatus.setText(String.format("Status: Running to 0x%X...", address));
+        updateRunningButton();
+        submitCommand(() -> simulationDriver.runTo(address));
+    }
+
+    /**
+     * Runs a number of instructions (asked to the user) without animation.
+     */
+    private void runInstructionsSimulation() {
+        if (!canStartFastRun()) return;
+
+        String input = JOptionPane.showInputDialog(this, "Number of instructions to run:", "100");
+        if (input == null) return;
+        long count;
+        try {
+            count = Long.parseLong(input.trim());
+        } catch (NumberFormatException e) {
+            count = -1;
+        }
+        if (count <= 0) {
+            JOptionPane.showMessageDialog(this, "Invalid instruction count: " + input, "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
-        simulatorEngine.reset();
-        if (microSteps != null) microSteps.clear();
-        microSteps = null;
+        long instructionCount = count;
+        lblStatus.setText("Status: Running " + instructionCount + " instruction(s)...");
+        updateRunningButton();
+        submitCommand(() -> simulationDriver.runInstructions(instructionCount));
+    }
 
-        currentMicroStepIndex = -1; 
-        if (datapathCanvas != null) {
-            datapathCanvas.resetState(); 
+    /**
+     * @return true if a fast run can start (an engine is available and nothing is running).
+     */
+    private boolean canStartFastRun() {
+        if (simulatorEngine == null) {
+            JOptionPane.showMessageDialog(this, "No simulator engine available.", "Error", JOptionPane.ERROR_MESSAGE);
+            return false;
         }
-        
-        updateResetProgramButton();
-        updateLiveStateViews();
-        lblStatus.setText("Status: Program Counter Reset");
+        if (simulationDriver.isRunning()) {
+            JOptionPane.showMessageDialog(this, "Simulation is already running.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        return true;
     }
 
-    private void updateLiveStateViews() {
+    /**
+     * Shows the state of a snapshot without micro-steps (e.g. right after a reset).
+     */
+    private void updateLiveStateViews(Snapshot snapshot) {
         if (registerView != null) {
-            registerView.updateData(simulatorEngine.getRegisterController().getStorage(), -1);
+            registerView.updateData(snapshot.registers(), -1);
         }
         if (memoryView != null) {
-            memoryView.updateData(simulatorEngine.getDataMemoryController().getStorage(), -1L);
+            memoryView.updateData(snapshot.memory(), -1L);
         }
         if (instructionView != null) {
-            instructionView.updateData(
-                simulatorEngine.getInstructionMemory(),
-                simulatorEngine.getProgramCounter().getCurrentAddress()
-            );
+            instructionView.updateData(snapshot.program(), snapshot.programCounter());
         }
     }
 
@@ -622,8 +708,8 @@ public class SimulationView extends JFrame implements ActionListener {
 
     private void toggleRegisterView() {
         if (registerView == null) {
-            registerView = new RegisterView(this, simulatorEngine.getRegisterController().getStorage());
-            registerView.updateData(simulatorEngine.getRegisterController().getStorage(), -1);
+            registerView = new RegisterView(this, null);
+            refreshStateViews();
         }
 
         registerView.setVisible(!registerView.isVisible());
@@ -632,8 +718,8 @@ public class SimulationView extends JFrame implements ActionListener {
 
     private void toggleMemoryView() {
         if (memoryView == null) {
-            memoryView = new MemoryView(this, simulatorEngine.getDataMemoryController().getStorage());
-            memoryView.updateData(simulatorEngine.getDataMemoryController().getStorage(), -1L);
+            memoryView = new MemoryView(this, null);
+            refreshStateViews();
         }
        
         memoryView.setVisible(!memoryView.isVisible());
@@ -642,17 +728,25 @@ public class SimulationView extends JFrame implements ActionListener {
 
     private void toggleInstructionView() {
         if (instructionView == null) {
-            instructionView = new InstructionView(this, simulatorEngine.getInstructionMemory());
-            instructionView.updateData(simulatorEngine.getInstructionMemory(), simulatorEngine.getProgramCounter().getCurrentAddress());
+            instructionView = new InstructionView(this, displayedSnapshot.program());
+            refreshStateViews();
         }
        
         instructionView.setVisible(!instructionView.isVisible());
         if (instructionView.isVisible()) {
             instructionView.toFront();
-            instructionView.highlightPCRow(simulatorEngine.getProgramCounter().getCurrentAddress());
+            instructionView.highlightPCRow(displayedSnapshot.programCounter());
         }
     }
 
+    /**
+     * Shows the displayed snapshot in the register, memory and instruction views (e.g. in one that was just opened).
+     */
+    private void refreshStateViews() {
+        if (displayedSnapshot.microSteps().isEmpty()) updateLiveStateViews(displayedSnapshot);
+        else updateStateViews(displayedSnapshot);
+    }
+
     // --- Helper Methods for Error Handling ---
     
     /**
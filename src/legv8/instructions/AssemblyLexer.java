@@ -0,0 +1,274 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.instructions;
+
+import legv8.exceptions.AssemblyException;
+import legv8.storage.RegisterStorage;
+
+/**
+ * AssemblyLexer is a single-pass, character-level scanner over one assembly line.
+ * Each method reads the next token (register, immediate, punctuation, keyword or label) directly into
+ * its value, so operands are parsed without regular expressions and without intermediate strings;
+ * only the mnemonic and branch labels are materialized, because they are looked up in maps.
+ * Every error is an {@link AssemblyException} carrying the 1-based column of the offending token.
+ */
+final class AssemblyLexer {
+    // --- Fields ---
+    private final String line;
+    private final int end;
+    // Index of the next unread character
+    private int pos;
+
+
+    // --- Constructor ---
+    /**
+     * Constructs a lexer over a whole line.
+     * @param line The assembly line (columns are reported relative to it).
+     */
+    AssemblyLexer(String line) {
+        this.line = line;
+        this.end = line.length();
+        this.pos = 0;
+    }
+
+
+    // --- Tokens ---
+
+    /**
+     * Reads the mnemonic (the first run of non-whitespace characters).
+     * @return The mnemonic in upper case.
+     * @throws AssemblyException if the line is empty.
+     */
+    String mnemonic() {
+        skipSpaces();
+        int start = pos;
+        while (pos < end && line.charAt(pos) > ' ') pos++;
+        if (pos == start) throw error("Cannot assemble empty line.", start);
+        return line.substring(start, pos).toUpperCase();
+    }
+
+    /**
+     * Reads a register operand (X0-X30, XZR or SP, any case).
+     * @return The register index.
+     * @throws AssemblyException if the next token is not a valid register.
+     */
+    int register() {
+        skipSpaces();
+        int start = pos;
+        while (pos < end && isWordChar(line.charAt(pos))) pos++;
+        int length = pos - start;
+
+        if (length == 0) throw error("Expected a register (X0-X30, XZR, or SP)" + found(start), start);
+        if (length == 3 && line.regionMatches(true, start, "XZR", 0, 3)) return RegisterStorage.ZERO_REGISTER_INDEX;
+        if (length == 2 && line.regionMatches(true, start, "SP", 0, 2)) return 28;
+
+        char first = line.charAt(start);
+        if ((first != 'X' && first != 'x') || length == 1) {
+            throw error("Invalid register format: '" + token(start) + "'. Expected X0-X30, XZR, or SP.", start);
+        }
+
+        int n = 0;
+        for (int i = start + 1; i < pos; i++) {
+            int digit = decimalDigit(line.charAt(i));
+            if (digit < 0) throw error("Invalid register number format: '" + token(start) + "'", start);
+            n = n * 10 + digit;
+            if (n > 31) throw error("Register number out of range (0-31): '" + token(start) + "'", start);
+        }
+        if (n == RegisterStorage.ZERO_REGISTER_INDEX) {
+            throw error("Use 'XZR' instead of 'X31' for the zero register.", start);
+        }
+        return n;
+    }
+
+    /**
+     * Reads an immediate operand: '#', an optional sign, then a decimal, 0x hexadecimal or 0-prefixed octal
+     * number with an optional 'L' suffix (the forms accepted by {@link Integer#decode}).
+     * @return The immediate value.
+     * @throws AssemblyException if the next token is not a valid immediate or does not fit in an int.
+     */
+    int immediate() {
+        skipSpaces();
+        int start = pos;
+        if (pos >= end || line.charAt(pos) != '#') {
+            throw error("Immediate value must start with '#'" + found(start), start);
+        }
+        pos++;
+        skipSpaces();
+        if (pos >= end || line.charAt(pos) == ',' || line.charAt(pos) == ']') {
+            throw error("Empty immediate value after '#'", start);
+        }
+
+        boolean negative = false;
+        char sign = line.charAt(pos);
+        if (sign == '-' || sign == '+') {
+            negative = (sign == '-');
+            pos++;
+        }
+
+        int radix = 10;
+        if (pos + 1 < end && line.charAt(pos) == '0') {
+            char next = line.charAt(pos + 1);
+            if (next == 'x' || next == 'X') {
+                radix = 16;
+                pos += 2;
+            } else if (decimalDigit(next) >= 0) {
+                radix = 8;
+                pos++;
+            }
+        }
+
+        int digitsStart = pos;
+        long magnitude = 0;
+        while (pos < end) {
+            int digit = Character.digit(line.charAt(pos), radix);
+            if (digit < 0 || line.charAt(pos) > 'z') break;
+            magnitude = magnitude * radix + digit;
+            if (magnitude > 0x80000000L) throw error("Immediate value out of range: '" + token(start) + "'", start);
+            pos++;
+        }
+        if (pos < end && (line.charAt(pos) == 'L' || line.charAt(pos) == 'l')) pos++;
+
+        if (pos == digitsStart || (pos < end && isWordChar(line.charAt(pos)))) {
+            throw error("Invalid immediate value format: '" + token(start) + "'", start);
+        }
+        if (!negative && magnitude > Integer.MAX_VALUE) {
+            throw error("Immediate value out of range: '" + token(start) + "'", start);
+        }
+        return (int) (negative ? -magnitude : magnitude);
+    }
+
+    /**
+     * Reads a branch label (everything up to the next whitespace or comma).
+     * @return The label.
+     * @throws AssemblyException if no label follows.
+     */
+    String label() {
+        skipSpaces();
+        int start = pos;
+        while (pos < end && line.charAt(pos) > ' ' && line.charAt(pos) != ',') pos++;
+        if (pos == start) throw error("Expected a branch target label or offset", start);
+        return line.substring(start, pos);
+    }
+
+    /**
+     * @return true if the next token is an immediate (starts with '#').
+     */
+    boolean atImmediate() {
+        skipSpaces();
+        return pos < end && line.charAt(pos) == '#';
+    }
+
+    /**
+     * Consumes the given punctuation character if it is the next token.
+     * @param c The character.
+     * @return true if it was consumed.
+     */
+    boolean accept(char c) {
+        skipSpaces();
+        if (pos < end && line.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the given punctuation character, which must be the next token.
+     * @param c The character.
+     * @param message The error message if it is missing.
+     * @throws AssemblyException if the next token is something else.
+     */
+    void expect(char c, String message) {
+        if (!accept(c)) throw error(message, pos);
+    }
+
+    /**
+     * Consumes the given keyword (case-insensitive) if it is the next token.
+     * @param keyword The keyword in upper case (e.g. "LSL").
+     * @return true if it was consumed.
+     */
+    boolean acceptKeyword(String keyword) {
+        skipSpaces();
+        int length = keyword.length();
+        if (pos + length <= end && line.regionMatches(true, pos, keyword, 0, length)
+                && (pos + length == end || !isWordChar(line.charAt(pos + length)))) {
+            pos += length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks that nothing but whitespace is left on the line.
+     * @param usage The error message if another operand follows (the instruction's operand usage).
+     * @throws AssemblyException if anything is left.
+     */
+    void expectEnd(String usage) {
+        skipSpaces();
+        if (pos >= end) return;
+        if (line.charAt(pos) == ',') throw error(usage, pos);
+        throw error("Unexpected '" + line.substring(pos).trim() + "' after operands", pos);
+    }
+
+    /**
+     * @return true if only whitespace is left on the line.
+     */
+    boolean atEnd() {
+        skipSpaces();
+        return pos >= end;
+    }
+
+    /**
+     * @return The 1-based column of the next token.
+     */
+    int column() {
+        skipSpaces();
+        return pos + 1;
+    }
+
+    /**
+     * Builds an exception for the character at the given index.
+     * @param message The error message.
+     * @param index The 0-based index in the line.
+     * @return The exception (to be thrown by the caller).
+     */
+    AssemblyException error(String message, int index) {
+        return new AssemblyException(message, index + 1);
+    }
+
+
+    // --- Helper Methods ---
+
+    private void skipSpaces() {
+        while (pos < end && line.charAt(pos) <= ' ') pos++;
+    }
+
+    /**
+     * @return The token starting at the given index, for error messages.
+     */
+    private String token(int start) {
+        int stop = start;
+        while (stop < end && line.charAt(stop) > ' ' && line.charAt(stop) != ',' && line.charAt(stop) != ']') stop++;
+        return line.substring(start, stop);
+    }
+
+    /**
+     * @return ", found '...'" describing the token at the given index, or ", found end of line".
+     */
+    private String found(int start) {
+        if (start >= end) return ", found end of line";
+        String token = token(start);
+        return ", found '" + (token.isEmpty() ? String.valueOf(line.charAt(start)) : token) + "'";
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static int decimalDigit(char c) {
+        return (c >= '0' && c <= '9') ? c - '0' : -1;
+    }
+}
@@ -5,7 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
 import legv8.util.Extractor;
 
 /**
@@ -20,11 +19,11 @@ public class BFormatInstruction extends Instruction {
     
     /**
      * Constructor for BFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public BFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public BFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.addressOffset = getAddress_B();
     }
 
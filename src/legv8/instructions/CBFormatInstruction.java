@@ -5,7 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
 import legv8.util.Extractor;
 
 /**
@@ -19,11 +18,11 @@ public class CBFormatInstruction extends Instruction {
     // --- Constructor ---
     /**
      * Constructor for CBFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public CBFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public CBFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.addressOffset = getAddress_CB();
         this.rt = getRt_CB();
     }
@@ -0,0 +1,180 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.instructions;
+
+import legv8.util.ControlSignals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompiledConfigCache stores a parsed instruction configuration in a compact binary file next to its CSV
+ * ({@code instructions.csv} -> {@code instructions.csv.cache}): the packed definitions followed by the
+ * decode table as definition indexes. The file is keyed by the SHA-256 of the CSV content, so an edited
+ * CSV is never served from a stale cache; a missing, stale or unreadable cache simply falls back to the CSV.
+ * The file is read with a single read and written atomically, so concurrent processes can share it.
+ */
+final class CompiledConfigCache {
+    /** "LGVC" in ASCII. */
+    private static final int MAGIC = 0x4C475643;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".cache";
+    private static final int NO_DEFINITION = -1;
+
+    /**
+     * A configuration read from the cache.
+     * @param definitions Every definition, including B.cond.
+     * @param decodeTable The decode table compiled from them.
+     */
+    record Compiled(List<InstructionDefinition> definitions, DecodeTable decodeTable) {}
+
+    private CompiledConfigCache() {}
+
+
+    // --- Public API ---
+
+    /**
+     * @param csvPath The configuration file.
+     * @return The cache file that belongs to it.
+     */
+    static Path pathFor(Path csvPath) {
+        return csvPath.resolveSibling(csvPath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Reads a cache file if it exists and was compiled from a CSV with the given hash.
+     * @param cachePath The cache file.
+     * @param configHash The hash of the current CSV content.
+     * @return The cached configuration, or null if the cache is missing, stale or unreadable.
+     */
+    static Compiled read(Path cachePath, String configHash) {
+        if (!Files.isRegularFile(cachePath)) return null;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cachePath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(configHash)) return null;
+
+            int count = in.readInt();
+            if (count <= 0) return null;
+            List<InstructionDefinition> definitions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String mnemonic = in.readUTF();
+                char format = in.readChar();
+                int opcode = in.readInt();
+                ControlSignals signals = new ControlSignals(
+                    in.readChar(), in.readChar(), in.readChar(), in.readChar(),
+                    in.readChar(), in.readChar(), in.readChar(),
+                    in.readChar(),
+                    in.readChar(), in.readInt(),
+                    in.readChar(),
+                    in.readInt());
+                definitions.add(new InstructionDefinition(mnemonic, format, opcode, signals));
+            }
+
+            InstructionDefinition[] opcodes = readTable(in, DecodeTable.OPCODE_ENTRIES, definitions);
+            InstructionDefinition[] conditions = readTable(in, DecodeTable.CONDITION_ENTRIES, definitions);
+            if (opcodes == null || conditions == null || in.available() != 0) return null;
+            return new Compiled(definitions, DecodeTable.fromEntries(opcodes, conditions));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a cache file for a successfully parsed configuration.
+     * Failures (e.g. a read-only directory) are not errors: the CSV is just parsed again next time.
+     * @param cachePath The cache file.
+     * @param configHash The hash of the CSV content.
+     * @param definitions Every definition, including B.cond.
+     * @param decodeTable The decode table compiled from them.
+     * @return true if the cache was written.
+     */
+    static boolean write(Path cachePath, String configHash, List<InstructionDefinition> definitions, DecodeTable decodeTable) {
+        Map<InstructionDefinition, Integer> indexes = new IdentityHashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(configHash);
+            out.writeInt(definitions.size());
+            for (InstructionDefinition definition : definitions) {
+                indexes.put(definition, indexes.size());
+                ControlSignals signals = definition.getControlSignals();
+                out.writeUTF(definition.getMnemonic());
+                out.writeChar(definition.getFormat());
+                out.writeInt(definition.getOpcode());
+                out.writeChar(signals.reg2Loc());
+                out.writeChar(signals.uncondBranch());
+                out.writeChar(signals.flagBranch());
+                out.writeChar(signals.zeroBranch());
+                out.writeChar(signals.memRead());
+                out.writeChar(signals.memToReg());
+                out.writeChar(signals.memWrite());
+                out.writeChar(signals.flagWrite());
+                out.writeChar(signals.aluSrc());
+                out.writeInt(signals.aluOp());
+                out.writeChar(signals.regWrite());
+                out.writeInt(signals.operation());
+            }
+            writeTable(out, decodeTable.opcodeEntries(), indexes);
+            writeTable(out, decodeTable.conditionEntries(), indexes);
+        } catch (IOException e) {
+            return false; // In-memory stream: not reached
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(cachePath.toAbsolutePath().getParent(), cachePath.getFileName().toString(), ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, cachePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            try {
+                if (temp != null) Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Best effort
+            }
+            return false;
+        }
+    }
+
+
+    // --- Helper Methods ---
+
+    private static void writeTable(DataOutputStream out, InstructionDefinition[] table, Map<InstructionDefinition, Integer> indexes) throws IOException {
+        for (InstructionDefinition definition : table) {
+            Integer index = (definition != null) ? indexes.get(definition) : null;
+            out.writeShort((index != null) ? index : NO_DEFINITION);
+        }
+    }
+
+    /**
+     * @return The table, or null if an index is out of range.
+     */
+    private static InstructionDefinition[] readTable(DataInputStream in, int size, List<InstructionDefinition> definitions) throws IOException {
+        InstructionDefinition[] table = new InstructionDefinition[size];
+        for (int i = 0; i < size; i++) {
+            int index = in.readShort();
+            if (index == NO_DEFINITION) continue;
+            if (index < 0 || index >= definitions.size()) return null;
+            table[i] = definitions.get(index);
+        }
+        return table;
+    }
+}
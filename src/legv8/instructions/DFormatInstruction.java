@@ -5,7 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
 import legv8.util.Extractor;
 
 /**
@@ -19,11 +18,11 @@ public class DFormatInstruction extends Instruction {
     // --- Constructor ---
     /**
      * Constructor for DFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public DFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public DFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.address = getAddress_D();
         this.rn = getRn_D();
         this.rt = getRt_D();
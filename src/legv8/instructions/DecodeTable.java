@@ -0,0 +1,122 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.instructions;
+
+import java.util.Map;
+
+/**
+ * DecodeTable is an immutable, direct-indexed opcode table compiled from the instruction configuration.
+ * It is indexed by the top 11 bits of the machine word (bits 21-31), which covers every format's opcode
+ * field; shorter opcodes (B, CB, IM, I) fill every index that starts with their bits.
+ * B.cond instructions share one 8-bit opcode and are resolved by a 16-entry condition-code sub-table.
+ * A lookup is one or two array accesses with no boxing and no string building.
+ */
+public final class DecodeTable {
+    /** The 8-bit opcode shared by all B.cond instructions. */
+    public static final int BCOND_OPCODE_VALUE = 0b01010100;
+
+    /** Condition mnemonics indexed by the 4-bit condition code (14 and 15 are unused). */
+    private static final String[] CONDITION_MNEMONICS = {
+        "EQ", "NE", "HS", "LO", "MI", "PL", "VS", "VC",
+        "HI", "LS", "GE", "LT", "GT", "LE", null, null
+    };
+
+    /** Sizes of the opcode table (bits 21-31) and the condition sub-table (bits 0-3). */
+    static final int OPCODE_ENTRIES = 1 << 11;
+    static final int CONDITION_ENTRIES = 16;
+
+    /** A table with no definitions (before any configuration is loaded). */
+    public static final DecodeTable EMPTY = new DecodeTable(new InstructionDefinition[OPCODE_ENTRIES], new InstructionDefinition[CONDITION_ENTRIES]);
+
+    // --- Fields ---
+    // Definitions indexed by bits 21-31 of the machine word
+    private final InstructionDefinition[] opcodes;
+    // B.cond definitions indexed by the condition code (bits 0-3)
+    private final InstructionDefinition[] conditions;
+
+
+    // --- Constructor ---
+    private DecodeTable(InstructionDefinition[] opcodes, InstructionDefinition[] conditions) {
+        this.opcodes = opcodes;
+        this.conditions = conditions;
+    }
+
+    /**
+     * Compiles the loader's maps into a dense table.
+     * Each index is resolved in the same order the control unit has always used:
+     * CB (8 bits), IM (9 bits), I (10 bits), D (11 bits), R (11 bits), then B (6 bits).
+     * Indexes in the B.cond range skip the CB step; they fall back to the remaining formats only
+     * when the condition sub-table has no entry.
+     * @param detailedDefinitions Definitions keyed by opcode and format (B.cond excluded).
+     * @param mnemonicDefinitions Definitions keyed by mnemonic (used for the B.cond sub-table).
+     * @return The compiled table.
+     */
+    public static DecodeTable compile(Map<Integer, Map<Character, InstructionDefinition>> detailedDefinitions,
+                                      Map<String, InstructionDefinition> mnemonicDefinitions) {
+        InstructionDefinition[] opcodes = new InstructionDefinition[OPCODE_ENTRIES];
+        for (int index = 0; index < opcodes.length; index++) {
+            InstructionDefinition definition = null;
+            if ((index >>> 3) != BCOND_OPCODE_VALUE) definition = find(detailedDefinitions, index >>> 3, 'C');
+            if (definition == null) definition = find(detailedDefinitions, index >>> 2, 'M');
+            if (definition == null) definition = find(detailedDefinitions, index >>> 1, 'I');
+            if (definition == null) definition = find(detailedDefinitions, index, 'D');
+            if (definition == null) definition = find(detailedDefinitions, index, 'R');
+            if (definition == null) definition = find(detailedDefinitions, index >>> 5, 'B');
+            opcodes[index] = definition;
+        }
+
+        InstructionDefinition[] conditions = new InstructionDefinition[CONDITION_ENTRIES];
+        for (int cond = 0; cond < conditions.length; cond++) {
+            if (CONDITION_MNEMONICS[cond] != null) conditions[cond] = mnemonicDefinitions.get("B." + CONDITION_MNEMONICS[cond]);
+        }
+
+        return new DecodeTable(opcodes, conditions);
+    }
+
+    /**
+     * Rebuilds a table from its entries (see {@link CompiledConfigCache}).
+     * @param opcodes {@link #OPCODE_ENTRIES} definitions indexed by bits 21-31 (owned by the table).
+     * @param conditions {@link #CONDITION_ENTRIES} B.cond definitions indexed by condition code (owned by the table).
+     * @return The table.
+     */
+    static DecodeTable fromEntries(InstructionDefinition[] opcodes, InstructionDefinition[] conditions) {
+        if (opcodes.length != OPCODE_ENTRIES || conditions.length != CONDITION_ENTRIES) {
+            throw new IllegalArgumentException("Decode table entries have the wrong size.");
+        }
+        return new DecodeTable(opcodes, conditions);
+    }
+
+    /** @return The opcode entries (not a copy; must not be modified). */
+    InstructionDefinition[] opcodeEntries() {
+        return opcodes;
+    }
+
+    /** @return The condition entries (not a copy; must not be modified). */
+    InstructionDefinition[] conditionEntries() {
+        return conditions;
+    }
+
+    private static InstructionDefinition find(Map<Integer, Map<Character, InstructionDefinition>> definitions, int opcode, char format) {
+        Map<Character, InstructionDefinition> formatMap = definitions.get(opcode);
+        return (formatMap != null) ? formatMap.get(format) : null;
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * Looks up the definition of a machine word.
+     * @param machineCode The 32-bit machine word.
+     * @return The matching definition, or null if the word matches no definition.
+     */
+    public InstructionDefinition lookup(int machineCode) {
+        if ((machineCode >>> 24) == BCOND_OPCODE_VALUE) {
+            InstructionDefinition definition = conditions[machineCode & 0xF];
+            if (definition != null) return definition;
+        }
+        return opcodes[machineCode >>> 21];
+    }
+}
@@ -5,8 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
-
 /**
  * IFormatInstruction is a class that represents an immediate format instruction in the LEGv8 architecture.
  * It extends the Instruction class and provides methods to disassemble the instruction and extract its components.
@@ -18,11 +16,11 @@ public class IFormatInstruction extends Instruction {
     // --- Constructor ---
     /**
      * Constructor for IFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public IFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public IFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.immediate = getImmediate_I();
         this.rn = getRn_I();
         this.rd = getRd_I();
@@ -5,8 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
-
 /**
  * IMFormatInstruction is a class that represents an immediate format instruction in the LEGv8 architecture.
  * It extends the Instruction class and provides methods to disassemble the instruction and extract its components.
@@ -18,11 +16,11 @@ public class IMFormatInstruction extends Instruction {
     // --- Constructor ---
     /**
      * Constructor for IMFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public IMFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public IMFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.shiftAmount = getShift_IM() * 16; 
         this.immediate = getImmediate_IM();
         this.rd = getRd_IM();
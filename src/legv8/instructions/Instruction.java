@@ -6,18 +6,17 @@
 package legv8.instructions;
 
 import legv8.util.ColoredLog;
-import java.util.BitSet;
 import java.util.Objects;
 
 /**
  * Instruction is an abstract class that represents a generic instruction in the LEGv8 architecture.
- * It provides methods to manipulate and extract information from the instruction's bytecode.
+ * It provides methods to manipulate and extract information from the instruction's 32-bit machine word.
  */
 // Note: This class is not intended to be instantiated directly.
 // Instead, it should be extended by specific instruction classes (e.g., RFormatInstruction, IFormatInstruction, etc.).
 public abstract class Instruction {
     // --- Fields ---
-    protected final BitSet bytecode;
+    protected final int machineCode;
     protected final InstructionDefinition definition;
 
     
@@ -25,28 +24,22 @@ public abstract class Instruction {
 
     /**
      * Constructor for the Instruction class.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    protected Instruction(BitSet bytecode, InstructionDefinition definition) { 
-        this.bytecode = (BitSet) Objects.requireNonNull(bytecode, ColoredLog.WARNING + "Bytecode cannot be null.").clone();
+    protected Instruction(int machineCode, InstructionDefinition definition) { 
+        this.machineCode = machineCode;
         this.definition = Objects.requireNonNull(definition, ColoredLog.WARNING + "InstructionDefinition cannot be null for standard instruction creation.");
-
-        if (bytecode.length() > 32) {
-            System.err.printf("%sWarning: Bytecode provided to Instruction constructor has length %d (> 32) for %s.\n",
-                                ColoredLog.WARNING, bytecode.length(), definition.getMnemonic());
-        }
     }
 
     
     // --- Getters ---
     
     /**
-     * @return The bytecode of the instruction as a BitSet.
-     *         The clone is used to prevent external modification of the original bytecode.
+     * @return The 32-bit machine word of the instruction.
      */
-    public BitSet getBytecode() {
-        return (BitSet) bytecode.clone(); 
+    public int getMachineCode() {
+        return machineCode;
     }
 
     /**
@@ -59,96 +52,90 @@ public abstract class Instruction {
 
     // --- Bit Extraction Methods ---
     // R-Format Instruction
-    public int getOpcode_R()    { return extractBits(bytecode, 21, 31); } 
-    public int getRm_R()        { return extractBits(bytecode, 16, 20); } 
-    public int getShamt_R()     { return extractBits(bytecode, 10, 15); } 
-    public int getRn_R()        { return extractBits(bytecode, 5, 9); }   
-    public int getRd_R()        { return extractBits(bytecode, 0, 4); }   
+    public int getOpcode_R()    { return extractBits(machineCode, 21, 31); } 
+    public int getRm_R()        { return extractBits(machineCode, 16, 20); } 
+    public int getShamt_R()     { return extractBits(machineCode, 10, 15); } 
+    public int getRn_R()        { return extractBits(machineCode, 5, 9); }   
+    public int getRd_R()        { return extractBits(machineCode, 0, 4); }   
 
     // I-Format Instruction
-    public int getOpcode_I()    { return extractBits(bytecode, 22, 31); } 
-    public int getImmediate_I() { return extractBits(bytecode, 10, 21); } 
-    public int getRn_I()        { return extractBits(bytecode, 5, 9); }   
-    public int getRd_I()        { return extractBits(bytecode, 0, 4); }   
+    public int getOpcode_I()    { return extractBits(machineCode, 22, 31); } 
+    public int getImmediate_I() { return extractBits(machineCode, 10, 21); } 
+    public int getRn_I()        { return extractBits(machineCode, 5, 9); }   
+    public int getRd_I()        { return extractBits(machineCode, 0, 4); }   
 
     // D-Format Instruction
-    public int getOpcode_D()    { return extractBits(bytecode, 21, 31); } 
-    public int getAddress_D()   { return extractBits(bytecode, 12, 20); } 
-    public int getOp2_D()       { return extractBits(bytecode, 10, 11); } // 2 bits (Unused in LDUR/STUR)
-    public int getRn_D()        { return extractBits(bytecode, 5, 9); }   
-    public int getRt_D()        { return extractBits(bytecode, 0, 4); }   
+    public int getOpcode_D()    { return extractBits(machineCode, 21, 31); } 
+    public int getAddress_D()   { return extractBits(machineCode, 12, 20); } 
+    public int getOp2_D()       { return extractBits(machineCode, 10, 11); } // 2 bits (Unused in LDUR/STUR)
+    public int getRn_D()        { return extractBits(machineCode, 5, 9); }   
+    public int getRt_D()        { return extractBits(machineCode, 0, 4); }   
 
     // B-Format Instruction
-    public int getOpcode_B()    { return extractBits(bytecode, 26, 31); } 
-    public int getAddress_B()   { return extractBits(bytecode, 0, 25); }  
+    public int getOpcode_B()    { return extractBits(machineCode, 26, 31); } 
+    public int getAddress_B()   { return extractBits(machineCode, 0, 25); }  
 
     // CB-Format Instruction
-    public int getOpcode_CB()   { return extractBits(bytecode, 24, 31); } 
-    public int getAddress_CB()  { return extractBits(bytecode, 5, 23); } 
-    public int getRt_CB()       { return extractBits(bytecode, 0, 4); }  // 5 bits (Rt for CBZ/NZ)
-    public int getCond_CB()    { return extractBits(bytecode, 0, 3); }  // 4 bits (Cond for B.cond)
+    public int getOpcode_CB()   { return extractBits(machineCode, 24, 31); } 
+    public int getAddress_CB()  { return extractBits(machineCode, 5, 23); } 
+    public int getRt_CB()       { return extractBits(machineCode, 0, 4); }  // 5 bits (Rt for CBZ/NZ)
+    public int getCond_CB()    { return extractBits(machineCode, 0, 3); }  // 4 bits (Cond for B.cond)
 
     // I-Format Immediate Instruction
-    public int getOpcode_IM()   { return extractBits(bytecode, 23, 31); } 
-    public int getShift_IM()    { return extractBits(bytecode, 21, 22); } 
-    public int getImmediate_IM(){ return extractBits(bytecode, 5, 20); } 
-    public int getRd_IM()       { return extractBits(bytecode, 0, 4); }   
+    public int getOpcode_IM()   { return extractBits(machineCode, 23, 31); } 
+    public int getShift_IM()    { return extractBits(machineCode, 21, 22); } 
+    public int getImmediate_IM(){ return extractBits(machineCode, 5, 20); } 
+    public int getRd_IM()       { return extractBits(machineCode, 0, 4); }   
 
 
     // --- Bit Manipulation Methods ---
 
     /**
-     * Sets the bits in the specified range of the BitSet to the value provided.
-     * @param bits The BitSet to modify.
+     * Returns the word with the bits in the specified range replaced by the value provided.
+     * Bits of the value above the field width are ignored.
+     * @param word The machine word to modify.
      * @param value The value to set in the specified bit range.
      * @param startBit The starting bit index (inclusive).
      * @param endBit The ending bit index (inclusive).
+     * @return The modified machine word.
      */
-    protected static void setBits(BitSet bits, int value, int startBit, int endBit) {
-        if (startBit < 0 || endBit < startBit || endBit >= 32) {
-            System.err.printf("%sWarning: Invalid bit range for setting: %d to %d\n", ColoredLog.WARNING, startBit, endBit);
-            return; 
-        }
-
-        int mask = 1;
-        for (int i = startBit; i <= endBit; i++) {
-            bits.set(i, (value & mask) != 0);
-            mask <<= 1;
-        }
+    protected static int setBits(int word, int value, int startBit, int endBit) {
+        int mask = fieldMask(startBit, endBit) << startBit;
+        return (word & ~mask) | ((value << startBit) & mask);
     }
     
     /**
-     * Extracts a range of bits from the BitSet and returns it as an integer.
-     * @param bits The BitSet to extract bits from.
+     * Extracts a range of bits from the machine word and returns it as an integer.
+     * @param word The machine word to extract bits from.
      * @param startBit The starting bit index (inclusive).
      * @param endBit The ending bit index (inclusive).
-     * @return The extracted value as an integer.
+     * @return The extracted value as an integer (zero-extended).
      */
-    public static int extractBits(BitSet bits, int startBit, int endBit) {
-        if (startBit < 0 || endBit < startBit || endBit >= 32) {      
-            System.err.printf("%sWarning: Invalid bit range requested: %d to %d\n", ColoredLog.WARNING, startBit, endBit);    
-            throw new IllegalArgumentException("Invalid bit range requested: " + startBit + " to " + endBit);
-        }
+    public static int extractBits(int word, int startBit, int endBit) {
+        return (word >>> startBit) & fieldMask(startBit, endBit);
+    }
 
-        int value = 0;
-        for (int i = startBit; i <= endBit; i++) {
-            if (bits.get(i)) {
-                value |= (1 << (i - startBit));
-            }
+    /**
+     * @return A mask of (endBit - startBit + 1) low bits.
+     * @throws IllegalArgumentException if the range is not within bits 0-31.
+     */
+    private static int fieldMask(int startBit, int endBit) {
+        if (startBit < 0 || endBit < startBit || endBit >= 32) {
+            throw new IllegalArgumentException("Invalid bit range requested: " + startBit + " to " + endBit);
         }
-        
-        return value;
+        int width = endBit - startBit + 1;
+        return (width == 32) ? -1 : (1 << width) - 1;
     }
 
     /**
-     * Formats the BitSet as a binary string.
-     * @param bits The BitSet to format.
+     * Formats the machine word as a binary string, grouped by byte.
+     * @param word The machine word to format.
      * @return The formatted binary string.
      */    
-    public static String formatBitSet(BitSet bits) {
+    public static String formatMachineCode(int word) {
         StringBuilder sb = new StringBuilder(35); 
         for (int i = 31; i >= 0; i--) {
-            sb.append(bits.get(i) ? '1' : '0');
+            sb.append(((word >>> i) & 1) != 0 ? '1' : '0');
             if (i > 0 && i % 8 == 0) {
                 sb.append(' '); 
             }
@@ -166,11 +153,11 @@ public abstract class Instruction {
     public abstract String disassemble();
 
     /**
-     * @return A string representation of the instruction, including its bytecode in binary format.
+     * @return A string representation of the instruction, including its machine word in binary format.
      */
     @Override
     public String toString() {
-        return disassemble() + "\n" + formatBitSet(bytecode);
+        return disassemble() + "\n" + formatMachineCode(machineCode);
     }
 
 } 
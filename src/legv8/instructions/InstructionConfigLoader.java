@@ -9,13 +9,19 @@ import legv8.util.ColoredLog;
 import legv8.util.ControlSignals;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -35,6 +41,17 @@ public class InstructionConfigLoader {
      * The key is the mnemonic string, and the value is the corresponding InstructionDefinition object.
      */
     private final Map<String, InstructionDefinition> mnemonicMap;
+
+    /**
+     * Immutable snapshot of the maps above, including the dense opcode table compiled from them.
+     * It is replaced as a whole after every successful load, so readers never see a partial configuration.
+     */
+    private volatile InstructionSet instructionSet = InstructionSet.EMPTY;
+
+    // Whether loadConfig() reads and writes the compiled cache next to the CSV (see CompiledConfigCache)
+    private boolean useCompiledCache = true;
+    // Whether the current configuration came from the compiled cache
+    private boolean loadedFromCache = false;
     
     // --- Constructor ---
 
@@ -70,6 +87,38 @@ public class InstructionConfigLoader {
         return mnemonicMap.get(mnemonic.toUpperCase());
     }
     
+    /**
+     * @return The dense opcode table for the current configuration (empty until a configuration is loaded).
+     */
+    public DecodeTable getDecodeTable() {
+        return instructionSet.getDecodeTable();
+    }
+
+    /**
+     * @return An immutable snapshot of the current configuration (empty until a configuration is loaded).
+     *         Later reloads do not affect a snapshot already handed out.
+     */
+    public InstructionSet getInstructionSet() {
+        return instructionSet;
+    }
+    
+    /**
+     * Enables or disables the compiled configuration cache (enabled by default).
+     * When enabled, {@link #loadConfig} loads a fresh {@code <csv>.cache} file instead of parsing the CSV,
+     * and writes one after parsing.
+     * @param enabled true to use the cache.
+     */
+    public void setUseCompiledCache(boolean enabled) {
+        this.useCompiledCache = enabled;
+    }
+
+    /**
+     * @return true if the current configuration was loaded from the compiled cache rather than parsed.
+     */
+    public boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+
     /**
      * Retrieves the detailed definition map.
      * @return The map of opcode IDs to format maps and their corresponding InstructionDefinition objects.
@@ -98,6 +147,8 @@ public class InstructionConfigLoader {
      * 13. FlagW (1 or 0)
      * 14. ALUOp (in binary)
      * 15. ALUOperation (in binary)
+     * The CSV is read with a single read. If a compiled cache of the same content exists next to it,
+     * that is loaded instead of parsing; otherwise the CSV is parsed and the cache is (re)written.
      * @param resourcePath The path to the resource file containing instruction definitions.
      * @return true if the configuration was loaded successfully, false otherwise.
      */
@@ -106,7 +157,37 @@ public class InstructionConfigLoader {
         Map<String, InstructionDefinition> candidateMnemonicMap = new HashMap<>();
         System.out.println(ColoredLog.PENDING + "Loading instruction configuration from resource: " + resourcePath);
 
-        try (InputStream is = new FileInputStream(resourcePath)) {
+        byte[] content;
+        Path csvPath;
+        try {
+            csvPath = Path.of(resourcePath);
+            content = Files.readAllBytes(csvPath);
+        } catch (IOException | InvalidPathException e) {
+            System.err.println(ColoredLog.ERROR + "ConfigLoader FATAL ERROR: Cannot read config file resource '" + resourcePath + "': " + e.getMessage());
+            e.printStackTrace(); 
+            return false;
+        }
+        String configHash = HexFormat.of().formatHex(newConfigDigest().digest(content));
+
+        // Fast path: the compiled form of this exact CSV content
+        Path cachePath = CompiledConfigCache.pathFor(csvPath);
+        CompiledConfigCache.Compiled compiled = useCompiledCache ? CompiledConfigCache.read(cachePath, configHash) : null;
+        if (compiled != null) {
+            for (InstructionDefinition definition : compiled.definitions()) {
+                candidateMnemonicMap.put(definition.getMnemonic(), definition);
+                if (!isConditionalBranch(definition)) {
+                    candidateDetailedDefinitionMap.computeIfAbsent(definition.getOpcode(), k -> new HashMap<>())
+                                                  .put(definition.getFormat(), definition);
+                }
+            }
+            install(candidateDetailedDefinitionMap, candidateMnemonicMap, compiled.decodeTable(), configHash);
+            loadedFromCache = true;
+            System.out.printf("%sInstruction configuration loaded from compiled cache. %d unique mnemonics, %d opcode/format definitions.\n",
+                ColoredLog.SUCCESS, candidateMnemonicMap.size(), countTotalDefinitions(candidateDetailedDefinitionMap));
+            return true;
+        }
+
+        try (InputStream is = new ByteArrayInputStream(content)) {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(Objects.requireNonNull(is)))) {
                 String line;
                 int lineNumber = 0;
@@ -185,10 +266,7 @@ public class InstructionConfigLoader {
                             throw new IllegalArgumentException("Duplicate mnemonic: " + mnemonic);
                         }
 
-                        boolean isConditionalBranch = formatChar == 'C'
-                            && opcode == BCOND_OPCODE_VALUE
-                            && mnemonic.startsWith("B.");
-                        if (!isConditionalBranch) {
+                        if (!isConditionalBranch(definition)) {
                             Map<Character, InstructionDefinition> formatMap =
                                 candidateDetailedDefinitionMap.computeIfAbsent(opcode, k -> new HashMap<>());
                             if (formatMap.putIfAbsent(formatChar, definition) != null) {
@@ -232,10 +310,17 @@ public class InstructionConfigLoader {
                 candidateMnemonicMap.forEach((mnemonic, def) -> System.out.printf("  '%s' -> %s\n", mnemonic, def.getMnemonic()));
                 System.out.println("-----------------------");
 
-                detailedDefinitionMap.clear();
-                detailedDefinitionMap.putAll(candidateDetailedDefinitionMap);
-                mnemonicMap.clear();
-                mnemonicMap.putAll(candidateMnemonicMap);
+                DecodeTable decodeTable = DecodeTable.compile(candidateDetailedDefinitionMap, candidateMnemonicMap);
+                install(candidateDetailedDefinitionMap, candidateMnemonicMap, decodeTable, configHash);
+                loadedFromCache = false;
+
+                if (useCompiledCache) {
+                    List<InstructionDefinition> definitions = new ArrayList<>(candidateMnemonicMap.values());
+                    definitions.sort((a, b) -> a.getMnemonic().compareTo(b.getMnemonic()));
+                    if (!CompiledConfigCache.write(cachePath, configHash, definitions, decodeTable)) {
+                        System.out.println(ColoredLog.WARNING + "Could not write compiled configuration cache: " + cachePath);
+                    }
+                }
                 return true;
             } 
         } catch (IOException | NullPointerException e) { 
@@ -247,6 +332,40 @@ public class InstructionConfigLoader {
 
     // --- Helper Methods ---
 
+    /**
+     * Replaces the current configuration with a successfully loaded one.
+     */
+    private void install(Map<Integer, Map<Character, InstructionDefinition>> detailedDefinitions,
+                         Map<String, InstructionDefinition> mnemonicDefinitions, DecodeTable decodeTable, String configHash) {
+        detailedDefinitionMap.clear();
+        detailedDefinitionMap.putAll(detailedDefinitions);
+        mnemonicMap.clear();
+        mnemonicMap.putAll(mnemonicDefinitions);
+        instructionSet = new InstructionSet(mnemonicDefinitions, decodeTable, configHash);
+    }
+
+    /**
+     * B.cond definitions share one opcode and are decoded through the condition sub-table,
+     * so they are kept out of the opcode/format map.
+     */
+    private static boolean isConditionalBranch(InstructionDefinition definition) {
+        return definition.getFormat() == 'C'
+            && definition.getOpcode() == BCOND_OPCODE_VALUE
+            && definition.getMnemonic().startsWith("B.");
+    }
+
+    /**
+     * Creates the digest that fingerprints a configuration file (see {@link InstructionSet#getConfigHash()}).
+     * @return A SHA-256 MessageDigest.
+     */
+    private static MessageDigest newConfigDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e); // Required on every Java platform
+        }
+    }
+
     private List<String> parseCsvLine(String line) {
         List<String> fields = new ArrayList<>();
         StringBuilder current = new StringBuilder();
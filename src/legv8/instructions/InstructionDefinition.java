@@ -16,6 +16,7 @@ public class InstructionDefinition {
     private final char format;  // R: R-format, I: I-format, D: D-format, B: B-format, C: CB-format, M: IM-format
     private final int opcode; 
     private final ControlSignals controlSignals;
+    private final OperationKind kind; // Derived from the mnemonic once, for string-free dispatch
 
     
     // --- Constructor ---
@@ -32,6 +33,7 @@ public class InstructionDefinition {
         this.format = format;
         this.opcode = opcode;
         this.controlSignals = controlSignals;
+        this.kind = OperationKind.of(mnemonic);
     }
 
         /**
@@ -46,6 +48,7 @@ public class InstructionDefinition {
         this.format = format;
         this.opcode = Integer.parseInt(opcodeIdentifierString, 2);
         this.controlSignals = controlSignals;    
+        this.kind = OperationKind.of(mnemonic);
     }
     
 
@@ -85,6 +88,13 @@ public class InstructionDefinition {
     public ControlSignals getControlSignals() {
         return controlSignals;
     }
+
+    /**
+     * @return The operation kind of the instruction (assigned from the mnemonic when the definition is created).
+     */
+    public OperationKind getKind() {
+        return kind;
+    }
     
     // --- Utility Methods ---
     /**
@@ -7,40 +7,46 @@ package legv8.instructions;
 
 import legv8.exceptions.AssemblyException;
 import legv8.exceptions.InvalidInstructionException;
-import legv8.storage.*;
 import legv8.util.ColoredLog;
 
-import java.util.BitSet;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * InstructionFactory is a factory class responsible for creating instruction objects from bytecode or assembly lines.
- * It uses an InstructionConfigLoader to load instruction definitions and formats.
+ * A factory instance is bound to one immutable {@link InstructionSet}, so any number of factories (with the same
+ * or different configurations) can assemble and decode concurrently, and reloading a configuration never affects
+ * a factory that is already in use.
+ * Assembly lines are parsed in a single pass by an {@link AssemblyLexer}, and assembly errors report the column
+ * of the offending token ({@link AssemblyException#getColumn()}).
+ * The static methods are a facade over a default factory that follows the loader given to {@link #initialize}
+ * (used by the GUI).
  */
 public class InstructionFactory {
-    // --- Constants ---
-    // The opcode value for B.cond instructions is 0b01010100 (84 in decimal).
-    private static final int BCOND_OPCODE_VALUE = 0b01010100; 
-
     // --- Fields ---
-    // The InstructionConfigLoader instance used to load instruction definitions.
-    private static InstructionConfigLoader configLoader;
+    // The loader followed by the static facade (set by initialize())
+    private static volatile InstructionConfigLoader configLoader;
+    // The factory used by the static facade, rebuilt when the loader's configuration changes
+    private static volatile InstructionFactory defaultFactory;
+
+    // The definitions this factory assembles and decodes with
+    private final InstructionSet instructionSet;
 
     // --- Constructor ---
     /**
-     * Private constructor to prevent instantiation.
+     * Constructs a factory bound to an instruction set.
+     * @param instructionSet The definitions to use (e.g. {@link InstructionConfigLoader#getInstructionSet()}).
+     * @throws NullPointerException if the instruction set is null.
      */
-    // This class is a singleton and should not be instantiated directly.
-    private InstructionFactory() {
+    public InstructionFactory(InstructionSet instructionSet) {
+        this.instructionSet = Objects.requireNonNull(instructionSet, "InstructionSet cannot be null for InstructionFactory.");
     }
 
-    // --- Static Methods ---
+    // --- Static Facade ---
 
     /**
-     * Initializes the InstructionFactory with a given InstructionConfigLoader.
+     * Initializes the default factory with a given InstructionConfigLoader.
+     * The default factory follows later reloads of the same loader.
      * @param loader The InstructionConfigLoader to use for loading instruction definitions.
      * @throws NullPointerException if the loader is null.
      */
@@ -58,116 +64,85 @@ public class InstructionFactory {
     }
 
     /**
-     * Creates an instruction object from the given bytecode.
-     * @param bytecode The bytecode of the instruction as a BitSet.
-     * @return An Instruction object representing the instruction.
+     * Returns the default factory, bound to the current configuration of the loader given to {@link #initialize}.
+     * @return The default factory.
      * @throws IllegalStateException if the factory is not initialized.
-     * @throws NullPointerException if the bytecode is null.
-     * @throws InvalidInstructionException if the bytecode cannot be decoded or no definition is found.
      */
-    public static Instruction createFromBytecode(BitSet bytecode) {
-        if (configLoader == null) throw new IllegalStateException("InstructionFactory not initialized.");
-        Objects.requireNonNull(bytecode, "Bytecode cannot be null.");        
-
-        InstructionDefinition definition = null;
-        char identifiedFormat = '?';
-        int opcodeId;
-
-        // Check for B.cond instruction first
-        opcodeId = Instruction.extractBits(bytecode, 24, 31);
-        if (opcodeId == BCOND_OPCODE_VALUE) {    
-            int condCode = Instruction.extractBits(bytecode, 0, 3); 
-            String bCondMnemonic = "B." + getConditionMnemonic(condCode); 
-            definition = configLoader.getDefinitionByMnemonic(bCondMnemonic); 
-
-            System.out.printf("%s  Factory Debug: B.cond detected. Mnem='%s'. Definition found: %s\n",
-                                        ColoredLog.INFO, bCondMnemonic, (definition != null ? definition.getMnemonic() : "NULL")); 
-            
-            if (definition != null && definition.getFormat() == 'C') { 
-                identifiedFormat = 'C';
-                System.out.println(ColoredLog.INFO + "  Factory Decode Hint: Identified B.cond -> " + bCondMnemonic);
-            } else {
-                System.err.printf("%sFATAL Factory Error: Missing or incorrect definition for %s (Cond: %d) in config.\n", ColoredLog.ERROR, bCondMnemonic, condCode);
-                throw new InvalidInstructionException("Missing or invalid definition for " + bCondMnemonic);
-            }
-        } else {
-            definition = configLoader.getDefinition(opcodeId, 'C');
-            if (definition != null) {
-                identifiedFormat = 'C';
-            }
-        }
-
-        // Check for IM format 
-        if (identifiedFormat == '?') { 
-            opcodeId = Instruction.extractBits(bytecode, 23, 31);
-            definition = configLoader.getDefinition(opcodeId, 'M');
-            if (definition != null) identifiedFormat = 'M';
+    public static InstructionFactory getDefault() {
+        InstructionConfigLoader loader = configLoader;
+        if (loader == null) throw new IllegalStateException("InstructionFactory not initialized.");
+
+        InstructionSet current = loader.getInstructionSet();
+        InstructionFactory factory = defaultFactory;
+        if (factory == null || factory.instructionSet != current) {
+            factory = new InstructionFactory(current);
+            defaultFactory = factory;
         }
+        return factory;
+    }
 
-        // Check for I format
-        if (identifiedFormat == '?') { 
-            opcodeId = Instruction.extractBits(bytecode, 22, 31);
-            definition = configLoader.getDefinition(opcodeId, 'I');
-            if (definition != null) identifiedFormat = 'I';
-        }
+    /**
+     * Creates an instruction object from the given machine word using the default factory.
+     * @param machineCode The 32-bit machine word of the instruction.
+     * @return An Instruction object representing the instruction.
+     * @throws IllegalStateException if the factory is not initialized.
+     * @throws InvalidInstructionException if the bytecode cannot be decoded or no definition is found.
+     * @see #decode(int)
+     */
+    public static Instruction createFromBytecode(int machineCode) {
+        return getDefault().decode(machineCode);
+    }
 
-        // Check for D format
-        if (identifiedFormat == '?') { 
-            opcodeId = Instruction.extractBits(bytecode, 21, 31);
-            definition = configLoader.getDefinition(opcodeId, 'D');
-            if (definition != null) identifiedFormat = 'D';
-        }
+    /**
+     * Creates an instruction object from the given assembly line using the default factory.
+     * @param assemblyLine The assembly line to assemble.
+     * @param symbolTable The symbol table for label resolution.
+     * @param currentInstructionAddress The current instruction address for branch target resolution.
+     * @return An Instruction object representing the assembled instruction.
+     * @throws IllegalStateException if the factory is not initialized.
+     * @throws AssemblyException if the assembly line cannot be assembled or contains errors.
+     * @see #assemble(String, Map, long)
+     */
+    public static Instruction createFromAssembly(String assemblyLine, Map<String, Long> symbolTable, long currentInstructionAddress) {
+        return getDefault().assemble(assemblyLine, symbolTable, currentInstructionAddress);
+    }
 
-        // Check for R format
-        if (identifiedFormat == '?') { 
-            opcodeId = Instruction.extractBits(bytecode, 21, 31);
-            definition = configLoader.getDefinition(opcodeId, 'R');
-            if (definition != null) identifiedFormat = 'R';
-        }
+    // --- Instance API ---
 
-        // Check for B format
-        if (identifiedFormat == '?') { 
-            opcodeId = Instruction.extractBits(bytecode, 26, 31);
-            definition = configLoader.getDefinition(opcodeId, 'B');
-            if (definition != null) identifiedFormat = 'B';
-        }
+    /**
+     * @return The instruction set this factory is bound to.
+     */
+    public InstructionSet getInstructionSet() {
+        return instructionSet;
+    }
 
-        // Definition not found
+    /**
+     * Creates an instruction object from the given machine word.
+     * @param machineCode The 32-bit machine word of the instruction.
+     * @return An Instruction object representing the instruction.
+     * @throws InvalidInstructionException if the bytecode cannot be decoded or no definition is found.
+     */
+    public Instruction decode(int machineCode) {
+        InstructionDefinition definition = instructionSet.getDecodeTable().lookup(machineCode);
         if (definition == null) {
-            String bitsStr = Instruction.formatBitSet(bytecode);
+            String bitsStr = Instruction.formatMachineCode(machineCode);
             throw new InvalidInstructionException("Could not decode instruction or find definition for bytecode: " + bitsStr);
         }
 
         try {
             return switch (definition.getFormat()) {
-                case 'R' -> new RFormatInstruction(bytecode, definition);
-                case 'I' -> new IFormatInstruction(bytecode, definition);
-                case 'D' -> new DFormatInstruction(bytecode, definition);
-                case 'B' -> new BFormatInstruction(bytecode, definition);
-                case 'C' -> new CBFormatInstruction(bytecode, definition); 
-                case 'M' -> new IMFormatInstruction(bytecode, definition);
+                case 'R' -> new RFormatInstruction(machineCode, definition);
+                case 'I' -> new IFormatInstruction(machineCode, definition);
+                case 'D' -> new DFormatInstruction(machineCode, definition);
+                case 'B' -> new BFormatInstruction(machineCode, definition);
+                case 'C' -> new CBFormatInstruction(machineCode, definition); 
+                case 'M' -> new IMFormatInstruction(machineCode, definition);
                 default -> throw new InvalidInstructionException("Unsupported format '" + definition.getFormat() + "' found for mnemonic " + definition.getMnemonic());
             };
         } catch (Exception e) {
             throw new InvalidInstructionException("Error creating instruction object for " + definition.getMnemonic() + ": " + e.getMessage(), e);
         }
     }
-
-    /**
-     * Converts a condition code to its mnemonic representation.
-     * @param condCode The condition code (0-15).
-     * @return The mnemonic representation of the condition code.
-     */    
-    private static String getConditionMnemonic(int condCode) {
-        condCode &= 0xF; 
-        return switch (condCode) {
-            case 0b0000 -> "EQ"; case 0b0001 -> "NE"; case 0b0010 -> "HS"; case 0b0011 -> "LO";
-            case 0b0100 -> "MI"; case 0b0101 -> "PL"; case 0b0110 -> "VS"; case 0b0111 -> "VC";
-            case 0b1000 -> "HI"; case 0b1001 -> "LS"; case 0b1010 -> "GE"; case 0b1011 -> "LT";
-            case 0b1100 -> "GT"; case 0b1101 -> "LE";
-            default -> "??"; 
-        };
-    }
     
     /**
      * Creates an instruction object from the given assembly line.
@@ -175,397 +150,304 @@ public class InstructionFactory {
      * @param symbolTable The symbol table for label resolution.
      * @param currentInstructionAddress The current instruction address for branch target resolution.
      * @return An Instruction object representing the assembled instruction.
-     * @throws IllegalStateException if the factory is not initialized.
      * @throws NullPointerException if any of the parameters are null.
      * @throws AssemblyException if the assembly line cannot be assembled or contains errors.
      */
-    public static Instruction createFromAssembly(String assemblyLine, Map<String, Long> symbolTable, long currentInstructionAddress) {
-        if (configLoader == null) throw new IllegalStateException("InstructionFactory not initialized.");
+    public Instruction assemble(String assemblyLine, Map<String, Long> symbolTable, long currentInstructionAddress) {
         Objects.requireNonNull(assemblyLine, "Assembly line cannot be null.");
         Objects.requireNonNull(symbolTable, "Symbol table cannot be null.");
 
-        String trimmedLine = assemblyLine.trim();
-        if (trimmedLine.isEmpty()) {
+        AssemblyLexer lexer = new AssemblyLexer(assemblyLine);
+        if (lexer.atEnd()) {
             throw new AssemblyException("Cannot assemble empty line.");
         }
- 
-        String[] parts = trimmedLine.split("\\s+", 2);
-        String mnemonic = parts[0].toUpperCase();
-        String operandsStr = (parts.length > 1) ? parts[1].trim() : "";
 
-        InstructionDefinition def = configLoader.getDefinitionByMnemonic(mnemonic);
+        int mnemonicColumn = lexer.column();
+        String mnemonic = lexer.mnemonic();
+        InstructionDefinition def = instructionSet.getDefinitionByMnemonic(mnemonic);
         if (def == null) {
-            throw new AssemblyException("Unknown mnemonic: '" + mnemonic + "' in line: " + assemblyLine);
+            throw new AssemblyException("Unknown mnemonic: '" + mnemonic + "' in line: " + assemblyLine, mnemonicColumn);
         }       
 
-        BitSet bytecode = new BitSet(32);
+        int machineCode;
         int opcode = def.getOpcode();
-        if (opcode == -1) throw new AssemblyException("Internal error: Invalid opcode identifier for " + mnemonic);
+        if (opcode == -1) throw new AssemblyException("Internal error: Invalid opcode identifier for " + mnemonic, mnemonicColumn);
 
         try {   
             switch (def.getFormat()) {
                 case 'R':
-                    assembleRFormat(bytecode, opcode, mnemonic, operandsStr);
+                    machineCode = assembleRFormat(opcode, mnemonic, lexer);
                     break;
                 case 'I':
-                    assembleIFormat(bytecode, opcode, mnemonic, operandsStr);
+                    machineCode = assembleIFormat(opcode, mnemonic, lexer);
                     break;
                 case 'D':
-                    assembleDFormat(bytecode, opcode, mnemonic, operandsStr);
+                    machineCode = assembleDFormat(opcode, mnemonic, lexer);
                     break;
                 case 'B':
-                    assembleBFormat(bytecode, opcode, mnemonic, operandsStr, symbolTable, currentInstructionAddress);
+                    machineCode = assembleBFormat(opcode, mnemonic, lexer, symbolTable, currentInstructionAddress);
                     break;
                 case 'C':
-                    assembleCBFormat(bytecode, opcode, mnemonic, operandsStr, symbolTable, currentInstructionAddress);
+                    machineCode = assembleCBFormat(opcode, mnemonic, lexer, symbolTable, currentInstructionAddress);
                     break;
                 case 'M':
-                    assembleIMFormat(bytecode, opcode, mnemonic, operandsStr);
+                    machineCode = assembleIMFormat(opcode, mnemonic, lexer);
                     break;
                 default:
-                    throw new AssemblyException("Assembly not implemented for format '" + def.getFormat() + "'");
+                    throw new AssemblyException("Assembly not implemented for format '" + def.getFormat() + "'", mnemonicColumn);
             }
             
-            return createFromBytecode(bytecode);
+            return decode(machineCode);
         } catch (AssemblyException ae) {
-            throw new AssemblyException("Error assembling line: '" + assemblyLine + "' - " + ae.getMessage(), ae);
+            throw new AssemblyException("Error assembling line: '" + assemblyLine + "' - " + ae.getMessage(), ae.getColumn(), ae);
         } catch (Exception e) {
             throw new AssemblyException("Unexpected error assembling line: '" + assemblyLine + "' - " + e.getMessage(), e);
         }
     }
 
     // --- Assembly Methods ---
+    // Each method reads its operands from the lexer in order and checks that nothing follows them.
 
     /**
      * Assembles an R-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
+     * @return The assembled machine word.
      */    
-    private static void assembleRFormat(BitSet bits, int opcode, String mnemonic, String operands) {
+    private static int assembleRFormat(int opcode, String mnemonic, AssemblyLexer lexer) {
         int rd, rn, rm = 0, shamt = 0;
-        String[] ops = splitOperands(operands);
 
         switch (mnemonic) {
-            case "LSL", "LSR": 
-                if (ops.length != 3) throw new AssemblyException(mnemonic + " requires 3 operands: Rd, Rn, #shamt");
-                rd = parseRegister(ops[0]);
-                rn = parseRegister(ops[1]);
-                shamt = parseImmediate(ops[2]);
-                // System.out.printf("%s  Factory Debug: LSL/LSR detected. Rd=%d, Rn=%d, shamt=%d\n", ColoredLog.INFO, rd, rn, shamt);
-                if (shamt < 0 || shamt > 63) throw new AssemblyException("Shift amount (#" + shamt + ") out of range (0-63)");
-                rm = 0; 
+            case "LSL", "LSR": {
+                String usage = mnemonic + " requires 3 operands: Rd, Rn, #shamt";
+                rd = lexer.register();
+                lexer.expect(',', usage);
+                rn = lexer.register();
+                lexer.expect(',', usage);
+                int shamtColumn = lexer.column();
+                shamt = lexer.immediate();
+                lexer.expectEnd(usage);
+                if (shamt < 0 || shamt > 63) throw new AssemblyException("Shift amount (#" + shamt + ") out of range (0-63)", shamtColumn);
                 break;
+            }
             case "BR": 
-                if (ops.length != 1) throw new AssemblyException(mnemonic + " requires 1 operand: Rn");
-                rn = parseRegister(ops[0]);
-                rd = 0; rm = 0; shamt = 0; 
+                rn = lexer.register();
+                lexer.expectEnd(mnemonic + " requires 1 operand: Rn");
+                rd = 0;
                 break;
-            default: 
-                    if (ops.length != 3) throw new AssemblyException(mnemonic + " requires 3 operands: Rd, Rn, Rm");
-                    rd = parseRegister(ops[0]);
-                    rn = parseRegister(ops[1]);
-                    rm = parseRegister(ops[2]);
-                    shamt = 0; 
+            default: {
+                String usage = mnemonic + " requires 3 operands: Rd, Rn, Rm";
+                rd = lexer.register();
+                lexer.expect(',', usage);
+                rn = lexer.register();
+                lexer.expect(',', usage);
+                rm = lexer.register();
+                lexer.expectEnd(usage);
                 break;
+            }
         }
 
-        Instruction.setBits(bits, opcode, 21, 31);
-        Instruction.setBits(bits, rm, 16, 20);
-        Instruction.setBits(bits, shamt, 10, 15);
-        Instruction.setBits(bits, rn, 5, 9);
-        Instruction.setBits(bits, rd, 0, 4);
+        int word = Instruction.setBits(0, opcode, 21, 31);
+        word = Instruction.setBits(word, rm, 16, 20);
+        word = Instruction.setBits(word, shamt, 10, 15);
+        word = Instruction.setBits(word, rn, 5, 9);
+        word = Instruction.setBits(word, rd, 0, 4);
+        return word;
     }
 
     /**
      * Assembles an I-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
+     * @return The assembled machine word.
      */    
-    private static void assembleIFormat(BitSet bits, int opcode, String mnemonic, String operands) {
-        String[] ops = splitOperands(operands);
-        if (ops.length != 3) throw new AssemblyException(mnemonic + " requires 3 operands: Rd, Rn, #immediate");
-        int rd = parseRegister(ops[0]);
-        int rn = parseRegister(ops[1]);
-        int imm12 = parseImmediate(ops[2]);
+    private static int assembleIFormat(int opcode, String mnemonic, AssemblyLexer lexer) {
+        String usage = mnemonic + " requires 3 operands: Rd, Rn, #immediate";
+        int rd = lexer.register();
+        lexer.expect(',', usage);
+        int rn = lexer.register();
+        lexer.expect(',', usage);
+        int immColumn = lexer.column();
+        int imm12 = lexer.immediate();
+        lexer.expectEnd(usage);
         
         if (imm12 < 0 || imm12 > 4095) {
-            throw new AssemblyException("Immediate value (#" + imm12 + ") out of 12-bit unsigned range [0, 4095]");
+            throw new AssemblyException("Immediate value (#" + imm12 + ") out of 12-bit unsigned range [0, 4095]", immColumn);
         }
 
-        Instruction.setBits(bits, opcode, 22, 31);
-        Instruction.setBits(bits, imm12 & 0xFFF, 10, 21); 
-        Instruction.setBits(bits, rn, 5, 9);
-        Instruction.setBits(bits, rd, 0, 4);
+        int word = Instruction.setBits(0, opcode, 22, 31);
+        word = Instruction.setBits(word, imm12 & 0xFFF, 10, 21); 
+        word = Instruction.setBits(word, rn, 5, 9);
+        word = Instruction.setBits(word, rd, 0, 4);
+        return word;
     }
 
     /**
      * Assembles a D-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
+     * @return The assembled machine word.
      */
-    private static void assembleDFormat(BitSet bits, int opcode, String mnemonic, String operands) { 
-        final Pattern D_FORMAT_ADDR_PATTERN = Pattern.compile("\\s*\\[\\s*(\\w+)\\s*,\\s*(#?-?\\w+)\\s*\\]\\s*");
-        String[] ops = splitOperands(operands, 2); 
-        if (ops.length != 2) throw new AssemblyException(mnemonic + " requires 2 operands: Rt, [Rn, #imm]");
-        int rt = parseRegister(ops[0]);
-
-        Matcher matcher = D_FORMAT_ADDR_PATTERN.matcher(ops[1]);
-        if (!matcher.matches()) {
-            throw new AssemblyException("Invalid D-format memory operand format: '" + ops[1] + "'. Expected [Rn, #imm]");
-        }
+    private static int assembleDFormat(int opcode, String mnemonic, AssemblyLexer lexer) { 
+        String usage = mnemonic + " requires 2 operands: Rt, [Rn, #imm]";
+        int rt = lexer.register();
+        lexer.expect(',', usage);
+
+        String addressUsage = "Invalid D-format memory operand format. Expected [Rn, #imm]";
+        lexer.expect('[', addressUsage);
+        int rn = lexer.register();
+        lexer.expect(',', addressUsage);
+        int immColumn = lexer.column();
+        int imm9 = lexer.immediate();
+        lexer.expect(']', addressUsage);
+        lexer.expectEnd(usage);
 
-        int rn = parseRegister(matcher.group(1));
-        int imm9 = parseImmediate(matcher.group(2));
         if (imm9 < -256 || imm9 > 255) {
-            throw new AssemblyException("D-format offset (#" + imm9 + ") out of 9-bit signed range [-256, 255]");
+            throw new AssemblyException("D-format offset (#" + imm9 + ") out of 9-bit signed range [-256, 255]", immColumn);
         }
 
-        Instruction.setBits(bits, opcode, 21, 31);
-        Instruction.setBits(bits, imm9 & 0x1FF, 12, 20); 
-        Instruction.setBits(bits, 0, 10, 11); // Op2 field (unused for LDUR/STUR) set to 0
-        Instruction.setBits(bits, rn, 5, 9);
-        Instruction.setBits(bits, rt, 0, 4);
+        int word = Instruction.setBits(0, opcode, 21, 31);
+        word = Instruction.setBits(word, imm9 & 0x1FF, 12, 20); 
+        word = Instruction.setBits(word, 0, 10, 11); // Op2 field (unused for LDUR/STUR) set to 0
+        word = Instruction.setBits(word, rn, 5, 9);
+        word = Instruction.setBits(word, rt, 0, 4);
+        return word;
     }
 
     /**
      * Assembles a B-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
      * @param symbolTable The symbol table for label resolution.
      * @param currentAddr The current instruction address for branch target resolution.
+     * @return The assembled machine word.
      */
-    private static void assembleBFormat(BitSet bits, int opcode, String mnemonic, String operands, Map<String, Long> symbolTable, long currentAddr) {
-        String target = operands.trim();
-        if (target.isEmpty()) throw new AssemblyException(mnemonic + " requires a target label or offset");
+    private static int assembleBFormat(int opcode, String mnemonic, AssemblyLexer lexer, Map<String, Long> symbolTable, long currentAddr) {
+        String usage = mnemonic + " requires a target label or offset";
+        if (lexer.atEnd()) throw lexer.error(usage, lexer.column() - 1);
 
-        int offset26 = resolveBranchTarget(target, symbolTable, currentAddr, 26);
+        int offset26 = resolveBranchTarget(lexer, symbolTable, currentAddr, 26);
+        lexer.expectEnd(usage);
 
-        Instruction.setBits(bits, opcode, 26, 31);
-        Instruction.setBits(bits, offset26 & 0x3FFFFFF, 0, 25); 
+        int word = Instruction.setBits(0, opcode, 26, 31);
+        word = Instruction.setBits(word, offset26 & 0x3FFFFFF, 0, 25); 
+        return word;
     }
 
     /**
      * Assembles a CB-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
      * @param symbolTable The symbol table for label resolution.
      * @param currentAddr The current instruction address for branch target resolution.
+     * @return The assembled machine word.
      */    
-    private static void assembleCBFormat(BitSet bits, int opcode, String mnemonic, String operands, Map<String, Long> symbolTable, long currentAddr) {
-        String[] ops = splitOperands(operands);
+    private static int assembleCBFormat(int opcode, String mnemonic, AssemblyLexer lexer, Map<String, Long> symbolTable, long currentAddr) {
         int rt_or_cond;
-        String targetStr;
+        String usage;
 
         if (mnemonic.startsWith("B.")) { 
-            if (ops.length != 1) throw new AssemblyException(mnemonic + " requires 1 operand: target");
+            usage = mnemonic + " requires 1 operand: target";
             rt_or_cond = parseConditionCode(mnemonic); 
-            targetStr = ops[0];
         } else { // CBZ/CBNZ Rt, target
-            if (ops.length != 2) throw new AssemblyException(mnemonic + " requires 2 operands: Rt, target");
-            rt_or_cond = parseRegister(ops[0]);
-            targetStr = ops[1];
+            usage = mnemonic + " requires 2 operands: Rt, target";
+            rt_or_cond = lexer.register();
+            lexer.expect(',', usage);
         }
 
-        int offset19 = resolveBranchTarget(targetStr, symbolTable, currentAddr, 19);
+        if (lexer.atEnd()) throw lexer.error(usage, lexer.column() - 1);
+        int offset19 = resolveBranchTarget(lexer, symbolTable, currentAddr, 19);
+        lexer.expectEnd(usage);
 
-        Instruction.setBits(bits, opcode, 24, 31);
-        Instruction.setBits(bits, offset19 & 0x7FFFF, 5, 23); 
-        Instruction.setBits(bits, rt_or_cond & 0x1F, 0, 4); 
+        int word = Instruction.setBits(0, opcode, 24, 31);
+        word = Instruction.setBits(word, offset19 & 0x7FFFF, 5, 23); 
+        word = Instruction.setBits(word, rt_or_cond & 0x1F, 0, 4); 
+        return word;
     }
 
     /** 
      * Assembles an IM-format instruction.
-     * @param bits The BitSet to store the instruction bits.
      * @param opcode The opcode value.
      * @param mnemonic The mnemonic of the instruction.
-     * @param operands The operands of the instruction.
+     * @param lexer The lexer, positioned after the mnemonic.
+     * @return The assembled machine word.
      */
-    private static void assembleIMFormat(BitSet bits, int opcode, String mnemonic, String operands) {
-        final Pattern IM_FORMAT_SHIFT_PATTERN = Pattern.compile("(.*?)(?:,\\s*(LSL)\\s*(#\\d+))?\\s*$", Pattern.CASE_INSENSITIVE);
-
-        String[] ops = splitOperands(operands, 2); 
-        if (ops.length != 2) throw new AssemblyException(mnemonic + " requires at least Rd, #imm operands");
-        int rd = parseRegister(ops[0]);
-        String immAndShiftPart = ops[1];
-
-        Matcher matcher = IM_FORMAT_SHIFT_PATTERN.matcher(immAndShiftPart);
-        if (!matcher.matches()) {
-            throw new AssemblyException("Could not parse immediate/shift part for " + mnemonic + ": '" + immAndShiftPart + "'");
-        }
-
-        String immStr = matcher.group(1).trim(); 
-        int imm16 = parseImmediate(immStr);
-        int shiftVal = 0;
+    private static int assembleIMFormat(int opcode, String mnemonic, AssemblyLexer lexer) {
+        String usage = mnemonic + " requires at least Rd, #imm operands";
+        int rd = lexer.register();
+        lexer.expect(',', usage);
+        int immColumn = lexer.column();
+        int imm16 = lexer.immediate();
         int hw = 0;
 
-        if (matcher.group(2) != null) { 
-            String shiftStr = matcher.group(3);
-            shiftVal = parseImmediate(shiftStr);
+        if (lexer.accept(',')) { 
+            int shiftColumn = lexer.column();
+            if (!lexer.acceptKeyword("LSL")) {
+                throw lexer.error("Could not parse shift for " + mnemonic + ". Expected LSL #shift", shiftColumn - 1);
+            }
+            shiftColumn = lexer.column();
+            int shiftVal = lexer.immediate();
             
             if (shiftVal != 0 && shiftVal != 16 && shiftVal != 32 && shiftVal != 48) {
-                throw new AssemblyException("Invalid LSL shift amount for " + mnemonic + ": #" + shiftVal + ". Must be 0, 16, 32, or 48.");
+                throw new AssemblyException("Invalid LSL shift amount for " + mnemonic + ": #" + shiftVal + ". Must be 0, 16, 32, or 48.", shiftColumn);
             }
             
             hw = shiftVal / 16;
         } 
+        lexer.expectEnd(usage);
 
         if (imm16 < 0 || imm16 > 65535) { 
-            throw new AssemblyException("Immediate value (#" + imm16 + ") out of 16-bit unsigned range [0, 65535]");
+            throw new AssemblyException("Immediate value (#" + imm16 + ") out of 16-bit unsigned range [0, 65535]", immColumn);
         }
 
-        Instruction.setBits(bits, opcode, 23, 31);
-        Instruction.setBits(bits, hw & 0x3, 21, 22);       
-        Instruction.setBits(bits, imm16 & 0xFFFF, 5, 20); 
-        Instruction.setBits(bits, rd, 0, 4);
+        int word = Instruction.setBits(0, opcode, 23, 31);
+        word = Instruction.setBits(word, hw & 0x3, 21, 22);       
+        word = Instruction.setBits(word, imm16 & 0xFFFF, 5, 20); 
+        word = Instruction.setBits(word, rd, 0, 4);
+        return word;
     }  
     
     // --- Helper Methods ---
 
     /**
-     * Splits the operands string into an array of operands.
-     * @param operands The operands string to split.
-     * @return An array of operands.
-     */
-    private static String[] splitOperands(String operands) {
-        if (operands == null || operands.trim().isEmpty()) {
-            return new String[0];
-        }
-        return operands.trim().split("\\s*,\\s*");
-    }
-
-    /**
-     * Splits the operands string into an array of operands with a specified count.
-     * @param operands The operands string to split.
-     * @param count The expected number of operands.
-     * @return An array of operands.
-     * @throws AssemblyException if the number of operands does not match the expected count.
-     */
-    private static String[] splitOperands(String operands, int count) {
-        if (operands == null) {
-            if (count == 0) return new String[0];
-            else throw new AssemblyException("Expected " + count + " operands, but got none.");
-        }
-        
-        String[] parts = operands.trim().split("\\s*,\\s*", count);
-        if (parts.length != count || (parts.length == 1 && parts[0].isEmpty() && count > 0)) {
-            if (parts.length == 1 && parts[0].isEmpty() && count == 1) {
-                throw new AssemblyException("Expected " + count + " operand, but got empty string.");
-            }
-
-            if (parts.length < count) { 
-                throw new AssemblyException("Expected " + count + " operands, but found fewer in '" + operands + "'");
-            }
-            
-            if (parts.length == count && parts[count - 1].trim().isEmpty() && count > 0) {
-                throw new AssemblyException("Trailing comma or missing operand detected in '" + operands + "'");
-            }            
-        }
-        return parts;
-    }
-
-    /**
-     * Parses a register operand and returns its index.
-     * @param reg The register operand string.
-     * @return The index of the register.
-     * @throws AssemblyException if the register format is invalid or out of range.
-     */    
-    private static int parseRegister(String reg) {
-        if (reg == null) throw new AssemblyException("Register operand is null.");
-        reg = reg.trim().toUpperCase();
-        if (reg.equals("XZR")) return RegisterStorage.ZERO_REGISTER_INDEX; 
-        if (reg.equals("SP")) return 28; 
-
-        if (!reg.startsWith("X") || reg.length() <= 1) {
-            throw new AssemblyException("Invalid register format: '" + reg + "'. Expected X0-X30, XZR, or SP.");
-        }
-       
-        try {
-            int n = Integer.parseInt(reg.substring(1));
-            if (n < 0 || n > 31) { 
-                throw new AssemblyException("Register number out of range (0-31): '" + reg + "'");
-            }
-            
-            if (n == RegisterStorage.ZERO_REGISTER_INDEX) {
-                throw new AssemblyException("Use 'XZR' instead of 'X31' for the zero register.");         
-            }
-
-            return n;
-        } catch (NumberFormatException e) {
-            throw new AssemblyException("Invalid register number format: '" + reg + "'");
-        }
-    }
-
-    /**
-     * Parses an immediate operand and returns its value.
-     * @param imm The immediate operand string.
-     * @return The integer value of the immediate operand.
-     * @throws AssemblyException if the immediate format is invalid or out of range.
-     */
-    private static int parseImmediate(String imm) {
-        if (imm == null) throw new AssemblyException("Immediate operand is null.");
-        imm = imm.trim();
-        if (!imm.startsWith("#")) {
-            throw new AssemblyException("Immediate value must start with '#': '" + imm + "'");
-        }
-
-        String valueStr = imm.substring(1).trim();
-        if (valueStr.isEmpty()) {
-            throw new AssemblyException("Empty immediate value after '#': '" + imm + "'");
-        }
-        
-        if (valueStr.toUpperCase().endsWith("L")) {
-            valueStr = valueStr.substring(0, valueStr.length() - 1);
-        }
-        
-        try {
-            // Integer.decode handles decimal, 0x/0X hex, and 0 octal prefixes
-            return Integer.decode(valueStr);
-        } catch (NumberFormatException e) {
-            throw new AssemblyException("Invalid immediate value format: '" + valueStr + "' from '" + imm + "'", e);
-        }
-    }
-
-    /**
-     * Resolves the branch target address for a given label or immediate value.
-     * @param target The target label or immediate value.
+     * Reads a branch target (an immediate instruction offset or a label) and resolves it to an offset.
+     * @param lexer The lexer, positioned at the target.
      * @param symbolTable The symbol table for label resolution.
      * @param currentAddr The current instruction address for branch target resolution.
      * @param offsetBits The number of bits for the offset (e.g., 26 for B-format).
      * @return The resolved branch target offset in terms of instructions (bytes/4).
      * @throws AssemblyException if the target cannot be resolved or is out of range.
      */    
-    private static int resolveBranchTarget(String target, Map<String, Long> symbolTable, long currentAddr, int offsetBits) {
-        target = target.trim();
+    private static int resolveBranchTarget(AssemblyLexer lexer, Map<String, Long> symbolTable, long currentAddr, int offsetBits) {
+        int column = lexer.column();
+        String target;
         int instructionOffset; // Offset in terms of instructions (bytes/4)
 
-        try {
-            if (target.startsWith("#")) { 
-                instructionOffset = parseImmediate(target);         
-            } else { 
-                if (!symbolTable.containsKey(target)) {
-                    throw new AssemblyException("Undefined label: '" + target + "'");
-                }
-        
-                long targetAddr = symbolTable.get(target);
-                long byteOffset = targetAddr - currentAddr;
+        if (lexer.atImmediate()) {
+            try {
+                instructionOffset = lexer.immediate();
+            } catch (AssemblyException ae) {
+                throw new AssemblyException("Error resolving branch target: " + ae.getMessage(), ae.getColumn(), ae);
+            }
+            target = "#" + instructionOffset;
+        } else {
+            target = lexer.label();
+            Long targetAddr = symbolTable.get(target);
+            if (targetAddr == null) {
+                throw new AssemblyException("Error resolving branch target '" + target + "': Undefined label: '" + target + "'", column);
+            }
 
-                if (byteOffset % 4 != 0) {
-                    throw new AssemblyException("Branch target '" + target + "' (0x" + Long.toHexString(targetAddr) + ") is not word-aligned relative to PC (0x" + Long.toHexString(currentAddr) + ")");
-                }
-                instructionOffset = (int)(byteOffset / 4);
+            long byteOffset = targetAddr - currentAddr;
+            if (byteOffset % 4 != 0) {
+                throw new AssemblyException("Error resolving branch target '" + target + "': Branch target '" + target + "' (0x" + Long.toHexString(targetAddr)
+                                        + ") is not word-aligned relative to PC (0x" + Long.toHexString(currentAddr) + ")", column);
             }
-        } catch (AssemblyException ae) {
-            throw new AssemblyException("Error resolving branch target '" + target + "': " + ae.getMessage(), ae);
+            instructionOffset = (int)(byteOffset / 4);
         }
         
         long maxOffset = (1L << (offsetBits - 1)) - 1; 
@@ -573,7 +455,7 @@ public class InstructionFactory {
 
         if (instructionOffset < minOffset || instructionOffset > maxOffset) {
             throw new AssemblyException("Branch offset for target '" + target + "' (" + instructionOffset
-                                    + ") exceeds " + offsetBits + "-bit signed range [" + minOffset + ", " + maxOffset + "].");
+                                    + ") exceeds " + offsetBits + "-bit signed range [" + minOffset + ", " + maxOffset + "].", column);
         }
         
         return instructionOffset;
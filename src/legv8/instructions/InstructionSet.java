@@ -0,0 +1,91 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.instructions;
+
+import java.util.Map;
+
+/**
+ * InstructionSet is an immutable snapshot of one loaded instruction configuration:
+ * the definitions by mnemonic (for assembly) and the compiled {@link DecodeTable} (for decoding).
+ * An {@link InstructionConfigLoader} builds a new snapshot after every successful load, so code holding
+ * a snapshot is never affected by a later reload and can share it freely between threads.
+ * A set loaded from a file also carries the SHA-256 hash of that file, so artifacts derived from a configuration
+ * (such as object files) can check that they were built with the same one.
+ */
+public final class InstructionSet {
+    /** The set with no definitions (before any configuration is loaded). */
+    public static final InstructionSet EMPTY = new InstructionSet(Map.of(), DecodeTable.EMPTY);
+
+    /** The hash of a set that was not loaded from a configuration file. */
+    public static final String NO_CONFIG_HASH = "";
+
+    // --- Fields ---
+    private final Map<String, InstructionDefinition> mnemonicDefinitions;
+    private final DecodeTable decodeTable;
+    private final String configHash;
+
+
+    // --- Constructor ---
+    /**
+     * Constructs a snapshot of the given definitions.
+     * @param mnemonicDefinitions Definitions keyed by upper-case mnemonic (copied).
+     * @param decodeTable The decode table compiled from the same definitions.
+     */
+    public InstructionSet(Map<String, InstructionDefinition> mnemonicDefinitions, DecodeTable decodeTable) {
+        this(mnemonicDefinitions, decodeTable, NO_CONFIG_HASH);
+    }
+
+    /**
+     * Constructs a snapshot of the definitions loaded from a configuration file.
+     * @param mnemonicDefinitions Definitions keyed by upper-case mnemonic (copied).
+     * @param decodeTable The decode table compiled from the same definitions.
+     * @param configHash The lower-case hex SHA-256 of the configuration file.
+     */
+    public InstructionSet(Map<String, InstructionDefinition> mnemonicDefinitions, DecodeTable decodeTable, String configHash) {
+        this.mnemonicDefinitions = Map.copyOf(mnemonicDefinitions);
+        this.decodeTable = decodeTable;
+        this.configHash = configHash;
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * @param mnemonic The mnemonic (any case).
+     * @return The definition, or null if the mnemonic is not defined.
+     */
+    public InstructionDefinition getDefinitionByMnemonic(String mnemonic) {
+        return mnemonicDefinitions.get(mnemonic.toUpperCase());
+    }
+
+    /**
+     * @return The definitions keyed by mnemonic (unmodifiable).
+     */
+    public Map<String, InstructionDefinition> getMnemonicMap() {
+        return mnemonicDefinitions;
+    }
+
+    /**
+     * @return The decode table of this set.
+     */
+    public DecodeTable getDecodeTable() {
+        return decodeTable;
+    }
+
+    /**
+     * @return The lower-case hex SHA-256 of the configuration file, or {@link #NO_CONFIG_HASH}.
+     */
+    public String getConfigHash() {
+        return configHash;
+    }
+
+    /**
+     * @return true if the set has no definitions.
+     */
+    public boolean isEmpty() {
+        return mnemonicDefinitions.isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.instructions;
+
+/**
+ * OperationKind classifies an instruction by how the datapath has to treat it beyond its control signals.
+ * It is assigned once, when the definition is created from the configuration, so the simulator can
+ * dispatch with a {@code switch} instead of comparing mnemonic strings on every step.
+ */
+public enum OperationKind {
+    /** Arithmetic or logical operation on registers or an immediate (ADD, SUBI, ORR, ...). */
+    ALU,
+    /** Shift by the shamt field (LSL, LSR). */
+    SHIFT,
+    /** MOVZ: load a shifted 16-bit immediate. */
+    MOVE_ZERO,
+    /** MOVK: replace one 16-bit lane of Rd. */
+    MOVE_KEEP,
+    /** LDURB. */
+    LOAD_BYTE(1),
+    /** LDURH. */
+    LOAD_HALFWORD(2),
+    /** LDURSW. */
+    LOAD_SIGNED_WORD(4),
+    /** LDUR. */
+    LOAD_DOUBLEWORD(8),
+    /** STURB. */
+    STORE_BYTE(1),
+    /** STURH. */
+    STORE_HALFWORD(2),
+    /** STURW. */
+    STORE_WORD(4),
+    /** STUR. */
+    STORE_DOUBLEWORD(8),
+    /** B. */
+    BRANCH,
+    /** BL: branch and write the return address to LR. */
+    BRANCH_LINK,
+    /** BR: branch to the address in Rn. */
+    BRANCH_REGISTER,
+    /** CBZ. */
+    BRANCH_ZERO,
+    /** CBNZ. */
+    BRANCH_NOT_ZERO,
+    /** B.cond. */
+    BRANCH_CONDITIONAL;
+
+    // --- Fields ---
+    // Data memory access width in bytes (0 if the instruction does not access memory)
+    private final int memoryWidth;
+
+
+    // --- Constructors ---
+    OperationKind() {
+        this(0);
+    }
+
+    OperationKind(int memoryWidth) {
+        this.memoryWidth = memoryWidth;
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * @return The data memory access width in bytes, or 0 if this is not a load/store.
+     */
+    public int memoryWidth() {
+        return memoryWidth;
+    }
+
+    /**
+     * Classifies a mnemonic. Mnemonics without special datapath handling are {@link #ALU}.
+     * @param mnemonic The upper-case mnemonic.
+     * @return The operation kind.
+     */
+    public static OperationKind of(String mnemonic) {
+        switch (mnemonic) {
+            case "LSL": case "LSR": return SHIFT;
+            case "MOVZ": return MOVE_ZERO;
+            case "MOVK": return MOVE_KEEP;
+            case "LDURB": return LOAD_BYTE;
+            case "LDURH": return LOAD_HALFWORD;
+            case "LDURSW": return LOAD_SIGNED_WORD;
+            case "LDUR": return LOAD_DOUBLEWORD;
+            case "STURB": return STORE_BYTE;
+            case "STURH": return STORE_HALFWORD;
+            case "STURW": return STORE_WORD;
+            case "STUR": return STORE_DOUBLEWORD;
+            case "B": return BRANCH;
+            case "BL": return BRANCH_LINK;
+            case "BR": return BRANCH_REGISTER;
+            case "CBZ": return BRANCH_ZERO;
+            case "CBNZ": return BRANCH_NOT_ZERO;
+            default: return mnemonic.startsWith("B.") ? BRANCH_CONDITIONAL : ALU;
+        }
+    }
+}
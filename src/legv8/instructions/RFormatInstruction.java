@@ -5,8 +5,6 @@
 
 package legv8.instructions;
 
-import java.util.BitSet;
-
 /**
  * RFormatInstruction is a class that represents a register format instruction in the LEGv8 architecture.
  * It extends the Instruction class and provides methods to disassemble the instruction and extract its components.
@@ -17,11 +15,11 @@ public class RFormatInstruction extends Instruction {
     // --- Constructor ---
     /**
      * Constructor for RFormatInstruction.
-     * @param bytecode The bytecode of the instruction as a BitSet.
+     * @param machineCode The 32-bit machine word of the instruction.
      * @param definition The InstructionDefinition for this instruction.
      */
-    public RFormatInstruction(BitSet bytecode, InstructionDefinition definition) {
-        super(bytecode, definition);
+    public RFormatInstruction(int machineCode, InstructionDefinition definition) {
+        super(machineCode, definition);
         this.rm = getRm_R();
         this.shamt = getShamt_R();
         this.rn = getRn_R();
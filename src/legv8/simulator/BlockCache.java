@@ -0,0 +1,347 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.simulator;
+
+import java.util.Arrays;
+
+import legv8.core.ArithmeticLogicUnit;
+import legv8.core.DataMemoryController;
+import legv8.core.DecodedInstruction;
+import legv8.core.InstructionMemory;
+import legv8.core.ProgramCounter;
+import legv8.core.RegisterFileController;
+import legv8.exceptions.InvalidInstructionException;
+import legv8.exceptions.InvalidPCException;
+import legv8.storage.RegisterStorage;
+import legv8.util.FlagBranchControl;
+
+/**
+ * BlockCache is the translation tier of the headless engine.
+ * The first time execution reaches a PC, the straight-line run of instructions starting there
+ * (up to and including the first branch) is translated into a {@link Block}: an array of
+ * closures specialized for each instruction's shape, followed by an exit closure that computes
+ * the next PC. Blocks are cached by start PC (indexed like {@link InstructionMemory}) and link
+ * directly to their successors, so a hot loop runs without fetching, decoding or dispatching.
+ *
+ * The cache is invalidated automatically when the instruction memory is reloaded.
+ * If an instruction faults, {@link #getFaultPC()} gives its address; the instructions before it
+ * in the block have completed and the faulting one has had no effect, as with {@code stepFast()}.
+ */
+final class BlockCache {
+    /** Upper bound on instructions per block, so the engine can honour instruction limits closely. */
+    static final int MAX_BLOCK_LENGTH = 64;
+
+    /** A translated non-branch instruction. */
+    @FunctionalInterface
+    interface Operation {
+        void execute(BlockCache cache);
+    }
+
+    /** The closing instruction of a block; returns the next PC. */
+    @FunctionalInterface
+    interface Exit {
+        long execute(BlockCache cache);
+    }
+
+    /** A translated basic block. */
+    static final class Block {
+        final long startPC;
+        final Operation[] body;
+        final Exit exit;
+        // Number of instructions executed by the block (body plus the branch, if any)
+        final int length;
+        // PC after the block when it falls through
+        final long fallThroughPC;
+        // Chained successors, filled in as they are first reached
+        Block fallThrough;
+        Block taken;
+        // Arrivals through a backward branch, and the loop compiled once they reach TraceCompiler.HOT_THRESHOLD
+        int heat;
+        TraceCompiler.Trace trace;
+        int traceLength;
+
+        Block(long startPC, Operation[] body, Exit exit, int length) {
+            this.startPC = startPC;
+            this.body = body;
+            this.exit = exit;
+            this.length = length;
+            this.fallThroughPC = startPC + 4L * length;
+        }
+    }
+
+    // --- Fields ---
+    private final InstructionMemory instructionMemory;
+    private final RegisterFileController registers;
+    private final DataMemoryController memory;
+
+    // Blocks indexed by (startPC - BASE_ADDRESS) >> 2; UNTRANSLATABLE marks PCs that must be interpreted
+    private Block[] blocks = new Block[0];
+    private static final Block UNTRANSLATABLE = new Block(-1L, new Operation[0], null, 0);
+    private int generation = -1;
+
+    // Packed NZCV flags while blocks run (loaded from / stored back to the engine)
+    int nzcv;
+    // Address of the instruction that threw during the last execute(), if any
+    private long faultPC;
+
+
+    // --- Constructor ---
+    BlockCache(InstructionMemory instructionMemory, RegisterFileController registers, DataMemoryController memory) {
+        this.instructionMemory = instructionMemory;
+        this.registers = registers;
+        this.memory = memory;
+    }
+
+
+    // --- Lookup & Execution ---
+
+    /**
+     * Returns the block starting at pc, following the previous block's chain when possible.
+     * @param previous The block executed last (may be null).
+     * @param pc The start PC of the block wanted (must be a loaded instruction address).
+     * @return The block, or null if the instruction at pc must be interpreted.
+     */
+    Block next(Block previous, long pc) {
+        if (previous != null) {
+            Block chained = (pc == previous.fallThroughPC) ? previous.fallThrough : previous.taken;
+            if (chained != null && chained.startPC == pc) return chained;
+        }
+
+        Block block = lookup(pc);
+        if (previous != null) {
+            if (pc == previous.fallThroughPC) previous.fallThrough = block;
+            else previous.taken = block;
+        }
+        return block;
+    }
+
+    /**
+     * Runs a block.
+     * @param block The block to run.
+     * @return The PC after the block.
+     * @throws RuntimeException if an instruction faults; see {@link #getFaultPC()}.
+     */
+    long execute(Block block) {
+        Operation[] body = block.body;
+        int i = 0;
+        try {
+            for (; i < body.length; i++) body[i].execute(this);
+            return (block.exit != null) ? block.exit.execute(this) : block.fallThroughPC;
+        } catch (RuntimeException e) {
+            faultPC = block.startPC + 4L * i;
+            throw e;
+        }
+    }
+
+    /**
+     * Counts an arrival at a loop head through a backward branch, and compiles the loop
+     * [head, branch] once the head is hot (see {@link TraceCompiler}).
+     * @param head The block at the branch target.
+     * @param branchPC The address of the backward branch.
+     */
+    void recordBackEdge(Block head, long branchPC) {
+        if (++head.heat != TraceCompiler.HOT_THRESHOLD) return;
+        head.trace = TraceCompiler.compile(instructionMemory, head.startPC, branchPC);
+        head.traceLength = TraceCompiler.lengthOf(head.startPC, branchPC);
+    }
+
+    /**
+     * @param pc A block start PC.
+     * @return true if the loop headed by the block at pc has been compiled (no block is translated by the check).
+     */
+    boolean hasTrace(long pc) {
+        if (generation != instructionMemory.getGeneration() || !instructionMemory.containsAddress(pc)) return false;
+        Block block = blocks[(int) ((pc - ProgramCounter.BASE_ADDRESS) >> 2)];
+        return block != null && block.trace != null;
+    }
+
+    /**
+     * @return The address of the instruction that faulted during the last {@link #execute}.
+     */
+    long getFaultPC() {
+        return faultPC;
+    }
+
+    // Signals a branch is not expected to assert; such branches are not translated
+    private static final int BRANCH_SIDE_EFFECTS = DecodedInstruction.SIG_REG_WRITE | DecodedInstruction.SIG_MEM_READ
+                                                 | DecodedInstruction.SIG_MEM_WRITE | DecodedInstruction.SIG_FLAG_WRITE;
+
+    private Block lookup(long pc) {
+        if (generation != instructionMemory.getGeneration()) {
+            blocks = new Block[instructionMemory.getInstructionCount()];
+            generation = instructionMemory.getGeneration();
+        }
+
+        int index = (int) ((pc - ProgramCounter.BASE_ADDRESS) >> 2);
+        Block block = blocks[index];
+        if (block == null) {
+            block = translate(pc);
+            blocks[index] = (block != null) ? block : UNTRANSLATABLE;
+        }
+        return (block != UNTRANSLATABLE) ? block : null;
+    }
+
+
+    // --- Translation ---
+
+    private Block translate(long startPC) {
+        Operation[] body = new Operation[MAX_BLOCK_LENGTH];
+        int count = 0;
+        long pc = startPC;
+
+        while (count < MAX_BLOCK_LENGTH && instructionMemory.containsAddress(pc)) {
+            DecodedInstruction decoded;
+            try {
+                decoded = instructionMemory.fetchDecoded(pc);
+            } catch (InvalidInstructionException e) {
+                break; // A word that does not decode (lazily loaded memory) is reported by the interpreter if reached
+            }
+            if (decoded.branchKind() != DecodedInstruction.BranchKind.NONE) {
+                // A branch that also writes registers, memory or flags is left to the interpreter
+                if ((decoded.signals() & BRANCH_SIDE_EFFECTS) != 0) break;
+                return new Block(startPC, Arrays.copyOf(body, count), translateExit(decoded, pc), count + 1);
+            }
+            body[count++] = translateOperation(decoded);
+            pc += 4;
+        }
+        return (count > 0) ? new Block(startPC, Arrays.copyOf(body, count), null, count) : null;
+    }
+
+    /**
+     * Specializes a non-branch instruction. Follows the semantics of {@code SimulatorEngine.stepFast()}.
+     */
+    private Operation translateOperation(DecodedInstruction decoded) {
+        final RegisterFileController registers = this.registers;
+        final DataMemoryController memory = this.memory;
+        final int rd = decoded.rd();
+        final int rn = decoded.rn();
+        final int rm = decoded.readRegister2();
+        final long immediate = decoded.immediate();
+        final int operation = decoded.aluOperation();
+
+        if (operation == ArithmeticLogicUnit.IDLE) return cache -> {};
+
+        final boolean useImmediate = decoded.has(DecodedInstruction.SIG_ALU_SRC);
+        final boolean regWrite = decoded.has(DecodedInstruction.SIG_REG_WRITE);
+        final boolean memRead = decoded.has(DecodedInstruction.SIG_MEM_READ);
+        final boolean memWrite = decoded.has(DecodedInstruction.SIG_MEM_WRITE);
+        final int width = decoded.memoryWidth();
+
+        if (decoded.movkShift() >= 0) {
+            final long mask = ~(0xFFFFL << decoded.movkShift());
+            return cache -> registers.writeRegister(rd, (registers.readRegister(rd) & mask) | immediate, true);
+        }
+
+        if (memRead && useImmediate) {
+            if (!regWrite) {
+                return cache -> memory.accessMemory(ArithmeticLogicUnit.execute(registers.readRegister(rn), immediate, operation), 0, false, true, width);
+            }
+            final boolean memToReg = decoded.has(DecodedInstruction.SIG_MEM_TO_REG);
+            return cache -> {
+                long address = ArithmeticLogicUnit.execute(registers.readRegister(rn), immediate, operation);
+                long value = memory.accessMemory(address, 0, false, true, width);
+                registers.writeRegister(rd, memToReg ? value : address, true);
+            };
+        }
+
+        if (memWrite && useImmediate && !regWrite && rm >= 0) {
+            return cache -> memory.accessMemory(ArithmeticLogicUnit.execute(registers.readRegister(rn), immediate, operation),
+                                                registers.readRegister(rm), true, false, width);
+        }
+
+        if (!memRead && !memWrite && regWrite && !decoded.has(DecodedInstruction.SIG_MEM_TO_REG)) {
+            if (decoded.has(DecodedInstruction.SIG_FLAG_WRITE)) {
+                if (useImmediate) {
+                    return cache -> {
+                        long a = registers.readRegister(rn);
+                        long result = ArithmeticLogicUnit.execute(a, immediate, operation);
+                        cache.nzcv = ArithmeticLogicUnit.flags(a, immediate, result, operation);
+                        registers.writeRegister(rd, result, true);
+                    };
+                }
+                return cache -> {
+                    long a = registers.readRegister(rn);
+                    long b = (rm >= 0) ? registers.readRegister(rm) : 0;
+                    long result = ArithmeticLogicUnit.execute(a, b, operation);
+                    cache.nzcv = ArithmeticLogicUnit.flags(a, b, result, operation);
+                    registers.writeRegister(rd, result, true);
+                };
+            }
+            if (useImmediate) {
+                return cache -> registers.writeRegister(rd, ArithmeticLogicUnit.execute(registers.readRegister(rn), immediate, operation), true);
+            }
+            if (rm >= 0) {
+                return cache -> registers.writeRegister(rd, ArithmeticLogicUnit.execute(registers.readRegister(rn), registers.readRegister(rm), operation), true);
+            }
+        }
+
+        // Any other combination of signals: the general form
+        return cache -> {
+            long readData1 = registers.readRegister(rn);
+            long readData2 = (rm >= 0) ? registers.readRegister(rm) : 0;
+            long aluInputB = useImmediate ? immediate : readData2;
+            long aluResult = ArithmeticLogicUnit.execute(readData1, aluInputB, operation);
+            if (decoded.has(DecodedInstruction.SIG_FLAG_WRITE)) {
+                cache.nzcv = ArithmeticLogicUnit.flags(readData1, aluInputB, aluResult, operation);
+            }
+            long readData = (memRead || memWrite) ? memory.accessMemory(aluResult, readData2, memWrite, memRead, width) : 0;
+            if (regWrite) {
+                registers.writeRegister(rd, decoded.has(DecodedInstruction.SIG_MEM_TO_REG) ? readData : aluResult, true);
+            }
+        };
+    }
+
+    /**
+     * Specializes the branch that closes a block. Follows the semantics of {@code SimulatorEngine.stepFast()}.
+     */
+    private Exit translateExit(DecodedInstruction decoded, long pc) {
+        final RegisterFileController registers = this.registers;
+        final long nextPC = pc + 4;
+        final long target = pc + (decoded.immediate() << 2);
+        final int rn = decoded.rn();
+        final int rt = decoded.readRegister2();
+        final boolean usesAlu = decoded.aluOperation() != ArithmeticLogicUnit.IDLE;
+        final int operation = decoded.aluOperation();
+        final int condition = decoded.condition();
+
+        switch (decoded.branchKind()) {
+            case UNCONDITIONAL:
+                return cache -> checkTarget(target);
+            case LINK:
+                return cache -> {
+                    registers.writeRegister(RegisterStorage.LINK_REGISTER_INDEX, nextPC, true);
+                    return checkTarget(target);
+                };
+            case REGISTER:
+                return cache -> checkTarget(registers.readRegister(rn));
+            case ZERO:
+                if (!usesAlu) return cache -> nextPC;
+                return cache -> (ArithmeticLogicUnit.execute(registers.readRegister(rn), registers.readRegister(rt), operation) == 0)
+                                ? checkTarget(target) : nextPC;
+            case NOT_ZERO:
+                if (!usesAlu) return cache -> nextPC;
+                return cache -> (ArithmeticLogicUnit.execute(registers.readRegister(rn), registers.readRegister(rt), operation) != 0)
+                                ? checkTarget(target) : nextPC;
+            case CONDITIONAL:
+                return cache -> FlagBranchControl.isTaken(cache.nzcv, condition) ? checkTarget(target) : nextPC;
+            default:
+                return cache -> nextPC;
+        }
+    }
+
+    /**
+     * Applies the same checks as {@link ProgramCounter#setAddress}, so a bad target faults on the branch itself.
+     */
+    private static long checkTarget(long target) {
+        if (target < 0) {
+            throw new InvalidPCException("Attempt to set PC to negative address: " + target, target);
+        }
+        if ((target & 3) != 0) {
+            throw new InvalidPCException("Attempt to set PC to non-word-aligned address: " + target, target);
+        }
+        return target;
+    }
+}
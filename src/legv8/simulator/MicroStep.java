@@ -1,28 +1,33 @@
 /**
  * @author TrDoanh, Giahuy
- * @version 1.0 --- There may be bugs :) Be careful! 
+ * @version 1.0 --- There may be bugs :) Be careful!
  */
 
 package legv8.simulator;
 
 import legv8.storage.*;
 
+import java.util.List;
 import java.util.Set;
 
 /**
  * MicroStep is a class (record) that represents a single step in the micro-operation of the LEGv8 architecture.
  * It contains information about the current state of the memory, registers, and program counter.
+ * A micro-step may carry only a {@link StateDelta} (memoryStorage and registerStorage are then null);
+ * use {@link #materialize(List, int)} to rebuild its full state from the nearest preceding full step.
  */
-public record MicroStep (      
+public record MicroStep (
     // --- Fields ---
-    // A set of StepInfo objects that provide information about the current step 
+    // A set of StepInfo objects that provide information about the current step
     Set<StepInfo> stepInfo,
-    // MemoryStorage object that represents the current state of memory
+    // MemoryStorage object that represents the current state of memory (null for delta-only steps)
     MemoryStorage memoryStorage,
-    // RegisterStorage object that represents the current state of registers
+    // RegisterStorage object that represents the current state of registers (null for delta-only steps)
     RegisterStorage registerStorage,
     // The program counter indicating the current instruction
-    long programCounter
+    long programCounter,
+    // The changes made since the previous micro-step (null if not recorded)
+    StateDelta delta
 ) {
     // --- Constructor ---
     /**
@@ -33,12 +38,77 @@ public record MicroStep (
      * @param programCounter The program counter indicating the current instruction.
      */
     public MicroStep(Set<StepInfo> stepInfo, MemoryStorage memoryStorage, RegisterStorage registerStorage, long programCounter) {
-        this.stepInfo = stepInfo;
-        this.memoryStorage = memoryStorage;
-        this.registerStorage = registerStorage;
-        this.programCounter = programCounter;
+        this(stepInfo, memoryStorage, registerStorage, programCounter, null);
     }
 
+    /**
+     * @return true if this micro-step holds a full copy of memory and registers.
+     */
+    public boolean hasFullState() {
+        return memoryStorage != null && registerStorage != null;
+    }
+
+
+    // --- History Reconstruction ---
+
+    /**
+     * Materializes the full state of the micro-step at the given index.
+     * Starts from the nearest micro-step at or before the index that holds full state
+     * and replays the deltas recorded after it.
+     * @param history The micro-step history.
+     * @param index The index of the micro-step to materialize.
+     * @return A MicroStep with full memory and register state (the step itself if it already has full state).
+     * @throws IllegalStateException if no full-state micro-step precedes the index.
+     */
+    public static MicroStep materialize(List<MicroStep> history, int index) {
+        MicroStep target = history.get(index);
+        if (target.hasFullState()) return target;
+
+        int base = index;
+        while (base >= 0 && !history.get(base).hasFullState()) base--;
+        if (base < 0) throw new IllegalStateException("No full-state micro-step precedes index " + index + ".");
+
+        MicroStep keyframe = history.get(base);
+        MemoryStorage memory = new MemoryStorage(keyframe.memoryStorage());
+        RegisterStorage registers = new RegisterStorage(keyframe.registerStorage());
+        for (int i = base + 1; i <= index; i++) {
+            StateDelta delta = history.get(i).delta();
+            if (delta == null) throw new IllegalStateException("Micro-step " + i + " has neither full state nor a delta.");
+            delta.applyTo(registers, memory);
+        }
+
+        return new MicroStep(target.stepInfo(), memory.snapshot(), registers, target.programCounter(), target.delta());
+    }
+
+    /**
+     * Finds the register most recently written at or before the given micro-step.
+     * Only the contiguous run of steps carrying deltas is searched.
+     * @return The register number, or -1 if none was written.
+     */
+    public static int lastChangedRegister(List<MicroStep> history, int index) {
+        for (int i = index; i >= 0; i--) {
+            StateDelta delta = history.get(i).delta();
+            if (delta == null) break;
+            if (delta.lastChangedRegister() != -1) return delta.lastChangedRegister();
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the memory address most recently written at or before the given micro-step.
+     * Only the contiguous run of steps carrying deltas is searched.
+     * @return The first byte address of the write, or -1 if none.
+     */
+    public static long lastChangedAddress(List<MicroStep> history, int index) {
+        for (int i = index; i >= 0; i--) {
+            StateDelta delta = history.get(i).delta();
+            if (delta == null) break;
+            if (delta.lastChangedAddress() != -1L) return delta.lastChangedAddress();
+        }
+        return -1L;
+    }
+
+
     // --- Utility Methods ---
     /**
      * @return A string representation of the MicroStep object.
@@ -49,12 +119,14 @@ public record MicroStep (
         StringBuilder sb = new StringBuilder();
 
         sb.append("MicroStep Details:\n");
-        for (StepInfo info : stepInfo) sb.append(info.toString()); 
+        for (StepInfo info : stepInfo) sb.append(info.toString());
 
-        sb.append("Memory Storage:\n").append(memoryStorage.toString());
-        sb.append("Register Storage:\n").append(registerStorage.toString());
+        if (memoryStorage != null) sb.append("Memory Storage:\n").append(memoryStorage.toString());
+        if (registerStorage != null) sb.append("Register Storage:\n").append(registerStorage.toString());
+        if (delta != null) sb.append("Delta: ").append(delta.registerWrites().size()).append(" register write(s), ")
+                             .append(delta.memoryWrites().size()).append(" memory write(s)\n");
         sb.append("Program Counter: ").append(programCounter).append("\n");
-        
+
         return sb.toString();
     }
-}
\ No newline at end of file
+}
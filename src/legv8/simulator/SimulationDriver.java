@@ -0,0 +1,483 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.simulator;
+
+import legv8.core.InstructionMemory;
+import legv8.core.ProgramCounter;
+import legv8.exceptions.InvalidInstructionException;
+import legv8.exceptions.SimulationException;
+import legv8.instructions.Instruction;
+import legv8.storage.MemoryStorage;
+import legv8.storage.RegisterStorage;
+import legv8.util.ColoredLog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SimulationDriver runs a {@link SimulatorEngine} on a dedicated worker thread, so a GUI never executes
+ * instructions on its own thread. Every command (run, step, reset...) is queued to that thread, which is the
+ * only one touching the engine while the driver is in use.
+ * After each micro-step the worker publishes an immutable {@link Snapshot}. Only the latest one is kept:
+ * a consumer that polls once per frame ({@link #pollSnapshot()}) simply skips the snapshots published in
+ * between when the simulation runs faster than the display.
+ * Fast runs ({@link #runToEnd()}, {@link #runTo(long)}, {@link #runInstructions(long)}) record no micro-steps
+ * at all and only publish a snapshot every {@link #FAST_REFRESH_INTERVAL_MS} milliseconds.
+ */
+public class SimulationDriver {
+
+    /** What the worker was doing when a snapshot was published. */
+    public enum Status {
+        /** A single command (step, reset...) finished. */
+        IDLE,
+        /** A continuous run is in progress. */
+        RUNNING,
+        /** A continuous run was paused. */
+        PAUSED,
+        /** A continuous run reached the end of the program. */
+        COMPLETED,
+        /** A fast run reached its stop address or instruction count. */
+        STOPPED,
+        /** The engine failed; see {@link Snapshot#errorMessage()}. */
+        ERROR
+    }
+
+    /**
+     * An immutable view of the simulation, published by the worker thread.
+     * @param sequence Increases with every published snapshot.
+     * @param epoch Increases whenever the displayed instruction is restarted (reset step, next instruction, reset program),
+     *              i.e. when a datapath animation should start over.
+     * @param status What the worker was doing.
+     * @param microSteps The micro-steps of the current instruction (empty if none was executed since the last reset).
+     * @param microStepIndex The current micro-step, or -1 if the instruction has not been stepped into yet.
+     * @param programCounter The engine's program counter when the snapshot was taken.
+     * @param program The loaded instructions, copied by the worker whenever they are reloaded
+     *                (null entries for machine words that do not decode).
+     * @param registers A copy of the register state, only when there are no micro-steps to show it (null otherwise).
+     * @param memory A read-only snapshot of the data memory, only when there are no micro-steps to show it (null otherwise).
+     * @param errorMessage The error, when the status is {@link Status#ERROR} (null otherwise).
+     */
+    public record Snapshot(long sequence, int epoch, Status status, List<MicroStep> microSteps, int microStepIndex,
+                           long programCounter, List<Instruction> program, RegisterStorage registers, MemoryStorage memory,
+                           String errorMessage) {
+
+        /**
+         * @return The micro-step to display (the first one if the instruction has not been stepped into), or null if none.
+         */
+        public MicroStep currentStep() {
+            if (microSteps.isEmpty()) return null;
+            return microSteps.get(Math.max(0, microStepIndex));
+        }
+
+        /**
+         * @return true if the address holds one of the loaded instructions.
+         */
+        public boolean containsInstruction(long address) {
+            long offset = address - ProgramCounter.BASE_ADDRESS;
+            return offset >= 0 && (offset & 3) == 0 && (offset >> 2) < program.size();
+        }
+    }
+
+    /** How often a fast run publishes a snapshot, in milliseconds. */
+    public static final int FAST_REFRESH_INTERVAL_MS = 100;
+    // Instructions executed by a fast run between checks for a pause or a refresh
+    private static final long FAST_SLICE = 50_000;
+
+    // --- Worker ---
+    private final SimulatorEngine engine;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simulation-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Commands submitted and not finished yet
+    private final AtomicInteger queuedCommands = new AtomicInteger();
+    // Wakes the pacing wait when the run is paused or the delay changes
+    private final Object pacing = new Object();
+
+    // --- Shared State ---
+    private volatile boolean running = false;
+    private volatile int delayMs;
+    private final AtomicReference<Snapshot> pendingSnapshot = new AtomicReference<>();
+    private volatile Snapshot latestSnapshot;
+
+    // --- Worker-confined State ---
+    private List<MicroStep> microSteps = List.of();
+    private int microStepIndex = -1;
+    private int epoch = 0;
+    private long sequence = 0;
+    // The published copy of the instruction memory and the generation it was copied from
+    private List<Instruction> program = List.of();
+    private int programGeneration = -1;
+
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a driver for the given engine and publishes its current state.
+     * From now on the engine must only be used through the driver.
+     * @param engine The engine to drive. Must not be null.
+     * @param delayMs The initial delay between micro-steps of a continuous run, in milliseconds.
+     */
+    public SimulationDriver(SimulatorEngine engine, int delayMs) {
+        this.engine = Objects.requireNonNull(engine, "SimulatorEngine cannot be null.");
+        setDelay(delayMs);
+        publish(Status.IDLE, null);
+    }
+
+
+    // --- Commands ---
+
+    /**
+     * Starts executing micro-steps continuously, one every {@link #getDelay()} milliseconds,
+     * until the program ends, an error occurs or {@link #pause()} is called.
+     * Does nothing if a run is already in progress.
+     * @return Completes when the run stops.
+     */
+    public Future<?> run() {
+        if (running) return CompletableFuture.completedFuture(null);
+        running = true;
+        return submit(this::runLoop);
+    }
+
+    /**
+     * Runs until the program ends, without recording micro-steps.
+     * @return Completes when the run stops.
+     */
+    public Future<?> runToEnd() {
+        return runFast(Long.MAX_VALUE, SimulatorEngine.NO_STOP_ADDRESS);
+    }
+
+    /**
+     * Runs without recording micro-steps until the PC reaches the given address (at least one instruction
+     * is executed) or the program ends. Stepping afterwards animates the instruction at that address.
+     * @param address The address to stop at.
+     * @return Completes when the run stops.
+     */
+    public Future<?> runTo(long address) {
+        return runFast(Long.MAX_VALUE, address);
+    }
+
+    /**
+     * Executes the given number of instructions without recording micro-steps (fewer if the program ends first).
+     * @param count The number of instructions to execute.
+     * @return Completes when the run stops.
+     */
+    public Future<?> runInstructions(long count) {
+        if (count <= 0) throw new IllegalArgumentException("Instruction count must be positive: " + count);
+        return runFast(count, SimulatorEngine.NO_STOP_ADDRESS);
+    }
+
+    /**
+     * Stops a continuous run after the current micro-step; the run then publishes a {@link Status#PAUSED} snapshot.
+     */
+    public void pause() {
+        running = false;
+        synchronized (pacing) {
+            pacing.notifyAll();
+        }
+    }
+
+    /**
+     * Advances to the next micro-step of the current instruction (executing an instruction first if there is none).
+     * @return Completes when the snapshot is published.
+     */
+    public Future<?> stepMicroStep() {
+        pause();
+        return submit(() -> {
+            if (microSteps.isEmpty()) microSteps = List.copyOf(engine.getMicroSteps());
+            microStepIndex++;
+            System.out.println(ColoredLog.START_PROCESS + "Executing microstep: " + microStepIndex + " / " + microSteps.size());
+            publish(Status.IDLE, null);
+        });
+    }
+
+    /**
+     * Rewinds the display to the start of the current instruction without executing anything.
+     * @return Completes when the snapshot is published.
+     */
+    public Future<?> resetStep() {
+        pause();
+        return submit(() -> {
+            microSteps = List.copyOf(engine.getMicroStepsWithoutStep());
+            microStepIndex = -1;
+            epoch++;
+            publish(Status.IDLE, null);
+        });
+    }
+
+    /**
+     * Executes the next instruction and shows it from its first micro-step.
+     * @return Completes when the snapshot is published.
+     */
+    public Future<?> nextInstruction() {
+        pause();
+        return submit(() -> {
+            microSteps = List.copyOf(engine.getMicroSteps());
+            microStepIndex = -1;
+            epoch++;
+            publish(Status.IDLE, null);
+        });
+    }
+
+    /**
+     * Resets the engine (PC, registers, memory) and publishes its initial state.
+     * @return Completes when the snapshot is published.
+     */
+    public Future<?> resetProgram() {
+        pause();
+        return submit(() -> {
+            engine.reset();
+            microSteps = List.of();
+            microStepIndex = -1;
+            epoch++;
+            publish(Status.IDLE, null);
+        });
+    }
+
+    /**
+     * Stops any run and the worker thread. The driver cannot be used afterwards.
+     */
+    public void shutdown() {
+        pause();
+        worker.shutdown();
+    }
+
+    /**
+     * Waits until every queued command has finished.
+     * @param timeoutMs The maximum time to wait, in milliseconds.
+     * @return true if the worker is idle.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (isBusy()) {
+            if (System.nanoTime() >= deadline) return false;
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+
+    // --- Snapshots ---
+
+    /**
+     * Takes the latest snapshot if it was not taken yet. Intermediate snapshots are never returned.
+     * @return The snapshot published since the previous poll, or null if there is none.
+     */
+    public Snapshot pollSnapshot() {
+        return pendingSnapshot.getAndSet(null);
+    }
+
+    /**
+     * @return The latest published snapshot, whether or not it was polled.
+     */
+    public Snapshot getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+
+    // --- Getters & Setters ---
+
+    /**
+     * Sets the delay between micro-steps of a continuous run. Takes effect immediately, even mid-run.
+     * @param delayMs The delay in milliseconds (0: as fast as possible).
+     */
+    public void setDelay(int delayMs) {
+        if (delayMs < 0) throw new IllegalArgumentException("Delay cannot be negative: " + delayMs);
+        this.delayMs = delayMs;
+        synchronized (pacing) {
+            pacing.notifyAll();
+        }
+    }
+
+    /**
+     * @return The delay between micro-steps of a continuous run, in milliseconds.
+     */
+    public int getDelay() {
+        return delayMs;
+    }
+
+    /**
+     * @return true while a continuous run is in progress.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return true while a command is queued or executing (its snapshots may not be published yet).
+     */
+    public boolean isBusy() {
+        return queuedCommands.get() > 0;
+    }
+
+
+    // --- Worker Methods ---
+
+    /**
+     * Queues a command to the worker; an exception it throws is published as an error snapshot.
+     */
+    private Future<?> submit(SimulationCommand command) {
+        queuedCommands.incrementAndGet();
+        return worker.submit(() -> {
+            try {
+                command.execute();
+            } catch (SimulationException | RuntimeException e) {
+                running = false;
+                publish(Status.ERROR, e.getMessage());
+            } finally {
+                queuedCommands.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * The continuous run: the same progression as pressing "Step By Step" repeatedly, moving on
+     * to the next instruction when the micro-steps of the current one are exhausted.
+     */
+    private void runLoop() throws SimulationException {
+        if (microSteps.isEmpty()) microSteps = List.copyOf(engine.getMicroSteps());
+
+        while (awaitNextStep()) {
+            microStepIndex++;
+            if (microStepIndex >= microSteps.size()) {
+                long nextPC = engine.getProgramCounter().getCurrentAddress();
+                if (!engine.getInstructionMemory().containsAddress(nextPC)) {
+                    running = false;
+                    publish(Status.COMPLETED, null);
+                    return;
+                }
+                microSteps = List.copyOf(engine.getMicroSteps());
+                microStepIndex = 0;
+            }
+            publish(Status.RUNNING, null);
+        }
+        publish(Status.PAUSED, null);
+    }
+
+    /**
+     * Starts a fast run, unless a run is already in progress.
+     */
+    private Future<?> runFast(long maxInstructions, long stopAddress) {
+        if (running) return CompletableFuture.completedFuture(null);
+        running = true;
+        return submit(() -> runFastLoop(maxInstructions, stopAddress));
+    }
+
+    /**
+     * The fast run: executes slices of instructions with {@link SimulatorEngine#run(long, long)},
+     * publishing a copy of the state at most every {@link #FAST_REFRESH_INTERVAL_MS} milliseconds
+     * (the engine keeps running while the consumer reads it).
+     */
+    private void runFastLoop(long maxInstructions, long stopAddress) throws SimulationException {
+        microSteps = List.of();
+        microStepIndex = -1;
+        epoch++;
+
+        long refreshInterval = TimeUnit.MILLISECONDS.toNanos(FAST_REFRESH_INTERVAL_MS);
+        long lastRefresh = System.nanoTime();
+        long executed = 0;
+        while (running) {
+            long pc = engine.getProgramCounter().getCurrentAddress();
+            if (!engine.getInstructionMemory().containsAddress(pc)) {
+                running = false;
+                publish(Status.COMPLETED, null);
+                return;
+            }
+            if (executed >= maxInstructions || (executed > 0 && pc == stopAddress)) {
+                running = false;
+                publish(Status.STOPPED, null);
+                return;
+            }
+
+            // Each slice executes at least one instruction, so a stop at the current PC is honored by the next check
+            executed += engine.run(Math.min(FAST_SLICE, maxInstructions - executed), stopAddress);
+
+            long now = System.nanoTime();
+            if (now - lastRefresh >= refreshInterval) {
+                lastRefresh = now;
+                publish(Status.RUNNING, null);
+            }
+        }
+        publish(Status.PAUSED, null);
+    }
+
+    /**
+     * Waits for the current delay, cutting it short if the run is paused.
+     * @return true if the run should continue.
+     */
+    private boolean awaitNextStep() {
+        long start = System.nanoTime();
+        synchronized (pacing) {
+            while (running) {
+                long remainingMs = delayMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (remainingMs <= 0) break;
+                try {
+                    pacing.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Publishes the current state, replacing any snapshot that was not polled yet.
+     * The registers and memory are copied here, on the worker, so the snapshot never shares the engine's storage.
+     */
+    private void publish(Status status, String errorMessage) {
+        boolean live = microSteps.isEmpty();
+        int index = live ? -1 : Math.min(microStepIndex, microSteps.size() - 1);
+        Snapshot snapshot = new Snapshot(++sequence, epoch, status, microSteps, index,
+            engine.getProgramCounter().getCurrentAddress(), loadedProgram(),
+            live ? engine.getRegisterController().getStorage() : null,   // A copy of the register file
+            live ? engine.getDataMemoryController().getStorage() : null, // A read-only MemoryStorage.snapshot()
+            errorMessage);
+        latestSnapshot = snapshot;
+        pendingSnapshot.set(snapshot);
+    }
+
+    /**
+     * Copies the instruction memory when it was reloaded since the last copy, decoding any lazily loaded words,
+     * so that consumers never read the engine's instruction memory while the worker fills it in.
+     * @return The loaded instructions (unmodifiable).
+     */
+    private List<Instruction> loadedProgram() {
+        InstructionMemory instructionMemory = engine.getInstructionMemory();
+        if (programGeneration != instructionMemory.getGeneration()) {
+            List<Instruction> loaded = instructionMemory.getInstructions();
+            Instruction[] copy = new Instruction[loaded.size()];
+            for (int i = 0; i < copy.length; i++) {
+                try {
+                    copy[i] = loaded.get(i);
+                } catch (InvalidInstructionException e) {
+                    copy[i] = null; // Reported by the engine if it is ever fetched
+                }
+            }
+            program = Collections.unmodifiableList(Arrays.asList(copy));
+            programGeneration = instructionMemory.getGeneration();
+        }
+        return program;
+    }
+
+    /** A command executed on the worker thread. */
+    @FunctionalInterface
+    private interface SimulationCommand {
+        void execute() throws SimulationException;
+    }
+}
@@ -5,6 +5,8 @@
 
 package legv8.simulator;
 
+import legv8.assembler.Assembler;
+import legv8.assembler.ObjectFile;
 import legv8.core.*;
 import legv8.datapath.BusID;
 import legv8.datapath.ComponentID;
@@ -24,7 +26,8 @@ import java.util.*;
  */
 public class SimulatorEngine {
     // --- Core Components ---
-    InstructionConfigLoader configLoader;
+    // Assembles programs for loadProgram(), bound to an immutable instruction set
+    private final InstructionFactory instructionFactory;
     private final ProgramCounter programCounter;
     private final InstructionMemory instructionMemory;
     private final RegisterFileController registerController;
@@ -39,13 +42,27 @@ public class SimulatorEngine {
     // private boolean externalHaltRequest = false;
     
     // --- Processor Flags ---
-    private boolean flagN = false; 
-    private boolean flagZ = false; 
-    private boolean flagC = false; 
-    private boolean flagV = false; 
+    // Packed NZCV (see ArithmeticLogicUnit.FLAG_*)
+    private int nzcv = 0;
 
     // --- Micro-Step Execution ---
     private final List<MicroStep> microSteps;
+    // When enabled, only the first micro-step of an instruction holds full state; the rest hold deltas
+    private boolean deltaHistory = false;
+    // Changes made since the last recorded micro-step
+    private final List<StateDelta.RegisterWrite> pendingRegisterWrites = new ArrayList<>();
+    private final List<StateDelta.MemoryWrite> pendingMemoryWrites = new ArrayList<>();
+    private long lastRecordedPC;
+
+    // --- Headless Execution ---
+    /** Stop address meaning "no stop address" for {@link #run(long, long)}. */
+    public static final long NO_STOP_ADDRESS = -1L;
+    // Translated basic blocks used by run()
+    private final BlockCache blockCache;
+    private boolean blockTranslation = true;
+    // Hot loops compiled to JVM bytecode (see TraceCompiler)
+    private boolean traceCompilation = true;
+    private final TraceCompiler.State traceState = new TraceCompiler.State();
 
 
     
@@ -58,13 +75,15 @@ public class SimulatorEngine {
      * @param configLoader The pre-loaded instruction configuration loader. Must not be null.
      */
     public SimulatorEngine(InstructionConfigLoader configLoader) {
-        this.configLoader = Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        this.instructionFactory = new InstructionFactory(configLoader.getInstructionSet());
         this.programCounter = new ProgramCounter();
         this.instructionMemory = new InstructionMemory();
         this.registerController = new RegisterFileController(new RegisterStorage());
         // this.alu = new ArithmeticLogicUnit();
         this.memoryController = new DataMemoryController(new MemoryStorage());
         microSteps = new ArrayList<>();
+        blockCache = new BlockCache(this.instructionMemory, this.registerController, this.memoryController);
         
         System.out.println(ColoredLog.SUCCESS + "LEGv8 CPU Simulator Engine initialized.");
         resetState();
@@ -81,13 +100,15 @@ public class SimulatorEngine {
      */
     public SimulatorEngine(InstructionConfigLoader configLoader, InstructionMemory instructionMemory, 
                             RegisterFileController registerController, DataMemoryController memoryController) {
-        this.configLoader = Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        this.instructionFactory = new InstructionFactory(configLoader.getInstructionSet());
         this.programCounter = new ProgramCounter();
         this.instructionMemory = Objects.requireNonNull(instructionMemory, "InstructionMemory cannot be null.");
         this.registerController = Objects.requireNonNull(registerController, "RegisterFileController cannot be null.");
         // this.alu = new ArithmeticLogicUnit();
         this.memoryController = Objects.requireNonNull(memoryController, "DataMemoryController cannot be null.");
         microSteps = new ArrayList<>();
+        blockCache = new BlockCache(this.instructionMemory, this.registerController, this.memoryController);
 
         System.out.println(ColoredLog.SUCCESS + "LEGv8 CPU Simulator Engine initialized.");
         resetState();
@@ -100,18 +121,41 @@ public class SimulatorEngine {
      * @param instructionMemory The instruction memory unit. Must not be null.
      */
     public SimulatorEngine(InstructionConfigLoader configLoader, InstructionMemory instructionMemory) {
-        this.configLoader = Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        Objects.requireNonNull(configLoader, "InstructionConfigLoader cannot be null.");
+        this.instructionFactory = new InstructionFactory(configLoader.getInstructionSet());
         this.programCounter = new ProgramCounter();
         this.instructionMemory = Objects.requireNonNull(instructionMemory, "InstructionMemory cannot be null.");
         this.registerController = new RegisterFileController(new RegisterStorage());
         // this.alu = new ArithmeticLogicUnit();
         this.memoryController = new DataMemoryController(new MemoryStorage());
         microSteps = new ArrayList<>();
+        blockCache = new BlockCache(this.instructionMemory, this.registerController, this.memoryController);
         
         System.out.println(ColoredLog.SUCCESS + "LEGv8 CPU Simulator Engine initialized.");
         resetState();
     }
 
+
+    /**
+     * Constructs a new SimulatorEngine bound to an instruction factory instead of a shared loader.
+     * Engines built this way share no mutable state with each other, so several can assemble and
+     * run programs on different threads at once.
+     * @param instructionFactory The factory used by {@link #loadProgram}. Must not be null.
+     * @param instructionMemory The instruction memory unit. Must not be null.
+     */
+    public SimulatorEngine(InstructionFactory instructionFactory, InstructionMemory instructionMemory) {
+        this.instructionFactory = Objects.requireNonNull(instructionFactory, "InstructionFactory cannot be null.");
+        this.programCounter = new ProgramCounter();
+        this.instructionMemory = Objects.requireNonNull(instructionMemory, "InstructionMemory cannot be null.");
+        this.registerController = new RegisterFileController(new RegisterStorage());
+        this.memoryController = new DataMemoryController(new MemoryStorage());
+        microSteps = new ArrayList<>();
+        blockCache = new BlockCache(this.instructionMemory, this.registerController, this.memoryController);
+
+        System.out.println(ColoredLog.SUCCESS + "LEGv8 CPU Simulator Engine initialized.");
+        resetState();
+    }
+
     
     // --- State Management ---
 
@@ -123,10 +167,7 @@ public class SimulatorEngine {
         // cycleCount = 0;
         // halted = false;
         // externalHaltRequest = false;
-        flagN = false;
-        flagZ = false;
-        flagC = false;
-        flagV = false;
+        nzcv = 0;
         // currentInstruction = null;
         // controlSignals = null;
         microSteps.clear();
@@ -147,29 +188,77 @@ public class SimulatorEngine {
         System.out.println(ColoredLog.END_PROCESS + "Simulator Reset Complete.");
     }
 
+    /**
+     * Enables or disables delta-encoded micro-step history.
+     * When enabled, only the first micro-step of each instruction carries full memory/register copies;
+     * later ones carry only a {@link StateDelta}. Use {@link MicroStep#materialize(List, int)} to rebuild them.
+     * Every micro-step carries a delta either way.
+     * @param enabled true to record deltas only, false to record full state on every micro-step.
+     */
+    public void setDeltaHistory(boolean enabled) {
+        this.deltaHistory = enabled;
+    }
+
+    /**
+     * @return true if micro-steps after the first of each instruction carry deltas only.
+     */
+    public boolean isDeltaHistory() {
+        return deltaHistory;
+    }
+
+    /**
+     * Records a micro-step with the changes accumulated since the previous one.
+     * @param stepInfo The datapath activity of the micro-step.
+     */
+    private void recordMicroStep(Set<StepInfo> stepInfo) {
+        long currentPC = programCounter.getCurrentAddress();
+        StateDelta delta = new StateDelta(pendingRegisterWrites, pendingMemoryWrites, lastRecordedPC, currentPC);
+        pendingRegisterWrites.clear();
+        pendingMemoryWrites.clear();
+        lastRecordedPC = currentPC;
+
+        boolean fullState = !deltaHistory || microSteps.isEmpty();
+        microSteps.add(new MicroStep(
+            stepInfo,
+            fullState ? memoryController.getStorage() : null,
+            fullState ? registerController.getStorage() : null,
+            currentPC, delta
+        ));
+    }
+
+    /**
+     * Writes a register and records the change for the next micro-step's delta.
+     */
+    private void writeRegisterRecorded(int register, long value) {
+        long oldValue = registerController.readRegister(register);
+        registerController.writeRegister(register, value, true);
+        long newValue = registerController.readRegister(register);
+
+        if (register != RegisterStorage.ZERO_REGISTER_INDEX) {
+            pendingRegisterWrites.add(new StateDelta.RegisterWrite(register, oldValue, newValue));
+        }
+    }
+
     private long PC_Output() {
         long currentPC = programCounter.getCurrentAddress(); // PC Out
 
         StepInfo pc_adder4 = new StepInfo(
             "[ProgramCounter_PCAdder4]: PROGRAM_COUNTER -> PC_ADDER4", 
             ComponentID.PROGRAM_COUNTER, ComponentID.PC_ADDER4, BusID.ProgramCounter_PCAdder4,
-            "0x" + Long.toHexString(currentPC)
+            ValueFormat.HEX, currentPC
         );
         StepInfo pc_branch = new StepInfo(
             "[ProgramCounter_BranchAdder]: PROGRAM_COUNTER -> BR_ADDER",
             ComponentID.PROGRAM_COUNTER, ComponentID.BR_ADDER, BusID.ProgramCounter_BranchAdder,
-            "0x" + Long.toHexString(currentPC)
+            ValueFormat.HEX, currentPC
         );
         StepInfo pc_imem = new StepInfo(
             "[ProgramCounter_InstructionMemory]: PROGRAM_COUNTER -> INSTRUCTION_MEMORY",
             ComponentID.PROGRAM_COUNTER, ComponentID.INSTRUCTION_MEMORY, BusID.ProgramCounter_InstructionMemory,
-            "0x" + Long.toHexString(currentPC)
+            ValueFormat.HEX, currentPC
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(pc_imem, pc_adder4, pc_branch),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(pc_imem, pc_adder4, pc_branch));
 
         return currentPC;
     }
@@ -180,74 +269,69 @@ public class SimulatorEngine {
         StepInfo imem_sp = new StepInfo(
             "[InstructionMemory_Splitter]: INSTRUCTION_MEMORY -> SPLITTER", 
             ComponentID.INSTRUCTION_MEMORY, ComponentID.SPLITTER, BusID.InstructionMemory_Splitter, 
-            currentInstruction.toString()
+            currentInstruction
         );
 
-        microSteps.add(new MicroStep(Set.of(imem_sp),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(imem_sp));
 
         return currentInstruction;
     }
 
-    private BitSet splitInstruction(Instruction instruction) {
+    private int splitInstruction(Instruction instruction) {
         Objects.requireNonNull(instruction, "Instruction cannot be null.");
-        BitSet instructionBits = instruction.getBytecode();
+        int instructionBits = instruction.getMachineCode();
 
         int toControlUnit = Instruction.extractBits(instructionBits, 21, 31);
         StepInfo splitter_ctrl = new StepInfo("[Splitter_ControlUnit]: SPLITTER -> CONTROL_UNIT",
             ComponentID.SPLITTER, ComponentID.CONTROL_UNIT, BusID.Splitter_ControlUnit,
-            String.format("%11s", Integer.toBinaryString(toControlUnit)).replace(' ', '0')
+            ValueFormat.BINARY, toControlUnit, 11
         );
 
         int regfile_readReg1 = Instruction.extractBits(instructionBits, 5, 9);
         StepInfo sp_regfile1 = new StepInfo(
             "[Splitter_ReadReg1]: SPLITTER -> REGISTERS_FILE",
             ComponentID.SPLITTER, ComponentID.REGISTERS_FILE, BusID.Splitter_RegFile1, 
-            String.format("%5s", Integer.toBinaryString(regfile_readReg1)).replace(' ', '0')
+            ValueFormat.BINARY, regfile_readReg1, 5
         );
 
         int muxReg_0 = Instruction.extractBits(instructionBits, 16, 20);
         StepInfo sp_muxregfile_0 = new StepInfo(
             "[Splitter_MuxRegFile_0]: SPLITTER -> MUX_REGFILESrc",
             ComponentID.SPLITTER, ComponentID.MUX_REGFILESrc, BusID.Splitter_MuxRegFile_0, 
-            String.format("%5s", Integer.toBinaryString(muxReg_0)).replace(' ', '0')
+            ValueFormat.BINARY, muxReg_0, 5
         );
 
         int muxReg_1 = Instruction.extractBits(instructionBits, 0, 4);
         StepInfo sp_muxregfile_1 = new StepInfo(
             "[Splitter_MuxRegFile_1]: SPLITTER -> MUX_REGFILESrc",
             ComponentID.SPLITTER, ComponentID.MUX_REGFILESrc, BusID.Splitter_MuxRegFile_1, 
-            String.format("%5s", Integer.toBinaryString(muxReg_1)).replace(' ', '0')
+            ValueFormat.BINARY, muxReg_1, 5
         );
         
         int regfile_writeReg = Instruction.extractBits(instructionBits, 0, 4);
         StepInfo sp_regfile2 = new StepInfo(
             "[Splitter_WriteReg]: SPLITTER -> REGISTERS_FILE",
             ComponentID.SPLITTER, ComponentID.REGISTERS_FILE, BusID.Splitter_RegFile2, 
-            String.format("%5s", Integer.toBinaryString(regfile_writeReg)).replace(' ', '0')
+            ValueFormat.BINARY, regfile_writeReg, 5
         );
 
         int extractor_in = Instruction.extractBits(instructionBits, 0, 31);
         StepInfo sp_signextend = new StepInfo(
             "[Splitter_Extractor]: SPLITTER -> EXTRACTOR",
             ComponentID.SPLITTER, ComponentID.EXTRACTOR, BusID.Splitter_Extractor, 
-            String.format("%32s", Integer.toBinaryString(extractor_in)).replace(' ', '0')
+            ValueFormat.BINARY, extractor_in, 32
         );
 
         int aluCtrl_in = Instruction.extractBits(instructionBits, 21, 31);
         StepInfo sp_aluCtrl = new StepInfo(
             "[Splitter_AluControl]: SPLITTER -> ALU_CONTROL",
             ComponentID.SPLITTER, ComponentID.ALU_CONTROL, BusID.Splitter_AluControl, 
-            String.format("%11s", Integer.toBinaryString(aluCtrl_in)).replace(' ', '0')
+            ValueFormat.BINARY, aluCtrl_in, 11
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(splitter_ctrl, sp_muxregfile_0, sp_muxregfile_1, sp_regfile1, sp_regfile2, sp_signextend, sp_aluCtrl),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(splitter_ctrl, sp_muxregfile_0, sp_muxregfile_1, sp_regfile1, sp_regfile2, sp_signextend, sp_aluCtrl));
 
-        return instructionBits; // Return the BitSet representation of the instruction
+        return instructionBits; // Return the machine word of the instruction
     }
 
     private ControlSignals controlUnit_execute(Instruction instruction) {
@@ -260,7 +344,7 @@ public class SimulatorEngine {
             StepInfo cu_reg2Loc = new StepInfo(
                 "[ControlUnit_MuxRegFile_Signal_Reg2Loc]: CONTROL_UNIT -> MUX_REGFILESrc",
                 ComponentID.CONTROL_UNIT, ComponentID.MUX_REGFILESrc, BusID.ControlUnit_MuxRegFile_Signal_Reg2Loc, 
-                String.valueOf(controlSignals.reg2Loc())
+                ValueFormat.CHAR, controlSignals.reg2Loc()
             );
             controlUnitSteps.add(cu_reg2Loc);
         }
@@ -269,7 +353,7 @@ public class SimulatorEngine {
             StepInfo cu_uncondBranch = new StepInfo(
                 "[ControlUnit_BrOr_Signal_UncondBranch]: CONTROL_UNIT -> BR_OR",
                 ComponentID.CONTROL_UNIT, ComponentID.BR_OR, BusID.ControlUnit_BrOr_Signal_UncondBranch, 
-                String.valueOf(controlSignals.uncondBranch())
+                ValueFormat.CHAR, controlSignals.uncondBranch()
             );
             controlUnitSteps.add(cu_uncondBranch);
         }
@@ -278,7 +362,7 @@ public class SimulatorEngine {
             StepInfo ctrl_brFlag = new StepInfo(
                 "[ControlUnit_BrFlagAnd_Signal_FlagBranch]: CONTROL_UNIT -> BR_FLAG_AND",
                 ComponentID.CONTROL_UNIT, ComponentID.BR_FLAG_AND, BusID.ControlUnit_BrFlagAnd_Signal_FlagBranch,
-                String.valueOf(controlSignals.flagBranch())
+                ValueFormat.CHAR, controlSignals.flagBranch()
             );
             controlUnitSteps.add(ctrl_brFlag);
         }
@@ -287,7 +371,7 @@ public class SimulatorEngine {
             StepInfo ctrl_brZero = new StepInfo(
                 "[ControlUnit_BrZeroAnd_Signal_ZeroBranch]: CONTROL_UNIT -> BR_ZERO_AND",
                 ComponentID.CONTROL_UNIT, ComponentID.BR_ZERO_AND, BusID.ControlUnit_BrZeroAnd_Signal_ZeroBranch,
-                String.valueOf(controlSignals.zeroBranch())
+                ValueFormat.CHAR, controlSignals.zeroBranch()
             );
             controlUnitSteps.add(ctrl_brZero);
         }
@@ -296,7 +380,7 @@ public class SimulatorEngine {
             StepInfo ctrl_memRead = new StepInfo(
                 "[ControlUnit_DataMemory_Signal_MemRead]: CONTROL_UNIT -> DATA_MEMORY",
                 ComponentID.CONTROL_UNIT, ComponentID.DATA_MEMORY, BusID.ControlUnit_DataMemory_Signal_MemRead,
-                String.valueOf(controlSignals.memRead())
+                ValueFormat.CHAR, controlSignals.memRead()
             );
             controlUnitSteps.add(ctrl_memRead);
         }
@@ -305,7 +389,7 @@ public class SimulatorEngine {
             StepInfo ctrl_memToReg = new StepInfo(
                 "[ControlUnit_MuxWbRegFile_Signal_MemToReg]: CONTROL_UNIT -> MUX_WB_REGFILE",
                 ComponentID.CONTROL_UNIT, ComponentID.MUX_WB_REGFILE, BusID.ControlUnit_MuxWbRegFile_Signal_MemToReg,
-                String.valueOf(controlSignals.memToReg())
+                ValueFormat.CHAR, controlSignals.memToReg()
             );
             controlUnitSteps.add(ctrl_memToReg);
         }
@@ -314,7 +398,7 @@ public class SimulatorEngine {
             StepInfo ctrl_memWrite = new StepInfo(
                 "[ControlUnit_DataMemory_Signal_MemWrite]: CONTROL_UNIT -> DATA_MEMORY",
                 ComponentID.CONTROL_UNIT, ComponentID.DATA_MEMORY, BusID.ControlUnit_DataMemory_Signal_MemWrite,
-                String.valueOf(controlSignals.memWrite())
+                ValueFormat.CHAR, controlSignals.memWrite()
             );
             controlUnitSteps.add(ctrl_memWrite);
         }
@@ -323,25 +407,25 @@ public class SimulatorEngine {
             StepInfo ctrl_flagWrite_n = new StepInfo(
                 "[ControlUnit_Flags_Signal_FlagWrite]: CONTROL_UNIT -> FLAGS",
                 ComponentID.CONTROL_UNIT, ComponentID.N_FLAG, BusID.ControlUnit_Flags_Signal_FlagWrite,
-                String.valueOf(controlSignals.flagWrite())
+                ValueFormat.CHAR, controlSignals.flagWrite()
             );
             controlUnitSteps.add(ctrl_flagWrite_n);
             StepInfo ctrl_flagWrite_z = new StepInfo(
                 "[ControlUnit_Flags_Signal_FlagWrite]: CONTROL_UNIT -> FLAGS",
                 ComponentID.CONTROL_UNIT, ComponentID.Z_FLAG, BusID.ControlUnit_Flags_Signal_FlagWrite,
-                String.valueOf(controlSignals.flagWrite())
+                ValueFormat.CHAR, controlSignals.flagWrite()
             );
             controlUnitSteps.add(ctrl_flagWrite_z);
             StepInfo ctrl_flagWrite_c = new StepInfo(
                 "[ControlUnit_Flags_Signal_FlagWrite]: CONTROL_UNIT -> FLAGS",
                 ComponentID.CONTROL_UNIT, ComponentID.C_FLAG, BusID.ControlUnit_Flags_Signal_FlagWrite,
-                String.valueOf(controlSignals.flagWrite())
+                ValueFormat.CHAR, controlSignals.flagWrite()
             );
             controlUnitSteps.add(ctrl_flagWrite_c);
             StepInfo ctrl_flagWrite_v = new StepInfo(
                 "[ControlUnit_Flags_Signal_FlagWrite]: CONTROL_UNIT -> FLAGS",
                 ComponentID.CONTROL_UNIT, ComponentID.V_FLAG, BusID.ControlUnit_Flags_Signal_FlagWrite,
-                String.valueOf(controlSignals.flagWrite())
+                ValueFormat.CHAR, controlSignals.flagWrite()
             );
             controlUnitSteps.add(ctrl_flagWrite_v);
         }
@@ -350,7 +434,7 @@ public class SimulatorEngine {
             StepInfo ctrl_aluSrc = new StepInfo(
                 "[ControlUnit_MuxAlu_Signal_AluSrc]: CONTROL_UNIT -> MUX_ALUSrc",
                 ComponentID.CONTROL_UNIT, ComponentID.MUX_ALUSrc, BusID.ControlUnit_MuxAlu_Signal_AluSrc,
-                String.valueOf(controlSignals.aluSrc())
+                ValueFormat.CHAR, controlSignals.aluSrc()
             );
             controlUnitSteps.add(ctrl_aluSrc);
         }
@@ -359,7 +443,7 @@ public class SimulatorEngine {
             StepInfo ctrl_aluOp = new StepInfo(
                 "[ControlUnit_AluControl_Signal_AluOp]: CONTROL_UNIT -> ALU_CONTROL",
                 ComponentID.CONTROL_UNIT, ComponentID.ALU_CONTROL, BusID.ControlUnit_AluControl_Signal_AluOp,
-                String.format("%2s", Integer.toBinaryString(controlSignals.aluOp())).replace(' ', '0')
+                ValueFormat.BINARY, controlSignals.aluOp(), 2
             );
             controlUnitSteps.add(ctrl_aluOp);
         }
@@ -368,14 +452,12 @@ public class SimulatorEngine {
             StepInfo ctrl_regWrite = new StepInfo(
                 "[ControlUnit_RegFile_Signal_RegWrite]: CONTROL_UNIT -> REGISTERS_FILE",
                 ComponentID.CONTROL_UNIT, ComponentID.REGISTERS_FILE, BusID.ControlUnit_RegFile_Signal_RegWrite,
-                String.valueOf(controlSignals.regWrite())
+                ValueFormat.CHAR, controlSignals.regWrite()
             );
             controlUnitSteps.add(ctrl_regWrite);
         }
 
-        microSteps.add(new MicroStep(controlUnitSteps,
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(controlUnitSteps);
 
         return controlSignals; 
     }
@@ -387,13 +469,10 @@ public class SimulatorEngine {
         StepInfo muxRegFile = new StepInfo(
             "[MuxRegFile]: MUX_REGFILESrc -> REGISTERS_FILE",
             ComponentID.MUX_REGFILESrc, ComponentID.REGISTERS_FILE, BusID.MuxRegFile_RegFile,
-            String.format("%5s", Integer.toBinaryString(selectedReg)).replace(' ', '0')
+            ValueFormat.BINARY, selectedReg, 5
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(muxRegFile),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(muxRegFile));
         
         return selectedReg; 
     }
@@ -406,7 +485,7 @@ public class SimulatorEngine {
         StepInfo regfile_alu = new StepInfo(
             "[RegFile_Alu]: REGISTERS_FILE -> ALU",
             ComponentID.REGISTERS_FILE, ComponentID.ALU, BusID.RegFile_Alu,
-            String.format("0x%X (%d)", values[0], values[0])
+            ValueFormat.HEX_DECIMAL, values[0]
         );
         readSteps.add(regfile_alu);
 
@@ -416,47 +495,39 @@ public class SimulatorEngine {
             StepInfo regfile_muxAlu = new StepInfo(
                 "[RegFile_MuxAlu_0]: REGISTERS_FILE -> MUX_ALUSrc",
                 ComponentID.REGISTERS_FILE, ComponentID.MUX_ALUSrc, BusID.RegFile_MuxAlu_0,
-                String.format("0x%X (%d)", values[1], values[1])
+                ValueFormat.HEX_DECIMAL, values[1]
             );
             readSteps.add(regfile_muxAlu);
 
             StepInfo regfile_dataMem = new StepInfo(
                 "[RegFile_DataMemory]: REGISTERS_FILE -> DATA_MEMORY",
                 ComponentID.REGISTERS_FILE, ComponentID.DATA_MEMORY, BusID.RegFile_DataMemory,
-                String.format("0x%X (%d)", values[1], values[1])
+                ValueFormat.HEX_DECIMAL, values[1]
             );
             readSteps.add(regfile_dataMem);
         }
 
-        microSteps.add(new MicroStep(
-            readSteps,
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(readSteps);
 
         return values;
     }
 
-    private long extractor_execute(BitSet instructionBits, char format, String mnemonic) {
-        Objects.requireNonNull(instructionBits, "Instruction BitSet cannot be null.");
-
-        long extendedValue = Extractor.extractAndExtend(instructionBits, format, mnemonic);
+    private long extractor_execute(int instructionBits, char format, OperationKind kind) {
+        long extendedValue = Extractor.extractAndExtend(instructionBits, format, kind);
 
         StepInfo extractor_alu = new StepInfo(
             "[Extractor]: EXTRACTOR -> ALU",
             ComponentID.EXTRACTOR, ComponentID.ALU, BusID.Extractor_MuxAlu_1,
-            String.format("0x%X (%d)", extendedValue, extendedValue)
+            ValueFormat.HEX_DECIMAL, extendedValue
         );
 
         StepInfo extractor_shiftleft2 = new StepInfo(
             "[Extractor]: EXTRACTOR -> SHIFT_LEFT_2",
             ComponentID.EXTRACTOR, ComponentID.SHIFT_LEFT_2, BusID.Extractor_ShiftLeft2,
-            String.format("0x%X (%d)", extendedValue, extendedValue)
+            ValueFormat.HEX_DECIMAL, extendedValue
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(extractor_alu, extractor_shiftleft2),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(extractor_alu, extractor_shiftleft2));
 
         return extendedValue;
     }
@@ -468,13 +539,10 @@ public class SimulatorEngine {
         StepInfo muxAluSrc = new StepInfo(
             "[MuxAlu_Alu]: MUX_ALUSrc -> ALU",
             ComponentID.MUX_ALUSrc, ComponentID.ALU, BusID.MuxAlu_Alu,
-            String.format("0x%X (%d)", selectedValue, selectedValue)
+            ValueFormat.HEX_DECIMAL, selectedValue
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(muxAluSrc),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(muxAluSrc));
 
         return selectedValue;
     }
@@ -487,50 +555,44 @@ public class SimulatorEngine {
         StepInfo aluControl = new StepInfo(
             "[ALUControl]: ALU_CONTROL -> ALU",
             ComponentID.ALU_CONTROL, ComponentID.ALU, BusID.AluControl_Alu_Signal,
-            String.format("%4s", Integer.toBinaryString(controlSignals.operation())).replace(' ', '0')
+            ValueFormat.BINARY, controlSignals.operation(), 4
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(aluControl),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(aluControl));
 
         return controlSignals.operation(); // Return the ALU operation code
     }
 
-    private long alu_execute(long alu_in_a, long alu_in_b, int operation, ControlSignals controlSignals, String mnemonic) {
+    private long alu_execute(long alu_in_a, long alu_in_b, int operation, ControlSignals controlSignals, OperationKind kind) {
         if (operation == 404) {
             return 0;
         }
 
         Set<StepInfo> aluSteps = new HashSet<>();
 
-        ALUResult aluResult = new ArithmeticLogicUnit().execute(alu_in_a, alu_in_b, operation);
+        long aluResult = ArithmeticLogicUnit.execute(alu_in_a, alu_in_b, operation);
         if (controlSignals.flagWrite() == '1') {
-            flagN = aluResult.negativeFlag();
-            flagZ = aluResult.zeroFlag();
-            flagC = aluResult.carryFlag();
-            flagV = aluResult.overflowFlag();
+            nzcv = ArithmeticLogicUnit.flags(alu_in_a, alu_in_b, aluResult, operation);
 
             StepInfo alu_FlagN = new StepInfo(
                 "[ALU_FlagN]: ALU -> N_FLAG",
                 ComponentID.ALU, ComponentID.N_FLAG, BusID.Alu_NFlag,
-                String.valueOf(flagN)
+                ValueFormat.BOOLEAN, (nzcv & ArithmeticLogicUnit.FLAG_N) != 0 ? 1 : 0
             );
             StepInfo alu_FlagZ = new StepInfo(
                 "[ALU_FlagZ]: ALU -> Z_FLAG",
                 ComponentID.ALU, ComponentID.Z_FLAG, BusID.Alu_ZFlag,
-                String.valueOf(flagZ)
+                ValueFormat.BOOLEAN, (nzcv & ArithmeticLogicUnit.FLAG_Z) != 0 ? 1 : 0
             );
             StepInfo alu_FlagC = new StepInfo(
                 "[ALU_FlagC]: ALU -> C_FLAG",
                 ComponentID.ALU, ComponentID.C_FLAG, BusID.Alu_CFlag,
-                String.valueOf(flagC)
+                ValueFormat.BOOLEAN, (nzcv & ArithmeticLogicUnit.FLAG_C) != 0 ? 1 : 0
             );
             StepInfo alu_FlagV = new StepInfo(
                 "[ALU_FlagV]: ALU -> V_FLAG",
                 ComponentID.ALU, ComponentID.V_FLAG, BusID.Alu_VFlag,
-                String.valueOf(flagV)
+                ValueFormat.BOOLEAN, (nzcv & ArithmeticLogicUnit.FLAG_V) != 0 ? 1 : 0
             );
             aluSteps.add(alu_FlagN);
             aluSteps.add(alu_FlagZ);
@@ -539,18 +601,18 @@ public class SimulatorEngine {
         }
 
         if (controlSignals.uncondBranch() == '1') {
-            if (mnemonic.equals("CBZ")) {
+            if (kind == OperationKind.BRANCH_ZERO) {
                 StepInfo alu_brZeroAnd = new StepInfo(
                     "[Alu_BrZeroAnd]: ALU -> BR_ZERO_AND",
                     ComponentID.ALU, ComponentID.BR_ZERO_AND, BusID.Alu_BrZeroAnd,
-                    String.format("CBZ (Rt == 0?): %d", + (aluResult.result() == 0 ? 1 : 0))
+                    ValueFormat.LABELED, aluResult == 0 ? 1 : 0, "CBZ (Rt == 0?): "
                 );
                 aluSteps.add(alu_brZeroAnd);
-            } else if (mnemonic.equals("CBNZ")) {
+            } else if (kind == OperationKind.BRANCH_NOT_ZERO) {
                 StepInfo alu_brZeroAnd = new StepInfo(
                     "[Alu_BrZeroAnd]: ALU -> BR_ZERO_AND",
                     ComponentID.ALU, ComponentID.BR_ZERO_AND, BusID.Alu_BrZeroAnd,
-                    String.format("CBNZ (Rt != 0?): %d", + (aluResult.result() != 0 ? 1 : 0))
+                    ValueFormat.LABELED, aluResult != 0 ? 1 : 0, "CBNZ (Rt != 0?): "
                 );
                 aluSteps.add(alu_brZeroAnd);
             }
@@ -559,26 +621,23 @@ public class SimulatorEngine {
         StepInfo alu_dataMemory = new StepInfo(
             "[ALU_DataMemory]: ALU -> DATA_MEMORY",
             ComponentID.ALU, ComponentID.DATA_MEMORY, BusID.Alu_DataMemory,
-            String.format("0x%X (%d)", aluResult.result(), aluResult.result())
+            ValueFormat.HEX_DECIMAL, aluResult
         );
         aluSteps.add(alu_dataMemory);
 
         StepInfo alu_muxWbRegFile = new StepInfo(
             "[ALU_MuxWbRegFile]: ALU -> MUX_WB_REGFILE",
             ComponentID.ALU, ComponentID.MUX_WB_REGFILE, BusID.Alu_MuxWbRegFile_0,
-            String.format("0x%X (%d)", aluResult.result(), aluResult.result())
+            ValueFormat.HEX_DECIMAL, aluResult
         );
         aluSteps.add(alu_muxWbRegFile); 
 
-        microSteps.add(new MicroStep(
-            aluSteps,
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(aluSteps);
 
-        return aluResult.result();
+        return aluResult;
     }
 
-    private long dataMemory_execute(long address, long writeData, ControlSignals controlSignals, String mnemonic) {
+    private long dataMemory_execute(long address, long writeData, ControlSignals controlSignals, OperationKind kind) {
         if (controlSignals.memRead() == '0' && controlSignals.memWrite() == '0') {
             return 0; // No memory operation
         }
@@ -586,32 +645,44 @@ public class SimulatorEngine {
         boolean isWrite = controlSignals.memWrite() == '1';
         boolean isRead = controlSignals.memRead() == '1';
 
-        long readValue = 0;
-        if (mnemonic.equals("LDUR") || mnemonic.equals("STUR")) {
-            readValue = memoryController.accessMemory_doubleWord(address, writeData, isWrite, isRead);
-        } else if (mnemonic.equals("LDURSW") || mnemonic.equals("STURW")) {
-            readValue = memoryController.accessMemory_word(address, writeData, isWrite, isRead);
-        } else if (mnemonic.equals("LDURH") || mnemonic.equals("STURH")) {
-            readValue = memoryController.accessMemory_halfword(address, writeData, isWrite, isRead) & 0xFFFFL; // Ensure 16-bit halfword access
-        } else if (mnemonic.equals("LDURB") || mnemonic.equals("STURB")) {
-            readValue = memoryController.accessMemory_byte(address, writeData, isWrite, isRead) & 0xFFL; // Ensure 8-bit byte access
+        int width = kind.memoryWidth();
+        byte[] oldBytes = (isWrite && width > 0 && address >= MemoryStorage.MIN_ADDRESS)
+                            ? memoryController.peekBytes(address, width) : null;
+
+        long readValue = memoryController.accessMemory(address, writeData, isWrite, isRead, width);
+
+        if (oldBytes != null) {
+            pendingMemoryWrites.add(new StateDelta.MemoryWrite(address, oldBytes, memoryController.peekBytes(address, width)));
         }
 
         if (isRead) {
             StepInfo dataMem_muxWbReg = new StepInfo(
                 "[DataMemory_MuxWbRegFile_1]: DATA_MEMORY -> MUX_WB_REGFILE",
                 ComponentID.DATA_MEMORY, ComponentID.MUX_WB_REGFILE, BusID.DataMemory_MuxWbRegFile_1,
-                String.format("0x%X (%d)", readValue, readValue)
+                ValueFormat.HEX_DECIMAL, readValue
             );
-            microSteps.add(new MicroStep(
-                Set.of(dataMem_muxWbReg),
-                memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-            ));
+            recordMicroStep(Set.of(dataMem_muxWbReg));
         }
 
         return readValue;
     }
 
+    /**
+     * Computes the MOVK write-back value: replaces the 16-bit lane selected by hw in the current Rd value.
+     */
+    private long movkValue(int instructionBits) {
+        int rd = Instruction.extractBits(instructionBits, 0, 4);
+        long currentValue = registerController.readRegister(rd);
+        int hw = Instruction.extractBits(instructionBits, 21, 22);
+        int shift = hw * 16;
+
+        long imm16 = Instruction.extractBits(instructionBits, 5, 20) & 0xFFFFL;
+        long mask = ~(0xFFFFL << shift);
+        long shifted = imm16 << shift;
+
+        return (currentValue & mask) | shifted;
+    }
+
     private long muxWriteBack_execute(long muxWbReg_0, long muxWbReg_1, char memToReg) {
         if (memToReg == 'x') return -1;
 
@@ -619,13 +690,10 @@ public class SimulatorEngine {
         StepInfo muxWbRegFile = new StepInfo(
             "[MuxWbRegFile]: MUX_WB_REGFILE -> REGISTERS_FILE",
             ComponentID.MUX_WB_REGFILE, ComponentID.REGISTERS_FILE, BusID.MuxWbRegFile_RegFile,
-            String.format("0x%X (%d)", writeBackValue, writeBackValue)
+            ValueFormat.HEX_DECIMAL, writeBackValue
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(muxWbRegFile),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(muxWbRegFile));
 
         return writeBackValue;
     }
@@ -634,58 +702,49 @@ public class SimulatorEngine {
         Objects.requireNonNull(instruction, "Instruction cannot be null.");
         boolean isBranchTaken = false;
         if (flagBranch == '1') {        
-            FlagBranchControl.FlagControl flagBranchControl = FlagBranchControl.getBranchCond(flagN, flagZ, flagC, flagV, instruction.getCond_CB());
+            int condition = instruction.getCond_CB();
             
             StepInfo flagN_out = new StepInfo(
                 "[Flag_BrFlagAnd]: FLAG -> BR_FLAG_AND",
                 ComponentID.N_FLAG, ComponentID.BR_FLAG_AND, BusID.NFlag_BrFlagAnd,
-                flagBranchControl.message()
+                ValueFormat.CONDITION_FLAGS, (condition << 4) | nzcv
             );
             StepInfo flagZ_out = new StepInfo("", ComponentID.Z_FLAG, ComponentID.BR_FLAG_AND, BusID.ZFlag_BrFlagAnd, "");
             StepInfo flagC_out = new StepInfo("", ComponentID.C_FLAG, ComponentID.BR_FLAG_AND, BusID.CFlag_BrFlagAnd, "");
             StepInfo flagV_out = new StepInfo("", ComponentID.V_FLAG, ComponentID.BR_FLAG_AND, BusID.VFlag_BrFlagAnd, "");
 
-            microSteps.add(new MicroStep(
-                Set.of(flagN_out, flagZ_out, flagC_out, flagV_out),
-                memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-            ));
+            recordMicroStep(Set.of(flagN_out, flagZ_out, flagC_out, flagV_out));
 
-            isBranchTaken = flagBranchControl.result();
+            isBranchTaken = FlagBranchControl.isTaken(nzcv, condition);
         }
 
         StepInfo brFlagAnd_brOr = new StepInfo(
             "[BrFlagAnd_BrOr]: BR_FLAG_AND -> BR_OR",
             ComponentID.BR_FLAG_AND, ComponentID.BR_OR, BusID.BrFlagAnd_BrOr,
-            isBranchTaken ? "1" : "0"
+            ValueFormat.BIT, isBranchTaken ? 1 : 0
         );
-        microSteps.add(new MicroStep(
-            Set.of(brFlagAnd_brOr),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(brFlagAnd_brOr));
 
         return isBranchTaken;
     }
 
-    private boolean zeroBranch_execute(long aluRes, String mnemonic, char zeroBranch) {       
+    private boolean zeroBranch_execute(long aluRes, OperationKind kind, char zeroBranch) {       
         boolean isBranchTaken = false;
         if (zeroBranch == '1') {
-            if (mnemonic.equals("CBZ")) {
-                isBranchTaken = (aluRes == 0);
-            } else if (mnemonic.equals("CBNZ")) {
-                isBranchTaken = (aluRes != 0);
+            switch (kind) {
+                case BRANCH_ZERO: isBranchTaken = (aluRes == 0); break;
+                case BRANCH_NOT_ZERO: isBranchTaken = (aluRes != 0); break;
+                default: break;
             }
         }
 
         StepInfo uncondBranch_brOr = new StepInfo(
             "[BrZeroAnd_BrOr]: BR_ZERO_AND -> BR_OR",
             ComponentID.BR_ZERO_AND, ComponentID.BR_OR, BusID.BrZeroAnd_BrOr,
-            isBranchTaken ? "1" : "0"
+            ValueFormat.BIT, isBranchTaken ? 1 : 0
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(uncondBranch_brOr),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(uncondBranch_brOr));
 
         return isBranchTaken;
     }
@@ -694,13 +753,10 @@ public class SimulatorEngine {
         StepInfo brOr = new StepInfo(
             "[BrOr_MuxPCSrc_Signal]: BR_OR -> MUX_PCSrc",
             ComponentID.BR_OR, ComponentID.MUX_PCSrc, BusID.BrOr_MuxPCSrc_Signal,
-            isBranchTaken ? "1" : "0"
+            ValueFormat.BIT, isBranchTaken ? 1 : 0
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(brOr),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(brOr));
 
         return isBranchTaken;
     }
@@ -711,13 +767,10 @@ public class SimulatorEngine {
         StepInfo shiftLeft2 = new StepInfo(
             "[ShiftLeft2_BranchAdder]: SHIFT_LEFT_2 -> BR_ADDER",
             ComponentID.SHIFT_LEFT_2, ComponentID.BR_ADDER, BusID.ShiftLeft2_BranchAdder,
-            String.format("0x%X (%d)", shiftedValue, shiftedValue)
+            ValueFormat.HEX_DECIMAL, shiftedValue
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(shiftLeft2),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(shiftLeft2));
 
         return shiftedValue;
     }
@@ -728,13 +781,10 @@ public class SimulatorEngine {
         StepInfo branchAdder = new StepInfo(
             "[BranchAdder_MuxPCSrc_1]: BR_ADDER -> MUX_PCSrc",
             ComponentID.BR_ADDER, ComponentID.MUX_PCSrc, BusID.BranchAdder_MuxPCSrc_1,
-            String.format("0x%X (%d)", res, res)
+            ValueFormat.HEX_DECIMAL, res
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(branchAdder),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(branchAdder));
 
         return res; // Return the result of the branch adder
     }
@@ -745,19 +795,16 @@ public class SimulatorEngine {
         StepInfo adder4 = new StepInfo(
             "[Adder4_MuxPCSrc_0]: PC_ADDER4 -> MUX_PCSrc",
             ComponentID.PC_ADDER4, ComponentID.MUX_PCSrc, BusID.PCAdder4_MuxPCSrc_0,
-            String.format("0x%X (%d)", nextPC, nextPC)
+            ValueFormat.HEX_DECIMAL, nextPC
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(adder4),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(adder4));
 
         return nextPC; // Return the next program counter value
     }
 
     private void writeLinkRegister_execute(long linkAddress) {
-        registerController.writeRegister(RegisterStorage.LINK_REGISTER_INDEX, linkAddress, true);
+        writeRegisterRecorded(RegisterStorage.LINK_REGISTER_INDEX, linkAddress);
     }
 
     private long muxPCSrc_execute(long branchAddress, long nextPC, boolean isBranch) {
@@ -766,13 +813,10 @@ public class SimulatorEngine {
         StepInfo muxPCSrc = new StepInfo(
             "[MuxPCSrc]: MUX_PCSrc -> PROGRAM_COUNTER",
             ComponentID.MUX_PCSrc, ComponentID.PROGRAM_COUNTER, BusID.MuxPCSrc_ProgramCounter,
-            String.format("0x%X", newPC)
+            ValueFormat.HEX_UPPER, newPC
         );
 
-        microSteps.add(new MicroStep(
-            Set.of(muxPCSrc),
-            memoryController.getStorage(), registerController.getStorage(), programCounter.getCurrentAddress()
-        ));
+        recordMicroStep(Set.of(muxPCSrc));
 
         return newPC; // Return the new program counter value
     }
@@ -787,6 +831,9 @@ public class SimulatorEngine {
      */
     public void step() throws SimulationException {
         microSteps.clear();
+        pendingRegisterWrites.clear();
+        pendingMemoryWrites.clear();
+        lastRecordedPC = programCounter.getCurrentAddress();
         
         try {
             // Step 1
@@ -800,23 +847,23 @@ public class SimulatorEngine {
             InstructionDefinition definition = currentInstruction.getDefinition();
 
             // Step 3: 
-            BitSet instructionBitSet = splitInstruction(currentInstruction);
+            int instructionWord = splitInstruction(currentInstruction);
 
             // Step 4: 
             ControlSignals controlSignals = controlUnit_execute(currentInstruction);
 
             // Step 5:
-            int muxReg_0 = Instruction.extractBits(instructionBitSet, 16, 20);
-            int muxReg_1 = Instruction.extractBits(instructionBitSet, 0, 4);
+            int muxReg_0 = Instruction.extractBits(instructionWord, 16, 20);
+            int muxReg_1 = Instruction.extractBits(instructionWord, 0, 4);
             int selectedReg = muxRecFile_execute(muxReg_0, muxReg_1, controlSignals.reg2Loc());
 
             // Step 6:
-            int readReg_1 = Instruction.extractBits(instructionBitSet, 5, 9);
+            int readReg_1 = Instruction.extractBits(instructionWord, 5, 9);
             int readReg_2 = selectedReg;
             long[] regValues = read_Regfile(readReg_1, readReg_2);
 
             // Step 7: Extractor
-            long extendedValue = extractor_execute(instructionBitSet, definition.getFormat(), definition.getMnemonic());
+            long extendedValue = extractor_execute(instructionWord, definition.getFormat(), definition.getKind());
 
             // Step 8: Mux ALU Src
             long muxAlu_0 = regValues[1]; // Value from readReg_1
@@ -831,7 +878,7 @@ public class SimulatorEngine {
             if (operand != 404) {
                 long alu_in_a = regValues[0]; // Value from readReg_1
                 long alu_in_b = muxAluSrc_out; // Value from Mux ALU Src
-                aluResult = alu_execute(alu_in_a, alu_in_b, operand, controlSignals, definition.getMnemonic());
+                aluResult = alu_execute(alu_in_a, alu_in_b, operand, controlSignals, definition.getKind());
 
                 long muxWbReg_0 = aluResult; // ALU result
                 long muxWbReg_1 = 0;
@@ -840,7 +887,7 @@ public class SimulatorEngine {
                     long writeData = regValues[1]; // Value from readReg_2
                     long address = aluResult;
 
-                    long readData = dataMemory_execute(address, writeData, controlSignals, definition.getMnemonic());
+                    long readData = dataMemory_execute(address, writeData, controlSignals, definition.getKind());
 
                     // Step 12: Mux WB RegFile
                     muxWbReg_1 = readData; // Data memory read value
@@ -848,20 +895,11 @@ public class SimulatorEngine {
                 }
                 long writeBackValue = muxWriteBack_execute(muxWbReg_0, muxWbReg_1, controlSignals.memToReg());
                 if (controlSignals.regWrite() == '1') {
-                    if (definition.getMnemonic().equals("MOVK")) {
-                        int rd = Instruction.extractBits(instructionBitSet, 0, 4);
-                        long currentValue = registerController.readRegister(rd);
-                        int hw = Instruction.extractBits(instructionBitSet, 21, 22);
-                        int shift = hw * 16;
-
-                        long imm16 = Instruction.extractBits(instructionBitSet, 5, 20) & 0xFFFFL;
-                        long mask = ~(0xFFFFL << shift);
-                        long shifted = imm16 << shift;
-
-                        writeBackValue = (currentValue & mask) | shifted;
+                    if (definition.getKind() == OperationKind.MOVE_KEEP) {
+                        writeBackValue = movkValue(instructionWord);
                     }
 
-                    registerController.writeRegister(Instruction.extractBits(instructionBitSet, 0, 4), writeBackValue, true);
+                    writeRegisterRecorded(Instruction.extractBits(instructionWord, 0, 4), writeBackValue);
                 }
             }
 
@@ -870,7 +908,7 @@ public class SimulatorEngine {
 
             // Step 14:
             if (operand != 404) 
-                if (zeroBranch_execute(aluResult, definition.getMnemonic(), controlSignals.zeroBranch())) isBranch = true;
+                if (zeroBranch_execute(aluResult, definition.getKind(), controlSignals.zeroBranch())) isBranch = true;
 
             // Step 15:
             if (controlSignals.uncondBranch() == '1') isBranch = true;
@@ -878,7 +916,7 @@ public class SimulatorEngine {
             brOr_execute(isBranch);
 
             long branchAddress;
-            if (definition.getMnemonic().equals("BR")) {
+            if (definition.getKind() == OperationKind.BRANCH_REGISTER) {
                 branchAddress = regValues[0];
             } else {
                 // Step 16: Shift Left 2
@@ -890,7 +928,7 @@ public class SimulatorEngine {
 
             // Step 18: Adder4
             long nextPC = adder4_execute(currentPC);
-            if (definition.getMnemonic().equals("BL")) {
+            if (definition.getKind() == OperationKind.BRANCH_LINK) {
                 writeLinkRegister_execute(nextPC);
             }
 
@@ -904,6 +942,224 @@ public class SimulatorEngine {
     }
 
 
+    // --- Headless Execution ---
+
+    /**
+     * Executes a single instruction without recording any micro-steps.
+     * Follows exactly the same datapath semantics as {@link #step()} (ALU and flags, memory access
+     * widths, MOVK, BR/BL, conditional and zero branches) but builds no StepInfo/MicroStep objects
+     * and takes no state snapshots. Intended for batch/headless runs where nobody watches the datapath.
+     * @throws SimulationException If an error occurs during simulation.
+     */
+    public void stepFast() throws SimulationException {
+        microSteps.clear();
+
+        try {
+            long currentPC = programCounter.getCurrentAddress();
+            DecodedInstruction decoded = instructionMemory.fetchDecoded(currentPC);
+
+            // Register read (Reg2Loc already resolved to Rt or Rm at decode time)
+            long readData1 = registerController.readRegister(decoded.rn());
+            long readData2 = (decoded.readRegister2() >= 0) ? registerController.readRegister(decoded.readRegister2()) : 0;
+
+            long aluResult = -1;
+            if (decoded.aluOperation() != ArithmeticLogicUnit.IDLE) {
+                long aluInputB = decoded.has(DecodedInstruction.SIG_ALU_SRC) ? decoded.immediate() : readData2;
+                aluResult = ArithmeticLogicUnit.execute(readData1, aluInputB, decoded.aluOperation());
+                if (decoded.has(DecodedInstruction.SIG_FLAG_WRITE)) {
+                    nzcv = ArithmeticLogicUnit.flags(readData1, aluInputB, aluResult, decoded.aluOperation());
+                }
+
+                long readData = 0;
+                boolean isWrite = decoded.has(DecodedInstruction.SIG_MEM_WRITE);
+                boolean isRead = decoded.has(DecodedInstruction.SIG_MEM_READ);
+                if (isWrite || isRead) {
+                    readData = memoryController.accessMemory(aluResult, readData2, isWrite, isRead, decoded.memoryWidth());
+                }
+
+                if (decoded.has(DecodedInstruction.SIG_REG_WRITE)) {
+                    long writeBackValue = decoded.has(DecodedInstruction.SIG_MEM_TO_REG) ? readData : aluResult;
+                    if (decoded.movkShift() >= 0) {
+                        long mask = ~(0xFFFFL << decoded.movkShift());
+                        writeBackValue = (registerController.readRegister(decoded.rd()) & mask) | decoded.immediate();
+                    }
+                    registerController.writeRegister(decoded.rd(), writeBackValue, true);
+                }
+            }
+
+            long nextPC = currentPC + 4;
+            long finalPC = nextPC;
+            switch (decoded.branchKind()) {
+                case UNCONDITIONAL:
+                    finalPC = currentPC + (decoded.immediate() << 2);
+                    break;
+                case LINK:
+                    registerController.writeRegister(RegisterStorage.LINK_REGISTER_INDEX, nextPC, true);
+                    finalPC = currentPC + (decoded.immediate() << 2);
+                    break;
+                case REGISTER:
+                    finalPC = readData1;
+                    break;
+                case ZERO:
+                    if (decoded.aluOperation() != ArithmeticLogicUnit.IDLE && aluResult == 0) finalPC = currentPC + (decoded.immediate() << 2);
+                    break;
+                case NOT_ZERO:
+                    if (decoded.aluOperation() != ArithmeticLogicUnit.IDLE && aluResult != 0) finalPC = currentPC + (decoded.immediate() << 2);
+                    break;
+                case CONDITIONAL:
+                    if (FlagBranchControl.isTaken(nzcv, decoded.condition())) {
+                        finalPC = currentPC + (decoded.immediate() << 2);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            programCounter.setAddress(finalPC);
+        } catch (Exception e) {
+            throw new SimulationException("Error during Program Counter step: " + e.getMessage(), e, programCounter.getCurrentAddress());
+        }
+    }
+
+    /**
+     * Runs the loaded program headlessly until the PC leaves the loaded instruction range or
+     * {@code maxInstructions} instructions have been executed.
+     * With block translation enabled (the default), straight-line runs of instructions are executed
+     * as cached, chained basic blocks (see {@link BlockCache}); a block that would overshoot the
+     * instruction limit is executed one {@link #stepFast()} at a time instead. Loops whose head is
+     * reached often enough through a backward branch are compiled to JVM bytecode and run as a whole
+     * (see {@link TraceCompiler}). The resulting state, including the PC reported on a fault, is the
+     * same as with {@link #stepFast()} alone.
+     * @param maxInstructions The upper bound on executed instructions (guards against infinite loops).
+     * @return The number of instructions actually executed.
+     * @throws SimulationException If an error occurs during simulation.
+     */
+    public long run(long maxInstructions) throws SimulationException {
+        return run(maxInstructions, NO_STOP_ADDRESS);
+    }
+
+    /**
+     * Runs the loaded program headlessly like {@link #run(long)}, but also stops when the PC reaches
+     * {@code stopAddress} (before executing the instruction there). The instruction at the current PC is
+     * always executed, so running to the address the PC is already at stops at its next visit.
+     * Blocks and compiled loops that would run past the stop address are executed one
+     * {@link #stepFast()} at a time instead.
+     * @param maxInstructions The upper bound on executed instructions (guards against infinite loops).
+     * @param stopAddress The address to stop at, or {@link #NO_STOP_ADDRESS}.
+     * @return The number of instructions actually executed.
+     * @throws SimulationException If an error occurs during simulation.
+     */
+    public long run(long maxInstructions, long stopAddress) throws SimulationException {
+        long executed = 0;
+        if (!blockTranslation) {
+            while (executed < maxInstructions && instructionMemory.containsAddress(programCounter.getCurrentAddress())) {
+                if (executed > 0 && programCounter.getCurrentAddress() == stopAddress) break;
+                stepFast();
+                executed++;
+            }
+            return executed;
+        }
+
+        microSteps.clear();
+        blockCache.nzcv = nzcv;
+        BlockCache.Block block = null;
+        long backEdgePC = -1;
+        long pc = programCounter.getCurrentAddress();
+        while (executed < maxInstructions && instructionMemory.containsAddress(pc)) {
+            if (executed > 0 && pc == stopAddress) break;
+            block = blockCache.next(block, pc);
+            if (block != null && backEdgePC >= 0 && traceCompilation) blockCache.recordBackEdge(block, backEdgePC);
+            backEdgePC = -1;
+
+            if (traceCompilation && block != null && block.trace != null && block.traceLength <= maxInstructions - executed
+                    && !covers(block.startPC, block.traceLength, stopAddress)) {
+                traceState.nzcv = blockCache.nzcv;
+                traceState.budget = maxInstructions - executed;
+                try {
+                    pc = block.trace.run(registerController, memoryController, traceState);
+                } catch (RuntimeException e) {
+                    nzcv = traceState.nzcv;
+                    long faultPC = block.startPC + 4L * traceState.faultIndex;
+                    programCounter.setAddress(faultPC);
+                    throw new SimulationException("Error during Program Counter step: " + e.getMessage(), e, faultPC);
+                }
+                blockCache.nzcv = traceState.nzcv;
+                executed += traceState.executed;
+                block = null;
+                programCounter.setAddress(pc);
+                continue;
+            }
+
+            if (block == null || block.length > maxInstructions - executed || covers(block.startPC + 4, block.length - 1, stopAddress)) {
+                nzcv = blockCache.nzcv;
+                stepFast();
+                blockCache.nzcv = nzcv;
+                executed++;
+                block = null;
+                pc = programCounter.getCurrentAddress();
+                continue;
+            }
+
+            long branchPC = block.fallThroughPC - 4;
+            try {
+                pc = blockCache.execute(block);
+            } catch (RuntimeException e) {
+                nzcv = blockCache.nzcv;
+                programCounter.setAddress(blockCache.getFaultPC());
+                throw new SimulationException("Error during Program Counter step: " + e.getMessage(), e, blockCache.getFaultPC());
+            }
+            executed += block.length;
+            if (block.exit != null && pc <= branchPC) backEdgePC = branchPC;
+            programCounter.setAddress(pc);
+        }
+        nzcv = blockCache.nzcv;
+        return executed;
+    }
+
+    /**
+     * @return true if the address is one of the count instructions starting at startPC.
+     */
+    private static boolean covers(long startPC, int count, long address) {
+        return address >= startPC && address < startPC + 4L * count;
+    }
+
+    /**
+     * Enables or disables block translation in {@link #run(long)}.
+     * @param enabled true to run translated blocks (the default), false to interpret every instruction with {@link #stepFast()}.
+     */
+    public void setBlockTranslation(boolean enabled) {
+        this.blockTranslation = enabled;
+    }
+
+    /**
+     * @return true if {@link #run(long)} uses block translation.
+     */
+    public boolean isBlockTranslation() {
+        return blockTranslation;
+    }
+
+    /**
+     * Enables or disables compiling hot loops to JVM bytecode in {@link #run(long)} (only used with block translation).
+     * @param enabled true to compile hot loops (the default), false to keep running them as blocks.
+     */
+    public void setTraceCompilation(boolean enabled) {
+        this.traceCompilation = enabled;
+    }
+
+    /**
+     * @return true if {@link #run(long)} compiles hot loops.
+     */
+    public boolean isTraceCompilation() {
+        return traceCompilation;
+    }
+
+    /**
+     * @param loopHeadPC The target of a loop's backward branch.
+     * @return true if {@link #run(long)} has compiled the loop starting at that address.
+     */
+    public boolean hasCompiledTrace(long loopHeadPC) {
+        return blockCache.hasTrace(loopHeadPC);
+    }
+
 
     // --- Getters & Setters ---
 
@@ -944,6 +1200,48 @@ public class SimulatorEngine {
         instructionMemory.loadInstructions(instructions);
     }
 
+    /**
+     * Assembles source lines with this engine's {@link InstructionFactory} and loads the result
+     * (see {@link #loadInstructions}).
+     * @param sourceLines The LEGv8 assembly source.
+     * @throws AssemblyException if the source does not assemble.
+     */
+    public void loadProgram(List<String> sourceLines) {
+        loadInstructions(new Assembler(instructionFactory).assemble(sourceLines));
+    }
+
+    /**
+     * Loads an object file (or imported raw binary) into the InstructionMemory and resets the engine's state.
+     * The words stay in the object file's buffer and are decoded with this engine's factory as they are fetched.
+     * @param objectFile The program. Must start at ProgramCounter.BASE_ADDRESS.
+     * @throws IllegalArgumentException if the program is empty or starts at another address.
+     * @throws ObjectFileException if it was assembled with a different instruction configuration.
+     */
+    public void loadObject(ObjectFile objectFile) {
+        if (objectFile == null || objectFile.getWordCount() == 0) {
+            throw new IllegalArgumentException("Object file cannot be null or empty.");
+        }
+        if (objectFile.getBaseAddress() != ProgramCounter.BASE_ADDRESS) {
+            throw new IllegalArgumentException("Object file base address 0x" + Long.toHexString(objectFile.getBaseAddress())
+                                               + " does not match instruction memory base 0x" + Long.toHexString(ProgramCounter.BASE_ADDRESS));
+        }
+        String configHash = objectFile.getConfigHash();
+        if (!configHash.equals(InstructionSet.NO_CONFIG_HASH) && !configHash.equals(instructionFactory.getInstructionSet().getConfigHash())) {
+            throw new ObjectFileException("Object file was assembled with a different instruction configuration.");
+        }
+        reset();
+        System.out.println(ColoredLog.PENDING + "Mapping object file into Instruction Memory...");
+        instructionMemory.loadMachineWords(objectFile.getWords(), instructionFactory);
+    }
+
+    /**
+     * Gets the InstructionFactory this engine assembles with.
+     * @return The InstructionFactory instance.
+     */
+    public InstructionFactory getInstructionFactory() {
+        return instructionFactory;
+    }
+
     /**
      * Gets the InstructionMemory component used by this engine.
      * @return The InstructionMemory instance.
@@ -975,6 +1273,14 @@ public class SimulatorEngine {
     public ProgramCounter getProgramCounter() {
         return programCounter;
     }
+
+    /**
+     * Gets the processor flags.
+     * @return The packed NZCV flags (see {@link ArithmeticLogicUnit#FLAG_N} and friends).
+     */
+    public int getFlags() {
+        return nzcv;
+    }
     
     /**
      * Checks if the simulator is currently in a halted state (due to error,
@@ -996,7 +1302,8 @@ public class SimulatorEngine {
         // System.out.printf("Cycle Count: %d\n", cycleCount);
         System.out.printf("PC: 0x%X\n", programCounter.getCurrentAddress());
         System.out.println("Registers: " + registerController.getStorage().toString());
-        System.out.println("Flags: N=" + flagN + ", Z=" + flagZ + ", C=" + flagC + ", V=" + flagV);
+        System.out.println("Flags: N=" + ((nzcv & ArithmeticLogicUnit.FLAG_N) != 0) + ", Z=" + ((nzcv & ArithmeticLogicUnit.FLAG_Z) != 0)
+                         + ", C=" + ((nzcv & ArithmeticLogicUnit.FLAG_C) != 0) + ", V=" + ((nzcv & ArithmeticLogicUnit.FLAG_V) != 0));
         System.out.println("Data Memory: " + memoryController.getStorage().toString());
         System.out.println("------------------------");
     }
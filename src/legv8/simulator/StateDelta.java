@@ -0,0 +1,96 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.simulator;
+
+import legv8.storage.MemoryStorage;
+import legv8.storage.RegisterStorage;
+
+import java.util.List;
+
+/**
+ * StateDelta is a class (record) that describes how the architectural state changed during one micro-step.
+ * It lists the registers written, the memory ranges written (with their old and new bytes),
+ * and the program counter before and after the step.
+ */
+public record StateDelta (
+    // --- Fields ---
+    // Register writes performed during the step, in execution order
+    List<RegisterWrite> registerWrites,
+    // Memory writes performed during the step, in execution order
+    List<MemoryWrite> memoryWrites,
+    // Program counter before and after the step
+    long pcBefore,
+    long pcAfter
+) {
+    /**
+     * A single register write.
+     * @param index The register number (0-30; writes to XZR are not recorded).
+     * @param oldValue The register value before the write.
+     * @param newValue The register value after the write.
+     */
+    public record RegisterWrite(int index, long oldValue, long newValue) {}
+
+    /**
+     * A single memory write covering {@code newBytes.length} bytes starting at {@code address}.
+     * The byte arrays are copied in and out, so the recorded history cannot be changed by callers.
+     * @param address The first byte address written.
+     * @param oldBytes The bytes before the write.
+     * @param newBytes The bytes after the write.
+     */
+    public record MemoryWrite(long address, byte[] oldBytes, byte[] newBytes) {
+        public MemoryWrite {
+            oldBytes = oldBytes.clone();
+            newBytes = newBytes.clone();
+        }
+
+        @Override public byte[] oldBytes() { return oldBytes.clone(); }
+        @Override public byte[] newBytes() { return newBytes.clone(); }
+    }
+
+    // --- Constructor ---
+    /**
+     * Constructor for StateDelta.
+     * The lists are copied, so the delta stays immutable.
+     */
+    public StateDelta {
+        registerWrites = List.copyOf(registerWrites);
+        memoryWrites = List.copyOf(memoryWrites);
+    }
+
+
+    // --- Public API ---
+
+    /**
+     * @return true if the step changed no register, no memory and not the program counter.
+     */
+    public boolean isEmpty() {
+        return registerWrites.isEmpty() && memoryWrites.isEmpty() && pcBefore == pcAfter;
+    }
+
+    /**
+     * @return The last register written during the step, or -1 if none.
+     */
+    public int lastChangedRegister() {
+        return registerWrites.isEmpty() ? -1 : registerWrites.get(registerWrites.size() - 1).index();
+    }
+
+    /**
+     * @return The first byte address of the last memory write during the step, or -1 if none.
+     */
+    public long lastChangedAddress() {
+        return memoryWrites.isEmpty() ? -1L : memoryWrites.get(memoryWrites.size() - 1).address();
+    }
+
+    /**
+     * Applies the delta (new values) to the given storages.
+     * @param registers The register storage to update.
+     * @param memory The memory storage to update (must be writable).
+     */
+    public void applyTo(RegisterStorage registers, MemoryStorage memory) {
+        for (RegisterWrite write : registerWrites) registers.setValue(write.index(), write.newValue());
+        for (MemoryWrite write : memoryWrites) memory.writeBytes(write.address(), write.newBytes);
+    }
+}
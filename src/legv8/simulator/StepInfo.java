@@ -1,6 +1,6 @@
 /**
  * @author TrDoanh, Giahuy
- * @version 1.0 --- There may be bugs :) Be careful! 
+ * @version 1.0 --- There may be bugs :) Be careful!
  */
 
 package legv8.simulator;
@@ -11,6 +11,8 @@ import legv8.datapath.ComponentID;
 /**
  * StepInfo is a class (record) that represents a single step in the micro-operation of the LEGv8 architecture.
  * It contains information about the current state of the memory, registers, and program counter.
+ * The value carried on the bus is kept as a raw payload plus a {@link ValueFormat};
+ * its text is only built when {@link #value()} is called.
  */
 public record StepInfo (
     // --- Fields ---
@@ -21,9 +23,58 @@ public record StepInfo (
     ComponentID endComponent,
     // The bus ID associated with the step
     BusID bus,
-    // The value associated with the step
-    String value
+    // How the value is rendered
+    ValueFormat format,
+    // The raw numeric value associated with the step
+    long rawValue,
+    // Bit width used by the BINARY format
+    int width,
+    // Object payload (e.g. the Instruction) used by the LABELED and OBJECT formats
+    Object payload
 ) {
+    // --- Constructors ---
+    /**
+     * Constructor for a step whose value is a pre-built text (or any object rendered with toString()).
+     */
+    public StepInfo(String description, ComponentID startComponent, ComponentID endComponent, BusID bus, Object payload) {
+        this(description, startComponent, endComponent, bus, ValueFormat.OBJECT, 0L, 0, payload);
+    }
+
+    /**
+     * Constructor for a step carrying a numeric value.
+     */
+    public StepInfo(String description, ComponentID startComponent, ComponentID endComponent, BusID bus,
+                    ValueFormat format, long rawValue) {
+        this(description, startComponent, endComponent, bus, format, rawValue, 0, null);
+    }
+
+    /**
+     * Constructor for a step carrying a binary value of a fixed bit width.
+     */
+    public StepInfo(String description, ComponentID startComponent, ComponentID endComponent, BusID bus,
+                    ValueFormat format, long rawValue, int width) {
+        this(description, startComponent, endComponent, bus, format, rawValue, width, null);
+    }
+
+    /**
+     * Constructor for a step carrying a numeric value with a text label.
+     */
+    public StepInfo(String description, ComponentID startComponent, ComponentID endComponent, BusID bus,
+                    ValueFormat format, long rawValue, String label) {
+        this(description, startComponent, endComponent, bus, format, rawValue, 0, label);
+    }
+
+
+    // --- Public API ---
+    /**
+     * Renders the value associated with the step.
+     * @return The value as text.
+     */
+    public String value() {
+        return format.render(rawValue, width, payload);
+    }
+
+
     // --- Utility Methods ---
     /**
      * @return A string representation of the StepInfo object.
@@ -34,9 +85,8 @@ public record StepInfo (
         StringBuffer sb = new StringBuffer(description);
         sb.append("\n\tComponent: " + startComponent.toString() + " -> " + endComponent.toString());
         sb.append("\n\tBus: " + bus.toString());
-        sb.append("\n\tValue: " + value + "\n");
+        sb.append("\n\tValue: " + value() + "\n");
 
         return sb.toString();
     }
 }
-
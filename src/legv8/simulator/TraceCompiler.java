@@ -0,0 +1,808 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import legv8.core.ArithmeticLogicUnit;
+import legv8.core.DataMemoryController;
+import legv8.core.DecodedInstruction;
+import legv8.core.InstructionMemory;
+import legv8.core.RegisterFileController;
+import legv8.exceptions.InvalidInstructionException;
+import legv8.storage.RegisterStorage;
+import legv8.util.Log;
+
+/**
+ * TraceCompiler turns a hot loop into JVM bytecode.
+ * When a backward branch target has been reached {@link #HOT_THRESHOLD} times, the instructions from
+ * the target up to the branch are compiled into one method of a hidden class
+ * (see {@link MethodHandles.Lookup#defineHiddenClass}); HotSpot then compiles that method like any other.
+ * Registers live in JVM locals for the whole trace, and flags are kept as the operands of the last
+ * flag-setting instruction and only evaluated by a B.cond or on exit.
+ *
+ * Branches to the loop head stay inside the method; any other way out is a side exit that writes the
+ * registers and flags back and returns the next PC. A fault writes the same state back and records which
+ * instruction faulted before rethrowing. Instructions the compiler does not handle (BR, unusual control
+ * signal combinations) make {@link #compile} return null, and the loop keeps running as blocks.
+ */
+final class TraceCompiler {
+    /** Number of times a backward branch target must be reached before its loop is compiled. */
+    static final int HOT_THRESHOLD = 50;
+    /** Longest loop (in instructions) that will be compiled. */
+    static final int MAX_TRACE_LENGTH = 256;
+
+    private static final Log LOG = Log.get("TraceCompiler", Log.Level.WARNING);
+
+    /** A compiled loop. */
+    interface Trace {
+        /**
+         * Runs the loop until it leaves, faults, or would exceed {@code state.budget} instructions.
+         * @return The PC to continue at.
+         */
+        long run(RegisterFileController registers, DataMemoryController memory, State state);
+    }
+
+    /** Values passed between the engine and a trace. */
+    static final class State {
+        // In/out: packed NZCV flags
+        int nzcv;
+        // In: the most instructions the trace may execute
+        long budget;
+        // Out: instructions executed
+        long executed;
+        // Out: index (from the loop head) of the instruction that faulted
+        int faultIndex;
+    }
+
+    private TraceCompiler() {}
+
+
+    // --- Public API ---
+
+    /**
+     * Compiles the loop [headPC, branchPC].
+     * @param instructionMemory The instruction memory holding the loop.
+     * @param headPC The backward branch target (loop head).
+     * @param branchPC The address of the backward branch.
+     * @return The compiled trace, or null if the loop cannot be compiled (e.g. it holds an undecodable word).
+     */
+    static Trace compile(InstructionMemory instructionMemory, long headPC, long branchPC) {
+        int length = lengthOf(headPC, branchPC);
+        if (length < 1 || length > MAX_TRACE_LENGTH) return null;
+
+        DecodedInstruction[] code = new DecodedInstruction[length];
+        try {
+            for (int i = 0; i < length; i++) code[i] = instructionMemory.fetchDecoded(headPC + 4L * i);
+        } catch (InvalidInstructionException e) {
+            return null; // An undecodable word the loop may never reach; the blocks fault on it if it does
+        }
+
+        byte[] classFile = new Generator(code, headPC).generate();
+        if (classFile == null) return null;
+
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return (Trace) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (VirtualMachineError e) {
+            throw e;
+        } catch (Throwable e) {
+            LOG.warning("(TraceCompiler) Could not define trace at 0x" + Long.toHexString(headPC) + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The length in instructions of the loop [headPC, branchPC].
+     */
+    static int lengthOf(long headPC, long branchPC) {
+        return (int) ((branchPC - headPC) >> 2) + 1;
+    }
+
+    /**
+     * Evaluates lazily kept flags (called from compiled traces).
+     * @param nzcv The flags on entry to the trace.
+     * @param operation The ALU operation of the last flag-setting instruction, or -1 if there was none.
+     * @return The current packed NZCV flags.
+     */
+    static int flags(int nzcv, int operation, long a, long b, long result) {
+        return (operation < 0) ? nzcv : ArithmeticLogicUnit.flags(a, b, result, operation);
+    }
+
+
+    // --- Code Generation ---
+
+    /** Generates the class file of one trace. */
+    private static final class Generator {
+        private static final String CLASS_NAME = "legv8/simulator/CompiledTrace";
+        private static final String TRACE = "legv8/simulator/TraceCompiler$Trace";
+        private static final String STATE = "legv8/simulator/TraceCompiler$State";
+        private static final String REGISTERS = "legv8/core/RegisterFileController";
+        private static final String MEMORY = "legv8/core/DataMemoryController";
+        private static final String ALU = "legv8/core/ArithmeticLogicUnit";
+        private static final String RUN_DESCRIPTOR = "(L" + REGISTERS + ";L" + MEMORY + ";L" + STATE + ";)J";
+
+        // Fixed local variable slots
+        private static final int REGISTERS_SLOT = 1;
+        private static final int MEMORY_SLOT = 2;
+        private static final int STATE_SLOT = 3;
+        private static final int COUNT_SLOT = 4;
+        private static final int BUDGET_SLOT = 6;
+        private static final int FLAG_A_SLOT = 8;
+        private static final int FLAG_B_SLOT = 10;
+        private static final int FLAG_RESULT_SLOT = 12;
+        private static final int FLAG_OP_SLOT = 14;
+        private static final int NZCV_SLOT = 15;
+        private static final int SITE_SLOT = 16;
+        private static final int EXIT_PC_SLOT = 17;
+        private static final int FIRST_REGISTER_SLOT = 19;
+
+        // Stack contents at a frame
+        private static final int STACK_EMPTY = 0;
+        private static final int STACK_LONG = 1;
+        private static final int STACK_EXCEPTION = 2;
+
+        private final DecodedInstruction[] code;
+        private final long headPC;
+        private final ConstantPool pool = new ConstantPool();
+        private final Bytecode out = new Bytecode();
+        // Local slot of each architectural register used by the trace (XZR is never given one)
+        private final int[] registerSlots = new int[32];
+        private final List<Integer> usedRegisters = new ArrayList<>();
+        private final boolean[] written = new boolean[32];
+        private int exceptionSlot;
+
+        // Frames (offset -> stack contents) and labels
+        private final TreeMap<Integer, Integer> frames = new TreeMap<>();
+        private final Label[] instructionLabels;
+        private final Label exitLabel = new Label();
+        private final Map<Long, Label> stubs = new LinkedHashMap<>();
+
+        Generator(DecodedInstruction[] code, long headPC) {
+            this.code = code;
+            this.headPC = headPC;
+            this.instructionLabels = new Label[code.length + 1];
+            for (int i = 0; i < instructionLabels.length; i++) instructionLabels[i] = new Label();
+        }
+
+        /**
+         * @return The class file, or null if the trace contains something that is not compiled.
+         */
+        byte[] generate() {
+            allocateRegisters();
+
+            emitPrologue();
+            int tryStart = out.size();
+            for (int i = 0; i < code.length; i++) {
+                bind(instructionLabels[i], STACK_EMPTY);
+                if (i == 0) emitBudgetCheck();
+                if (!emitInstruction(i)) return null;
+            }
+            bind(instructionLabels[code.length], STACK_EMPTY);
+            out.pushLong(pool, headPC + 4L * code.length);
+            out.jump(Bytecode.GOTO, exitLabel);
+
+            for (Map.Entry<Long, Label> stub : stubs.entrySet()) {
+                bind(stub.getValue(), STACK_EMPTY);
+                out.pushLong(pool, stub.getKey());
+                out.jump(Bytecode.GOTO, exitLabel);
+            }
+            int tryEnd = out.size();
+
+            bind(exitLabel, STACK_LONG);
+            out.local(Bytecode.LSTORE, EXIT_PC_SLOT);
+            emitWriteBack();
+            out.local(Bytecode.LLOAD, EXIT_PC_SLOT);
+            out.u1(Bytecode.LRETURN);
+
+            int handler = out.size();
+            frames.put(handler, STACK_EXCEPTION);
+            out.local(Bytecode.ASTORE, exceptionSlot);
+            emitWriteBack();
+            out.local(Bytecode.ALOAD, STATE_SLOT);
+            out.local(Bytecode.ILOAD, SITE_SLOT);
+            out.u1(Bytecode.PUTFIELD).u2(pool.fieldRef(STATE, "faultIndex", "I"));
+            out.local(Bytecode.ALOAD, exceptionSlot);
+            out.u1(Bytecode.ATHROW);
+
+            if (!out.resolve() || out.size() > 0xFFFF) return null;
+            return writeClass(tryStart, tryEnd, handler);
+        }
+
+        // --- Registers ---
+
+        private void allocateRegisters() {
+            for (DecodedInstruction decoded : code) {
+                use(decoded.rd());
+                use(decoded.rn());
+                if (decoded.readRegister2() >= 0) use(decoded.readRegister2());
+                if (decoded.branchKind() == DecodedInstruction.BranchKind.LINK) use(RegisterStorage.LINK_REGISTER_INDEX);
+            }
+            exceptionSlot = FIRST_REGISTER_SLOT + 2 * usedRegisters.size();
+        }
+
+        private void use(int register) {
+            if (register == RegisterStorage.ZERO_REGISTER_INDEX || registerSlots[register] != 0) return;
+            registerSlots[register] = FIRST_REGISTER_SLOT + 2 * usedRegisters.size();
+            usedRegisters.add(register);
+        }
+
+        private void loadRegister(int register) {
+            if (register < 0 || register == RegisterStorage.ZERO_REGISTER_INDEX) out.u1(Bytecode.LCONST_0);
+            else out.local(Bytecode.LLOAD, registerSlots[register]);
+        }
+
+        private void storeRegister(int register) {
+            if (register == RegisterStorage.ZERO_REGISTER_INDEX) {
+                out.u1(Bytecode.POP2);
+                return;
+            }
+            out.local(Bytecode.LSTORE, registerSlots[register]);
+            written[register] = true;
+        }
+
+        // --- Prologue & Epilogue ---
+
+        private void emitPrologue() {
+            out.u1(Bytecode.LCONST_0).local(Bytecode.LSTORE, COUNT_SLOT);
+            out.local(Bytecode.ALOAD, STATE_SLOT);
+            out.u1(Bytecode.GETFIELD).u2(pool.fieldRef(STATE, "budget", "J"));
+            out.local(Bytecode.LSTORE, BUDGET_SLOT);
+            out.u1(Bytecode.LCONST_0).local(Bytecode.LSTORE, FLAG_A_SLOT);
+            out.u1(Bytecode.LCONST_0).local(Bytecode.LSTORE, FLAG_B_SLOT);
+            out.u1(Bytecode.LCONST_0).local(Bytecode.LSTORE, FLAG_RESULT_SLOT);
+            out.u1(Bytecode.ICONST_M1).local(Bytecode.ISTORE, FLAG_OP_SLOT);
+            out.local(Bytecode.ALOAD, STATE_SLOT);
+            out.u1(Bytecode.GETFIELD).u2(pool.fieldRef(STATE, "nzcv", "I"));
+            out.local(Bytecode.ISTORE, NZCV_SLOT);
+            out.u1(Bytecode.ICONST_0).local(Bytecode.ISTORE, SITE_SLOT);
+            out.u1(Bytecode.LCONST_0).local(Bytecode.LSTORE, EXIT_PC_SLOT);
+
+            int readRegister = pool.methodRef(REGISTERS, "readRegister", "(I)J");
+            for (int register : usedRegisters) {
+                out.local(Bytecode.ALOAD, REGISTERS_SLOT);
+                out.pushInt(pool, register);
+                out.u1(Bytecode.INVOKEVIRTUAL).u2(readRegister);
+                out.local(Bytecode.LSTORE, registerSlots[register]);
+            }
+        }
+
+        /** Exits at the loop head if another iteration could exceed the budget. */
+        private void emitBudgetCheck() {
+            out.local(Bytecode.LLOAD, BUDGET_SLOT);
+            out.local(Bytecode.LLOAD, COUNT_SLOT);
+            out.u1(Bytecode.LSUB);
+            out.pushLong(pool, code.length);
+            out.u1(Bytecode.LCMP);
+            out.jump(Bytecode.IFLT, stub(headPC));
+        }
+
+        private void emitWriteBack() {
+            int writeRegister = pool.methodRef(REGISTERS, "writeRegister", "(IJZ)V");
+            for (int register : usedRegisters) {
+                if (!written[register]) continue;
+                out.local(Bytecode.ALOAD, REGISTERS_SLOT);
+                out.pushInt(pool, register);
+                out.local(Bytecode.LLOAD, registerSlots[register]);
+                out.u1(Bytecode.ICONST_1);
+                out.u1(Bytecode.INVOKEVIRTUAL).u2(writeRegister);
+            }
+            out.local(Bytecode.ALOAD, STATE_SLOT);
+            emitFlags();
+            out.u1(Bytecode.PUTFIELD).u2(pool.fieldRef(STATE, "nzcv", "I"));
+            out.local(Bytecode.ALOAD, STATE_SLOT);
+            out.local(Bytecode.LLOAD, COUNT_SLOT);
+            out.u1(Bytecode.PUTFIELD).u2(pool.fieldRef(STATE, "executed", "J"));
+        }
+
+        /** Pushes the current packed flags. */
+        private void emitFlags() {
+            out.local(Bytecode.ILOAD, NZCV_SLOT);
+            out.local(Bytecode.ILOAD, FLAG_OP_SLOT);
+            out.local(Bytecode.LLOAD, FLAG_A_SLOT);
+            out.local(Bytecode.LLOAD, FLAG_B_SLOT);
+            out.local(Bytecode.LLOAD, FLAG_RESULT_SLOT);
+            out.u1(Bytecode.INVOKESTATIC).u2(pool.methodRef("legv8/simulator/TraceCompiler", "flags", "(IIJJJ)I"));
+        }
+
+        private void emitCount() {
+            out.local(Bytecode.LLOAD, COUNT_SLOT);
+            out.u1(Bytecode.LCONST_1);
+            out.u1(Bytecode.LADD);
+            out.local(Bytecode.LSTORE, COUNT_SLOT);
+        }
+
+        // --- Instructions ---
+
+        /**
+         * Emits one instruction. Follows the semantics of {@code SimulatorEngine.stepFast()}.
+         * @return false if the instruction is not compiled.
+         */
+        private boolean emitInstruction(int index) {
+            DecodedInstruction decoded = code[index];
+            if (decoded.branchKind() != DecodedInstruction.BranchKind.NONE) return emitBranch(index, decoded);
+
+            int operation = decoded.aluOperation();
+            if (operation == ArithmeticLogicUnit.IDLE) {
+                emitCount();
+                return true;
+            }
+
+            boolean useImmediate = decoded.has(DecodedInstruction.SIG_ALU_SRC);
+            boolean regWrite = decoded.has(DecodedInstruction.SIG_REG_WRITE);
+            boolean memRead = decoded.has(DecodedInstruction.SIG_MEM_READ);
+            boolean memWrite = decoded.has(DecodedInstruction.SIG_MEM_WRITE);
+            boolean memToReg = decoded.has(DecodedInstruction.SIG_MEM_TO_REG);
+            boolean flagWrite = decoded.has(DecodedInstruction.SIG_FLAG_WRITE);
+
+            if (decoded.movkShift() >= 0 && regWrite) {
+                loadRegister(decoded.rd());
+                out.pushLong(pool, ~(0xFFFFL << decoded.movkShift()));
+                out.u1(Bytecode.LAND);
+                out.pushLong(pool, decoded.immediate());
+                out.u1(Bytecode.LOR);
+                storeRegister(decoded.rd());
+            } else if (memRead && !memWrite && useImmediate && !flagWrite && (!regWrite || memToReg)) {
+                emitSite(index);
+                out.local(Bytecode.ALOAD, MEMORY_SLOT);
+                emitAlu(decoded.rn(), true, -1, decoded.immediate(), operation);
+                out.u1(Bytecode.LCONST_0).u1(Bytecode.ICONST_0).u1(Bytecode.ICONST_1);
+                emitAccessMemory(decoded.memoryWidth());
+                if (regWrite) storeRegister(decoded.rd());
+                else out.u1(Bytecode.POP2);
+            } else if (memWrite && !memRead && useImmediate && !flagWrite && !regWrite && decoded.readRegister2() >= 0) {
+                emitSite(index);
+                out.local(Bytecode.ALOAD, MEMORY_SLOT);
+                emitAlu(decoded.rn(), true, -1, decoded.immediate(), operation);
+                loadRegister(decoded.readRegister2());
+                out.u1(Bytecode.ICONST_1).u1(Bytecode.ICONST_0);
+                emitAccessMemory(decoded.memoryWidth());
+                out.u1(Bytecode.POP2);
+            } else if (!memRead && !memWrite && regWrite && !memToReg) {
+                int rm = decoded.readRegister2();
+                if (flagWrite) {
+                    loadRegister(decoded.rn());
+                    out.u1(Bytecode.DUP2).local(Bytecode.LSTORE, FLAG_A_SLOT);
+                    if (useImmediate) out.pushLong(pool, decoded.immediate());
+                    else loadRegister(rm);
+                    out.u1(Bytecode.DUP2).local(Bytecode.LSTORE, FLAG_B_SLOT);
+                    emitOperation(operation);
+                    out.u1(Bytecode.DUP2).local(Bytecode.LSTORE, FLAG_RESULT_SLOT);
+                    out.pushInt(pool, operation);
+                    out.local(Bytecode.ISTORE, FLAG_OP_SLOT);
+                } else {
+                    emitAlu(decoded.rn(), useImmediate, rm, decoded.immediate(), operation);
+                }
+                storeRegister(decoded.rd());
+            } else {
+                return false;
+            }
+            emitCount();
+            return true;
+        }
+
+        private boolean emitBranch(int index, DecodedInstruction decoded) {
+            if ((decoded.signals() & (DecodedInstruction.SIG_REG_WRITE | DecodedInstruction.SIG_MEM_READ
+                                      | DecodedInstruction.SIG_MEM_WRITE | DecodedInstruction.SIG_FLAG_WRITE)) != 0) {
+                return false;
+            }
+
+            long pc = headPC + 4L * index;
+            long target = pc + (decoded.immediate() << 2);
+            if (target < 0) return false;
+            boolean usesAlu = decoded.aluOperation() != ArithmeticLogicUnit.IDLE;
+
+            switch (decoded.branchKind()) {
+                case UNCONDITIONAL:
+                    emitCount();
+                    out.jump(Bytecode.GOTO, target(pc, target));
+                    return true;
+                case LINK:
+                    out.pushLong(pool, pc + 4);
+                    storeRegister(RegisterStorage.LINK_REGISTER_INDEX);
+                    emitCount();
+                    out.jump(Bytecode.GOTO, target(pc, target));
+                    return true;
+                case ZERO:
+                case NOT_ZERO:
+                    emitCount();
+                    if (!usesAlu) return true;
+                    emitAlu(decoded.rn(), decoded.has(DecodedInstruction.SIG_ALU_SRC), decoded.readRegister2(),
+                            decoded.immediate(), decoded.aluOperation());
+                    out.u1(Bytecode.LCONST_0).u1(Bytecode.LCMP);
+                    out.jump(decoded.branchKind() == DecodedInstruction.BranchKind.ZERO ? Bytecode.IFEQ : Bytecode.IFNE, target(pc, target));
+                    return true;
+                case CONDITIONAL:
+                    emitCount();
+                    emitFlags();
+                    out.pushInt(pool, decoded.condition());
+                    out.u1(Bytecode.INVOKESTATIC).u2(pool.methodRef("legv8/util/FlagBranchControl", "isTaken", "(II)Z"));
+                    out.jump(Bytecode.IFNE, target(pc, target));
+                    return true;
+                default:
+                    // BR leaves the trace through an address only known at run time
+                    return false;
+            }
+        }
+
+        /** Branches to the loop head and forward branches inside the loop stay in the trace. */
+        private Label target(long pc, long target) {
+            if (target == headPC) return instructionLabels[0];
+            long last = headPC + 4L * (code.length - 1);
+            if (target > pc && target <= last + 4) return instructionLabels[(int) ((target - headPC) >> 2)];
+            return stub(target);
+        }
+
+        private Label stub(long target) {
+            return stubs.computeIfAbsent(target, t -> new Label());
+        }
+
+        private void emitSite(int index) {
+            out.pushInt(pool, index);
+            out.local(Bytecode.ISTORE, SITE_SLOT);
+        }
+
+        private void emitAccessMemory(int width) {
+            out.pushInt(pool, width);
+            out.u1(Bytecode.INVOKEVIRTUAL).u2(pool.methodRef(MEMORY, "accessMemory", "(JJZZI)J"));
+        }
+
+        /** Pushes op(Rn, immediate or Rm); an unread Rm (-1) reads as 0. */
+        private void emitAlu(int rn, boolean useImmediate, int rm, long immediate, int operation) {
+            loadRegister(rn);
+            if (useImmediate) out.pushLong(pool, immediate);
+            else loadRegister(rm);
+            emitOperation(operation);
+        }
+
+        /** Replaces the two longs on the stack with op(a, b). */
+        private void emitOperation(int operation) {
+            switch (operation) {
+                case ArithmeticLogicUnit.ADD: out.u1(Bytecode.LADD); break;
+                case ArithmeticLogicUnit.SUB: out.u1(Bytecode.LSUB); break;
+                case ArithmeticLogicUnit.AND: out.u1(Bytecode.LAND); break;
+                case ArithmeticLogicUnit.OR:  out.u1(Bytecode.LOR); break;
+                case ArithmeticLogicUnit.XOR: out.u1(Bytecode.LXOR); break;
+                case ArithmeticLogicUnit.LSL: out.u1(Bytecode.L2I).u1(Bytecode.LSHL); break;
+                case ArithmeticLogicUnit.LSR: out.u1(Bytecode.L2I).u1(Bytecode.LUSHR); break;
+                case ArithmeticLogicUnit.PASS_B:
+                case ArithmeticLogicUnit.MOVZ:
+                case ArithmeticLogicUnit.MOVK:
+                    out.u1(Bytecode.DUP2_X2).u1(Bytecode.POP2).u1(Bytecode.POP2);
+                    break;
+                default:
+                    out.pushInt(pool, operation);
+                    out.u1(Bytecode.INVOKESTATIC).u2(pool.methodRef(ALU, "execute", "(JJI)J"));
+                    break;
+            }
+        }
+
+        private void bind(Label label, int stack) {
+            out.bind(label);
+            frames.put(out.size(), stack);
+        }
+
+        // --- Class File ---
+
+        private byte[] writeClass(int tryStart, int tryEnd, int handler) {
+            int thisClass = pool.classRef(CLASS_NAME);
+            int superClass = pool.classRef("java/lang/Object");
+            int traceInterface = pool.classRef(TRACE);
+            int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+            int exceptionClass = pool.classRef("java/lang/RuntimeException");
+            int registersClass = pool.classRef(REGISTERS);
+            int memoryClass = pool.classRef(MEMORY);
+            int stateClass = pool.classRef(STATE);
+            int codeName = pool.utf8("Code");
+            int stackMapName = pool.utf8("StackMapTable");
+            int initName = pool.utf8("<init>");
+            int initDescriptor = pool.utf8("()V");
+            int runName = pool.utf8("run");
+            int runDescriptor = pool.utf8(RUN_DESCRIPTOR);
+
+            // Every frame has the same locals: this, registers, memory, state, then the long/int slots
+            ByteArrayOutputStream localTypes = new ByteArrayOutputStream();
+            int localCount = 0;
+            for (int type : new int[] { thisClass, registersClass, memoryClass, stateClass }) {
+                localTypes.write(7);
+                localTypes.write(type >> 8);
+                localTypes.write(type);
+                localCount++;
+            }
+            // count, budget, flag a, flag b, flag result (long); flag op, nzcv, site (int); exit PC (long)
+            for (int type : new int[] { 4, 4, 4, 4, 4, 1, 1, 1, 4 }) {
+                localTypes.write(type);
+                localCount++;
+            }
+            for (int i = 0; i < usedRegisters.size(); i++) {
+                localTypes.write(4);
+                localCount++;
+            }
+            byte[] locals = localTypes.toByteArray();
+
+            try {
+                ByteArrayOutputStream stackMapBytes = new ByteArrayOutputStream();
+                DataOutputStream stackMap = new DataOutputStream(stackMapBytes);
+                stackMap.writeShort(frames.size());
+                int previous = -1;
+                for (Map.Entry<Integer, Integer> frame : frames.entrySet()) {
+                    stackMap.writeByte(255);
+                    stackMap.writeShort(frame.getKey() - previous - 1);
+                    previous = frame.getKey();
+                    stackMap.writeShort(localCount);
+                    stackMap.write(locals);
+                    switch (frame.getValue()) {
+                        case STACK_LONG:
+                            stackMap.writeShort(1);
+                            stackMap.writeByte(4);
+                            break;
+                        case STACK_EXCEPTION:
+                            stackMap.writeShort(1);
+                            stackMap.writeByte(7);
+                            stackMap.writeShort(exceptionClass);
+                            break;
+                        default:
+                            stackMap.writeShort(0);
+                            break;
+                    }
+                }
+                byte[] stackMapTable = stackMapBytes.toByteArray();
+                byte[] body = out.toByteArray();
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream classFile = new DataOutputStream(bytes);
+                classFile.writeInt(0xCAFEBABE);
+                classFile.writeShort(0);
+                classFile.writeShort(61);
+                pool.writeTo(classFile);
+                classFile.writeShort(0x0030); // ACC_FINAL | ACC_SUPER
+                classFile.writeShort(thisClass);
+                classFile.writeShort(superClass);
+                classFile.writeShort(1);
+                classFile.writeShort(traceInterface);
+                classFile.writeShort(0);
+                classFile.writeShort(2);
+
+                // public <init>() { super(); }
+                classFile.writeShort(0x0001);
+                classFile.writeShort(initName);
+                classFile.writeShort(initDescriptor);
+                classFile.writeShort(1);
+                classFile.writeShort(codeName);
+                classFile.writeInt(12 + 5);
+                classFile.writeShort(1);
+                classFile.writeShort(1);
+                classFile.writeInt(5);
+                classFile.writeByte(Bytecode.ALOAD_0);
+                classFile.writeByte(Bytecode.INVOKESPECIAL);
+                classFile.writeShort(objectInit);
+                classFile.writeByte(Bytecode.RETURN);
+                classFile.writeShort(0);
+                classFile.writeShort(0);
+
+                // public long run(RegisterFileController, DataMemoryController, State)
+                classFile.writeShort(0x0001);
+                classFile.writeShort(runName);
+                classFile.writeShort(runDescriptor);
+                classFile.writeShort(1);
+                classFile.writeShort(codeName);
+                classFile.writeInt(8 + body.length + 2 + 8 + 2 + 6 + stackMapTable.length);
+                classFile.writeShort(16);
+                classFile.writeShort(exceptionSlot + 1);
+                classFile.writeInt(body.length);
+                classFile.write(body);
+                classFile.writeShort(1);
+                classFile.writeShort(tryStart);
+                classFile.writeShort(tryEnd);
+                classFile.writeShort(handler);
+                classFile.writeShort(exceptionClass);
+                classFile.writeShort(1);
+                classFile.writeShort(stackMapName);
+                classFile.writeInt(stackMapTable.length);
+                classFile.write(stackMapTable);
+
+                classFile.writeShort(0);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /** A branch target in the generated code. */
+    private static final class Label {
+        int offset = -1;
+        final List<Integer> references = new ArrayList<>();
+    }
+
+    /** A growable method body with forward-patched 16-bit branches. */
+    private static final class Bytecode {
+        static final int ICONST_M1 = 0x02, ICONST_0 = 0x03, ICONST_1 = 0x04, LCONST_0 = 0x09, LCONST_1 = 0x0A;
+        static final int BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13, LDC2_W = 0x14;
+        static final int ILOAD = 0x15, LLOAD = 0x16, ALOAD = 0x19, ALOAD_0 = 0x2A;
+        static final int ISTORE = 0x36, LSTORE = 0x37, ASTORE = 0x3A;
+        static final int POP2 = 0x58, DUP2 = 0x5C, DUP2_X2 = 0x5E;
+        static final int LADD = 0x61, LSUB = 0x65, LSHL = 0x79, LUSHR = 0x7D, LAND = 0x7F, LOR = 0x81, LXOR = 0x83, L2I = 0x88;
+        static final int LCMP = 0x94, IFEQ = 0x99, IFNE = 0x9A, IFLT = 0x9B, GOTO = 0xA7;
+        static final int LRETURN = 0xAD, RETURN = 0xB1, GETFIELD = 0xB4, PUTFIELD = 0xB5;
+        static final int INVOKEVIRTUAL = 0xB6, INVOKESPECIAL = 0xB7, INVOKESTATIC = 0xB8, ATHROW = 0xBF;
+
+        private byte[] bytes = new byte[1024];
+        private int size;
+        private final List<Label> labels = new ArrayList<>();
+
+        int size() {
+            return size;
+        }
+
+        Bytecode u1(int value) {
+            if (size == bytes.length) bytes = java.util.Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        Bytecode u2(int value) {
+            return u1(value >> 8).u1(value);
+        }
+
+        Bytecode local(int opcode, int slot) {
+            return u1(opcode).u1(slot);
+        }
+
+        void pushInt(ConstantPool pool, int value) {
+            if (value >= -1 && value <= 5) u1(ICONST_0 + value);
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) u1(BIPUSH).u1(value);
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) u1(SIPUSH).u2(value);
+            else u1(LDC_W).u2(pool.intConstant(value));
+        }
+
+        void pushLong(ConstantPool pool, long value) {
+            if (value == 0) u1(LCONST_0);
+            else if (value == 1) u1(LCONST_1);
+            else u1(LDC2_W).u2(pool.longConstant(value));
+        }
+
+        void jump(int opcode, Label label) {
+            label.references.add(size);
+            if (!labels.contains(label)) labels.add(label);
+            u1(opcode).u2(0);
+        }
+
+        void bind(Label label) {
+            label.offset = size;
+        }
+
+        /**
+         * Patches every branch with its label's offset.
+         * @return false if a branch is out of 16-bit range.
+         */
+        boolean resolve() {
+            for (Label label : labels) {
+                for (int reference : label.references) {
+                    int delta = label.offset - reference;
+                    if (label.offset < 0 || delta < Short.MIN_VALUE || delta > Short.MAX_VALUE) return false;
+                    bytes[reference + 1] = (byte) (delta >> 8);
+                    bytes[reference + 2] = (byte) delta;
+                }
+            }
+            return true;
+        }
+
+        byte[] toByteArray() {
+            return java.util.Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /** The constant pool of the generated class. */
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream data = new DataOutputStream(bytes);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = indexes.get("U" + value);
+            if (index != null) return index;
+            write(1);
+            try {
+                data.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return register("U" + value, 1);
+        }
+
+        int classRef(String name) {
+            Integer index = indexes.get("C" + name);
+            if (index != null) return index;
+            int nameIndex = utf8(name);
+            write(7);
+            writeShort(nameIndex);
+            return register("C" + name, 1);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int intConstant(int value) {
+            Integer index = indexes.get("I" + value);
+            if (index != null) return index;
+            write(3);
+            writeInt(value);
+            return register("I" + value, 1);
+        }
+
+        int longConstant(long value) {
+            Integer index = indexes.get("J" + value);
+            if (index != null) return index;
+            write(5);
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+            return register("J" + value, 2);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            String key = tag + owner + "." + name + descriptor;
+            Integer index = indexes.get(key);
+            if (index != null) return index;
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            Integer nameAndType = indexes.get("N" + name + descriptor);
+            if (nameAndType == null) {
+                write(12);
+                writeShort(nameIndex);
+                writeShort(descriptorIndex);
+                nameAndType = register("N" + name + descriptor, 1);
+            }
+            write(tag);
+            writeShort(ownerIndex);
+            writeShort(nameAndType);
+            return register(key, 1);
+        }
+
+        private int register(String key, int slots) {
+            int index = count;
+            indexes.put(key, index);
+            count += slots;
+            return index;
+        }
+
+        private void write(int tag) {
+            bytes.write(tag);
+        }
+
+        private void writeShort(int value) {
+            bytes.write(value >> 8);
+            bytes.write(value);
+        }
+
+        private void writeInt(int value) {
+            writeShort(value >>> 16);
+            writeShort(value & 0xFFFF);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(count);
+            bytes.writeTo(out);
+        }
+    }
+}
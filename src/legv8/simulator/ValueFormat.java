@@ -0,0 +1,84 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.simulator;
+
+import legv8.util.FlagBranchControl;
+
+/**
+ * ValueFormat describes how the raw payload of a {@link StepInfo} is rendered as text.
+ * Rendering only happens when the value is actually displayed or exported,
+ * so recording a micro-step never formats strings.
+ */
+public enum ValueFormat {
+    /** "0x" followed by lowercase hex digits, e.g. 0x40001c. */
+    HEX,
+    /** "0x" followed by uppercase hex digits, e.g. 0x40001C. */
+    HEX_UPPER,
+    /** Uppercase hex followed by the signed decimal value, e.g. 0x1F (31). */
+    HEX_DECIMAL,
+    /** Binary digits, zero-padded to the given width. */
+    BINARY,
+    /** A single bit, "0" or "1". */
+    BIT,
+    /** "true" or "false" (non-zero is true). */
+    BOOLEAN,
+    /** A control signal character such as '0', '1' or 'x'. */
+    CHAR,
+    /** The payload's text followed by the raw value in decimal. */
+    LABELED,
+    /** The flags a B.cond reads: raw holds NZCV in bits 0-3 and the condition code in bits 4-7. */
+    CONDITION_FLAGS,
+    /** The payload's toString(). */
+    OBJECT;
+
+    /**
+     * Renders a value in this format.
+     * @param raw The raw numeric payload.
+     * @param width The bit width for BINARY (ignored otherwise).
+     * @param payload The object payload for LABELED and OBJECT (ignored otherwise).
+     * @return The rendered text.
+     */
+    public String render(long raw, int width, Object payload) {
+        switch (this) {
+            case HEX:
+                return "0x" + Long.toHexString(raw);
+            case HEX_UPPER:
+                return "0x" + Long.toHexString(raw).toUpperCase();
+            case HEX_DECIMAL:
+                return "0x" + Long.toHexString(raw).toUpperCase() + " (" + raw + ")";
+            case BINARY:
+                return toBinary(raw, width);
+            case BIT:
+                return raw != 0 ? "1" : "0";
+            case BOOLEAN:
+                return String.valueOf(raw != 0);
+            case CHAR:
+                return String.valueOf((char) raw);
+            case LABELED:
+                return String.valueOf(payload) + raw;
+            case CONDITION_FLAGS:
+                return FlagBranchControl.describe((int) raw & 0xF, (int) (raw >>> 4) & 0xF);
+            case OBJECT:
+            default:
+                return payload == null ? "" : payload.toString();
+        }
+    }
+
+    /**
+     * Formats a value as binary, zero-padded on the left to the given width.
+     * Negative values are truncated to the width (as the original 32-bit buses did).
+     */
+    private static String toBinary(long raw, int width) {
+        if (raw < 0 && width > 0 && width < 64) raw &= (1L << width) - 1;
+
+        String bits = Long.toBinaryString(raw);
+        if (bits.length() >= width) return bits;
+
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = bits.length(); i < width; i++) sb.append('0');
+        return sb.append(bits).toString();
+    }
+}
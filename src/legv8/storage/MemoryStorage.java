@@ -8,29 +8,55 @@ package legv8.storage;
 import legv8.exceptions.MemoryAccessException;
 import legv8.util.ColoredLog;
 
- import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * MemoryStorage is a class that represents a memory storage system for the LEGv8 architecture.
  * It provides methods to read and write data to memory, including bytes, shorts, ints, and longs.
- * The memory is represented as a map with addresses as keys and byte values.
+ * The memory is represented as a sparse page table: fixed-size {@code byte[]} pages keyed by page
+ * number, allocated on first non-zero write. Unmapped pages read as zero.
+ * Copies are copy-on-write: a copy shares every page with its source, and whichever side writes
+ * to a shared page first clones that page. {@link #snapshot()} returns a read-only copy.
  */
 public class MemoryStorage {
     // --- Fields ---
-    // A map to store memory contents, where the key is the address and the value is the byte at that address   
-    private final Map<Long, Byte> memory;
+    // Page size (4 KiB) and the derived shift/mask used to split an address into page number and offset
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final long PAGE_OFFSET_MASK = PAGE_SIZE - 1;
+
+    // Little-endian views over the page arrays (LEGv8 default endianness)
+    private static final VarHandle SHORT_VIEW = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // The page table, where the key is the page number (address >>> PAGE_SHIFT) and the value is the page contents
+    private final Map<Long, byte[]> pages;
+    // Pages this instance may write in place; any other page may be shared with a copy
+    private final Set<Long> ownedPages;
+    // Last page looked up, so consecutive accesses to the same page skip the table lookup
+    private long lastPageNumber = -1;
+    private byte[] lastPage = null;
+    private boolean lastPageOwned = false;
+    // Snapshots are immutable, so one is reused until the next write
+    private final boolean readOnly;
+    private MemoryStorage cachedSnapshot = null;
+
     // The minimum address for memory access
     public static final long MIN_ADDRESS = 0x500000; 
     // Mask for 64-bit values
     public static final long VALUE_MASK = 0xFFFFFFFFFFFFFFFFL; 
     
-    // The endianness of the memory storage (little-endian)
-    // This is the default for LEGv8 architecture
-    private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
 
     // --- Constructor ---
     /**
@@ -38,16 +64,137 @@ public class MemoryStorage {
      * Initializes an empty memory storage.
      */
     public MemoryStorage() {
-        this.memory = new HashMap<>();
+        this.pages = new HashMap<>();
+        this.ownedPages = new HashSet<>();
+        this.readOnly = false;
     }
 
     /**
      * Constructor for MemoryStorage.
      * Initializes memory storage with the contents of another MemoryStorage instance.
+     * Pages are shared with the source and only cloned when either side writes to them.
      * @param initialMemory The initial memory storage to copy from.
      */
     public MemoryStorage(MemoryStorage initialMemory) { 
-        this.memory = new HashMap<>(initialMemory.memory);
+        this(initialMemory, false);
+    }
+
+    private MemoryStorage(MemoryStorage initialMemory, boolean readOnly) {
+        this.pages = new HashMap<>(initialMemory.pages);
+        this.ownedPages = new HashSet<>();
+        this.readOnly = readOnly;
+        initialMemory.releaseOwnership();
+    }
+
+    /**
+     * Returns an immutable copy of the current memory contents.
+     * The snapshot shares pages with this storage, so taking one costs O(pages) rather than O(bytes),
+     * and repeated calls without an intervening write return the same instance.
+     * @return A read-only MemoryStorage; its write methods throw UnsupportedOperationException.
+     */
+    public MemoryStorage snapshot() {
+        if (readOnly) return this;
+        if (cachedSnapshot == null) cachedSnapshot = new MemoryStorage(this, true);
+        return cachedSnapshot;
+    }
+
+
+    // --- Page Table Helpers ---
+
+    /**
+     * Marks every page as shared, so the next write to any of them clones it first.
+     */
+    private void releaseOwnership() {
+        ownedPages.clear();
+        lastPageOwned = false;
+    }
+
+    /**
+     * Returns the page holding the given address, or null if the page has never been written.
+     * @param address The byte address.
+     * @return The page array or null.
+     */
+    private byte[] findPage(long address) {
+        long pageNumber = address >>> PAGE_SHIFT;
+        if (pageNumber == lastPageNumber) return lastPage;
+
+        byte[] page = pages.get(pageNumber);
+        if (page != null) {
+            lastPageNumber = pageNumber;
+            lastPage = page;
+            lastPageOwned = false;
+        }
+        return page;
+    }
+
+    /**
+     * Returns a page holding the given address that this instance may write in place,
+     * cloning a shared page first.
+     * @param address The byte address.
+     * @param allocate Whether to allocate a zeroed page if none exists (false for zero writes).
+     * @return The writable page array, or null if it does not exist and allocate is false.
+     * @throws UnsupportedOperationException if this storage is a read-only snapshot.
+     */
+    private byte[] pageForWrite(long address, boolean allocate) {
+        if (readOnly) throw new UnsupportedOperationException("Memory snapshot is read-only.");
+        cachedSnapshot = null;
+
+        long pageNumber = address >>> PAGE_SHIFT;
+        if (pageNumber == lastPageNumber && lastPageOwned) return lastPage;
+
+        byte[] page = pages.get(pageNumber);
+        if (page == null) {
+            if (!allocate) return null;
+            page = new byte[PAGE_SIZE];
+            pages.put(pageNumber, page);
+            ownedPages.add(pageNumber);
+        } else if (!ownedPages.contains(pageNumber)) {
+            page = page.clone();
+            pages.put(pageNumber, page);
+            ownedPages.add(pageNumber);
+        }
+
+        lastPageNumber = pageNumber;
+        lastPage = page;
+        lastPageOwned = true;
+        return page;
+    }
+
+    /**
+     * Checks whether an access of the given size stays within a single page.
+     */
+    private static boolean fitsInPage(long address, int numBytes) {
+        return (address & PAGE_OFFSET_MASK) + numBytes <= PAGE_SIZE;
+    }
+
+    /**
+     * Reads up to 8 bytes as a little-endian value, crossing page boundaries byte by byte.
+     */
+    private long readLittleEndian(long address, int numBytes) {
+        long value = 0;
+        for (int i = numBytes - 1; i >= 0; i--) {
+            value = (value << 8) | (readRawByte(address + i) & 0xFFL);
+        }
+        return value;
+    }
+
+    /**
+     * Writes up to 8 bytes of a little-endian value, crossing page boundaries byte by byte.
+     */
+    private void writeLittleEndian(long address, long value, int numBytes) {
+        for (int i = 0; i < numBytes; i++) {
+            writeRawByte(address + i, (byte) (value >>> (8 * i)));
+        }
+    }
+
+    private byte readRawByte(long address) {
+        byte[] page = findPage(address);
+        return page == null ? 0 : page[(int) (address & PAGE_OFFSET_MASK)];
+    }
+
+    private void writeRawByte(long address, byte value) {
+        byte[] page = pageForWrite(address, value != 0);
+        if (page != null) page[(int) (address & PAGE_OFFSET_MASK)] = value;
     }
 
 
@@ -76,7 +223,7 @@ public class MemoryStorage {
 
         byte[] data = new byte[numBytes];
         for (int i = 0; i < numBytes; i++) {
-            data[i] = this.memory.getOrDefault(startAddress + i, (byte) 0);
+            data[i] = readRawByte(startAddress + i);
         }
        
         return data;
@@ -97,11 +244,7 @@ public class MemoryStorage {
         checkAddress(startAddress + data.length - 1); 
 
         for (int i = 0; i < numBytes; i++) {
-            if (data[i] == 0) {
-                memory.remove(startAddress + i);
-            } else {
-                memory.put(startAddress + i, data[i]);
-            }
+            writeRawByte(startAddress + i, data[i]);
         }
     }
 
@@ -111,7 +254,8 @@ public class MemoryStorage {
      * @return The byte value read from memory.
      */
     public byte readByte(long address) {
-        return readBytes(address, 1)[0];
+        checkAddress(address);
+        return readRawByte(address);
     }
 
     /**
@@ -120,7 +264,8 @@ public class MemoryStorage {
      * @param value The byte value to write.
      */
     public void writeByte(long address, byte value) {
-        writeBytes(address, new byte[]{value});
+        checkAddress(address);
+        writeRawByte(address, value);
     }
 
     /**
@@ -129,8 +274,11 @@ public class MemoryStorage {
      * @return The short value read from memory.
      */
     public short readHalfWord(long address) {
-        byte[] data = readBytes(address, 2);
-        return ByteBuffer.wrap(data).order(ENDIANNESS).getShort();
+        checkAddress(address);
+        if (!fitsInPage(address, 2)) return (short) readLittleEndian(address, 2);
+
+        byte[] page = findPage(address);
+        return page == null ? 0 : (short) SHORT_VIEW.get(page, (int) (address & PAGE_OFFSET_MASK));
     }
 
     /**
@@ -139,8 +287,14 @@ public class MemoryStorage {
      * @param value The short value to write.
      */
     public void writeHalfWord(long address, short value) {
-        byte[] data = ByteBuffer.allocate(2).order(ENDIANNESS).putShort(value).array();
-        writeBytes(address, data);
+        checkAddress(address);
+        if (!fitsInPage(address, 2)) {
+            writeLittleEndian(address, value, 2);
+            return;
+        }
+
+        byte[] page = pageForWrite(address, value != 0);
+        if (page != null) SHORT_VIEW.set(page, (int) (address & PAGE_OFFSET_MASK), value);
     }
 
     /**
@@ -149,8 +303,11 @@ public class MemoryStorage {
      * @return The int value read from memory.
      */
     public int readWord(long address) {
-        byte[] data = readBytes(address, 4);
-        return ByteBuffer.wrap(data).order(ENDIANNESS).getInt();
+        checkAddress(address);
+        if (!fitsInPage(address, 4)) return (int) readLittleEndian(address, 4);
+
+        byte[] page = findPage(address);
+        return page == null ? 0 : (int) INT_VIEW.get(page, (int) (address & PAGE_OFFSET_MASK));
     }
 
     /**
@@ -159,8 +316,14 @@ public class MemoryStorage {
      * @param value The int value to write.
      */
     public void writeWord(long address, int value) {
-        byte[] data = ByteBuffer.allocate(4).order(ENDIANNESS).putInt(value).array();
-        writeBytes(address, data);
+        checkAddress(address);
+        if (!fitsInPage(address, 4)) {
+            writeLittleEndian(address, value, 4);
+            return;
+        }
+
+        byte[] page = pageForWrite(address, value != 0);
+        if (page != null) INT_VIEW.set(page, (int) (address & PAGE_OFFSET_MASK), value);
     }
 
     /**
@@ -169,8 +332,11 @@ public class MemoryStorage {
      * @return The long value read from memory.
      */
     public long readDoubleWord(long address) {
-        byte[] data = readBytes(address, 8);
-        return ByteBuffer.wrap(data).order(ENDIANNESS).getLong();
+        checkAddress(address);
+        if (!fitsInPage(address, 8)) return readLittleEndian(address, 8);
+
+        byte[] page = findPage(address);
+        return page == null ? 0L : (long) LONG_VIEW.get(page, (int) (address & PAGE_OFFSET_MASK));
     }
 
     /**
@@ -179,17 +345,57 @@ public class MemoryStorage {
      * @param value The long value to write.
      */
     public void writeDoubleWord(long address, long value) {
-        byte[] data = ByteBuffer.allocate(8).order(ENDIANNESS).putLong(value).array();
-        writeBytes(address, data);
+        checkAddress(address);
+        if (!fitsInPage(address, 8)) {
+            writeLittleEndian(address, value, 8);
+            return;
+        }
+
+        byte[] page = pageForWrite(address, value != 0);
+        if (page != null) LONG_VIEW.set(page, (int) (address & PAGE_OFFSET_MASK), value);
+    }
+
+    /**
+     * Finds the first non-zero double word at or after an address. Only written pages are scanned,
+     * so the search skips any amount of unwritten memory.
+     * @param fromAddress The address to search from (rounded up to a double word boundary, at least MIN_ADDRESS).
+     * @return The address of the first non-zero double word, or -1 if all memory from there on is zero.
+     */
+    public long findNextNonZeroDoubleWord(long fromAddress) {
+        long start = (Math.max(fromAddress, MIN_ADDRESS) + 7) & ~7L;
+        if (start < 0) return -1L;
+        long startPage = start >>> PAGE_SHIFT;
+
+        List<Long> pageNumbers = new ArrayList<>();
+        for (Long pageNumber : pages.keySet()) {
+            if (pageNumber >= startPage) pageNumbers.add(pageNumber);
+        }
+        Collections.sort(pageNumbers);
+
+        for (long pageNumber : pageNumbers) {
+            byte[] page = pages.get(pageNumber);
+            int offset = (pageNumber == startPage) ? (int) (start & PAGE_OFFSET_MASK) : 0;
+            for (; offset < PAGE_SIZE; offset += 8) {
+                if ((long) LONG_VIEW.get(page, offset) != 0) return (pageNumber << PAGE_SHIFT) + offset;
+            }
+        }
+        return -1L;
     }
 
     /**
      * Returns the contents of the memory as a map.
      * @return A map containing the memory contents, where the key is the address and the value is the byte at that address.
-     *         The map is a copy of the original memory map.
+     *         Only non-zero bytes are included. The map is a copy and is not backed by the storage.
      */
     public Map<Long, Byte> getMemory_Bytes() {
-        return new HashMap<>(this.memory);
+        Map<Long, Byte> bytes = new HashMap<>();
+        pages.forEach((pageNumber, page) -> {
+            long pageBase = pageNumber << PAGE_SHIFT;
+            for (int offset = 0; offset < PAGE_SIZE; offset++) {
+                if (page[offset] != 0) bytes.put(pageBase + offset, page[offset]);
+            }
+        });
+        return bytes;
     }
 
     /**
@@ -226,7 +432,13 @@ public class MemoryStorage {
      * Clears the memory storage.
      */
     public void clear() {
-        memory.clear();
+        if (readOnly) throw new UnsupportedOperationException("Memory snapshot is read-only.");
+        pages.clear();
+        ownedPages.clear();
+        lastPageNumber = -1;
+        lastPage = null;
+        lastPageOwned = false;
+        cachedSnapshot = null;
         System.out.println(ColoredLog.SUCCESS + "Data Memory Storage cleared.");
     }
 
@@ -265,7 +477,7 @@ public class MemoryStorage {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Data Memory (Initialized Bytes, Sorted):\n"); 
-        Map<Long, Byte> sortedMemory = new TreeMap<>(this.memory);
+        Map<Long, Byte> sortedMemory = new TreeMap<>(getMemory_Bytes());
 
         if (sortedMemory.isEmpty()) {
             sb.append("  (Empty)\n");
@@ -6,6 +6,7 @@
 package legv8.storage;
 
 import legv8.util.ColoredLog;
+import legv8.util.Log;
 
 import java.util.Arrays;
 
@@ -14,6 +15,9 @@ import java.util.Arrays;
  * It provides methods to get and set register values, clear the storage, and validate register numbers.
  */
 public class RegisterStorage {
+    /** Per-instruction logging; silent unless enabled (see {@link Log}). */
+    private static final Log LOG = Log.get("RegisterStorage", Log.Level.WARNING);
+
     // --- Constants ---
     // Number of registers in LEGv8 architecture
     public static final int NUM_REGISTERS = 32;
@@ -88,13 +92,13 @@ public class RegisterStorage {
         validateRegisterNumber(regNum, "write");
         
         if (regNum == ZERO_REGISTER_INDEX) {     
-            System.out.println(ColoredLog.WARNING + "RegisterStorage Info: Ignored write to XZR.");
+            LOG.info("RegisterStorage Info: Ignored write to XZR.");
             return; 
         }
         registers[regNum] = value;
         
         // Log the write operation
-        System.err.printf("%sRegisterStorage Write: X%d <= 0x%016X\n", ColoredLog.INFO, regNum, value);
+        LOG.info("RegisterStorage Write: X%d <= 0x%016X\n", regNum, value);
     }
 
     /**
@@ -5,12 +5,10 @@
 
 package legv8.util; 
 
-import legv8.instructions.Instruction;
-
-import java.util.BitSet;
+import legv8.instructions.OperationKind;
 
 /**
- * Extractor is a utility class that provides methods for extracting and extending bits from integers and BitSets.
+ * Extractor is a utility class that provides methods for extracting and extending bits from 32-bit instruction words.
  * It is used in the LEGv8 architecture to handle various instruction formats and bit manipulations.
  */
 public class Extractor {
@@ -65,73 +63,14 @@ public class Extractor {
     }
 
     /**
-     * Extracts and extends a value from a BitSet based on the specified format and mnemonic.
-     * @param instructionBits The BitSet representing the instruction.
-     * @param format The format character (B, C, I, D, M, R).
-     * @param mnemonic The mnemonic of the instruction.
-     * @return The extended long value.
-     * @throws IllegalArgumentException if the format is unsupported or if the instructionBits is null.
-     */
-    public static long extractAndExtend(BitSet instructionBits, char format, String mnemonic) {
-        if (instructionBits == null) {
-            throw new IllegalArgumentException("Instruction BitSet cannot be null.");
-        }
-
-        int rawValue = 0; 
-        int numBits;  
-
-        switch (format) {
-            case 'B': 
-                rawValue = Instruction.extractBits(instructionBits, 0, 25);
-                numBits = 26;
-                break;
-
-            case 'C': 
-                rawValue = Instruction.extractBits(instructionBits, 5, 23);
-                numBits = 19;
-                break;
-
-            case 'I': 
-                rawValue = Instruction.extractBits(instructionBits, 10, 21);
-                return Integer.toUnsignedLong(rawValue);
-
-            case 'D': 
-                rawValue = Instruction.extractBits(instructionBits, 12, 20);
-                numBits = 9;
-                break;
-
-            case 'M': 
-                int hw = Instruction.extractBits(instructionBits, 21, 22); 
-                int imm16 = Instruction.extractBits(instructionBits, 5, 20); 
-                
-                int shiftAmount = hw * 16;        
-                long result = (long)imm16 << shiftAmount;
-                return result;
-
-            case 'R': 
-                if (mnemonic.equals("LSL") || mnemonic.equals("LSR")) {
-                    rawValue = Instruction.extractBits(instructionBits, 10, 15) & 0x3F; 
-                    numBits = 6;
-                }
-                
-                return rawValue;
-
-            default:
-                throw new IllegalArgumentException("Unsupported format for sign extension: " + format);
-        }
-        
-        return extend(rawValue, numBits);
-    }
-
-    /**
-     * Extracts and extends a value from an integer based on the specified format and mnemonic.
+     * Extracts and extends a value from an integer based on the specified format and operation kind.
      * @param instruction The integer representing the instruction.
      * @param format The format character (B, C, I, D, M, R).
-     * @param mnemonic The mnemonic of the instruction.
+     * @param kind The operation kind of the instruction (selects the shamt field for shifts).
      * @return The extended long value.
      * @throws IllegalArgumentException if the format is unsupported.
      */
-    public static long extractAndExtend(int instruction, char format, String mnemonic) {
+    public static long extractAndExtend(int instruction, char format, OperationKind kind) {
         int rawValue = 0; 
         int numBits;  
 
@@ -164,7 +103,7 @@ public class Extractor {
                 return result;
                 
             case 'R':
-                if (mnemonic.equals("LSL") || mnemonic.equals("LSR") || mnemonic.equals("ASR")) {
+                if (kind == OperationKind.SHIFT) {
                     rawValue = (instruction >>> 10) & 0x3F; 
                     numBits = 6;
                 }
@@ -5,59 +5,94 @@
 
 package legv8.util;
 
+import static legv8.core.ArithmeticLogicUnit.FLAG_C;
+import static legv8.core.ArithmeticLogicUnit.FLAG_N;
+import static legv8.core.ArithmeticLogicUnit.FLAG_V;
+import static legv8.core.ArithmeticLogicUnit.FLAG_Z;
+
 /**
  * FlagBranchControl is a utility class that provides methods to evaluate branch conditions based on CPU flags.
- * It contains a method to determine the result of a branch instruction based on the current state of the flags.
+ * The flags are passed packed as NZCV, laid out as ArithmeticLogicUnit.FLAG_N..FLAG_V.
+ * Each condition code is precomputed into a 16-bit truth table over all NZCV values, so evaluating
+ * a branch is a shift and a mask; the explanatory message is only built by {@link #describe}.
  */
 public final class FlagBranchControl {
-    // Helper class to encapsulate the result and message of the branch condition evaluation 
-    public record FlagControl (
-        boolean result,
-        String message
-    ) {}
+    // Condition code -> 16-bit truth table; bit i is set if the condition holds when NZCV == i
+    private static final int[] CONDITION_TABLE = new int[16];
+
+    static {
+        for (int cond = 0; cond < 16; cond++) {
+            int table = 0;
+            for (int nzcv = 0; nzcv < 16; nzcv++) {
+                if (evaluate(nzcv, cond)) table |= 1 << nzcv;
+            }
+            CONDITION_TABLE[cond] = table;
+        }
+    }
+
+    private FlagBranchControl() {}
 
     /**
      * Evaluates the branch condition based on the CPU flags and the condition code.
-     * @param nFlag The negative flag (N).
-     * @param zFlag The zero flag (Z).
-     * @param cFlag The carry flag (C).
-     * @param vFlag The overflow flag (V).
-     * @param condCode The condition code to evaluate.
-     * @return A FlagControl object containing the result and a message.
+     * @param nzcv The packed NZCV flags.
+     * @param condCode The condition code to evaluate (only the low 4 bits are used).
+     * @return true if the branch is taken. The unused codes 14 and 15 never branch.
      */
-    public static FlagControl getBranchCond(boolean nFlag, boolean zFlag, boolean cFlag, boolean vFlag, int condCode) {
+    public static boolean isTaken(int nzcv, int condCode) {
+        return ((CONDITION_TABLE[condCode & 0xF] >>> (nzcv & 0xF)) & 1) != 0;
+    }
+
+    /**
+     * Describes the flags a condition depends on, e.g. "C: true, Z: false".
+     * Only meant for display (micro-steps and the GUI).
+     * @param nzcv The packed NZCV flags.
+     * @param condCode The condition code.
+     * @return The message.
+     */
+    public static String describe(int nzcv, int condCode) {
+        boolean nFlag = (nzcv & FLAG_N) != 0, zFlag = (nzcv & FLAG_Z) != 0, cFlag = (nzcv & FLAG_C) != 0, vFlag = (nzcv & FLAG_V) != 0;
         condCode &= 0xF; 
         switch (condCode) {
-                case 0b0000: // EQ
-                    return new FlagControl(zFlag, "Z: " + zFlag);
-                case 0b0001: // NE
-                    return new FlagControl(!zFlag, "Z: " + zFlag);
-                case 0b0010: // HS
-                    return new FlagControl(cFlag, "C: " + cFlag);
-                case 0b0011: // LO
-                    return new FlagControl(!cFlag, "C: " + cFlag);
-                case 0b0100: // MI
-                    return new FlagControl(nFlag, "N: " + nFlag);
-                case 0b0101: 
-                    return new FlagControl(!nFlag, "N: " + nFlag);
-                case 0b0110: // VS
-                    return new FlagControl(vFlag, "V: " + vFlag);
-                case 0b0111: // VC
-                    return new FlagControl(!vFlag, "V: " + vFlag);
-                case 0b1000: // HI
-                    return new FlagControl(cFlag && !zFlag, "C: " + cFlag + ", Z: " + zFlag);
-                case 0b1001: // LS
-                    return new FlagControl(!cFlag || zFlag, "C: " + cFlag + ", Z: " + zFlag);
-                case 0b1010: // GE
-                    return new FlagControl(nFlag == vFlag, "N: " + nFlag + ", V: " + vFlag);
-                case 0b1011: // LT
-                    return new FlagControl(nFlag != vFlag, "N: " + nFlag + ", V: " + vFlag);
-                case 0b1100: // GT
-                    return new FlagControl(!zFlag && (nFlag == vFlag), "Z: " + zFlag + ", N: " + nFlag + ", V: " + vFlag);
-                case 0b1101: // LE
-                    return new FlagControl(zFlag || (nFlag != vFlag), "Z: " + zFlag + ", N: " + nFlag + ", V: " + vFlag);
-                default: 
-                    return new FlagControl(false, "Invalid condition code: " + condCode);
+            case 0b0000: case 0b0001: // EQ, NE
+                return "Z: " + zFlag;
+            case 0b0010: case 0b0011: // HS, LO
+                return "C: " + cFlag;
+            case 0b0100: case 0b0101: // MI, PL
+                return "N: " + nFlag;
+            case 0b0110: case 0b0111: // VS, VC
+                return "V: " + vFlag;
+            case 0b1000: case 0b1001: // HI, LS
+                return "C: " + cFlag + ", Z: " + zFlag;
+            case 0b1010: case 0b1011: // GE, LT
+                return "N: " + nFlag + ", V: " + vFlag;
+            case 0b1100: case 0b1101: // GT, LE
+                return "Z: " + zFlag + ", N: " + nFlag + ", V: " + vFlag;
+            default: 
+                return "Invalid condition code: " + condCode;
+        }
+    }
+
+    /**
+     * Evaluates a condition directly from the flags (used to build the lookup table).
+     */
+    private static boolean evaluate(int nzcv, int condCode) {
+        boolean nFlag = (nzcv & FLAG_N) != 0, zFlag = (nzcv & FLAG_Z) != 0, cFlag = (nzcv & FLAG_C) != 0, vFlag = (nzcv & FLAG_V) != 0;
+        switch (condCode) {
+            case 0b0000: return zFlag;                          // EQ
+            case 0b0001: return !zFlag;                         // NE
+            case 0b0010: return cFlag;                          // HS
+            case 0b0011: return !cFlag;                         // LO
+            case 0b0100: return nFlag;                          // MI
+            case 0b0101: return !nFlag;                         // PL
+            case 0b0110: return vFlag;                          // VS
+            case 0b0111: return !vFlag;                         // VC
+            case 0b1000: return cFlag && !zFlag;                // HI
+            case 0b1001: return !cFlag || zFlag;                // LS
+            case 0b1010: return nFlag == vFlag;                 // GE
+            case 0b1011: return nFlag != vFlag;                 // LT
+            case 0b1100: return !zFlag && (nFlag == vFlag);     // GT
+            case 0b1101: return zFlag || (nFlag != vFlag);      // LE
+            default:     return false;
         }
     }
 }
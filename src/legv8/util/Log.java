@@ -0,0 +1,159 @@
+/**
+ * @author TrDoanh, Giahuy
+ * @version 1.0 --- There may be bugs :) Be careful!
+ */
+
+package legv8.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Log is a small level-gated logging facade for the simulator components.
+ * Each component gets its own Log with an independent level. Components on the per-instruction
+ * hot path default to WARNING, so their INFO chatter is skipped.
+ * The primitive overloads take no varargs and box nothing, and a disabled call returns
+ * after a single level check without formatting anything. For messages whose arguments are
+ * expensive to build, guard the call with {@link #isInfoEnabled()}.
+ *
+ * Levels can be set at runtime ({@link #setLevel}, {@link #setDebugMode}) or with system properties:
+ * {@code -Dlegv8.debug=true} enables colored output for every component, {@code -Dlegv8.log=INFO}
+ * sets every component, and {@code -Dlegv8.log.<Component>=INFO} sets a single one.
+ */
+public final class Log {
+    /** Log levels, from least to most verbose. */
+    public enum Level { OFF, ERROR, WARNING, INFO, DEBUG }
+
+    // --- Registry ---
+    private static final Map<String, Log> REGISTRY = new ConcurrentHashMap<>();
+    // Levels set with setLevel, kept apart from the defaults so they survive debug mode and apply to components created later
+    private static final Map<String, Level> OVERRIDES = new ConcurrentHashMap<>();
+    private static volatile boolean debugMode = Boolean.getBoolean("legv8.debug");
+
+    // --- Fields ---
+    private final String component;
+    private final Level defaultLevel;
+    private volatile Level level;
+
+
+    // --- Constructor ---
+    private Log(String component, Level defaultLevel) {
+        this.component = component;
+        this.defaultLevel = defaultLevel;
+        this.level = initialLevel(component, defaultLevel);
+    }
+
+    /**
+     * Returns the Log for a component, creating it on first use.
+     * @param component The component name (e.g. "ProgramCounter").
+     * @param defaultLevel The level used unless overridden by debug mode or a system property.
+     * @return The component's Log.
+     */
+    public static Log get(String component, Level defaultLevel) {
+        return REGISTRY.computeIfAbsent(component, name -> new Log(name, defaultLevel));
+    }
+
+    private static Level initialLevel(String component, Level defaultLevel) {
+        if (debugMode) return Level.DEBUG;
+        Level override = OVERRIDES.get(component);
+        if (override != null) return override;
+
+        String value = System.getProperty("legv8.log." + component, System.getProperty("legv8.log"));
+        if (value == null) return defaultLevel;
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+
+
+    // --- Configuration ---
+
+    /**
+     * Sets the level of one component, overriding its default and the system properties.
+     * The override also applies if the component is created later, and is restored when debug mode is turned off.
+     * @param component The component name.
+     * @param level The new level, or null to remove the override and return to the default.
+     */
+    public static void setLevel(String component, Level level) {
+        if (level != null) OVERRIDES.put(component, level);
+        else OVERRIDES.remove(component);
+
+        Log log = REGISTRY.get(component);
+        if (log != null) log.level = initialLevel(component, log.defaultLevel);
+    }
+
+    /**
+     * Enables or disables debug mode.
+     * Debug mode sets every component (including ones created later) to DEBUG, restoring the full
+     * colored console trace. Turning it off restores each component's level set with {@link #setLevel},
+     * or its default level.
+     * @param enabled true to enable debug mode.
+     */
+    public static void setDebugMode(boolean enabled) {
+        debugMode = enabled;
+        for (Log log : REGISTRY.values()) log.level = initialLevel(log.component, log.defaultLevel);
+    }
+
+    /**
+     * @return true if debug mode is enabled.
+     */
+    public static boolean isDebugMode() {
+        return debugMode;
+    }
+
+    /**
+     * @return The component's current level.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+
+    // --- Level Checks ---
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.ordinal() <= level.ordinal();
+    }
+
+    public boolean isInfoEnabled() {
+        return Level.INFO.ordinal() <= level.ordinal();
+    }
+
+
+    // --- Logging Methods ---
+
+    public void info(String message) {
+        if (isInfoEnabled()) System.out.println(ColoredLog.INFO + message);
+    }
+
+    public void info(String format, long arg) {
+        if (isInfoEnabled()) System.out.print(ColoredLog.INFO + String.format(format, arg));
+    }
+
+    public void info(String format, long arg1, long arg2) {
+        if (isInfoEnabled()) System.out.print(ColoredLog.INFO + String.format(format, arg1, arg2));
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isInfoEnabled()) System.out.print(ColoredLog.INFO + String.format(format, arg1, arg2));
+    }
+
+    public void warning(String message) {
+        if (isEnabled(Level.WARNING)) System.err.println(ColoredLog.WARNING + message);
+    }
+
+    public void warning(String format, long arg) {
+        if (isEnabled(Level.WARNING)) System.err.print(ColoredLog.WARNING + String.format(format, arg));
+    }
+
+    public void error(String message) {
+        if (isEnabled(Level.ERROR)) System.err.println(ColoredLog.ERROR + message);
+    }
+
+    @Override
+    public String toString() {
+        return "Log[" + component + "=" + level + "]";
+    }
+}
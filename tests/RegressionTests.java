@@ -1,14 +1,45 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import legv8.assembler.Assembler;
+import legv8.assembler.IncrementalAssembler;
+import legv8.assembler.ObjectFile;
+import legv8.core.ArithmeticLogicUnit;
 import legv8.core.ControlUnit;
+import legv8.core.DecodedInstruction;
 import legv8.core.InstructionMemory;
+import legv8.core.ProgramCounter;
+import legv8.exceptions.AssemblyException;
+import legv8.exceptions.ObjectFileException;
+import legv8.exceptions.SimulationException;
+import legv8.instructions.DecodeTable;
 import legv8.instructions.Instruction;
+import legv8.instructions.InstructionDefinition;
 import legv8.instructions.InstructionConfigLoader;
 import legv8.instructions.InstructionFactory;
+import legv8.instructions.InstructionSet;
+import legv8.instructions.OperationKind;
+import legv8.simulator.MicroStep;
+import legv8.simulator.SimulationDriver;
 import legv8.simulator.SimulatorEngine;
+import legv8.simulator.StateDelta;
+import legv8.simulator.ValueFormat;
+import legv8.util.Extractor;
+import legv8.util.FlagBranchControl;
+import legv8.util.Log;
+import legv8.storage.MemoryStorage;
 
 public final class RegressionTests {
     private static final long BASE = 0x400000L;
@@ -43,6 +74,13 @@ public final class RegressionTests {
         return new SimulatorEngine(loader, memory);
     }
 
+    private static SimulatorEngine engine(InstructionConfigLoader loader, int... machineWords) {
+        InstructionFactory factory = new InstructionFactory(loader.getInstructionSet());
+        InstructionMemory memory = new InstructionMemory();
+        memory.loadMachineWords(IntBuffer.wrap(machineWords), factory);
+        return new SimulatorEngine(factory, memory);
+    }
+
     private static void execute(SimulatorEngine engine, int instructionCount) throws Exception {
         for (int i = 0; i < instructionCount; i++) engine.step();
     }
@@ -83,7 +121,7 @@ public final class RegressionTests {
         assertEquals("EOR opcode remains distinct", "EOR", logicalInstructions.get(1).getDefinition().getMnemonic());
 
         Instruction bne = new Assembler().assemble(List.of("B.NE #1")).get(0);
-        ControlUnit.DecodeResult decoded = new ControlUnit(loader).decode(bne.getBytecode());
+        ControlUnit.DecodeResult decoded = new ControlUnit(loader).decode(bne.getMachineCode());
         assertEquals("B.cond decode", "B.NE", decoded.definition().getMnemonic());
 
         for (String sample : List.of("arithmetic.s", "shift.s", "i-format.s", "memory_access.s", "branch.s", "all.s")) {
@@ -159,6 +197,914 @@ public final class RegressionTests {
         assertEquals("LDURSW sign extension", -1L, engine.getRegisterController().readRegister(3));
     }
 
+    private static void testFastPathMatchesMicroSteps(InstructionConfigLoader loader) throws Exception {
+        for (String sample : List.of("arithmetic.s", "shift.s", "i-format.s", "memory_access.s", "branch.s", "all.s")) {
+            String[] lines = Files.readAllLines(Path.of("resources/src_test/norm", sample)).toArray(String[]::new);
+            SimulatorEngine detailed = engine(loader, lines);
+            SimulatorEngine fast = engine(loader, lines);
+
+            int detailedCount = 0;
+            while (detailed.getInstructionMemory().containsAddress(detailed.getProgramCounter().getCurrentAddress())) {
+                detailed.step();
+                detailedCount++;
+            }
+            long fastCount = fast.run(1_000_000);
+
+            assertEquals("fast path instruction count: " + sample, detailedCount, fastCount);
+            assertEquals("fast path PC: " + sample,
+                detailed.getProgramCounter().getCurrentAddress(), fast.getProgramCounter().getCurrentAddress());
+            for (int reg = 0; reg < 32; reg++) {
+                assertEquals("fast path X" + reg + ": " + sample,
+                    detailed.getRegisterController().readRegister(reg), fast.getRegisterController().readRegister(reg));
+            }
+            assertTrue("fast path memory: " + sample, detailed.getDataMemoryController().getStorage().getMemory_Bytes()
+                .equals(fast.getDataMemoryController().getStorage().getMemory_Bytes()));
+        }
+    }
+
+    private static void testPagedMemoryStorage() {
+        MemoryStorage memory = new MemoryStorage();
+        long pageEdge = 0x501000L;
+
+        memory.writeDoubleWord(pageEdge - 3, 0x1122334455667788L);
+        assertEquals("cross-page double word", 0x1122334455667788L, memory.readDoubleWord(pageEdge - 3));
+        assertEquals("cross-page low byte", 0x88L, memory.readByte(pageEdge - 3) & 0xFF);
+        assertEquals("cross-page high byte", 0x11L, memory.readByte(pageEdge + 4) & 0xFF);
+        assertEquals("cross-page word", 0x55667788L, memory.readWord(pageEdge - 3) & 0xFFFFFFFFL);
+        assertEquals("unmapped read", 0L, memory.readDoubleWord(0x700000L));
+        assertEquals("non-zero bytes", 8L, memory.getMemory_Bytes().size());
+
+        MemoryStorage copy = new MemoryStorage(memory);
+        memory.writeHalfWord(pageEdge - 1, (short) 0);
+        assertEquals("zeroed bytes dropped", 6L, memory.getMemory_Bytes().size());
+        assertEquals("copy is independent", 0x1122334455667788L, copy.readDoubleWord(pageEdge - 3));
+
+        MemoryStorage snapshot = memory.snapshot();
+        assertTrue("snapshot reused until write", snapshot == memory.snapshot());
+        memory.writeByte(pageEdge + 4, (byte) 0x7F);
+        assertEquals("snapshot keeps old page", 0x11L, snapshot.readByte(pageEdge + 4) & 0xFF);
+        assertTrue("snapshot renewed after write", snapshot != memory.snapshot());
+        try {
+            snapshot.writeByte(pageEdge, (byte) 1);
+            throw new AssertionError("snapshot accepted a write");
+        } catch (UnsupportedOperationException expected) {
+            assertions++;
+        }
+    }
+
+    private static void testDeltaHistory(InstructionConfigLoader loader) throws Exception {
+        String[] lines = Files.readAllLines(Path.of("resources/src_test/norm", "all.s")).toArray(String[]::new);
+        SimulatorEngine full = engine(loader, lines);
+        SimulatorEngine delta = engine(loader, lines);
+        delta.setDeltaHistory(true);
+
+        boolean sawRegisterWrite = false;
+        boolean sawMemoryWrite = false;
+        while (full.getInstructionMemory().containsAddress(full.getProgramCounter().getCurrentAddress())) {
+            List<MicroStep> expected = full.getMicroSteps();
+            List<MicroStep> actual = delta.getMicroSteps();
+            assertEquals("delta history length", expected.size(), actual.size());
+
+            for (int i = 0; i < actual.size(); i++) {
+                assertTrue("delta step carries no copies", i == 0 || !actual.get(i).hasFullState());
+                MicroStep rebuilt = MicroStep.materialize(actual, i);
+                for (int reg = 0; reg < 32; reg++) {
+                    if (rebuilt.registerStorage().getValue(reg) != expected.get(i).registerStorage().getValue(reg)) {
+                        throw new AssertionError("delta history X" + reg + " at micro-step " + i);
+                    }
+                }
+                if (!rebuilt.memoryStorage().getMemory_Bytes().equals(expected.get(i).memoryStorage().getMemory_Bytes())) {
+                    throw new AssertionError("delta history memory at micro-step " + i);
+                }
+                sawRegisterWrite |= MicroStep.lastChangedRegister(actual, i) != -1;
+                sawMemoryWrite |= MicroStep.lastChangedAddress(actual, i) != -1L;
+            }
+        }
+        assertTrue("delta history records register writes", sawRegisterWrite);
+        assertTrue("delta history records memory writes", sawMemoryWrite);
+
+        byte[] written = { 1, 2 };
+        StateDelta.MemoryWrite write = new StateDelta.MemoryWrite(0x500000L, new byte[2], written);
+        written[0] = 9;
+        write.newBytes()[1] = 9;
+        assertTrue("memory write bytes are copied", Arrays.equals(new byte[] { 1, 2 }, write.newBytes()));
+    }
+
+    private static void testLazyStepValues() {
+        assertEquals("hex value", "0x40001c", ValueFormat.HEX.render(0x40001CL, 0, null));
+        assertEquals("hex/decimal value", "0xFFFFFFFFFFFFFFFF (-1)", ValueFormat.HEX_DECIMAL.render(-1L, 0, null));
+        assertEquals("binary value", "00101", ValueFormat.BINARY.render(5, 5, null));
+        assertEquals("negative 32-bit binary", "1" + "0".repeat(31), ValueFormat.BINARY.render(Integer.MIN_VALUE, 32, null));
+        assertEquals("control signal value", "x", ValueFormat.CHAR.render('x', 0, null));
+        assertEquals("labeled value", "CBZ (Rt == 0?): 1", ValueFormat.LABELED.render(1, 0, "CBZ (Rt == 0?): "));
+    }
+
+    private static void testQuietHotPathLogging(InstructionConfigLoader loader) throws Exception {
+        SimulatorEngine engine = engine(loader, "ADDI X1, X1, #1", "ADDI X2, X2, #2");
+        java.io.PrintStream originalOut = System.out;
+        java.io.ByteArrayOutputStream captured = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(captured, true));
+        try {
+            engine.step();
+            assertTrue("hot path silent by default", !captured.toString().contains("(ProgramCounter) Set"));
+            Log.setDebugMode(true);
+            engine.step();
+            assertTrue("debug mode restores trace", captured.toString().contains("(ProgramCounter) Set: 0x400004 -> 0x400008"));
+        } finally {
+            Log.setDebugMode(false);
+            System.setOut(originalOut);
+        }
+    }
+
+    private static void testLogLevelOverrides() {
+        Log.setLevel("TestLater", Log.Level.OFF);
+        Log later = Log.get("TestLater", Log.Level.INFO);
+        assertEquals("override applies to later component", "OFF", later.getLevel().name());
+
+        Log.setLevel("ProgramCounter", Log.Level.INFO);
+        try {
+            Log.setDebugMode(true);
+            assertEquals("debug mode wins", "DEBUG", later.getLevel().name());
+            Log.setDebugMode(false);
+            assertEquals("override survives debug mode", "INFO", Log.get("ProgramCounter", Log.Level.WARNING).getLevel().name());
+            assertEquals("later override survives debug mode", "OFF", later.getLevel().name());
+
+            Log.setLevel("TestLater", null);
+            assertEquals("override removed", "INFO", later.getLevel().name());
+        } finally {
+            Log.setDebugMode(false);
+            Log.setLevel("ProgramCounter", null);
+        }
+        assertEquals("default restored", "WARNING", Log.get("ProgramCounter", Log.Level.WARNING).getLevel().name());
+    }
+
+    private static void testPreDecodedInstructions() {
+        InstructionMemory memory = new InstructionMemory();
+        memory.loadInstructions(new Assembler().assemble(List.of(
+            "STUR X2, [X10, #8]",
+            "CBNZ X3, done",
+            "MOVK X4, #0x1234, LSL #32",
+            "done: BL done"
+        )));
+
+        DecodedInstruction store = memory.fetchDecoded(BASE);
+        assertEquals("decoded store width", 8, store.memoryWidth());
+        assertEquals("decoded store Rt", 2, store.readRegister2());
+        assertEquals("decoded store offset", 8, store.immediate());
+        assertTrue("decoded store signals", store.has(DecodedInstruction.SIG_MEM_WRITE) && !store.has(DecodedInstruction.SIG_REG_WRITE));
+
+        DecodedInstruction cbnz = memory.fetchDecoded(BASE + 4);
+        assertTrue("decoded CBNZ kind", cbnz.branchKind() == DecodedInstruction.BranchKind.NOT_ZERO);
+        assertEquals("decoded CBNZ offset", 2, cbnz.immediate());
+        assertEquals("decoded MOVK shift", 32, memory.fetchDecoded(BASE + 8).movkShift());
+        assertTrue("decoded BL kind", memory.fetchDecoded(BASE + 12).branchKind() == DecodedInstruction.BranchKind.LINK);
+    }
+
+    private static void testMachineWordEncoding() {
+        Instruction add = new Assembler().assemble(List.of("ADD X1, X2, X3")).get(0);
+        assertEquals("ADD machine word", 0x8B030041L, Integer.toUnsignedLong(add.getMachineCode()));
+        assertEquals("ADD binary", "10001011 00000011 00000000 01000001", Instruction.formatMachineCode(add.getMachineCode()));
+
+        Instruction back = new Assembler().assemble(List.of("loop: B loop", "B loop")).get(1);
+        assertEquals("B offset field", 0x3FFFFFF, back.getAddress_B());
+        assertEquals("B opcode field", 0b000101, back.getOpcode_B());
+        assertEquals("full-width extract", back.getMachineCode(), Instruction.extractBits(back.getMachineCode(), 0, 31));
+
+        Instruction decoded = InstructionFactory.createFromBytecode(add.getMachineCode());
+        assertEquals("machine word round trip", "ADD", decoded.getDefinition().getMnemonic());
+        assertEquals("round trip Rm", 3, decoded.getRm_R());
+    }
+
+    private static void testDecodeTable(InstructionConfigLoader loader) throws Exception {
+        DecodeTable table = loader.getDecodeTable();
+        ControlUnit controlUnit = new ControlUnit(loader);
+
+        for (InstructionDefinition definition : loader.getMnemonicMap().values()) {
+            String mnemonic = definition.getMnemonic();
+            int machineCode = mnemonic.startsWith("B.")
+                ? InstructionFactory.createFromAssembly(mnemonic + " #1", Map.of(), BASE).getMachineCode()
+                : definition.getOpcode() << switch (definition.getFormat()) {
+                    case 'B' -> 26; case 'C' -> 24; case 'M' -> 23; case 'I' -> 22; default -> 21;
+                };
+            assertTrue("table decodes " + mnemonic, table.lookup(machineCode) == definition);
+            assertEquals("control unit decodes " + mnemonic, mnemonic, controlUnit.decode(machineCode).definition().getMnemonic());
+        }
+
+        int unusedCondition = (DecodeTable.BCOND_OPCODE_VALUE << 24) | 0xE;
+        assertTrue("unused condition code", table.lookup(unusedCondition) == null);
+
+        InstructionConfigLoader reloaded = new InstructionConfigLoader();
+        assertTrue("empty table before load", reloaded.getDecodeTable() == DecodeTable.EMPTY);
+        assertTrue("failed load keeps table", !reloaded.loadConfig("resources/config/missing.csv") && reloaded.getDecodeTable() == DecodeTable.EMPTY);
+        assertTrue("reload builds table", reloaded.loadConfig("resources/config/instructions.csv") && reloaded.getDecodeTable() != DecodeTable.EMPTY);
+    }
+
+    private static void testPackedFlags(InstructionConfigLoader loader) throws Exception {
+        assertEquals("ALU add", 5, ArithmeticLogicUnit.execute(2, 3, ArithmeticLogicUnit.ADD));
+        assertEquals("ADD carry and zero", ArithmeticLogicUnit.FLAG_Z | ArithmeticLogicUnit.FLAG_C,
+                     ArithmeticLogicUnit.flags(-1, 1, 0, ArithmeticLogicUnit.ADD));
+        assertEquals("ADD signed overflow", ArithmeticLogicUnit.FLAG_N | ArithmeticLogicUnit.FLAG_V,
+                     ArithmeticLogicUnit.flags(Long.MAX_VALUE, 1, Long.MIN_VALUE, ArithmeticLogicUnit.ADD));
+        assertEquals("logical ops leave C and V clear", ArithmeticLogicUnit.FLAG_N,
+                     ArithmeticLogicUnit.flags(-1, -1, -1, ArithmeticLogicUnit.AND));
+
+        // GT: Z clear and N == V
+        assertTrue("GT taken", FlagBranchControl.isTaken(0, 0b1100));
+        assertTrue("GT taken when N and V set", FlagBranchControl.isTaken(ArithmeticLogicUnit.FLAG_N | ArithmeticLogicUnit.FLAG_V, 0b1100));
+        assertTrue("GT not taken on Z", !FlagBranchControl.isTaken(ArithmeticLogicUnit.FLAG_Z, 0b1100));
+        assertTrue("unused condition never taken", !FlagBranchControl.isTaken(0b1111, 0b1110));
+        assertEquals("condition message", "C: true, Z: false", FlagBranchControl.describe(ArithmeticLogicUnit.FLAG_C, 0b1000));
+
+        SimulatorEngine engine = engine(loader, "SUBS X1, X1, X1");
+        engine.stepFast();
+        assertEquals("engine flags after SUBS", ArithmeticLogicUnit.FLAG_Z | ArithmeticLogicUnit.FLAG_C, engine.getFlags());
+    }
+
+    private static void testOperationKinds(InstructionConfigLoader loader) {
+        assertTrue("MOVK kind", loader.getDefinitionByMnemonic("MOVK").getKind() == OperationKind.MOVE_KEEP);
+        assertTrue("BL kind", loader.getDefinitionByMnemonic("BL").getKind() == OperationKind.BRANCH_LINK);
+        assertTrue("B.cond kind", loader.getDefinitionByMnemonic("B.GE").getKind() == OperationKind.BRANCH_CONDITIONAL);
+        assertTrue("plain ALU kind", loader.getDefinitionByMnemonic("ADDI").getKind() == OperationKind.ALU);
+        assertEquals("LDURSW width", 4, loader.getDefinitionByMnemonic("LDURSW").getKind().memoryWidth());
+        assertEquals("STURB width", 1, loader.getDefinitionByMnemonic("STURB").getKind().memoryWidth());
+        assertEquals("ADD has no width", 0, loader.getDefinitionByMnemonic("ADD").getKind().memoryWidth());
+
+        Instruction lsl = new Assembler().assemble(List.of("LSL X1, X2, #5")).get(0);
+        assertEquals("shift amount extracted by kind", 5, Extractor.extractAndExtend(lsl.getMachineCode(), 'R', OperationKind.SHIFT));
+        assertEquals("non-shift R has no immediate", 0, Extractor.extractAndExtend(lsl.getMachineCode(), 'R', OperationKind.ALU));
+    }
+
+    private static void testBlockTranslation(InstructionConfigLoader loader) throws Exception {
+        String[] loop = {
+            "MOVZ X9, #0x50, LSL #16",
+            "ADDI X1, XZR, #100",
+            "loop: ADD X2, X2, X1",
+            "STUR X2, [X9, #0]",
+            "LDUR X3, [X9, #0]",
+            "ADDI X9, X9, #8",
+            "SUBIS X1, X1, #1",
+            "B.NE loop",
+            "BL done",
+            "done: ADDI X4, X3, #1"
+        };
+
+        for (long limit : new long[] { 1_000_000, 3, 250, 506 }) {
+            SimulatorEngine interpreted = engine(loader, loop);
+            SimulatorEngine translated = engine(loader, loop);
+            interpreted.setBlockTranslation(false);
+
+            assertEquals("block run count: " + limit, interpreted.run(limit), translated.run(limit));
+            assertEquals("block run PC: " + limit,
+                interpreted.getProgramCounter().getCurrentAddress(), translated.getProgramCounter().getCurrentAddress());
+            assertEquals("block run flags: " + limit, interpreted.getFlags(), translated.getFlags());
+            for (int reg = 0; reg < 32; reg++) {
+                assertEquals("block run X" + reg + ": " + limit,
+                    interpreted.getRegisterController().readRegister(reg), translated.getRegisterController().readRegister(reg));
+            }
+            assertTrue("block run memory: " + limit, interpreted.getDataMemoryController().getStorage().getMemory_Bytes()
+                .equals(translated.getDataMemoryController().getStorage().getMemory_Bytes()));
+        }
+
+        SimulatorEngine faulting = engine(loader, "ADDI X1, XZR, #1", "ADDI X2, XZR, #2", "LDUR X3, [XZR, #0]", "ADDI X4, XZR, #4");
+        try {
+            faulting.run(100);
+            throw new AssertionError("block run accepted an unmapped load");
+        } catch (SimulationException expected) {
+            assertEquals("block fault PC", BASE + 8, faulting.getProgramCounter().getCurrentAddress());
+            assertEquals("block fault exception PC", BASE + 8, expected.getErrorPC());
+            assertEquals("block fault keeps earlier writes", 2, faulting.getRegisterController().readRegister(2));
+        }
+
+        // BL to a negative target: the link register is written before the branch faults
+        List<Instruction> link = new Assembler().assemble(List.of("ADDI X1, XZR, #1", "BL done", "done: ADDI X2, XZR, #2"));
+        int[] linkWords = { link.get(0).getMachineCode(), link.get(1).getMachineCode(), link.get(2).getMachineCode() };
+        linkWords[1] = (linkWords[1] & 0xFC000000) | (int) ((-(BASE + 4) / 4 - 1) & 0x3FFFFFF);
+        SimulatorEngine linkInterpreted = engine(loader, linkWords);
+        SimulatorEngine linkTranslated = engine(loader, linkWords);
+        linkInterpreted.setBlockTranslation(false);
+        for (SimulatorEngine linking : new SimulatorEngine[] { linkInterpreted, linkTranslated }) {
+            try {
+                linking.run(100);
+                throw new AssertionError("block run accepted a negative BL target");
+            } catch (SimulationException expected) {
+                assertEquals("BL fault exception PC", BASE + 4, expected.getErrorPC());
+            }
+        }
+        assertEquals("BL fault writes LR", BASE + 8, linkTranslated.getRegisterController().readRegister(30));
+        assertSameState("BL fault", linkInterpreted, linkTranslated);
+
+        SimulatorEngine reloaded = engine(loader, "ADDI X1, XZR, #1");
+        reloaded.run(10);
+        reloaded.loadInstructions(new Assembler().assemble(List.of("ADDI X1, XZR, #7")));
+        reloaded.run(10);
+        assertEquals("blocks invalidated on reload", 7, reloaded.getRegisterController().readRegister(1));
+    }
+
+    private static void assertSameState(String name, SimulatorEngine expected, SimulatorEngine actual) {
+        assertEquals(name + " PC", expected.getProgramCounter().getCurrentAddress(), actual.getProgramCounter().getCurrentAddress());
+        assertEquals(name + " flags", expected.getFlags(), actual.getFlags());
+        for (int reg = 0; reg < 32; reg++) {
+            assertEquals(name + " X" + reg, expected.getRegisterController().readRegister(reg), actual.getRegisterController().readRegister(reg));
+        }
+        assertTrue(name + " memory", expected.getDataMemoryController().getStorage().getMemory_Bytes()
+            .equals(actual.getDataMemoryController().getStorage().getMemory_Bytes()));
+    }
+
+    private static void testTraceCompilation(InstructionConfigLoader loader) throws Exception {
+        String[] loop = {
+            "MOVZ X9, #0x50, LSL #16",
+            "MOVZ X1, #300",
+            "loop: ADD X2, X2, X1",
+            "STURH X2, [X9, #2]",
+            "LDURB X3, [X9, #2]",
+            "CBZ X3, skip",
+            "EOR X4, X4, X3",
+            "LSL X5, X4, #3",
+            "skip: ADDI X9, X9, #8",
+            "SUBIS X1, X1, #1",
+            "B.GT loop",
+            "BL done",
+            "done: ADDS X6, X4, XZR"
+        };
+
+        SimulatorEngine detailed = engine(loader, loop);
+        long detailedCount = 0;
+        while (detailed.getInstructionMemory().containsAddress(detailed.getProgramCounter().getCurrentAddress())) {
+            detailed.step();
+            detailedCount++;
+        }
+        SimulatorEngine compiled = engine(loader, loop);
+        assertEquals("trace run count", detailedCount, compiled.run(1_000_000));
+        assertSameState("trace run", detailed, compiled);
+        assertTrue("trace compiled for the loop", compiled.hasCompiledTrace(BASE + 8));
+
+        for (long limit : new long[] { 700, 1501, 2399 }) {
+            SimulatorEngine blocks = engine(loader, loop);
+            SimulatorEngine traced = engine(loader, loop);
+            blocks.setTraceCompilation(false);
+            assertEquals("trace limit count: " + limit, blocks.run(limit), traced.run(limit));
+            assertSameState("trace limit " + limit, blocks, traced);
+        }
+
+        String[] faulting = {
+            "MOVZ X9, #0x50, LSL #16",
+            "ADDI X9, X9, #800",
+            "loop: LDUR X2, [X9, #0]",
+            "SUBI X9, X9, #8",
+            "ADDI X3, X3, #1",
+            "B loop"
+        };
+        SimulatorEngine expected = engine(loader, faulting);
+        SimulatorEngine traced = engine(loader, faulting);
+        expected.setBlockTranslation(false);
+        try {
+            expected.run(1_000_000);
+            throw new AssertionError("interpreter accepted an unmapped load");
+        } catch (SimulationException e) {
+            assertEquals("interpreter fault PC", BASE + 8, e.getErrorPC());
+        }
+        try {
+            traced.run(1_000_000);
+            throw new AssertionError("trace accepted an unmapped load");
+        } catch (SimulationException e) {
+            assertEquals("trace fault PC", BASE + 8, e.getErrorPC());
+        }
+        assertTrue("trace compiled for the faulting loop", traced.hasCompiledTrace(BASE + 8));
+        assertSameState("trace fault", expected, traced);
+
+        // An undecodable word inside the loop that is always branched over must not stop compilation from running
+        List<Instruction> skipping = new Assembler().assemble(List.of(
+            "ADDI X2, XZR, #100", "loop: ADDI X1, X1, #1", "CBZ XZR, skip", "ADD X3, X3, X3",
+            "skip: SUBI X2, X2, #1", "CBNZ X2, loop"));
+        int[] skippingWords = new int[skipping.size()];
+        for (int i = 0; i < skippingWords.length; i++) skippingWords[i] = skipping.get(i).getMachineCode();
+        skippingWords[3] = 0;
+        SimulatorEngine untraced = engine(loader, skippingWords);
+        SimulatorEngine skipTraced = engine(loader, skippingWords);
+        untraced.setTraceCompilation(false);
+        assertEquals("untraced skip count", 401, untraced.run(1_000_000));
+        assertEquals("untraced skip X1", 100, untraced.getRegisterController().readRegister(1));
+        assertEquals("trace skips undecodable word", 401, skipTraced.run(1_000_000));
+        assertSameState("trace skip", untraced, skipTraced);
+    }
+
+    private static void testInstanceFactories() throws Exception {
+        InstructionConfigLoader full = new InstructionConfigLoader();
+        assertTrue("full configuration loads", full.loadConfig("resources/config/instructions.csv"));
+        InstructionFactory fullFactory = new InstructionFactory(full.getInstructionSet());
+
+        Path reducedConfig = Files.createTempFile("legv8-reduced-config-", ".csv");
+        try {
+            List<String> lines = new ArrayList<>(Files.readAllLines(Path.of("resources/config/instructions.csv")));
+            lines.removeIf(line -> line.startsWith("EOR,"));
+            Files.write(reducedConfig, lines);
+            InstructionConfigLoader reduced = new InstructionConfigLoader();
+            assertTrue("reduced configuration loads", reduced.loadConfig(reducedConfig.toString()));
+            InstructionFactory reducedFactory = new InstructionFactory(reduced.getInstructionSet());
+
+            List<String> source = Files.readAllLines(Path.of("resources/src_test/norm", "all.s"));
+            List<Instruction> reference = new Assembler(fullFactory).assemble(source);
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    boolean useFull = (i % 2 == 0);
+                    results.add(pool.submit(() -> {
+                        if (!useFull) {
+                            try {
+                                new Assembler(reducedFactory).assemble(List.of("EOR X1, X2, X3"));
+                                return false;
+                            } catch (AssemblyException expected) {
+                                return true;
+                            }
+                        }
+                        List<Instruction> assembled = new Assembler(fullFactory).assemble(source);
+                        for (int j = 0; j < reference.size(); j++) {
+                            if (assembled.get(j).getMachineCode() != reference.get(j).getMachineCode()) return false;
+                        }
+                        return assembled.size() == reference.size();
+                    }));
+                }
+                for (Future<Boolean> result : results) assertTrue("concurrent assembly with separate factories", result.get());
+            } finally {
+                pool.shutdown();
+            }
+
+            InstructionSet before = full.getInstructionSet();
+            assertTrue("reload with reduced config", full.loadConfig(reducedConfig.toString()));
+            assertTrue("reload replaces the snapshot", full.getInstructionSet() != before);
+            assertEquals("factory keeps its snapshot", "EOR",
+                fullFactory.assemble("EOR X1, X2, X3", Map.of(), BASE).getDefinition().getMnemonic());
+        } finally {
+            Files.deleteIfExists(reducedConfig);
+        }
+
+        SimulatorEngine engine = new SimulatorEngine(fullFactory, new InstructionMemory());
+        engine.loadProgram(List.of("MOVZ X1, #5", "EOR X2, X1, X1"));
+        assertEquals("engine assembles with its factory", 2, engine.run(10));
+        assertEquals("engine program result", 5, engine.getRegisterController().readRegister(1));
+    }
+
+    private static void testParallelAssembly() {
+        InstructionFactory factory = InstructionFactory.getDefault();
+        String[] pattern = { "ADDI X1, X1, #1", "SUB X2, X1, X3", "LDUR X4, [X5, #8]", "CBZ X1, #-2", "B #3", "MOVK X6, #0x12, LSL #16" };
+        int count = Assembler.PARALLEL_THRESHOLD + 1000;
+        List<String> source = new ArrayList<>();
+        for (int i = 0; i < count; i++) source.add(pattern[i % pattern.length]);
+
+        List<Instruction> assembled = new Assembler(factory).assemble(source);
+        assertEquals("parallel assembly size", count, assembled.size());
+        boolean matches = true;
+        for (int i = 0; i < count; i++) {
+            long address = BASE + 4L * i;
+            Instruction expected = factory.assemble(source.get(i), Map.of(), address);
+            if (assembled.get(i).getMachineCode() != expected.getMachineCode()) matches = false;
+        }
+        assertTrue("parallel assembly keeps program order", matches);
+
+        source.set(10, "BOGUS X1");
+        source.set(count - 10, "ADD X1, X2");
+        Assembler assembler = new Assembler(factory);
+        try {
+            assembler.assemble(source);
+            throw new AssertionError("expected assembly errors");
+        } catch (AssemblyException expected) {
+            List<String> errors = assembler.getErrors();
+            assertEquals("parallel assembly error count", 2, errors.size());
+            assertTrue("first error reported first", errors.get(0).contains("BOGUS"));
+            assertTrue("second error reported second", errors.get(1).contains("ADD X1, X2"));
+        }
+    }
+
+    private static void testAssemblyLexer() {
+        InstructionFactory factory = InstructionFactory.getDefault();
+        String[][] equivalent = {
+            { "ADD X1, X2, X3", "add x1,x2 , x3" },
+            { "LDUR X1, [SP, #-8]", "ldur\tx1 ,[ sp ,# -8 ]" },
+            { "MOVZ X1, #4660, LSL #16", "MOVZ X1, #0x1234, lsl #16" },
+            { "ADDI X1, X2, #8", "ADDI X1, X2, #010" },
+            { "ADDI X1, X2, #8", "ADDI X1, X2, #8L" },
+            { "LSL X1, X2, #3", "LSL X1,X2,#3" },
+            { "CBZ XZR, #-3", "cbz xzr, #-3" },
+            { "B.NE #2", "B.NE   #+2" },
+        };
+        for (String[] pair : equivalent) {
+            assertEquals("lexer accepts " + pair[1],
+                factory.assemble(pair[0], Map.of(), BASE).getMachineCode(),
+                factory.assemble(pair[1], Map.of(), BASE).getMachineCode());
+        }
+        assertEquals("lexer resolves labels", 2,
+            factory.assemble("B done", Map.of("done", BASE + 8), BASE).getMachineCode() & 0x3FFFFFF);
+
+        String[][] columns = {
+            { "FOO X1", "1" },
+            { "ADD X1, X2, X32", "13" },
+            { "ADD X1, X2", "11" },
+            { "ADD X1, X2, X3, X4", "15" },
+            { "LDUR X1, [X2, 8]", "15" },
+            { "ADDI X1, X2, #5000", "14" },
+            { "MOVZ X1, #5, ASR #16", "14" },
+            { "MOVZ X1, #5, LSL #8", "18" },
+            { "ADDI X1, X2, #12ab", "14" },
+            { "B missing", "3" },
+        };
+        for (String[] entry : columns) {
+            try {
+                factory.assemble(entry[0], Map.of(), BASE);
+                throw new AssertionError("expected an assembly error for " + entry[0]);
+            } catch (AssemblyException expected) {
+                assertEquals("error column for " + entry[0], Long.parseLong(entry[1]), expected.getColumn());
+            }
+        }
+
+        Assembler assembler = new Assembler(factory);
+        try {
+            assembler.assemble(List.of("MOVZ X1, #1", "  loop:  ADD X1, X2, #3"));
+            throw new AssertionError("expected assembly errors");
+        } catch (AssemblyException expected) {
+            assertTrue("assembler reports raw-line column", assembler.getErrors().get(0).contains("(Line ~2, Col 22)"));
+        }
+    }
+
+    private static void testIncrementalAssembly() {
+        InstructionFactory factory = InstructionFactory.getDefault();
+        List<String> source = new ArrayList<>(List.of(
+            "// sum 1..10",
+            "        MOVZ X1, #10",
+            "loop:   ADD X2, X2, X1",
+            "        SUBI X1, X1, #1",
+            "        CBNZ X1, loop",
+            "        B done",
+            "        ADDI X3, X3, #1",
+            "done:   ORR X4, X2, XZR"));
+        IncrementalAssembler incremental = new IncrementalAssembler();
+        assertTrue("incremental initial pass", incremental.update(source, factory).isEmpty());
+        assertEquals("initial pass encodes every instruction", 7, incremental.getLastEncodedCount());
+        assertSameProgram("incremental initial program", factory, source, incremental);
+
+        source.set(6, "        ADDI X3, X3, #2");
+        incremental.update(source, factory);
+        assertEquals("edit re-encodes one line", 1, incremental.getLastEncodedCount());
+        assertSameProgram("incremental edit", factory, source, incremental);
+
+        source.add(0, "        MOVZ X9, #1");
+        incremental.update(source, factory);
+        assertEquals("insert above all labels keeps offsets", 1, incremental.getLastEncodedCount());
+
+        source.add(7, "        ADDI X5, X5, #1");
+        incremental.update(source, factory);
+        assertEquals("insert between branch and target re-encodes the branch", 2, incremental.getLastEncodedCount());
+        assertSameProgram("incremental insert", factory, source, incremental);
+
+        source.set(7, "        ADDI X5, X5, #5000");
+        List<IncrementalAssembler.Diagnostic> diagnostics = incremental.update(source, factory);
+        assertEquals("diagnostic count", 1, diagnostics.size());
+        assertEquals("diagnostic line", 8, diagnostics.get(0).lineNumber());
+        assertEquals("diagnostic column", 22, diagnostics.get(0).column());
+        assertTrue("no program while invalid", incremental.getInstructions().isEmpty());
+
+        source.set(7, "        ADDI X5, X5, #1");
+        source.set(9, "end:    ORR X4, X2, XZR");
+        diagnostics = incremental.update(source, factory);
+        assertEquals("undefined label reported", 1, diagnostics.size());
+        assertTrue("undefined label message", diagnostics.get(0).message().contains("Undefined label: 'done'"));
+        source.set(9, "done:   ORR X4, X2, XZR");
+        assertTrue("redefined label clears error", incremental.update(source, factory).isEmpty());
+        assertSameProgram("incremental label fix", factory, source, incremental);
+
+        Random random = new Random(17);
+        String[] pool = { "ADDI X1, X1, #1", "loop: SUB X2, X2, X1", "B loop", "CBZ X1, done", "done:", "// note", "", "B.NE loop", "top: LSL X1, X1, #1", "CBNZ X2, top" };
+        boolean allMatch = true;
+        for (int edit = 0; edit < 60; edit++) {
+            int at = random.nextInt(source.size() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> source.add(at, pool[random.nextInt(pool.length)]);
+                case 1 -> { if (at < source.size()) source.remove(at); }
+                default -> { if (at < source.size()) source.set(at, pool[random.nextInt(pool.length)]); }
+            }
+            incremental.update(source, factory);
+            allMatch &= sameProgram(factory, source, incremental);
+        }
+        assertTrue("random edits match a full assembly", allMatch);
+    }
+
+    private static void assertSameProgram(String name, InstructionFactory factory, List<String> source, IncrementalAssembler incremental) {
+        assertTrue(name, sameProgram(factory, source, incremental));
+    }
+
+    private static boolean sameProgram(InstructionFactory factory, List<String> source, IncrementalAssembler incremental) {
+        List<Instruction> expected;
+        try {
+            expected = new Assembler(factory).assemble(source);
+        } catch (AssemblyException e) {
+            return !incremental.isValid();
+        }
+        List<Instruction> actual = incremental.getInstructions();
+        if (!incremental.isValid() || actual.size() != expected.size()) return false;
+        for (int i = 0; i < expected.size(); i++) {
+            if (actual.get(i).getMachineCode() != expected.get(i).getMachineCode()) return false;
+        }
+        return true;
+    }
+
+    private static void testObjectFiles(InstructionConfigLoader loader) throws Exception {
+        InstructionFactory factory = new InstructionFactory(loader.getInstructionSet());
+        String configHash = loader.getInstructionSet().getConfigHash();
+        assertEquals("config hash is SHA-256", 64, configHash.length());
+
+        List<String> source = Files.readAllLines(Path.of("resources/src_test/norm", "all.s"));
+        Assembler assembler = new Assembler(factory);
+        List<Instruction> reference = assembler.assemble(source);
+
+        Path objectPath = Files.createTempFile("legv8-object-", ".o");
+        Path rawPath = Files.createTempFile("legv8-raw-", ".bin");
+        try {
+            ObjectFile.assemble(source, factory).write(objectPath);
+            ObjectFile object = ObjectFile.read(objectPath, configHash);
+            assertEquals("object word count", reference.size(), object.getWordCount());
+            boolean wordsMatch = true;
+            for (int i = 0; i < reference.size(); i++) {
+                wordsMatch &= object.getWords().get(i) == reference.get(i).getMachineCode();
+            }
+            assertTrue("object words", wordsMatch);
+            assertTrue("object symbols", object.getSymbols().equals(assembler.getSymbolTable()));
+            assertEquals("object line map", assembler.getLineNumbers()[reference.size() - 1], object.getLineNumber(reference.size() - 1));
+
+            SimulatorEngine fromSource = new SimulatorEngine(factory, new InstructionMemory());
+            fromSource.loadProgram(source);
+            SimulatorEngine fromObject = new SimulatorEngine(factory, new InstructionMemory());
+            fromObject.loadObject(object);
+            assertEquals("object program length", reference.size(), fromObject.getInstructionMemory().getInstructionCount());
+            assertEquals("object program runs", fromSource.run(1_000_000), fromObject.run(1_000_000));
+            assertSameState("object program state", fromSource, fromObject);
+
+            try {
+                ObjectFile.read(objectPath, "00" + configHash.substring(2));
+                throw new AssertionError("expected a configuration mismatch");
+            } catch (ObjectFileException expected) {
+                assertTrue("configuration mismatch message", expected.getMessage().contains("different instruction configuration"));
+            }
+            byte[] bytes = Files.readAllBytes(objectPath);
+            Files.write(objectPath, Arrays.copyOf(bytes, bytes.length - 3));
+            try {
+                ObjectFile.read(objectPath, configHash);
+                throw new AssertionError("expected a truncated object file");
+            } catch (ObjectFileException expected) {
+                assertTrue("truncated object file rejected", true);
+            }
+
+            ByteBuffer raw = ByteBuffer.allocate(reference.size() * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (Instruction instruction : reference) raw.putInt(instruction.getMachineCode());
+            Files.write(rawPath, raw.array());
+            ObjectFile imported = ObjectFile.importRaw(rawPath, ProgramCounter.BASE_ADDRESS);
+            List<Instruction> disassembled = imported.disassemble(factory);
+            boolean disassemblyMatches = disassembled.size() == reference.size();
+            for (int i = 0; disassemblyMatches && i < reference.size(); i++) {
+                disassemblyMatches = disassembled.get(i).disassemble().equals(reference.get(i).disassemble());
+            }
+            assertTrue("raw binary disassembles", disassemblyMatches);
+
+            Files.write(rawPath, new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 });
+            SimulatorEngine lazy = new SimulatorEngine(factory, new InstructionMemory());
+            lazy.loadObject(ObjectFile.importRaw(rawPath, ProgramCounter.BASE_ADDRESS));
+            assertEquals("undecodable words load lazily", 2, lazy.getInstructionMemory().getInstructionCount());
+            try {
+                lazy.run(1);
+                throw new AssertionError("expected a decode failure on fetch");
+            } catch (SimulationException expected) {
+                assertTrue("decode failure on fetch", expected.getMessage().contains("decode"));
+            }
+        } finally {
+            Files.deleteIfExists(objectPath);
+            Files.deleteIfExists(rawPath);
+        }
+    }
+
+    private static void testCompiledConfigCache() throws Exception {
+        Path directory = Files.createTempDirectory("legv8-config-cache-");
+        Path csv = directory.resolve("instructions.csv");
+        Path cache = directory.resolve("instructions.csv.cache");
+        try {
+            Files.copy(Path.of("resources/config/instructions.csv"), csv);
+
+            InstructionConfigLoader parsed = new InstructionConfigLoader();
+            assertTrue("first load parses the CSV", parsed.loadConfig(csv.toString()) && !parsed.isLoadedFromCache());
+            assertTrue("first load writes the cache", Files.isRegularFile(cache));
+
+            InstructionConfigLoader cached = new InstructionConfigLoader();
+            assertTrue("second load uses the cache", cached.loadConfig(csv.toString()) && cached.isLoadedFromCache());
+            assertSameInstructionSet("cached configuration", parsed.getInstructionSet(), cached.getInstructionSet());
+            assertEquals("cached detailed definition", "ADD",
+                cached.getDefinition(parsed.getDefinitionByMnemonic("ADD").getOpcode(), 'R').getMnemonic());
+
+            List<String> lines = new ArrayList<>(Files.readAllLines(csv));
+            lines.removeIf(line -> line.startsWith("EOR,"));
+            Files.write(csv, lines);
+            InstructionConfigLoader edited = new InstructionConfigLoader();
+            assertTrue("edited CSV bypasses the stale cache", edited.loadConfig(csv.toString()) && !edited.isLoadedFromCache());
+            assertTrue("edited CSV drops EOR", edited.getDefinitionByMnemonic("EOR") == null);
+            assertTrue("cache refreshed for edited CSV", new InstructionConfigLoader().loadConfig(csv.toString()));
+
+            byte[] bytes = Files.readAllBytes(cache);
+            Files.write(cache, Arrays.copyOf(bytes, bytes.length / 2));
+            InstructionConfigLoader recovered = new InstructionConfigLoader();
+            assertTrue("corrupt cache falls back to the CSV", recovered.loadConfig(csv.toString()) && !recovered.isLoadedFromCache());
+            assertSameInstructionSet("recovered configuration", edited.getInstructionSet(), recovered.getInstructionSet());
+
+            InstructionConfigLoader uncached = new InstructionConfigLoader();
+            uncached.setUseCompiledCache(false);
+            Files.delete(cache);
+            assertTrue("cache can be disabled", uncached.loadConfig(csv.toString()) && !Files.exists(cache));
+        } finally {
+            Files.deleteIfExists(cache);
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void assertSameInstructionSet(String name, InstructionSet expected, InstructionSet actual) {
+        assertEquals(name + " hash", expected.getConfigHash(), actual.getConfigHash());
+        assertTrue(name + " mnemonics", expected.getMnemonicMap().keySet().equals(actual.getMnemonicMap().keySet()));
+        for (InstructionDefinition definition : expected.getMnemonicMap().values()) {
+            assertEquals(name + " " + definition.getMnemonic(), definition.toString(),
+                actual.getDefinitionByMnemonic(definition.getMnemonic()).toString());
+        }
+        boolean tablesMatch = true;
+        for (int word = 0; word < (1 << 11); word++) {
+            for (int cond = 0; cond < 16; cond++) {
+                InstructionDefinition a = expected.getDecodeTable().lookup((word << 21) | cond);
+                InstructionDefinition b = actual.getDecodeTable().lookup((word << 21) | cond);
+                tablesMatch &= (a == null) ? b == null : b != null && a.getMnemonic().equals(b.getMnemonic());
+            }
+        }
+        assertTrue(name + " decode table", tablesMatch);
+    }
+
+    private static void testSimulationDriver(InstructionConfigLoader loader) throws Exception {
+        String[] source = {
+            "MOVZ X1, #40",
+            "loop: ADD X2, X2, X1",
+            "SUBI X1, X1, #1",
+            "CBNZ X1, loop",
+            "ORR X3, X2, XZR"
+        };
+        SimulatorEngine reference = engine(loader, source);
+        while (reference.getInstructionMemory().containsAddress(reference.getProgramCounter().getCurrentAddress())) reference.step();
+
+        SimulatorEngine driven = engine(loader, source);
+        driven.setDeltaHistory(true);
+        SimulationDriver driver = new SimulationDriver(driven, 0);
+        SimulationDriver.Snapshot initial = driver.pollSnapshot();
+        assertTrue("initial snapshot shows live state", initial.microSteps().isEmpty() && initial.registers() != null);
+        assertTrue("initial snapshot is polled once", driver.pollSnapshot() == null);
+        assertEquals("snapshot program", "ORR    X3, X2, X31", initial.program().get(4).disassemble());
+        assertTrue("snapshot program bounds", initial.containsInstruction(BASE + 16) && !initial.containsInstruction(BASE + 20));
+
+        driver.run().get(30, TimeUnit.SECONDS);
+        SimulationDriver.Snapshot last = driver.pollSnapshot();
+        assertTrue("run completes", last.status() == SimulationDriver.Status.COMPLETED);
+        assertTrue("intermediate snapshots are dropped", driver.pollSnapshot() == null && last == driver.getLatestSnapshot());
+        assertTrue("run published every micro-step", last.sequence() > 100);
+        assertTrue("program copied once per load", last.program() == initial.program());
+        assertEquals("driver PC", reference.getProgramCounter().getCurrentAddress(), last.programCounter());
+        MicroStep finalStep = MicroStep.materialize(last.microSteps(), last.microStepIndex());
+        for (int reg = 0; reg < 31; reg++) {
+            assertEquals("driver X" + reg, reference.getRegisterController().readRegister(reg), finalStep.registerStorage().getValue(reg));
+        }
+
+        driver.resetProgram().get();
+        SimulationDriver.Snapshot reset = driver.pollSnapshot();
+        assertEquals("reset restarts the animation", last.epoch() + 1, reset.epoch());
+        assertEquals("reset PC", BASE, reset.programCounter());
+        assertEquals("reset clears registers", 0, reset.registers().getValue(2));
+        assertTrue("reset snapshot copies the registers", reset.registers() != driven.getRegisterController().getStorage());
+        try {
+            reset.memory().writeDoubleWord(MemoryStorage.MIN_ADDRESS, 1L);
+            throw new AssertionError("reset snapshot memory accepted a write");
+        } catch (UnsupportedOperationException expected) {
+            assertTrue("reset snapshot memory is read-only", true);
+        }
+
+        driver.nextInstruction().get();
+        SimulationDriver.Snapshot next = driver.pollSnapshot();
+        assertEquals("reset snapshot is unchanged by later steps", 0, reset.registers().getValue(1));
+        assertEquals("next instruction starts before its first micro-step", -1, next.microStepIndex());
+        assertEquals("next instruction executed", BASE + 4, next.programCounter());
+        driver.stepMicroStep().get();
+        assertEquals("step advances one micro-step", 0, driver.pollSnapshot().microStepIndex());
+
+        driver.setDelay(1000);
+        Future<?> paused = driver.run();
+        driver.pause();
+        paused.get(5, TimeUnit.SECONDS);
+        assertTrue("pause stops the run", driver.getLatestSnapshot().status() == SimulationDriver.Status.PAUSED && !driver.isRunning());
+        assertTrue("driver idle", driver.awaitIdle(1000));
+        driver.shutdown();
+    }
+
+    private static void testFastRuns(InstructionConfigLoader loader) throws Exception {
+        String[] source = {
+            "MOVZ X1, #200",
+            "loop: ADD X2, X2, X1",
+            "SUBI X1, X1, #1",
+            "CBNZ X1, loop",
+            "ADDI X5, X5, #7",
+            "ORR X3, X2, XZR",
+            "ADD X4, X3, X5"
+        };
+        long loopHead = BASE + 4;
+        long orr = BASE + 20;
+
+        SimulatorEngine reference = engine(loader, source);
+        execute(reference, 2 + 200 * 3);
+        SimulatorEngine stopped = engine(loader, source);
+        assertEquals("stop inside a block after a compiled loop", 2 + 200 * 3, stopped.run(100_000, orr));
+        assertSameState("run to address", reference, stopped);
+
+        assertEquals("stop at a loop head", 1, engine(loader, source).run(100_000, loopHead));
+        SimulatorEngine fromStop = engine(loader, source);
+        fromStop.run(100_000, loopHead);
+        assertEquals("the instruction at the PC always runs", 3, fromStop.run(100_000, loopHead));
+        SimulatorEngine unreachable = engine(loader, source);
+        assertEquals("unreachable stop address runs to the end", 3 + 200 * 3 + 1, unreachable.run(100_000, BASE + 0x1000));
+
+        SimulatorEngine driven = engine(loader, source);
+        driven.setDeltaHistory(true);
+        SimulationDriver driver = new SimulationDriver(driven, 0);
+        driver.runInstructions(100).get(30, TimeUnit.SECONDS);
+        SimulationDriver.Snapshot counted = driver.pollSnapshot();
+        SimulatorEngine hundred = engine(loader, source);
+        execute(hundred, 100);
+        assertTrue("instruction count stops the run", counted.status() == SimulationDriver.Status.STOPPED);
+        assertEquals("run N PC", hundred.getProgramCounter().getCurrentAddress(), counted.programCounter());
+        assertEquals("run N X2", hundred.getRegisterController().readRegister(2), counted.registers().getValue(2));
+        assertTrue("fast run records no micro-steps", counted.microSteps().isEmpty());
+
+        driver.runTo(orr).get(30, TimeUnit.SECONDS);
+        SimulationDriver.Snapshot atCursor = driver.pollSnapshot();
+        assertTrue("run to cursor stops", atCursor.status() == SimulationDriver.Status.STOPPED);
+        assertEquals("run to cursor PC", orr, atCursor.programCounter());
+        assertEquals("run to cursor X5", 7, atCursor.registers().getValue(5));
+
+        driver.stepMicroStep().get();
+        SimulationDriver.Snapshot animated = driver.pollSnapshot();
+        assertTrue("stepping after a fast run animates the target", !animated.microSteps().isEmpty() && animated.microSteps().get(0).hasFullState());
+        assertEquals("animated target executed", orr + 4, animated.programCounter());
+
+        driver.runToEnd().get(30, TimeUnit.SECONDS);
+        SimulationDriver.Snapshot end = driver.pollSnapshot();
+        SimulatorEngine complete = engine(loader, source);
+        complete.run(100_000);
+        assertTrue("run to end completes", end.status() == SimulationDriver.Status.COMPLETED);
+        for (int reg = 0; reg < 31; reg++) {
+            assertEquals("run to end X" + reg, complete.getRegisterController().readRegister(reg), end.registers().getValue(reg));
+        }
+        driver.shutdown();
+
+        // Progress snapshots of a fast run are copies: they stay consistent while the worker keeps running
+        SimulationDriver endless = new SimulationDriver(engine(loader,
+            "MOVZ X9, #0x50, LSL #16", "loop: ADDI X2, X2, #1", "STUR X2, [X9, #0]", "B loop"), 0);
+        Future<?> endlessRun = endless.runToEnd();
+        SimulationDriver.Snapshot progress = endless.getLatestSnapshot();
+        for (long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+             progress.status() != SimulationDriver.Status.RUNNING && System.nanoTime() < deadline; ) {
+            Thread.sleep(5);
+            progress = endless.getLatestSnapshot();
+        }
+        assertTrue("fast run publishes progress", progress.status() == SimulationDriver.Status.RUNNING);
+        long progressX2 = progress.registers().getValue(2);
+        long progressStored = progress.memory().readDoubleWord(0x500000L);
+        Thread.sleep(2 * SimulationDriver.FAST_REFRESH_INTERVAL_MS);
+        endless.pause();
+        endlessRun.get(5, TimeUnit.SECONDS);
+        assertEquals("progress registers are not the live registers", progressX2, progress.registers().getValue(2));
+        assertEquals("progress memory is not the live memory", progressStored, progress.memory().readDoubleWord(0x500000L));
+        assertTrue("the run went on after the progress snapshot",
+            endless.getLatestSnapshot().registers().getValue(2) > progressX2);
+        endless.shutdown();
+    }
+
+    private static void testNextNonZeroDoubleWord() {
+        MemoryStorage memory = new MemoryStorage();
+        assertEquals("empty memory", -1L, memory.findNextNonZeroDoubleWord(MemoryStorage.MIN_ADDRESS));
+
+        memory.writeDoubleWord(0x500010L, 5L);
+        memory.writeByte(0x503FFFL, (byte) 1);
+        memory.writeDoubleWord(0x7000000L, -1L);
+        memory.writeDoubleWord(0x502000L, 9L);
+        memory.writeDoubleWord(0x502000L, 0L);
+
+        assertEquals("below the data segment", 0x500010L, memory.findNextNonZeroDoubleWord(0L));
+        assertEquals("inclusive start", 0x500010L, memory.findNextNonZeroDoubleWord(0x500010L));
+        assertEquals("rounded up", 0x503FF8L, memory.findNextNonZeroDoubleWord(0x500011L));
+        assertEquals("zeroed page skipped", 0x503FF8L, memory.findNextNonZeroDoubleWord(0x502000L));
+        assertEquals("far page", 0x7000000L, memory.findNextNonZeroDoubleWord(0x504000L));
+        assertEquals("past the last value", -1L, memory.findNextNonZeroDoubleWord(0x7000001L));
+        assertEquals("top of the address space", -1L, memory.findNextNonZeroDoubleWord(Long.MAX_VALUE));
+        assertEquals("snapshot", 0x7000000L, memory.snapshot().findNextNonZeroDoubleWord(0x504000L));
+    }
+
     public static void main(String[] args) throws Exception {
         InstructionConfigLoader loader = new InstructionConfigLoader();
         assertTrue("configuration loads", loader.loadConfig("resources/config/instructions.csv"));
@@ -169,6 +1115,28 @@ public final class RegressionTests {
         testLogicalOpcodes(loader);
         testBranchAndLink(loader);
         testSignedWordLoad(loader);
+        testFastPathMatchesMicroSteps(loader);
+        testPagedMemoryStorage();
+        testDeltaHistory(loader);
+        testLazyStepValues();
+        testQuietHotPathLogging(loader);
+        testPreDecodedInstructions();
+        testMachineWordEncoding();
+        testDecodeTable(loader);
+        testPackedFlags(loader);
+        testOperationKinds(loader);
+        testBlockTranslation(loader);
+        testTraceCompilation(loader);
+        testInstanceFactories();
+        testParallelAssembly();
+        testAssemblyLexer();
+        testIncrementalAssembly();
+        testObjectFiles(loader);
+        testCompiledConfigCache();
+        testSimulationDriver(loader);
+        testFastRuns(loader);
+        testNextNonZeroDoubleWord();
+        testLogLevelOverrides();
 
         System.out.println("Regression tests passed: " + assertions + " assertions");
     }